@@ -23,8 +23,10 @@ import com.radixdlt.consensus.tempo.Scheduler;
 import com.radixdlt.consensus.tempo.Tempo;
 import com.radixdlt.delivery.LazyRequestDeliverer;
 import com.radixdlt.delivery.LazyRequestDelivererConfiguration;
+import com.radixdlt.serialization.Serialization;
 import com.radixdlt.store.LedgerEntryStore;
 import com.radixdlt.store.LedgerEntryStoreView;
+import com.radixdlt.streaming.MessageStreams;
 import org.junit.After;
 import org.junit.Before;
 import org.mockito.invocation.InvocationOnMock;
@@ -64,7 +66,10 @@ public class RadixTestWithStores extends RadixTest
 			ImmutableSet.of(),
 			new LazyRequestDeliverer(
 				mock(Scheduler.class),
+				System::currentTimeMillis,
 				mock(MessageCentral.class),
+				mock(MessageStreams.class),
+				Serialization.getDefault(),
 				mock(LedgerEntryStoreView.class),
 				LazyRequestDelivererConfiguration.fromRuntimeProperties(getProperties()),
 				getUniverse()
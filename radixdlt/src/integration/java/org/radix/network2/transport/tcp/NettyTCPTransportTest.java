@@ -134,7 +134,7 @@ public class NettyTCPTransportTest {
 
 	private void handleMessage(InboundMessage message) {
 		packetCounter.incrementAndGet();
-		byteCounter.addAndGet(message.message().length);
+		byteCounter.addAndGet(message.messageBuffer().remaining());
 	}
 
 	private void unexpectedMessage(InboundMessage message) {
@@ -167,6 +167,16 @@ public class NettyTCPTransportTest {
 			public int priority(int defaultValue) {
 				return 0;
 			}
+
+			@Override
+			public int flushThreshold(int defaultValue) {
+				return defaultValue;
+			}
+
+			@Override
+			public int channelsPerPeer(int defaultValue) {
+				return defaultValue;
+			}
 		};
 		Injector injector = Guice.createInjector(new TCPTransportModule(config));
 		return injector.getInstance(NettyTCPTransport.class);
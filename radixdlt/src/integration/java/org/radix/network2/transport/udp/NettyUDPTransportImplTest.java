@@ -129,7 +129,7 @@ public class NettyUDPTransportImplTest {
 
 	private void handleMessage(InboundMessage message) {
 		packetCounter.incrementAndGet();
-		byteCounter.addAndGet(message.message().length);
+		byteCounter.addAndGet(message.messageBuffer().remaining());
 	}
 
 	private void unexpectedMessage(InboundMessage message) {
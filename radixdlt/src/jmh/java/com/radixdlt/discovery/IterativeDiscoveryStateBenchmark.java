@@ -0,0 +1,97 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.discovery;
+
+import com.radixdlt.common.EUID;
+import com.radixdlt.discovery.IterativeDiscoveryState.PageRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH driven contention benchmark for {@link IterativeDiscoveryState}, simulating several
+ * request processing threads serving requests and responses of many peers at the same time.
+ * <p>
+ * Run using:
+ * <pre>
+ *    $ gradle --no-daemon clean jmh
+ * </pre>
+ * from the radixdlt directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Threads(8)
+public class IterativeDiscoveryStateBenchmark {
+	private static final int WINDOW = 4;
+
+	@Param({"100", "500"})
+	private int numPeers;
+
+	private EUID[] nids;
+	private IterativeDiscoveryState state;
+
+	@Setup
+	public void setUp() {
+		this.state = new IterativeDiscoveryState(64, 1024, 500);
+		this.nids = new EUID[numPeers];
+		for (int i = 0; i < numPeers; i++) {
+			this.nids[i] = new EUID(i);
+			this.state.add(nids[i]);
+			this.state.startRound(nids[i], 0, 0);
+		}
+	}
+
+	@Benchmark
+	public Object requestAndComplete() {
+		EUID nid = nids[ThreadLocalRandom.current().nextInt(numPeers)];
+		long now = System.currentTimeMillis();
+		Optional<PageRequest> page = state.nextRequest(nid, WINDOW, now);
+		if (page.isPresent()) {
+			// full pages keep the round going indefinitely
+			return state.completeRequest(nid, page.get().getPosition(), page.get().getLimit(), 0, now);
+		}
+		return state.getCursorPosition(nid);
+	}
+
+	@Benchmark
+	public boolean readMostly() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		EUID nid = nids[random.nextInt(numPeers)];
+		if (random.nextInt(10) == 0) {
+			long now = System.currentTimeMillis();
+			state.nextRequest(nid, WINDOW, now)
+				.ifPresent(page -> state.completeRequest(nid, page.getPosition(), page.getLimit(), 0, now));
+		}
+		return state.isBulk(nid) || state.getBackoff(nid) > 0 || state.isDiscovered(nid);
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.store.berkeley;
+
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.AID;
+import com.radixdlt.store.LedgerEntry;
+import com.radixdlt.store.LedgerSearchMode;
+import com.radixdlt.store.SearchCursor;
+import com.radixdlt.store.StoreIndex.LedgerIndexType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH driven benchmark of the read paths of {@link BerkeleyLedgerEntryStore} on a populated ledger,
+ * reporting both throughput and the latency distribution of each operation.
+ * <p>
+ * Lookups are of uniformly random entries, so larger ledgers exceed the JE cache as they would in production.
+ * Run using:
+ * <pre>
+ *    $ gradle --no-daemon clean jmh -Pjmh.include=BerkeleyLedgerEntryStoreReadBenchmark -Pjmh.profilers=gc
+ * </pre>
+ * from the radixdlt directory. Set {@code radix.benchmark.ledger.dir} to reuse populated ledgers between runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+public class BerkeleyLedgerEntryStoreReadBenchmark {
+	private static final int COMMITTED_PAGE_SIZE = 100;
+
+	@Param({"100000", "1000000", "10000000"})
+	private int size;
+
+	@Param({"512"})
+	private int contentSize;
+
+	private LedgerFixture fixture;
+	private BerkeleyLedgerEntryStore store;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.fixture = LedgerFixture.open(size, contentSize, false);
+		this.store = fixture.getStore();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.fixture.close();
+	}
+
+	@Benchmark
+	public Optional<LedgerEntry> get() {
+		return store.get(LedgerFixture.aid(randomEntry()));
+	}
+
+	@Benchmark
+	public boolean contains() {
+		return store.contains(LedgerFixture.aid(randomEntry()));
+	}
+
+	@Benchmark
+	public boolean containsMissing() {
+		return store.contains(LedgerFixture.aid(size + (long) randomEntry()));
+	}
+
+	@Benchmark
+	public boolean containsUniqueIndex() {
+		return store.contains(LedgerIndexType.UNIQUE, LedgerFixture.uniqueIndex(randomEntry()), LedgerSearchMode.EXACT);
+	}
+
+	@Benchmark
+	public int searchAndIterate() {
+		int group = ThreadLocalRandom.current().nextInt(fixture.getGroups());
+		SearchCursor cursor = store.search(LedgerIndexType.DUPLICATE, LedgerFixture.duplicateIndex(group), LedgerSearchMode.EXACT);
+		int count = 0;
+		while (cursor != null) {
+			count++;
+			cursor = cursor.next();
+		}
+		return count;
+	}
+
+	@Benchmark
+	public ImmutableList<AID> getNextCommitted() {
+		long logicalClock = ThreadLocalRandom.current().nextLong(Math.max(1, size - COMMITTED_PAGE_SIZE));
+		return store.getNextCommitted(logicalClock, COMMITTED_PAGE_SIZE);
+	}
+
+	private int randomEntry() {
+		return ThreadLocalRandom.current().nextInt(size);
+	}
+}
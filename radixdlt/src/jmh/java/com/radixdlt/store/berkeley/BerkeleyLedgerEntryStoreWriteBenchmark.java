@@ -0,0 +1,152 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.store.berkeley;
+
+import com.google.common.collect.ImmutableSet;
+import com.radixdlt.store.LedgerEntry;
+import com.radixdlt.store.LedgerEntryStoreResult;
+import com.radixdlt.store.StoreIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH driven benchmark of the write paths of {@link BerkeleyLedgerEntryStore} on a populated ledger,
+ * reporting both throughput and the latency distribution of each operation.
+ * <p>
+ * Every trial writes to its own copy of the ledger. {@code commit} commits entries stored as pending
+ * before each iteration, and {@code storeConflicting} stores entries whose unique index is already
+ * taken, measuring conflict detection including the lookup of the conflicting entries.
+ * Run using:
+ * <pre>
+ *    $ gradle --no-daemon clean jmh -Pjmh.include=BerkeleyLedgerEntryStoreWriteBenchmark -Pjmh.profilers=gc
+ * </pre>
+ * from the radixdlt directory. Set {@code radix.benchmark.ledger.dir} to reuse populated ledgers between runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+public class BerkeleyLedgerEntryStoreWriteBenchmark {
+	// enough for an iteration of commits at well beyond the commit rates seen so far
+	private static final int PENDING_PER_ITERATION = 250_000;
+
+	@Param({"100000", "1000000", "10000000"})
+	private int size;
+
+	@Param({"512"})
+	private int contentSize;
+
+	private LedgerFixture fixture;
+	private BerkeleyLedgerEntryStore store;
+	private long nextEntry;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.fixture = LedgerFixture.open(size, contentSize, true);
+		this.store = fixture.getStore();
+		this.nextEntry = size;
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.fixture.close();
+	}
+
+	/**
+	 * Entries stored as pending before each iteration, to be committed by {@link #commit(PendingEntries)}.
+	 */
+	@State(Scope.Benchmark)
+	public static class PendingEntries {
+		private LedgerEntry[] entries;
+		private int next;
+
+		@Setup(Level.Iteration)
+		public void setUp(BerkeleyLedgerEntryStoreWriteBenchmark benchmark) {
+			this.entries = new LedgerEntry[PENDING_PER_ITERATION];
+			for (int i = 0; i < entries.length; i++) {
+				entries[i] = benchmark.storeNext();
+			}
+			this.next = 0;
+		}
+
+		@TearDown(Level.Iteration)
+		public void tearDown(BerkeleyLedgerEntryStoreWriteBenchmark benchmark) {
+			// commit leftovers so later iterations start from a ledger without pending entries
+			for (int i = next; i < entries.length; i++) {
+				benchmark.store.commit(entries[i].getAID());
+			}
+		}
+
+		private LedgerEntry next() {
+			if (next >= entries.length) {
+				throw new IllegalStateException("All " + entries.length + " pending entries committed, increase PENDING_PER_ITERATION");
+			}
+			return entries[next++];
+		}
+	}
+
+	@Benchmark
+	public LedgerEntryStoreResult store() {
+		long index = nextEntry++;
+		return store.store(fixture.entry(index), fixture.uniqueIndices(index), fixture.duplicateIndices(index));
+	}
+
+	@Benchmark
+	public void commit(PendingEntries pending) {
+		store.commit(pending.next().getAID());
+	}
+
+	@Benchmark
+	public void storeAndCommit() {
+		store.commit(storeNext().getAID());
+	}
+
+	@Benchmark
+	public LedgerEntryStoreResult storeConflicting() {
+		long index = nextEntry++;
+		ImmutableSet<StoreIndex> conflicting = ImmutableSet.of(LedgerFixture.uniqueIndex(ThreadLocalRandom.current().nextInt(size)));
+		LedgerEntryStoreResult result = store.store(fixture.entry(index), conflicting, fixture.duplicateIndices(index));
+		if (result.isSuccess()) {
+			throw new IllegalStateException("Entry " + index + " was stored despite a conflicting unique index");
+		}
+		return result;
+	}
+
+	private LedgerEntry storeNext() {
+		long index = nextEntry++;
+		LedgerEntry entry = fixture.entry(index);
+		if (!store.store(entry, fixture.uniqueIndices(index), fixture.duplicateIndices(index)).isSuccess()) {
+			throw new IllegalStateException("Failed to store entry " + index);
+		}
+		return entry;
+	}
+}
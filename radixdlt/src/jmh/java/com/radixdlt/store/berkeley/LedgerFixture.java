@@ -0,0 +1,193 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.store.berkeley;
+
+import com.google.common.collect.ImmutableSet;
+import com.radixdlt.common.AID;
+import com.radixdlt.common.EUID;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.store.LedgerEntry;
+import com.radixdlt.store.StoreIndex;
+import com.radixdlt.utils.Ints;
+import org.json.JSONObject;
+import org.radix.database.DatabaseEnvironment;
+import org.radix.logging.Logging;
+import org.radix.properties.RuntimeProperties;
+import org.radix.serialization.TestSetupUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * A {@link BerkeleyLedgerEntryStore} in a temporary directory, populated with a deterministic
+ * set of committed entries so benchmarks can address any entry by its index.
+ * <p>
+ * Entry {@code i} has a pseudo random AID, one application unique index and one duplicate index
+ * shared with the other entries of its group, modelling particles and addresses respectively.
+ * Its logical clock is {@code i + 1}.
+ * <p>
+ * Populating large ledgers takes a while, so if the {@code radix.benchmark.ledger.dir} system property
+ * is set, populated ledgers are kept there and reused by later runs. Writable fixtures are copies.
+ */
+final class LedgerFixture implements AutoCloseable {
+	static final byte UNIQUE_PREFIX = 2;
+	static final byte DUPLICATE_PREFIX = 3;
+	static final int ENTRIES_PER_GROUP = 100;
+
+	private static final String CACHE_DIR_PROPERTY = "radix.benchmark.ledger.dir";
+	private static final String POPULATED_MARKER = "populated";
+
+	private final int size;
+	private final int contentSize;
+	private final Path directory;
+	private final boolean temporary;
+	private final DatabaseEnvironment dbEnv;
+	private final BerkeleyLedgerEntryStore store;
+
+	private LedgerFixture(int size, int contentSize, Path directory, boolean temporary) {
+		this.size = size;
+		this.contentSize = contentSize;
+		this.directory = directory;
+		this.temporary = temporary;
+
+		RuntimeProperties properties = new RuntimeProperties(new JSONObject(), null);
+		properties.set("db.location", directory.toAbsolutePath().toString());
+		this.dbEnv = new DatabaseEnvironment(properties);
+		this.store = new BerkeleyLedgerEntryStore(EUID.ONE, Serialization.getDefault(), dbEnv);
+	}
+
+	/**
+	 * Opens a ledger with the given number of committed entries.
+	 *
+	 * @param size The number of committed entries
+	 * @param contentSize The size of the content of each entry in bytes
+	 * @param writable Whether the benchmark modifies the ledger, in which case a cached ledger is copied
+	 */
+	static LedgerFixture open(int size, int contentSize, boolean writable) throws Exception {
+		Logging.getLogger().setLevels(Logging.ALL & ~Logging.INFO & ~Logging.TRACE & ~Logging.DEBUG & ~Logging.ERROR);
+		TestSetupUtils.installBouncyCastleProvider();
+
+		String cacheDir = System.getProperty(CACHE_DIR_PROPERTY);
+		if (cacheDir == null) {
+			LedgerFixture fixture = new LedgerFixture(size, contentSize, Files.createTempDirectory("radix-ledger"), true);
+			fixture.populate();
+			return fixture;
+		}
+
+		Path cached = Paths.get(cacheDir, "ledger-" + size + "-" + contentSize);
+		if (!Files.exists(cached.resolve(POPULATED_MARKER))) {
+			delete(cached);
+			Files.createDirectories(cached);
+			try (LedgerFixture fixture = new LedgerFixture(size, contentSize, cached, false)) {
+				fixture.populate();
+			}
+			Files.createFile(cached.resolve(POPULATED_MARKER));
+		}
+		if (!writable) {
+			return new LedgerFixture(size, contentSize, cached, false);
+		}
+
+		Path copy = Files.createTempDirectory("radix-ledger");
+		try (Stream<Path> files = Files.list(cached)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.copy(file, copy.resolve(file.getFileName()));
+			}
+		}
+		return new LedgerFixture(size, contentSize, copy, true);
+	}
+
+	private void populate() {
+		for (int i = 0; i < size; i++) {
+			LedgerEntry entry = entry(i);
+			if (!store.store(entry, uniqueIndices(i), duplicateIndices(i)).isSuccess()) {
+				throw new IllegalStateException("Failed to store entry " + i);
+			}
+			store.commit(entry.getAID());
+		}
+	}
+
+	BerkeleyLedgerEntryStore getStore() {
+		return store;
+	}
+
+	int getSize() {
+		return size;
+	}
+
+	int getGroups() {
+		return Math.max(1, size / ENTRIES_PER_GROUP);
+	}
+
+	/**
+	 * Gets the entry with the given index, which need not be stored.
+	 */
+	LedgerEntry entry(long index) {
+		byte[] content = new byte[contentSize];
+		new SplittableRandom(~index).nextBytes(content);
+		return new LedgerEntry(content, aid(index));
+	}
+
+	static AID aid(long index) {
+		byte[] bytes = new byte[AID.BYTES];
+		new SplittableRandom(index).nextBytes(bytes);
+		return AID.from(bytes);
+	}
+
+	static StoreIndex uniqueIndex(long index) {
+		byte[] identifier = new byte[32];
+		new SplittableRandom(index ^ 0x5DEECE66DL).nextBytes(identifier);
+		return new StoreIndex(UNIQUE_PREFIX, identifier);
+	}
+
+	static StoreIndex duplicateIndex(int group) {
+		return new StoreIndex(DUPLICATE_PREFIX, Ints.toByteArray(group));
+	}
+
+	ImmutableSet<StoreIndex> uniqueIndices(long index) {
+		return ImmutableSet.of(uniqueIndex(index));
+	}
+
+	ImmutableSet<StoreIndex> duplicateIndices(long index) {
+		return ImmutableSet.of(duplicateIndex((int) (index % getGroups())));
+	}
+
+	@Override
+	public void close() throws IOException {
+		store.close();
+		dbEnv.stop();
+		if (temporary) {
+			delete(directory);
+		}
+	}
+
+	private static void delete(Path directory) throws IOException {
+		if (!Files.exists(directory)) {
+			return;
+		}
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+}
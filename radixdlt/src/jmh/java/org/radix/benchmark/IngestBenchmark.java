@@ -0,0 +1,117 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.benchmark;
+
+import com.radixdlt.serialization.Serialization;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.radix.benchmark.IngestHarness.Submission;
+import org.radix.corpus.AtomCorpus;
+import org.radix.logging.Logging;
+import org.radix.serialization.TestSetupUtils;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH driven end-to-end ingest benchmark, replaying a pre-signed atom corpus through an {@link IngestHarness}.
+ * <p>
+ * {@code ingestBatch} reports atoms/sec with a full pipeline, {@code ingestOne} reports the latency
+ * distribution of single atoms including p99. Allocation rates are reported with the gc profiler.
+ * Each iteration starts from an empty ledger and consumes atoms from the corpus, so the corpus must
+ * be large enough for an iteration. Generate a corpus with {@code org.radix.GenerateAtomCorpus}, then run:
+ * <pre>
+ *    $ gradle --no-daemon clean jmh -Pjmh.include=IngestBenchmark -Pjmh.profilers=gc
+ * </pre>
+ * from the radixdlt directory, with the corpus in {@code atoms.corpus} or the path given in the
+ * {@code radix.benchmark.corpus} system property.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+public class IngestBenchmark {
+	private static final int BATCH_SIZE = 1000;
+
+	@Param({"200000"})
+	private int corpusSize;
+
+	private Serialization serialization;
+	private AtomCorpus corpus;
+	private List<Submission> atoms;
+	private int next;
+	private IngestHarness harness;
+
+	@Setup(Level.Trial)
+	public void loadCorpus() throws Exception {
+		Logging.getLogger().setLevels(Logging.ALL & ~Logging.INFO & ~Logging.TRACE & ~Logging.DEBUG);
+		TestSetupUtils.installBouncyCastleProvider();
+		this.serialization = Serialization.getDefault();
+		File file = new File(System.getProperty("radix.benchmark.corpus", "atoms.corpus"));
+		this.corpus = AtomCorpus.read(file, serialization, corpusSize);
+		this.atoms = IngestHarness.prepare(corpus.getAtoms(), serialization);
+	}
+
+	@Setup(Level.Iteration)
+	public void setUp() throws Exception {
+		this.harness = new IngestHarness(corpus.getUniverse(), serialization);
+		this.next = 0;
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() throws Exception {
+		this.harness.close();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	@OperationsPerInvocation(BATCH_SIZE)
+	public long ingestBatch() throws InterruptedException {
+		return harness.ingest(nextAtoms(BATCH_SIZE));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public long ingestOne() throws InterruptedException {
+		return harness.ingest(nextAtoms(1));
+	}
+
+	private List<Submission> nextAtoms(int count) {
+		if (next + count > atoms.size()) {
+			throw new IllegalStateException("Corpus of " + atoms.size() + " atoms exhausted, generate a larger corpus");
+		}
+		List<Submission> slice = atoms.subList(next, next + count);
+		next += count;
+		return slice;
+	}
+}
@@ -0,0 +1,295 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.benchmark;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.radixdlt.common.AID;
+import com.radixdlt.common.Atom;
+import com.radixdlt.common.EUID;
+import com.radixdlt.consensus.Consensus;
+import com.radixdlt.consensus.ConsensusObservation;
+import com.radixdlt.consensus.tempo.Application;
+import com.radixdlt.engine.RadixEngine;
+import com.radixdlt.middleware2.MiddlewareModule;
+import com.radixdlt.middleware2.converters.AtomToBinaryConverter;
+import com.radixdlt.middleware2.processing.ParallelAtomValidator;
+import com.radixdlt.middleware2.processing.RadixEngineAtomProcessor;
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.store.LedgerEntryStore;
+import com.radixdlt.store.berkeley.BerkeleyLedgerEntryStore;
+import com.radixdlt.tracing.AtomLifecycleTracer;
+import com.radixdlt.universe.Universe;
+import org.HdrHistogram.Histogram;
+import org.json.JSONObject;
+import org.radix.atoms.events.AtomExceptionEvent;
+import org.radix.atoms.events.AtomStoredEvent;
+import org.radix.corpus.AtomCorpus;
+import org.radix.database.DatabaseEnvironment;
+import org.radix.events.EventListener;
+import org.radix.events.Events;
+import org.radix.logging.Logging;
+import org.radix.properties.RuntimeProperties;
+import org.radix.serialization.TestSetupUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replays pre-signed atoms through {@link RadixEngineAtomProcessor}, the engine, {@code LedgerEngineStore}
+ * and a {@link BerkeleyLedgerEntryStore} in a temporary directory, with consensus replaced by a loopback
+ * which commits every atom immediately.
+ * <p>
+ * Used by {@link IngestBenchmark}, and can also be run standalone on a corpus generated by
+ * {@code org.radix.GenerateAtomCorpus}, reporting atoms/sec, allocation rate and latency percentiles:
+ * <pre>
+ *    $ gradle jmhJar
+ *    $ java -cp build/libs/radixdlt-jmh.jar org.radix.benchmark.IngestHarness atoms.corpus [atoms]
+ * </pre>
+ */
+public final class IngestHarness implements Closeable {
+	private static final long INGEST_TIMEOUT_MINUTES = 10;
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(INGEST_TIMEOUT_MINUTES);
+
+	private final Serialization serialization;
+	private final Path directory;
+	private final DatabaseEnvironment dbEnv;
+	private final RadixEngineAtomProcessor processor;
+
+	private final ConcurrentMap<AID, Long> inFlight = new ConcurrentHashMap<>();
+	private final Semaphore completions = new Semaphore(0);
+	private final AtomicLong failed = new AtomicLong();
+	private final EventListener<AtomStoredEvent> storedListener = event -> complete(event.getAtom().getAID(), false);
+	private final EventListener<AtomExceptionEvent> exceptionListener = event -> complete(event.getAtomId(), true);
+	private volatile Histogram latencies;
+
+	/**
+	 * Sets up an empty ledger for the given universe, including its genesis.
+	 */
+	public IngestHarness(Universe universe, Serialization serialization) throws Exception {
+		this.serialization = serialization;
+		this.directory = Files.createTempDirectory("radix-ingest");
+
+		RuntimeProperties properties = new RuntimeProperties(new JSONObject(), null);
+		properties.set("db.location", directory.toAbsolutePath().toString());
+		properties.set("debug.nopow", true);
+		this.dbEnv = new DatabaseEnvironment(properties);
+		LedgerEntryStore store = new BerkeleyLedgerEntryStore(EUID.ONE, serialization, dbEnv);
+
+		Injector injector = Guice.createInjector(new MiddlewareModule(), new AbstractModule() {
+			@Override
+			protected void configure() {
+				bind(RuntimeProperties.class).toInstance(properties);
+				bind(Serialization.class).toInstance(serialization);
+				bind(Universe.class).toInstance(universe);
+				bind(LedgerEntryStore.class).toInstance(store);
+			}
+		});
+
+		LoopbackConsensus consensus = new LoopbackConsensus();
+		this.processor = new RadixEngineAtomProcessor(
+			consensus,
+			store,
+			injector.getInstance(RadixEngine.class),
+			injector.getInstance(ParallelAtomValidator.class),
+			serialization,
+			injector.getInstance(AtomToBinaryConverter.class),
+			injector.getInstance(AtomLifecycleTracer.class)
+		);
+		consensus.application = this.processor;
+
+		Events.getInstance().register(AtomStoredEvent.class, storedListener);
+		Events.getInstance().register(AtomExceptionEvent.class, exceptionListener);
+		this.processor.start(universe);
+	}
+
+	/**
+	 * Converts atoms to the JSON form they are submitted in, so conversion is not part of the measurement.
+	 */
+	public static List<Submission> prepare(List<Atom> atoms, Serialization serialization) {
+		return atoms.stream()
+			.map(atom -> new Submission(atom.getAID(), serialization.toJsonObject(atom, Output.WIRE)))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Records the latency of each atom from submission until it was stored or rejected, in microseconds.
+	 *
+	 * @param latencies The histogram to record to, or null to stop recording
+	 */
+	public void recordLatencies(Histogram latencies) {
+		this.latencies = latencies;
+	}
+
+	/**
+	 * Submits the given atoms and waits until all of them were stored or rejected.
+	 *
+	 * @return The number of atoms which were rejected
+	 */
+	public long ingest(List<Submission> atoms) throws InterruptedException {
+		long failedBefore = failed.get();
+		for (Submission atom : atoms) {
+			// registered before submission, as the atom may be stored before process returns
+			inFlight.put(atom.aid, System.nanoTime());
+			processor.process(atom.json, Optional.empty());
+		}
+		if (!completions.tryAcquire(atoms.size(), INGEST_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+			throw new IllegalStateException("Timed out waiting for " + inFlight.size() + " atoms to be stored");
+		}
+		return failed.get() - failedBefore;
+	}
+
+	private void complete(AID aid, boolean rejected) {
+		Long submitted = inFlight.remove(aid);
+		if (submitted == null) {
+			// genesis or an event for an atom completed already
+			return;
+		}
+		if (rejected) {
+			failed.incrementAndGet();
+		}
+		Histogram histogram = latencies;
+		if (histogram != null) {
+			long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - submitted);
+			synchronized (histogram) {
+				histogram.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, micros));
+			}
+		}
+		completions.release();
+	}
+
+	@Override
+	public void close() throws IOException {
+		Events.getInstance().deregister(AtomStoredEvent.class, storedListener);
+		Events.getInstance().deregister(AtomExceptionEvent.class, exceptionListener);
+		// also closes the store
+		processor.stop();
+		dbEnv.stop();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return -1L;
+		}
+		long total = 0L;
+		for (long allocated : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+			total += Math.max(0L, allocated);
+		}
+		return total;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("Usage: IngestHarness <corpus file> [atoms]");
+			System.exit(1);
+		}
+		Logging.getLogger().setLevels(Logging.ALL & ~Logging.INFO & ~Logging.TRACE & ~Logging.DEBUG);
+		TestSetupUtils.installBouncyCastleProvider();
+		Serialization serialization = Serialization.getDefault();
+
+		int limit = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+		AtomCorpus corpus = AtomCorpus.read(new File(args[0]), serialization, limit);
+		List<Submission> atoms = prepare(corpus.getAtoms(), serialization);
+		// the first tenth warms up the JIT and the store and is not measured
+		int warmup = atoms.size() / 10;
+		List<Submission> measured = new ArrayList<>(atoms.subList(warmup, atoms.size()));
+
+		int exitCode = 0;
+		try (IngestHarness harness = new IngestHarness(corpus.getUniverse(), serialization)) {
+			harness.ingest(atoms.subList(0, warmup));
+
+			Histogram latencies = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+			harness.recordLatencies(latencies);
+			long allocatedBefore = allocatedBytes();
+			long start = System.nanoTime();
+			long rejected = harness.ingest(measured);
+			long elapsedNanos = System.nanoTime() - start;
+			long allocated = allocatedBytes() - allocatedBefore;
+			harness.recordLatencies(null);
+
+			double seconds = elapsedNanos / 1e9;
+			System.out.format("Ingested %d atoms (%d rejected) in %.3fs%n", measured.size(), rejected, seconds);
+			System.out.format("Throughput:  %.1f atoms/s%n", measured.size() / seconds);
+			if (allocatedBefore >= 0) {
+				System.out.format("Allocation:  %.1f MB/s, %.1f KB/atom%n",
+					allocated / seconds / (1024 * 1024), allocated / 1024.0 / Math.max(1, measured.size()));
+			}
+			System.out.format("Latency:     p50 %.3fms  p99 %.3fms  max %.3fms%n",
+				latencies.getValueAtPercentile(50.0) / 1000.0,
+				latencies.getValueAtPercentile(99.0) / 1000.0,
+				latencies.getMaxValue() / 1000.0);
+		} catch (Exception e) {
+			e.printStackTrace();
+			exitCode = 1;
+		}
+		// the engine threads are not stoppable
+		System.exit(exitCode);
+	}
+
+	/**
+	 * An atom ready to be submitted.
+	 */
+	public static final class Submission {
+		private final AID aid;
+		private final JSONObject json;
+
+		private Submission(AID aid, JSONObject json) {
+			this.aid = aid;
+			this.json = json;
+		}
+	}
+
+	/**
+	 * Consensus stand-in committing each entry the application offers immediately, in order.
+	 */
+	private static final class LoopbackConsensus implements Consensus {
+		private volatile Application application;
+
+		@Override
+		public ConsensusObservation observe() throws InterruptedException {
+			return ConsensusObservation.commit(application.takeNextEntry());
+		}
+
+		@Override
+		public Optional<ConsensusObservation> poll() {
+			return Optional.empty();
+		}
+	}
+}
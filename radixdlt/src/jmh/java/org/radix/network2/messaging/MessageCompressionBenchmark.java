@@ -0,0 +1,132 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.AID;
+import com.radixdlt.common.EUID;
+import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.discovery.LogicalClockCursor;
+import com.radixdlt.discovery.messages.GossipInventoryMessage;
+import com.radixdlt.discovery.messages.IterativeDiscoveryResponseMessage;
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.streaming.messages.StreamAckMessage;
+import com.radixdlt.utils.UInt128;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.radix.Radix;
+import org.radix.network.messages.PeerPingMessage;
+import org.radix.network.messaging.Message;
+import org.radix.serialization.TestSetupUtils;
+import org.radix.universe.system.RadixSystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH driven benchmark of the compression of typical messages, comparing Snappy with zstd using
+ * the dictionary built by {@link MessageCompression}. The compression ratio of each message type
+ * is printed during setup, the benchmarks measure the CPU cost of compressing and decompressing.
+ * <p>
+ * Run using:
+ * <pre>
+ *    $ gradle --no-daemon clean jmh -Pjmh.include=MessageCompressionBenchmark -Pjmh.profilers=gc
+ * </pre>
+ * from the radixdlt directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class MessageCompressionBenchmark {
+	private static final int MAGIC = 0x2a5a;
+
+	@Param({"ping", "gossip", "discovery", "ack"})
+	private String messageType;
+
+	@Param({"snappy", "dictionary"})
+	private String codec;
+
+	private MessageCompression compression;
+	private String peerCodec;
+	private byte[] uncompressed;
+	private ByteBuffer compressed;
+
+	@Setup
+	public void setUp() throws Exception {
+		TestSetupUtils.installBouncyCastleProvider();
+		Serialization serialization = Serialization.getDefault();
+		this.compression = MessageCompression.create(serialization, 3);
+		this.peerCodec = "dictionary".equals(codec) ? compression.codec() : null;
+
+		this.uncompressed = serialization.toDson(message(new Random(1L)), Output.WIRE);
+		byte[] bytes = compression.compress(uncompressed, peerCodec);
+		this.compressed = ByteBuffer.wrap(bytes);
+		System.out.printf("%n%s with %s: %d bytes compressed to %d, ratio %.2f%n",
+			messageType, codec, uncompressed.length, bytes.length, (double) uncompressed.length / bytes.length);
+	}
+
+	private Message message(Random random) throws Exception {
+		switch (messageType) {
+		case "ping":
+			RadixSystem system = new RadixSystem(new ECKeyPair().getPublicKey(), Radix.AGENT, Radix.AGENT_VERSION, Radix.PROTOCOL_VERSION, ImmutableList.of());
+			return new PeerPingMessage(random.nextLong(), system, MAGIC);
+		case "gossip":
+			return new GossipInventoryMessage(aids(random, 64), MAGIC);
+		case "discovery":
+			return new IterativeDiscoveryResponseMessage(aids(random, 64), new LogicalClockCursor(random.nextInt(1 << 20)), MAGIC);
+		case "ack":
+			EUID streamId = new EUID(UInt128.from(random.nextLong(), random.nextLong()));
+			return new StreamAckMessage(streamId, random.nextInt(1 << 30), StreamAckMessage.STATUS_OPEN, MAGIC);
+		default:
+			throw new IllegalArgumentException("Unknown message type " + messageType);
+		}
+	}
+
+	private static ImmutableList<AID> aids(Random random, int count) {
+		ImmutableList.Builder<AID> aids = ImmutableList.builder();
+		for (int i = 0; i < count; i++) {
+			byte[] bytes = new byte[AID.BYTES];
+			random.nextBytes(bytes);
+			aids.add(AID.from(bytes));
+		}
+		return aids.build();
+	}
+
+	@Benchmark
+	public byte[] compress() throws IOException {
+		return compression.compress(uncompressed, peerCodec);
+	}
+
+	@Benchmark
+	public byte[] uncompress() throws IOException {
+		return compression.uncompress(compressed);
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import com.radixdlt.serialization.Serialization;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.radix.network.messages.TestMessage;
+import org.radix.network.messaging.Message;
+import org.radix.network2.addressbook.Peer;
+import org.radix.properties.RuntimeProperties;
+import org.radix.serialization.TestSetupUtils;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * JMH driven benchmark of inbound message dispatch, both directly through {@link MessageDispatcher}
+ * to an inline {@link DispatchLane} of several listeners and handed off through the same kind of
+ * queue and {@link SimpleThreadPool} as used by {@link MessageCentralImpl}.
+ * <p>
+ * {@code handoff} waits for every message to be dispatched, measuring the latency of a handoff,
+ * while {@code handoffPipelined} keeps a window of messages in flight, measuring its throughput.
+ * Run using:
+ * <pre>
+ *    $ gradle --no-daemon clean jmh -Pjmh.include=MessageDispatchBenchmark -Pjmh.profilers=gc
+ * </pre>
+ * from the radixdlt directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class MessageDispatchBenchmark {
+	private static final int WINDOW = 1024;
+
+	@Param({"1", "4", "16"})
+	private int numListeners;
+
+	private MessageDispatcher dispatcher;
+	private DispatchLane lane;
+	private MessageEvent event;
+	private BlockingQueue<MessageEvent> queue;
+	private SimpleThreadPool<MessageEvent> threadPool;
+
+	private final AtomicLong received = new AtomicLong();
+	private long sent;
+
+	@Setup
+	public void setUp() {
+		TestSetupUtils.installBouncyCastleProvider();
+		MessageCentralConfiguration config = MessageCentralConfiguration.fromRuntimeProperties(new RuntimeProperties(new JSONObject(), null));
+		Message message = new TestMessage(112, 0);
+		// fixed time, so the message never expires however long the benchmark runs
+		long now = message.getTimestamp();
+		this.dispatcher = new MessageDispatcher(config, Serialization.getDefault(), () -> now, null, null, null);
+
+		this.lane = DispatchLane.inline("benchmark");
+		for (int i = 0; i < numListeners; i++) {
+			final int listenerIndex = i;
+			lane.addListener(TestMessage.class, (peer, m) -> {
+				if (listenerIndex == 0) {
+					received.incrementAndGet();
+				}
+			});
+		}
+		// stub only, as invocations would otherwise be recorded for the whole run
+		this.event = new MessageEvent(mock(Peer.class, withSettings().stubOnly()), null, message, 0);
+
+		EventQueueFactory<MessageEvent> queueFactory = PriorityBlockingQueue::new;
+		this.queue = queueFactory.createEventQueue(config.messagingInboundQueueMax(8192));
+		this.threadPool = new SimpleThreadPool<>("Benchmark message processing", 1, queue::take, this::receive);
+		this.threadPool.start();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.threadPool.stop();
+		this.lane.close();
+	}
+
+	@Benchmark
+	public void dispatch() {
+		receive(event);
+	}
+
+	@Benchmark
+	public void handoff() throws InterruptedException {
+		queue.put(event);
+		long target = ++sent;
+		while (received.get() < target) {
+			// spin, so the measurement is not dominated by wake up latency
+		}
+	}
+
+	@Benchmark
+	public void handoffPipelined() throws InterruptedException {
+		while (sent - received.get() >= WINDOW) {
+			// spin until there is room in the window
+		}
+		queue.put(event);
+		sent++;
+	}
+
+	private void receive(MessageEvent inbound) {
+		Peer peer = dispatcher.accept(inbound);
+		if (peer != null) {
+			lane.dispatch(peer, inbound.message());
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import com.radixdlt.serialization.Serialization;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.radix.events.Events;
+import org.radix.network.messages.TestMessage;
+import org.radix.network.messaging.Message;
+import org.radix.network2.addressbook.AddressBook;
+import org.radix.network2.messaging.MessagingDummyConfigurations.DummyTransport;
+import org.radix.network2.messaging.MessagingDummyConfigurations.DummyTransportManager;
+import org.radix.network2.messaging.MessagingDummyConfigurations.DummyTransportOutboundConnection;
+import org.radix.properties.RuntimeProperties;
+import org.radix.serialization.TestSetupUtils;
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * JMH driven benchmark of the wire encoding of messages, DSON serialization plus Snappy compression
+ * as done by {@link MessageDispatcher} and the reverse as done by {@link MessageCentralImpl}.
+ * <p>
+ * {@code deserializeFrame} decodes straight from a direct buffer, as received from a transport, while
+ * {@code deserializeCopiedFrame} first copies the frame and decompresses into a new array, as done
+ * before the inbound path worked on buffers. Compare {@code gc.alloc.rate.norm} of the two.
+ * <p>
+ * Run using:
+ * <pre>
+ *    $ gradle --no-daemon clean jmh -Pjmh.include=MessageSerializationBenchmark -Pjmh.profilers=gc
+ * </pre>
+ * from the radixdlt directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class MessageSerializationBenchmark {
+	// roughly an atom broadcast, a basic universe and a large delivery response
+	@Param({"112", "3600", "65536"})
+	private int messageSize;
+
+	private MessageDispatcher dispatcher;
+	private MessageCentralImpl messageCentral;
+	private Serialization serialization;
+	private Message message;
+	private byte[] bytes;
+	private ByteBuffer frame;
+
+	@Setup
+	public void setUp() {
+		TestSetupUtils.installBouncyCastleProvider();
+		this.serialization = Serialization.getDefault();
+		MessageCentralConfiguration config = MessageCentralConfiguration.fromRuntimeProperties(new RuntimeProperties(new JSONObject(), null));
+
+		this.dispatcher = new MessageDispatcher(config, serialization, System::currentTimeMillis, null, null, null);
+		this.messageCentral = new MessageCentralImpl(
+			config,
+			serialization,
+			new DummyTransportManager(new DummyTransport(new DummyTransportOutboundConnection())),
+			mock(Events.class),
+			mock(AddressBook.class),
+			System::currentTimeMillis,
+			PriorityBlockingQueue::new,
+			null,
+			null
+		);
+
+		this.message = new TestMessage(messageSize, 0);
+		this.bytes = dispatcher.serialize(message);
+		this.frame = ByteBuffer.allocateDirect(bytes.length);
+		this.frame.put(bytes).flip();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.messageCentral.close();
+	}
+
+	@Benchmark
+	public byte[] serialize() {
+		return dispatcher.serialize(message);
+	}
+
+	@Benchmark
+	public Message deserialize() {
+		return messageCentral.deserialize(bytes);
+	}
+
+	@Benchmark
+	public Message deserializeFrame() {
+		return messageCentral.deserialize(frame);
+	}
+
+	@Benchmark
+	public Message deserializeCopiedFrame() throws IOException {
+		byte[] copy = new byte[frame.remaining()];
+		frame.duplicate().get(copy);
+		return serialization.fromDson(Snappy.uncompress(copy), Message.class);
+	}
+}
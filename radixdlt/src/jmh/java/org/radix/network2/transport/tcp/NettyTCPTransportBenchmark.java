@@ -0,0 +1,150 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.transport.tcp;
+
+import com.google.inject.Guice;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.radix.network2.messaging.InboundMessage;
+import org.radix.network2.transport.TransportOutboundConnection;
+import org.radix.properties.RuntimeProperties;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JMH driven loopback benchmark of {@link NettyTCPTransportImpl}, sending packets from one transport
+ * to another which echoes them back, measuring the round trip through both Netty pipelines.
+ * Compares the native epoll transport against NIO, on systems where epoll is not available
+ * both variants use NIO.
+ * <p>
+ * Besides single round trips, bursts of packets are sent before waiting for their echoes, which
+ * is the case write coalescing is meant for. A {@code flushThreshold} of 1 flushes every packet.
+ * <p>
+ * Run using:
+ * <pre>
+ *    $ gradle --no-daemon clean jmh -Pjmh.include=NettyTCPTransportBenchmark -Pjmh.profilers=gc
+ * </pre>
+ * from the radixdlt directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class NettyTCPTransportBenchmark {
+	private static final int BURST = 1000;
+
+	// roughly an atom broadcast, a basic universe and the largest packet supported
+	@Param({"112", "3600", "1048576"})
+	private int packetSize;
+
+	// native epoll transport where available, or NIO
+	@Param({"true", "false"})
+	private boolean nativeTransport;
+
+	@Param({"1", "65536"})
+	private int flushThreshold;
+
+	private NettyTCPTransport sender;
+	private NettyTCPTransport echo;
+	private TransportOutboundConnection outbound;
+	private volatile TransportOutboundConnection echoOutbound;
+	private byte[] packet;
+
+	private final AtomicLong received = new AtomicLong();
+	private long sent;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.sender = createTransport(freePort(), nativeTransport, flushThreshold);
+		this.echo = createTransport(freePort(), nativeTransport, flushThreshold);
+		this.sender.start(this::handleEcho);
+		this.echo.start(this::handleMessage);
+
+		this.outbound = sender.control().open(echo.localMetadata()).get();
+		this.echoOutbound = echo.control().open(sender.localMetadata()).get();
+		this.packet = new byte[packetSize];
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.outbound.close();
+		this.echoOutbound.close();
+		this.echo.close();
+		this.sender.close();
+	}
+
+	@Benchmark
+	public void roundTrip() {
+		outbound.send(packet);
+		long target = ++sent;
+		while (received.get() < target) {
+			// spin, so the measurement is not dominated by wake up latency
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BURST)
+	public void burst() {
+		for (int i = 0; i < BURST; i++) {
+			outbound.send(packet);
+		}
+		sent += BURST;
+		while (received.get() < sent) {
+			// spin, so the measurement is not dominated by wake up latency
+		}
+	}
+
+	private void handleMessage(InboundMessage message) {
+		echoOutbound.send(message.message());
+	}
+
+	private void handleEcho(InboundMessage message) {
+		received.incrementAndGet();
+	}
+
+	private static NettyTCPTransport createTransport(int port, boolean nativeTransport, int flushThreshold) {
+		RuntimeProperties properties = new RuntimeProperties(new JSONObject(), null);
+		properties.set("network.tcp.address", "127.0.0.1");
+		properties.set("network.tcp.port", port);
+		properties.set("network.tcp.threads", 1);
+		properties.set("network.netty.native", nativeTransport);
+		properties.set("network.tcp.flush_threshold", flushThreshold);
+		return Guice.createInjector(new TCPTransportModule(properties)).getInstance(NettyTCPTransport.class);
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
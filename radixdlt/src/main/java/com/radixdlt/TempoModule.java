@@ -29,9 +29,11 @@ import com.radixdlt.consensus.tempo.Tempo;
 import com.radixdlt.consensus.tempo.WallclockTimeSupplier;
 import com.radixdlt.engine.RadixEngine;
 import com.radixdlt.middleware2.converters.AtomToBinaryConverter;
+import com.radixdlt.middleware2.processing.ParallelAtomValidator;
 import com.radixdlt.middleware2.processing.RadixEngineAtomProcessor;
 import com.radixdlt.serialization.Serialization;
 import com.radixdlt.store.LedgerEntryStore;
+import com.radixdlt.tracing.AtomLifecycleTracer;
 
 import org.radix.time.Time;
 
@@ -54,10 +56,12 @@ public class TempoModule extends AbstractModule {
 		Consensus consensus,
 		LedgerEntryStore store,
 		RadixEngine radixEngine,
+		ParallelAtomValidator parallelAtomValidator,
 		Serialization serialization,
-		AtomToBinaryConverter atomToBinaryConverter
+		AtomToBinaryConverter atomToBinaryConverter,
+		AtomLifecycleTracer tracer
 	) {
-		return new RadixEngineAtomProcessor(consensus, store, radixEngine, serialization, atomToBinaryConverter);
+		return new RadixEngineAtomProcessor(consensus, store, radixEngine, parallelAtomValidator, serialization, atomToBinaryConverter, tracer);
 	}
 
 }
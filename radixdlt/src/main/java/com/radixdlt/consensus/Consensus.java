@@ -17,6 +17,8 @@
 
 package com.radixdlt.consensus;
 
+import java.util.Optional;
+
 /**
  * An instance of a consensus protocol which may be a participant in a network of nodes.
  * TODO this has been gutted and is now a temporary intermediate for consensus events
@@ -28,4 +30,11 @@ public interface Consensus {
 	 * @return The consensus observation
 	 */
 	ConsensusObservation observe() throws InterruptedException;
+
+	/**
+	 * Polls consensus for an observation without blocking.
+	 *
+	 * @return The consensus observation, or empty if none is currently available
+	 */
+	Optional<ConsensusObservation> poll();
 }
@@ -31,7 +31,9 @@ import org.radix.network2.addressbook.Peer;
 import org.radix.utils.SimpleThreadPool;
 
 import java.io.Closeable;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -63,6 +65,7 @@ public final class Tempo implements Consensus, Closeable {
 		// hook up components
 		for (AtomDiscoverer atomDiscoverer : atomDiscoverers) {
 			atomDiscoverer.addListener(this::onDiscovered);
+			atomDiscoverer.addEntryListener(this::onEntriesDiscovered);
 		}
 
 		this.consensusThreadPool = new SimpleThreadPool<>("Consensus", 1, application::takeNextEntry, this::doConsensus, log);
@@ -79,7 +82,14 @@ public final class Tempo implements Consensus, Closeable {
 		return this.consensusObservations.take();
 	}
 
+	@Override
+	public Optional<ConsensusObservation> poll() {
+		return Optional.ofNullable(this.consensusObservations.poll());
+	}
+
 	private void onDiscovered(Set<AID> aids, Peer peer) {
+		// only the discovering peer is known to hold the aids, peers discovering the same aids later
+		// are merged into the fallback peers of the pending deliveries
 		requestDeliverer.deliver(aids, ImmutableSet.of(peer)).forEach((aid, future) -> future.thenAccept(result -> {
 			if (result.isSuccess()) {
 				injectObservation(ConsensusObservation.commit(result.getLedgerEntry()));
@@ -87,6 +97,10 @@ public final class Tempo implements Consensus, Closeable {
 		}));
 	}
 
+	private void onEntriesDiscovered(List<LedgerEntry> ledgerEntries, Peer peer) {
+		requestDeliverer.offer(ledgerEntries, peer).forEach(ledgerEntry -> injectObservation(ConsensusObservation.commit(ledgerEntry)));
+	}
+
 	private void injectObservation(ConsensusObservation observation) {
 		if (!this.consensusObservations.add(observation)) {
 			// TODO more graceful queue full handling
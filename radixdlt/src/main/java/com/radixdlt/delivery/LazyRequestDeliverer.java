@@ -28,26 +28,35 @@ import com.radixdlt.common.EUID;
 import com.radixdlt.store.LedgerEntry;
 import com.radixdlt.store.LedgerEntryStoreView;
 import com.radixdlt.consensus.tempo.Scheduler;
+import com.radixdlt.consensus.tempo.WallclockTimeSupplier;
 import com.radixdlt.delivery.messages.DeliveryRequestMessage;
 import com.radixdlt.delivery.messages.DeliveryResponseMessage;
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.serialization.SerializationException;
+import com.radixdlt.streaming.MessageStreams;
+import com.radixdlt.streaming.StreamSink;
+import com.radixdlt.streaming.StreamSource;
 import com.radixdlt.universe.Universe;
 import org.radix.logging.Logger;
 import org.radix.logging.Logging;
 import org.radix.network2.addressbook.Peer;
+import org.radix.network2.messaging.DispatchPolicy;
 import org.radix.network2.messaging.MessageCentral;
-import org.radix.utils.SimpleThreadPool;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -58,69 +67,165 @@ public final class LazyRequestDeliverer {
 	private static final int DEFAULT_REQUEST_QUEUE_CAPACITY = 8192;
 	private static final int DEFAULT_REQUEST_PROCESSOR_THREADS = 2;
 	private static final int DEFAULT_REQUEST_TIMEOUT_SECONDS = 5;
+	// leaves headroom below the 1 MiB TCP packet limit for serialization overhead
+	private static final int DEFAULT_RESPONSE_BATCH_BYTES = 768 * 1024;
+	// approximate serialized size of an entry without its content (aid, field names, framing)
+	private static final int ENTRY_OVERHEAD_BYTES = 64;
+	private static final int DEFAULT_SPREAD_THRESHOLD = 64;
+	private static final int DEFAULT_HEDGE_DELAY_MILLIS = 1000;
+	// entries too large for a response are streamed instead
+	private static final String ENTRY_STREAM_TOPIC = "delivery.entry";
+	private static final int MAX_STREAMED_ENTRY_BYTES = 64 * 1024 * 1024;
 
 	private final int requestTimeoutSeconds;
+	private final int responseBatchBytes;
+	private final int spreadThreshold;
+	private final int hedgeDelayMillis;
 
 	@VisibleForTesting
 	final PendingDeliveryState pendingDeliveries = new PendingDeliveryState();
+	@VisibleForTesting
+	final PeerScores peerScores;
 
 	private final Scheduler scheduler;
+	private final WallclockTimeSupplier wallclockTimeSupplier;
 	private final MessageCentral messageCentral;
+	private final MessageStreams messageStreams;
+	private final Serialization serialization;
 	private final LedgerEntryStoreView storeView;
 	private final Universe universe;
 
-	private final BlockingQueue<AtomDeliveryRequest> requestQueue;
-	private final SimpleThreadPool<AtomDeliveryRequest> requestThreadPool;
-
 	@Inject
 	public LazyRequestDeliverer(
 		Scheduler scheduler,
+		WallclockTimeSupplier wallclockTimeSupplier,
 		MessageCentral messageCentral,
+		MessageStreams messageStreams,
+		Serialization serialization,
 		LedgerEntryStoreView storeView,
 		LazyRequestDelivererConfiguration configuration,
 		Universe universe
 	) {
 		this.scheduler = Objects.requireNonNull(scheduler);
+		this.wallclockTimeSupplier = Objects.requireNonNull(wallclockTimeSupplier);
 		this.messageCentral = Objects.requireNonNull(messageCentral);
+		this.messageStreams = Objects.requireNonNull(messageStreams);
+		this.serialization = Objects.requireNonNull(serialization);
 		this.storeView = Objects.requireNonNull(storeView);
 		this.universe = Objects.requireNonNull(universe);
 
 		this.requestTimeoutSeconds = configuration.requestTimeoutSeconds(DEFAULT_REQUEST_TIMEOUT_SECONDS);
+		this.responseBatchBytes = configuration.responseBatchBytes(DEFAULT_RESPONSE_BATCH_BYTES);
+		this.spreadThreshold = configuration.spreadThreshold(DEFAULT_SPREAD_THRESHOLD);
+		this.hedgeDelayMillis = configuration.hedgeDelayMillis(DEFAULT_HEDGE_DELAY_MILLIS);
+		// peers without history are assumed to respond just in time to not be hedged
+		this.peerScores = new PeerScores(hedgeDelayMillis > 0 ? hedgeDelayMillis : DEFAULT_HEDGE_DELAY_MILLIS, wallclockTimeSupplier);
 
-		this.messageCentral.addListener(DeliveryRequestMessage.class, this::onRequest);
-		this.messageCentral.addListener(DeliveryResponseMessage.class, this::onResponse);
-
-		this.requestQueue = new ArrayBlockingQueue<>(configuration.requestQueueCapacity(DEFAULT_REQUEST_QUEUE_CAPACITY));
 		int processorThreads = configuration.requestProcessorThreads(DEFAULT_REQUEST_PROCESSOR_THREADS);
-		this.requestThreadPool = new SimpleThreadPool<>("Atom delivery processing", processorThreads, requestQueue::take, this::processRequest, log);
-		this.requestThreadPool.start();
+		// requests read from the store, so are processed on their own lane unless processed inline
+		DispatchPolicy requestPolicy = processorThreads > 0
+			? DispatchPolicy.dedicated("delivery", processorThreads, configuration.requestQueueCapacity(DEFAULT_REQUEST_QUEUE_CAPACITY))
+			: DispatchPolicy.inline();
+		this.messageCentral.addListener(DeliveryRequestMessage.class, this::onRequest, requestPolicy);
+		this.messageCentral.addListener(DeliveryResponseMessage.class, this::onResponse);
+		this.messageStreams.addHandler(ENTRY_STREAM_TOPIC, this::openEntryStream);
 	}
 
 	private void onRequest(Peer peer, DeliveryRequestMessage message) {
-		AtomDeliveryRequest request = new AtomDeliveryRequest(peer, message);
-		requestQueue.add(request);
+		if (log.hasLevel(Logging.DEBUG)) {
+			log.debug(String.format("Processing atom delivery request for %d aids from %s",
+				message.getAids().size(), peer));
+		}
+
+		if (!message.isBatched()) {
+			// older peers only understand a single entry per response
+			for (AID aid : message.getAids()) {
+				storeView.get(aid).ifPresent(ledgerEntry ->
+					messageCentral.send(peer, new DeliveryResponseMessage(ledgerEntry, this.universe.getMagic())));
+			}
+			return;
+		}
+
+		// pack entries into as few responses as possible, sending each batch as soon as it is full
+		List<LedgerEntry> batch = new ArrayList<>();
+		int batchBytes = 0;
+		for (AID aid : message.getAids()) {
+			Optional<LedgerEntry> ledgerEntry = storeView.get(aid);
+			if (!ledgerEntry.isPresent()) {
+				continue;
+			}
+			int entryBytes = ledgerEntry.get().getContent().length + ENTRY_OVERHEAD_BYTES;
+			if (entryBytes > responseBatchBytes) {
+				// would exceed the transport's packet size, peers batching responses also accept streams
+				streamEntry(peer, ledgerEntry.get());
+				continue;
+			}
+			if (!batch.isEmpty() && batchBytes + entryBytes > responseBatchBytes) {
+				sendResponse(peer, batch);
+				batch.clear();
+				batchBytes = 0;
+			}
+			batch.add(ledgerEntry.get());
+			batchBytes += entryBytes;
+		}
+		if (!batch.isEmpty()) {
+			sendResponse(peer, batch);
+		}
+	}
+
+	private void sendResponse(Peer peer, List<LedgerEntry> ledgerEntries) {
+		DeliveryResponseMessage response = new DeliveryResponseMessage(ImmutableList.copyOf(ledgerEntries), this.universe.getMagic());
+		messageCentral.send(peer, response);
 	}
 
-	private void processRequest(AtomDeliveryRequest request) {
+	private void streamEntry(Peer peer, LedgerEntry ledgerEntry) {
+		final byte[] serialized;
+		try {
+			serialized = serialization.toDson(ledgerEntry, Output.WIRE);
+		} catch (SerializationException e) {
+			log.error("Failed to serialize ledger entry '" + ledgerEntry.getAID() + "' for " + peer, e);
+			return;
+		}
 		if (log.hasLevel(Logging.DEBUG)) {
-			log.debug(String.format("Processing atom delivery request for %d aids from %s",
-				request.getMessage().getAids().size(), request.getPeer()));
+			log.debug("Streaming delivery of '" + ledgerEntry.getAID() + "' (" + serialized.length + " bytes) to " + peer);
 		}
+		// failures are logged by the streams, the requester falls back to other peers after its timeout
+		messageStreams.send(peer, ENTRY_STREAM_TOPIC, StreamSource.of(serialized));
+	}
 
-		request.getMessage().getAids().stream()
-			.map(storeView::get)
-			.filter(Optional::isPresent)
-			.map(Optional::get)
-			.map(ledgerEntry -> new DeliveryResponseMessage(ledgerEntry, this.universe.getMagic()))
-			.forEach(response -> messageCentral.send(request.getPeer(), response));
+	private StreamSink openEntryStream(Peer peer, EUID streamId, long length) {
+		if (length <= 0 || length > MAX_STREAMED_ENTRY_BYTES) {
+			log.warn("Rejecting streamed delivery of " + length + " bytes from " + peer);
+			return null;
+		}
+		return new EntrySink(peer, (int) length);
 	}
 
 	private void onResponse(Peer peer, DeliveryResponseMessage message) {
+		onDelivery(peer, message.getLedgerEntries());
+	}
+
+	private void onDelivery(Peer peer, List<LedgerEntry> ledgerEntries) {
 		if (log.hasLevel(Logging.DEBUG)) {
-			log.debug("Received delivery of '" + message.getLedgerEntry().getAID() + "' from " + peer);
+			log.debug("Received delivery of " + ledgerEntries.size() + " entries from " + peer);
+		}
+		EUID peerNid = peer.getNID();
+		long now = wallclockTimeSupplier.getAsLong();
+		boolean latencyRecorded = false;
+		for (LedgerEntry ledgerEntry : ledgerEntries) {
+			if (!latencyRecorded) {
+				// entries in a response were requested together, one sample per response suffices
+				OptionalLong requestTime = pendingDeliveries.getRequestTime(ledgerEntry.getAID(), peerNid);
+				if (requestTime.isPresent()) {
+					peerScores.recordSuccess(peerNid, now - requestTime.getAsLong());
+					latencyRecorded = true;
+				}
+			}
+			if (!pendingDeliveries.completeIfPending(ledgerEntry.getAID(), DeliveryResult.success(ledgerEntry, peer))
+				&& log.hasLevel(Logging.DEBUG)) {
+				log.debug("Ignoring delivery of '" + ledgerEntry.getAID() + "' from " + peer + " as it is not pending");
+			}
 		}
-		LedgerEntry ledgerEntry = message.getLedgerEntry();
-		pendingDeliveries.complete(ledgerEntry.getAID(), DeliveryResult.success(ledgerEntry, peer));
 	}
 
 	/**
@@ -140,6 +245,8 @@ public final class LazyRequestDeliverer {
 	 *
 	 * This method may not have any effect if the atoms have already been delivered,
 	 * the peer is unavailable or concurrent requests for the same AIDs are already pending.
+	 * Peers given for aids which are already pending are merged into their fallback peers,
+	 * so only peers known to hold an aid are ever requested from.
 	 * @param aids The {@link AID}s to request
 	 * @param peers The peers at which the aids are present
 	 * @return a future containing the results of this request
@@ -154,49 +261,120 @@ public final class LazyRequestDeliverer {
 		}
 
 		final ImmutableMap.Builder<AID, CompletableFuture<DeliveryResult>> result = ImmutableMap.builder();
-		final List<AID> unrequestedAids = new ArrayList<>();
-		Peer primaryPeer = peers.iterator().next();
+		final List<AID> missingAids = new ArrayList<>();
 		for (AID aid : aids) {
 			if (storeView.contains(aid)) {
 				result.put(aid, CompletableFuture.completedFuture(DeliveryResult.alreadyStored()));
 			} else {
-				CompletableFuture<DeliveryResult> future = new CompletableFuture<>();
-				// if this is the first peer added for that aid, we need to request it
-				if (pendingDeliveries.add(aid, primaryPeer, peers, future)) {
-					unrequestedAids.add(aid);
-				}
-				result.put(aid, future);
+				missingAids.add(aid);
+			}
+		}
+		if (missingAids.isEmpty()) {
+			return result.build();
+		}
+
+		// spread large sets of aids across the best peers, keeping all peers as fallbacks in order of their score
+		final ImmutableList<Peer> rankedPeers = peerScores.rank(peers);
+		final ImmutableSet<Peer> fallbackPeers = ImmutableSet.copyOf(rankedPeers);
+		int numPrimaryPeers = 1;
+		if (spreadThreshold > 0) {
+			numPrimaryPeers = Math.min(rankedPeers.size(), (missingAids.size() + spreadThreshold - 1) / spreadThreshold);
+		}
+		int aidsPerPeer = (missingAids.size() + numPrimaryPeers - 1) / numPrimaryPeers;
+		final Map<Peer, List<AID>> unrequestedAids = new LinkedHashMap<>();
+		for (int i = 0; i < missingAids.size(); i++) {
+			AID aid = missingAids.get(i);
+			Peer primaryPeer = rankedPeers.get(i / aidsPerPeer);
+			CompletableFuture<DeliveryResult> future = new CompletableFuture<>();
+			// if this is the first peer added for that aid, we need to request it
+			if (pendingDeliveries.add(aid, primaryPeer, fallbackPeers, future)) {
+				unrequestedAids.computeIfAbsent(primaryPeer, x -> new ArrayList<>()).add(aid);
 			}
+			result.put(aid, future);
 		}
-		requestDelivery(unrequestedAids, primaryPeer);
+		unrequestedAids.forEach((peer, peerAids) -> requestDelivery(peerAids, peer, false));
 
 		return result.build();
 	}
 
-	private void requestDelivery(Collection<AID> aids, Peer peer) {
+	/**
+	 * Accepts ledger entries which were received without being requested individually, such as when catching up in bulk.
+	 * Pending deliveries of any of the entries are completed.
+	 *
+	 * @param ledgerEntries The received entries
+	 * @param peer The peer the entries were received from
+	 * @return the entries which were neither stored nor pending
+	 */
+	public ImmutableList<LedgerEntry> offer(Collection<LedgerEntry> ledgerEntries, Peer peer) {
+		final ImmutableList.Builder<LedgerEntry> unsolicited = ImmutableList.builder();
+		for (LedgerEntry ledgerEntry : ledgerEntries) {
+			AID aid = ledgerEntry.getAID();
+			if (!storeView.contains(aid) && !pendingDeliveries.completeIfPending(aid, DeliveryResult.success(ledgerEntry, peer))) {
+				unsolicited.add(ledgerEntry);
+			}
+		}
+		return unsolicited.build();
+	}
+
+	private void requestDelivery(Collection<AID> aids, Peer peer, boolean hedged) {
 		// early out if there is nothing to do
 		if (aids.isEmpty()) {
 			return;
 		}
 		if (log.hasLevel(Logging.DEBUG)) {
-			log.debug("Requesting delivery of " + aids.size() + " aids from " + peer);
+			log.debug("Requesting " + (hedged ? "hedged " : "") + "delivery of " + aids.size() + " aids from " + peer);
 		}
 
-		DeliveryRequestMessage request = new DeliveryRequestMessage(aids,this.universe.getMagic());
+		EUID peerNid = peer.getNID();
+		long now = wallclockTimeSupplier.getAsLong();
+		aids.forEach(aid -> pendingDeliveries.markRequested(aid, peerNid, now));
+		DeliveryRequestMessage request = new DeliveryRequestMessage(aids, true, this.universe.getMagic());
 		messageCentral.send(peer, request);
 
 		// TODO aggregate cancellables and cancel on stop
+		// if the peer is unusually slow to respond, also request from the next best peer
+		if (!hedged && hedgeDelayMillis > 0) {
+			long requestTimeoutMillis = TimeUnit.SECONDS.toMillis(requestTimeoutSeconds);
+			long hedgeDelay = Math.min(peerScores.latencyP95(peerNid, hedgeDelayMillis), requestTimeoutMillis);
+			if (hedgeDelay < requestTimeoutMillis) {
+				scheduler.schedule(() -> hedgeDelivery(aids, peer), hedgeDelay, TimeUnit.MILLISECONDS);
+			}
+		}
+
 		scheduler.schedule(() -> {
 			ImmutableList<AID> missingAids = aids.stream()
 				.filter(pendingDeliveries::isPending)
 				.collect(ImmutableList.toImmutableList());
 			if (!missingAids.isEmpty()) {
-				handleFailedDelivery(missingAids, peer);
-				// TODO retry
+				peerScores.recordFailure(peerNid);
+				// hedged requests are only a shortcut, falling back is left to the original request
+				if (!hedged) {
+					handleFailedDelivery(missingAids, peer);
+				}
 			}
 		}, requestTimeoutSeconds, TimeUnit.SECONDS);
 	}
 
+	private void hedgeDelivery(Collection<AID> aids, Peer peer) {
+		Map<EUID, Set<AID>> hedgesByNid = new HashMap<>();
+		Map<EUID, Peer> peersByNid = new HashMap<>();
+		for (AID aid : aids) {
+			if (pendingDeliveries.isPending(aid)) {
+				Peer hedgePeer = pendingDeliveries.popFallback(aid, peerScores.comparator(), peer.getNID());
+				if (hedgePeer != null) {
+					EUID hedgePeerNid = hedgePeer.getNID();
+					peersByNid.putIfAbsent(hedgePeerNid, hedgePeer);
+					hedgesByNid.computeIfAbsent(hedgePeerNid, x -> new HashSet<>()).add(aid);
+				}
+			}
+		}
+
+		if (!hedgesByNid.isEmpty() && log.hasLevel(Logging.DEBUG)) {
+			log.debug("Delivery from " + peer + " is slow, hedging with " + hedgesByNid.size() + " other peers");
+		}
+		hedgesByNid.forEach((nid, hedgedAids) -> requestDelivery(hedgedAids, peersByNid.get(nid), true));
+	}
+
 	private void handleFailedDelivery(Collection<AID> missingAids, Peer peer) {
 		if (log.hasLevel(Logging.DEBUG)) {
 			log.debug("Delivery of " + missingAids.size() + " aids from primary peer " + peer + " failed, attempting retry with fallback peers");
@@ -206,39 +384,70 @@ public final class LazyRequestDeliverer {
 		Map<EUID, Set<AID>> retriesByNid = new HashMap<>();
 		Map<EUID, Peer> peersByNid = new HashMap<>();
 		for (AID missingAid : missingAids) {
-			Peer fallbackPeer = pendingDeliveries.popFallback(missingAid);
+			Peer fallbackPeer = pendingDeliveries.popFallback(missingAid, peerScores.comparator(), null);
 			if (fallbackPeer != null) {
 				EUID fallbackPeerNid = fallbackPeer.getNID();
 				peersByNid.putIfAbsent(fallbackPeerNid, fallbackPeer);
 				retriesByNid.computeIfAbsent(fallbackPeerNid, x -> new HashSet<>()).add(missingAid);
 			} else {
 				log.warn("Delivery of " + missingAid + " is currently impossible, no fallback peers are available");
-				pendingDeliveries.complete(missingAid, DeliveryResult.failed());
+				pendingDeliveries.completeIfPending(missingAid, DeliveryResult.failed());
 			}
 		}
 
-		retriesByNid.forEach((nid, aids) -> requestDelivery(aids, peersByNid.get(nid)));
+		retriesByNid.forEach((nid, aids) -> requestDelivery(aids, peersByNid.get(nid), false));
 	}
 
 	public void close() {
-		requestThreadPool.stop();
+		messageCentral.removeListener(DeliveryRequestMessage.class, this::onRequest);
+		messageCentral.removeListener(DeliveryResponseMessage.class, this::onResponse);
+		messageStreams.removeHandler(ENTRY_STREAM_TOPIC);
 	}
 
-	private static final class AtomDeliveryRequest {
+	/**
+	 * Receives a single serialized ledger entry, which is delivered once the stream is complete.
+	 */
+	private final class EntrySink implements StreamSink {
 		private final Peer peer;
-		private final DeliveryRequestMessage message;
+		private final int length;
+		private final ByteArrayOutputStream received;
 
-		private AtomDeliveryRequest(Peer peer, DeliveryRequestMessage message) {
+		private EntrySink(Peer peer, int length) {
 			this.peer = peer;
-			this.message = message;
+			this.length = length;
+			this.received = new ByteArrayOutputStream(length);
+		}
+
+		@Override
+		public long position() {
+			return received.size();
+		}
+
+		@Override
+		public void write(byte[] data) throws IOException {
+			if (received.size() + data.length > length) {
+				throw new IOException("Streamed delivery from " + peer + " exceeds its length of " + length + " bytes");
+			}
+			received.write(data);
 		}
 
-		private Peer getPeer() {
-			return peer;
+		@Override
+		public void complete() throws IOException {
+			if (received.size() != length) {
+				throw new IOException("Streamed delivery from " + peer + " ended after " + received.size() + " of " + length + " bytes");
+			}
+			final LedgerEntry ledgerEntry;
+			try {
+				ledgerEntry = serialization.fromDson(received.toByteArray(), LedgerEntry.class);
+			} catch (SerializationException e) {
+				throw new IOException("Failed to deserialize streamed delivery from " + peer, e);
+			}
+			onDelivery(peer, ImmutableList.of(ledgerEntry));
 		}
 
-		public DeliveryRequestMessage getMessage() {
-			return message;
+		@Override
+		public void abort(Throwable cause) {
+			// nothing is kept, the requester falls back to other peers after its timeout
 		}
 	}
 }
@@ -24,12 +24,37 @@ import org.radix.properties.RuntimeProperties;
  * Static configuration for a {@link LazyRequestDeliverer}
  */
 public interface LazyRequestDelivererConfiguration {
+	/**
+	 * Gets the number of inbound requests that are queued before further requests are dropped.
+	 */
 	int requestQueueCapacity(int defaultValue);
 
+	/**
+	 * Gets the number of threads processing inbound requests.
+	 * If zero, requests are processed inline on the messaging thread (as used in deterministic simulations).
+	 */
 	int requestProcessorThreads(int defaultValue);
 
 	int requestTimeoutSeconds(int defaultValue);
 
+	/**
+	 * Gets the maximum size in bytes of the ledger entries batched into a single delivery response.
+	 */
+	int responseBatchBytes(int defaultValue);
+
+	/**
+	 * Gets the number of aids above which a delivery is spread across multiple peers.
+	 * If zero, all aids are requested from the best peer.
+	 */
+	int spreadThreshold(int defaultValue);
+
+	/**
+	 * Gets the delay in milliseconds after which a delivery is also requested from another peer
+	 * while the 95th percentile latency of the original peer is unknown.
+	 * If zero, deliveries are never hedged.
+	 */
+	int hedgeDelayMillis(int defaultValue);
+
 	@Provides
 	static LazyRequestDelivererConfiguration fromRuntimeProperties(RuntimeProperties properties) {
 		return new LazyRequestDelivererConfiguration() {
@@ -47,6 +72,21 @@ public interface LazyRequestDelivererConfiguration {
 			public int requestTimeoutSeconds(int defaultValue) {
 				return properties.get("tempo.delivery.request.request_timeout_seconds", defaultValue);
 			}
+
+			@Override
+			public int responseBatchBytes(int defaultValue) {
+				return properties.get("tempo.delivery.request.response_batch_bytes", defaultValue);
+			}
+
+			@Override
+			public int spreadThreshold(int defaultValue) {
+				return properties.get("tempo.delivery.request.spread_threshold", defaultValue);
+			}
+
+			@Override
+			public int hedgeDelayMillis(int defaultValue) {
+				return properties.get("tempo.delivery.request.hedge_delay_millis", defaultValue);
+			}
 		};
 	}
 }
@@ -0,0 +1,174 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.delivery;
+
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.EUID;
+import org.radix.network2.addressbook.Peer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Scores of peers as delivery sources, based on an exponentially weighted moving average
+ * of their response latency and success rate. Lower scores are better.
+ * <p>
+ * Scores of peers which have not been requested from for {@link #SCORE_EXPIRY_MILLIS} are discarded,
+ * so peers which left the network do not keep their scores forever.
+ */
+final class PeerScores {
+	private static final double LATENCY_WEIGHT = 0.2;
+	private static final double SUCCESS_WEIGHT = 0.1;
+	private static final double MIN_SUCCESS_RATE = 0.05;
+	private static final int LATENCY_SAMPLES = 64;
+	private static final int MIN_PERCENTILE_SAMPLES = 8;
+	static final long SCORE_EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+	private final long initialLatencyMillis;
+	private final LongSupplier clock;
+	private final Map<EUID, PeerScore> scores = new ConcurrentHashMap<>();
+	private final AtomicLong nextExpiry;
+
+	/**
+	 * Creates peer scores in which peers without any history are assumed to respond within the given latency.
+	 *
+	 * @param initialLatencyMillis The latency assumed for peers without history
+	 * @param clock The wallclock time in milliseconds, used to expire scores of idle peers
+	 */
+	PeerScores(long initialLatencyMillis, LongSupplier clock) {
+		this.initialLatencyMillis = initialLatencyMillis;
+		this.clock = Objects.requireNonNull(clock);
+		this.nextExpiry = new AtomicLong(clock.getAsLong() + SCORE_EXPIRY_MILLIS);
+	}
+
+	void recordSuccess(EUID nid, long latencyMillis) {
+		getScore(nid).recordSuccess(Math.max(0L, latencyMillis));
+	}
+
+	void recordFailure(EUID nid) {
+		getScore(nid).recordFailure();
+	}
+
+	/**
+	 * Gets the score of a peer, the expected latency adjusted by its success rate.
+	 */
+	double score(EUID nid) {
+		PeerScore score = scores.get(nid);
+		return score == null ? initialLatencyMillis : score.score();
+	}
+
+	/**
+	 * Gets the 95th percentile response latency of a peer, or the given default if there are not enough samples.
+	 */
+	long latencyP95(EUID nid, long defaultValue) {
+		PeerScore score = scores.get(nid);
+		return score == null ? defaultValue : score.percentile(0.95, defaultValue);
+	}
+
+	/**
+	 * Orders peers from best to worst.
+	 */
+	Comparator<Peer> comparator() {
+		return Comparator.comparingDouble(peer -> score(peer.getNID()));
+	}
+
+	ImmutableList<Peer> rank(Collection<Peer> peers) {
+		// snapshot scores first as they may change concurrently while sorting
+		Map<Peer, Double> snapshot = new HashMap<>();
+		peers.forEach(peer -> snapshot.put(peer, score(peer.getNID())));
+		return peers.stream()
+			.sorted(Comparator.comparingDouble(snapshot::get))
+			.collect(ImmutableList.toImmutableList());
+	}
+
+	void reset() {
+		scores.clear();
+	}
+
+	private PeerScore getScore(EUID nid) {
+		long now = clock.getAsLong();
+		expireScores(now);
+		PeerScore score = scores.computeIfAbsent(nid, n -> new PeerScore(initialLatencyMillis));
+		score.lastUpdated = now;
+		return score;
+	}
+
+	private void expireScores(long now) {
+		long due = nextExpiry.get();
+		if (now < due || !nextExpiry.compareAndSet(due, now + SCORE_EXPIRY_MILLIS)) {
+			return;
+		}
+		scores.values().removeIf(score -> now - score.lastUpdated > SCORE_EXPIRY_MILLIS);
+	}
+
+	@Override
+	public String toString() {
+		return "PeerScores{" + scores + '}';
+	}
+
+	private static final class PeerScore {
+		private final long[] latencies = new long[LATENCY_SAMPLES];
+		private int latencyCount;
+		private double averageLatency;
+		private double successRate;
+		private volatile long lastUpdated;
+
+		private PeerScore(long initialLatencyMillis) {
+			this.averageLatency = initialLatencyMillis;
+			this.successRate = 1.0;
+		}
+
+		private synchronized void recordSuccess(long latencyMillis) {
+			this.averageLatency += LATENCY_WEIGHT * (latencyMillis - averageLatency);
+			this.successRate += SUCCESS_WEIGHT * (1.0 - successRate);
+			this.latencies[latencyCount % LATENCY_SAMPLES] = latencyMillis;
+			this.latencyCount += 1;
+		}
+
+		private synchronized void recordFailure() {
+			this.successRate += SUCCESS_WEIGHT * (0.0 - successRate);
+		}
+
+		private synchronized double score() {
+			return averageLatency / Math.max(successRate, MIN_SUCCESS_RATE);
+		}
+
+		private synchronized long percentile(double percentile, long defaultValue) {
+			int samples = Math.min(latencyCount, LATENCY_SAMPLES);
+			if (samples < MIN_PERCENTILE_SAMPLES) {
+				return defaultValue;
+			}
+			long[] sorted = Arrays.copyOf(latencies, samples);
+			Arrays.sort(sorted);
+			return sorted[Math.min(samples - 1, (int) Math.ceil(percentile * samples) - 1)];
+		}
+
+		@Override
+		public synchronized String toString() {
+			return String.format("{latency=%.0fms, success=%.2f}", averageLatency, successRate);
+		}
+	}
+}
@@ -22,8 +22,10 @@ import com.radixdlt.common.EUID;
 import org.radix.network2.addressbook.Peer;
 
 import java.util.ArrayDeque;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -36,12 +38,49 @@ final class PendingDeliveryState {
 		this.pendingDeliveries = new ConcurrentHashMap<>();
 	}
 
-	Peer popFallback(AID aid) {
+	/**
+	 * Removes and returns the best fallback peer for an aid.
+	 *
+	 * @param aid The pending aid
+	 * @param order The order of peers, best first
+	 * @param exclude The nid of a peer not to consider, or null
+	 * @return the best fallback peer, or null if there is none
+	 */
+	Peer popFallback(AID aid, Comparator<Peer> order, EUID exclude) {
+		Peer[] fallback = new Peer[1];
+		pendingDeliveries.computeIfPresent(aid, (x, pendingDelivery) -> {
+			Peer best = null;
+			for (Peer peer : pendingDelivery.fallbackPeers) {
+				if (!peer.getNID().equals(exclude) && (best == null || order.compare(peer, best) < 0)) {
+					best = peer;
+				}
+			}
+			if (best != null) {
+				pendingDelivery.fallbackPeers.remove(best);
+			}
+			fallback[0] = best;
+			return pendingDelivery;
+		});
+		return fallback[0];
+	}
+
+	void markRequested(AID aid, EUID nid, long timestamp) {
+		pendingDeliveries.computeIfPresent(aid, (x, pendingDelivery) -> {
+			pendingDelivery.requestTimes.put(nid, timestamp);
+			return pendingDelivery;
+		});
+	}
+
+	/**
+	 * Gets the time an aid was last requested from a peer, if it is still pending.
+	 */
+	OptionalLong getRequestTime(AID aid, EUID nid) {
 		PendingDelivery pendingDelivery = pendingDeliveries.get(aid);
 		if (pendingDelivery == null) {
-			return null;
+			return OptionalLong.empty();
 		}
-		return pendingDelivery.fallbackPeers.poll();
+		Long requestTime = pendingDelivery.requestTimes.get(nid);
+		return requestTime == null ? OptionalLong.empty() : OptionalLong.of(requestTime);
 	}
 
 	boolean add(AID aid, Peer primaryPeer, Set<Peer> peers, CompletableFuture<DeliveryResult> future) {
@@ -51,8 +90,13 @@ final class PendingDeliveryState {
 				pendingDelivery = new PendingDelivery();
 				pendingDelivery.requestedFromPeer = primaryPeer.getNID();
 			}
-			// add all peers as fallback peers (even primary for automatic retry)
-			pendingDelivery.fallbackPeers.addAll(peers);
+			// add all peers known to hold the aid as fallback peers (even primary for automatic retry),
+			// merging those of repeated deliveries from other peers announcing the same aid
+			for (Peer peer : peers) {
+				if (pendingDelivery.fallbackPeers.stream().noneMatch(fallback -> fallback.getNID().equals(peer.getNID()))) {
+					pendingDelivery.fallbackPeers.add(peer);
+				}
+			}
 			pendingDelivery.futures.add(future);
 			return pendingDelivery;
 		}).wasRequestedBy(primaryPeer);
@@ -67,6 +111,20 @@ final class PendingDeliveryState {
 		pendingDeliveries.remove(aid);
 	}
 
+	/**
+	 * Completes the pending delivery of an aid if there is one.
+	 *
+	 * @return whether a delivery was pending
+	 */
+	boolean completeIfPending(AID aid, DeliveryResult result) {
+		PendingDelivery pendingDelivery = pendingDeliveries.remove(aid);
+		if (pendingDelivery == null) {
+			return false;
+		}
+		pendingDelivery.futures.forEach(future -> future.complete(result));
+		return true;
+	}
+
 	boolean isPending(AID aid) {
 		return pendingDeliveries.containsKey(aid);
 	}
@@ -86,10 +144,12 @@ final class PendingDeliveryState {
 		private EUID requestedFromPeer;
 		private final Queue<Peer> fallbackPeers;
 		private final Set<CompletableFuture<DeliveryResult>> futures;
+		private final Map<EUID, Long> requestTimes;
 
 		private PendingDelivery() {
 			this.fallbackPeers = new ArrayDeque<>();
 			this.futures = new HashSet<>();
+			this.requestTimes = new ConcurrentHashMap<>();
 		}
 
 		private boolean wasRequestedBy(Peer peer) {
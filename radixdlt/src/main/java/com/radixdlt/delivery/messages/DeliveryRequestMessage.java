@@ -33,6 +33,10 @@ public class DeliveryRequestMessage extends Message {
 	@DsonOutput(Output.ALL)
 	private ImmutableList<AID> aids;
 
+	@JsonProperty("batched")
+	@DsonOutput(Output.ALL)
+	private boolean batched;
+
 	DeliveryRequestMessage() {
 		// Serializer only
 		super(0);
@@ -40,8 +44,13 @@ public class DeliveryRequestMessage extends Message {
 	}
 
 	public DeliveryRequestMessage(Collection<AID> aids, int magic) {
+		this(aids, false, magic);
+	}
+
+	public DeliveryRequestMessage(Collection<AID> aids, boolean batched, int magic) {
 		super(magic);
 		this.aids = ImmutableList.copyOf(aids);
+		this.batched = batched;
 	}
 
 	@Override
@@ -52,4 +61,11 @@ public class DeliveryRequestMessage extends Message {
 	public Collection<AID> getAids() {
 		return this.aids;
 	}
+
+	/**
+	 * Whether the requester accepts several ledger entries per response.
+	 */
+	public boolean isBatched() {
+		return this.batched;
+	}
 }
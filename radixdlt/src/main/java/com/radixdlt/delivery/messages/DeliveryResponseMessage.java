@@ -18,6 +18,7 @@
 package com.radixdlt.delivery.messages;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import com.radixdlt.serialization.DsonOutput;
 import com.radixdlt.serialization.DsonOutput.Output;
 import com.radixdlt.serialization.SerializerId2;
@@ -26,22 +27,37 @@ import org.radix.network.messaging.Message;
 
 @SerializerId2("tempo.sync.delivery.response")
 public class DeliveryResponseMessage extends Message {
+	// single entry responses, as sent to and by peers which do not batch responses
 	@JsonProperty("ledgerEntry")
 	@DsonOutput(Output.ALL)
 	private LedgerEntry ledgerEntry;
 
+	@JsonProperty("ledgerEntries")
+	@DsonOutput(Output.ALL)
+	private ImmutableList<LedgerEntry> ledgerEntries;
+
 	DeliveryResponseMessage() {
 		// For serializer only
 		super(0);
+		this.ledgerEntries = ImmutableList.of();
 	}
 
 	public DeliveryResponseMessage(LedgerEntry ledgerEntry, int magic) {
 		super(magic);
 		this.ledgerEntry = ledgerEntry;
+		this.ledgerEntries = ImmutableList.of();
+	}
+
+	public DeliveryResponseMessage(ImmutableList<LedgerEntry> ledgerEntries, int magic) {
+		super(magic);
+		this.ledgerEntries = ledgerEntries;
 	}
 
-	public LedgerEntry getLedgerEntry() {
-		return ledgerEntry;
+	public ImmutableList<LedgerEntry> getLedgerEntries() {
+		if (ledgerEntries.isEmpty() && ledgerEntry != null) {
+			return ImmutableList.of(ledgerEntry);
+		}
+		return ledgerEntries;
 	}
 
 	@Override
@@ -32,4 +32,17 @@ public interface AtomDiscoverer {
 	 * @param listener The listener
 	 */
 	void removeListener(AtomDiscoveryListener listener);
+
+	/**
+	 * Adds a listener for {@link com.radixdlt.store.LedgerEntry}s received directly instead of just their
+	 * {@link com.radixdlt.common.AID}s, such as when catching up in bulk
+	 * @param listener The listener
+	 */
+	void addEntryListener(LedgerEntryDiscoveryListener listener);
+
+	/**
+	 * Removes a listener for directly received {@link com.radixdlt.store.LedgerEntry}s
+	 * @param listener The listener
+	 */
+	void removeEntryListener(LedgerEntryDiscoveryListener listener);
 }
@@ -0,0 +1,252 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.radixdlt.discovery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.radixdlt.common.AID;
+import com.radixdlt.common.EUID;
+import com.radixdlt.consensus.tempo.Scheduler;
+import com.radixdlt.consensus.tempo.WallclockTimeSupplier;
+import com.radixdlt.discovery.messages.GossipInventoryMessage;
+import com.radixdlt.store.CommitListener;
+import com.radixdlt.store.LedgerEntryStoreView;
+import com.radixdlt.universe.Universe;
+import org.radix.events.EventListener;
+import org.radix.events.Events;
+import org.radix.logging.Logger;
+import org.radix.logging.Logging;
+import org.radix.network2.addressbook.Peer;
+import org.radix.network2.addressbook.PeersAddedEvent;
+import org.radix.network2.addressbook.PeersRemovedEvent;
+import org.radix.network2.addressbook.PeersUpdatedEvent;
+import org.radix.network2.messaging.MessageCentral;
+import org.radix.network2.messaging.MessageListener;
+import org.radix.utils.SystemMetaData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discoverer which pushes newly committed {@link AID}s to a fanout of peers in batched inventory messages
+ * and discovers the aids announced by other peers, whose contents are then pulled through delivery.
+ * <p>
+ * Every node announces each aid at most once, after it committed it itself, so announcements spread
+ * epidemically and stop on their own. Announcements are best effort, polling discoverers remain as a fallback.
+ */
+@Singleton
+public final class GossipDiscoverer implements AtomDiscoverer {
+	private static final Logger log = Logging.getLogger("discoverer.gossip");
+
+	private static final int DEFAULT_FANOUT = 4;
+	private static final int DEFAULT_ANNOUNCE_INTERVAL_MILLIS = 100;
+	private static final int DEFAULT_MAX_AIDS_PER_MESSAGE = 1024;
+	private static final int DEFAULT_SEEN_TIMEOUT_MILLIS = 60000;
+	private static final int DEFAULT_MAX_SEEN_AIDS = 100000;
+
+	private final int fanout;
+	private final int announceIntervalMillis;
+	private final int maxAidsPerMessage;
+
+	private final LedgerEntryStoreView storeView;
+	private final Scheduler scheduler;
+	private final WallclockTimeSupplier wallclockTimeSupplier;
+	private final MessageCentral messageCentral;
+	private final Events events;
+	private final int universeMagic;
+
+	private final Collection<AtomDiscoveryListener> discoveryListeners;
+	private final MessageListener<GossipInventoryMessage> inventoryListener = this::onInventory;
+	private final CommitListener commitListener = this::onCommitted;
+	private final EventListener<PeersAddedEvent> peersAddedListener = event -> event.peers().forEach(this::addPeer);
+	private final EventListener<PeersUpdatedEvent> peersUpdatedListener = event -> event.peers().forEach(this::addPeer);
+	private final EventListener<PeersRemovedEvent> peersRemovedListener = event -> event.peers().forEach(this::removePeer);
+
+	// aids announced by this node and aids announced to this node by others
+	private final GossipSeenSet announced;
+	private final GossipSeenSet received;
+	private final List<AID> pendingAnnouncements = new ArrayList<>();
+
+	// known peers in order of their addition, announced to in turn
+	private final Map<EUID, Peer> peers = new LinkedHashMap<>();
+	private int nextPeerIndex = 0;
+	private volatile boolean closed = false;
+
+	@Inject
+	public GossipDiscoverer(
+		LedgerEntryStoreView storeView,
+		Scheduler scheduler,
+		WallclockTimeSupplier wallclockTimeSupplier,
+		MessageCentral messageCentral,
+		Events events,
+		GossipDiscovererConfiguration configuration,
+		Universe universe
+	) {
+		this.storeView = Objects.requireNonNull(storeView);
+		this.scheduler = Objects.requireNonNull(scheduler);
+		this.wallclockTimeSupplier = Objects.requireNonNull(wallclockTimeSupplier);
+		this.messageCentral = Objects.requireNonNull(messageCentral);
+		this.events = Objects.requireNonNull(events);
+		this.universeMagic = Objects.requireNonNull(universe).getMagic();
+
+		this.discoveryListeners = Collections.synchronizedList(new ArrayList<>());
+
+		this.fanout = configuration.fanout(DEFAULT_FANOUT);
+		this.announceIntervalMillis = Math.max(1, configuration.announceIntervalMillis(DEFAULT_ANNOUNCE_INTERVAL_MILLIS));
+		this.maxAidsPerMessage = Math.max(1, configuration.maxAidsPerMessage(DEFAULT_MAX_AIDS_PER_MESSAGE));
+		int seenTimeoutMillis = configuration.seenTimeoutMillis(DEFAULT_SEEN_TIMEOUT_MILLIS);
+		int maxSeenAids = Math.max(1, configuration.maxSeenAids(DEFAULT_MAX_SEEN_AIDS));
+		this.announced = new GossipSeenSet(seenTimeoutMillis, maxSeenAids);
+		this.received = new GossipSeenSet(seenTimeoutMillis, maxSeenAids);
+
+		events.register(PeersAddedEvent.class, peersAddedListener);
+		events.register(PeersUpdatedEvent.class, peersUpdatedListener);
+		events.register(PeersRemovedEvent.class, peersRemovedListener);
+
+		this.messageCentral.addListener(GossipInventoryMessage.class, inventoryListener);
+		if (fanout > 0) {
+			this.storeView.addCommitListener(commitListener);
+			scheduleAnnouncements();
+		}
+	}
+
+	private void addPeer(Peer peer) {
+		if (peer.hasSystem()) {
+			synchronized (peers) {
+				peers.putIfAbsent(peer.getNID(), peer);
+			}
+		}
+	}
+
+	private void removePeer(Peer peer) {
+		synchronized (peers) {
+			peers.remove(peer.getNID());
+		}
+	}
+
+	private void onCommitted(AID aid) {
+		if (announced.add(aid, null, wallclockTimeSupplier.getAsLong())) {
+			synchronized (pendingAnnouncements) {
+				pendingAnnouncements.add(aid);
+			}
+		}
+	}
+
+	private void scheduleAnnouncements() {
+		scheduler.schedule(() -> {
+			if (!closed) {
+				announce();
+				scheduleAnnouncements();
+			}
+		}, announceIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void announce() {
+		List<AID> aids;
+		synchronized (pendingAnnouncements) {
+			if (pendingAnnouncements.isEmpty()) {
+				return;
+			}
+			aids = new ArrayList<>(pendingAnnouncements);
+			pendingAnnouncements.clear();
+		}
+
+		for (Peer peer : selectTargets()) {
+			// no need to announce aids back to the peer which announced them to us
+			EUID peerNid = peer.getNID();
+			List<AID> peerAids = new ArrayList<>(aids.size());
+			for (AID aid : aids) {
+				if (!peerNid.equals(received.getSource(aid))) {
+					peerAids.add(aid);
+				}
+			}
+			for (List<AID> batch : Lists.partition(peerAids, maxAidsPerMessage)) {
+				messageCentral.send(peer, new GossipInventoryMessage(ImmutableList.copyOf(batch), universeMagic));
+				SystemMetaData.ifPresent(a -> a.increment("tempo.discovery.gossip.inventories.sent"));
+			}
+		}
+	}
+
+	private List<Peer> selectTargets() {
+		synchronized (peers) {
+			List<Peer> knownPeers = new ArrayList<>(peers.values());
+			int numTargets = Math.min(fanout, knownPeers.size());
+			List<Peer> targets = new ArrayList<>(numTargets);
+			for (int i = 0; i < numTargets; i++) {
+				targets.add(knownPeers.get((nextPeerIndex + i) % knownPeers.size()));
+			}
+			// rotate through all peers so that announcements are spread evenly
+			nextPeerIndex = knownPeers.isEmpty() ? 0 : (nextPeerIndex + numTargets) % knownPeers.size();
+			return targets;
+		}
+	}
+
+	private void onInventory(Peer peer, GossipInventoryMessage message) {
+		long now = wallclockTimeSupplier.getAsLong();
+		EUID peerNid = peer.getNID();
+		ImmutableSet<AID> missingAids = message.getAids().stream()
+			.filter(aid -> received.add(aid, peerNid, now))
+			.filter(aid -> !storeView.contains(aid))
+			.collect(ImmutableSet.toImmutableSet());
+		SystemMetaData.ifPresent(a -> a.increment("tempo.discovery.gossip.inventories.received"));
+
+		if (!missingAids.isEmpty()) {
+			if (log.hasLevel(Logging.DEBUG)) {
+				log.debug("Gossip from " + peer + " announced " + missingAids.size() + " missing aids");
+			}
+			discoveryListeners.forEach(listener -> listener.accept(missingAids, peer));
+		}
+	}
+
+	@Override
+	public void addListener(AtomDiscoveryListener listener) {
+		discoveryListeners.add(listener);
+	}
+
+	@Override
+	public void removeListener(AtomDiscoveryListener listener) {
+		discoveryListeners.remove(listener);
+	}
+
+	@Override
+	public void addEntryListener(LedgerEntryDiscoveryListener listener) {
+		// inventories never carry entries, entries are left to delivery
+	}
+
+	@Override
+	public void removeEntryListener(LedgerEntryDiscoveryListener listener) {
+		// nothing to remove, entry listeners are never registered
+	}
+
+	public void close() {
+		this.closed = true;
+		storeView.removeCommitListener(commitListener);
+		events.deregister(PeersAddedEvent.class, peersAddedListener);
+		events.deregister(PeersUpdatedEvent.class, peersUpdatedListener);
+		events.deregister(PeersRemovedEvent.class, peersRemovedListener);
+		messageCentral.removeListener(GossipInventoryMessage.class, inventoryListener);
+	}
+}
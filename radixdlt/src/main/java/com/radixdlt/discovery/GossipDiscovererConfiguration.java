@@ -0,0 +1,79 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.radixdlt.discovery;
+
+import org.radix.properties.RuntimeProperties;
+
+/**
+ * Static configuration for a {@link GossipDiscoverer}
+ */
+public interface GossipDiscovererConfiguration {
+	/**
+	 * Gets the number of peers each newly committed aid is announced to.
+	 * If zero, gossip is disabled.
+	 */
+	int fanout(int defaultValue);
+
+	/**
+	 * Gets the interval in milliseconds at which newly committed aids are announced in batches.
+	 */
+	int announceIntervalMillis(int defaultValue);
+
+	/**
+	 * Gets the maximum number of aids in a single inventory message.
+	 */
+	int maxAidsPerMessage(int defaultValue);
+
+	/**
+	 * Gets the time in milliseconds for which announced and received aids are remembered to suppress duplicates.
+	 */
+	int seenTimeoutMillis(int defaultValue);
+
+	/**
+	 * Gets the maximum number of announced and received aids remembered to suppress duplicates.
+	 */
+	int maxSeenAids(int defaultValue);
+
+	static GossipDiscovererConfiguration fromRuntimeProperties(RuntimeProperties properties) {
+		return new GossipDiscovererConfiguration() {
+			@Override
+			public int fanout(int defaultValue) {
+				return properties.get("tempo.discovery.gossip.fanout", defaultValue);
+			}
+
+			@Override
+			public int announceIntervalMillis(int defaultValue) {
+				return properties.get("tempo.discovery.gossip.announce_interval_millis", defaultValue);
+			}
+
+			@Override
+			public int maxAidsPerMessage(int defaultValue) {
+				return properties.get("tempo.discovery.gossip.max_aids_per_message", defaultValue);
+			}
+
+			@Override
+			public int seenTimeoutMillis(int defaultValue) {
+				return properties.get("tempo.discovery.gossip.seen_timeout_millis", defaultValue);
+			}
+
+			@Override
+			public int maxSeenAids(int defaultValue) {
+				return properties.get("tempo.discovery.gossip.max_seen_aids", defaultValue);
+			}
+		};
+	}
+}
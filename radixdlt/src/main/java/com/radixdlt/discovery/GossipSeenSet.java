@@ -0,0 +1,93 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.radixdlt.discovery;
+
+import com.radixdlt.common.AID;
+import com.radixdlt.common.EUID;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A time and size bounded set of {@link AID}s seen in gossip, along with the peer they were first seen from.
+ * Entries expire in the order they were added.
+ */
+final class GossipSeenSet {
+	private final long ttlMillis;
+	private final int maxSize;
+	private final LinkedHashMap<AID, SeenAid> seen = new LinkedHashMap<>();
+
+	GossipSeenSet(long ttlMillis, int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("maxSize must be positive but was " + maxSize);
+		}
+		this.ttlMillis = ttlMillis;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Marks an aid as seen.
+	 *
+	 * @param aid The aid
+	 * @param source The nid of the peer the aid was seen from, or null if it originated locally
+	 * @param now The current time in milliseconds
+	 * @return Whether the aid was not seen within the time bound before
+	 */
+	synchronized boolean add(AID aid, EUID source, long now) {
+		prune(now);
+		if (seen.containsKey(aid)) {
+			return false;
+		}
+		seen.put(aid, new SeenAid(source, now));
+		if (seen.size() > maxSize) {
+			Iterator<AID> oldest = seen.keySet().iterator();
+			oldest.next();
+			oldest.remove();
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the nid of the peer an aid was first seen from, or null if unknown or it originated locally.
+	 */
+	synchronized EUID getSource(AID aid) {
+		SeenAid seenAid = seen.get(aid);
+		return seenAid == null ? null : seenAid.source;
+	}
+
+	synchronized int size() {
+		return seen.size();
+	}
+
+	private void prune(long now) {
+		Iterator<Map.Entry<AID, SeenAid>> entries = seen.entrySet().iterator();
+		while (entries.hasNext() && now - entries.next().getValue().seenAt > ttlMillis) {
+			entries.remove();
+		}
+	}
+
+	private static final class SeenAid {
+		private final EUID source;
+		private final long seenAt;
+
+		private SeenAid(EUID source, long seenAt) {
+			this.source = source;
+			this.seenAt = seenAt;
+		}
+	}
+}
@@ -27,9 +27,13 @@ import com.radixdlt.common.AID;
 import com.radixdlt.common.EUID;
 import com.radixdlt.store.LedgerEntryStoreView;
 import com.radixdlt.consensus.tempo.Scheduler;
+import com.radixdlt.consensus.tempo.WallclockTimeSupplier;
+import com.radixdlt.discovery.IterativeDiscoveryState.PageCompletion;
+import com.radixdlt.discovery.IterativeDiscoveryState.PageRequest;
 import com.radixdlt.discovery.messages.IterativeDiscoveryRequestMessage;
 import com.radixdlt.discovery.messages.IterativeDiscoveryResponseMessage;
 import com.radixdlt.store.CursorStore;
+import com.radixdlt.store.LedgerEntry;
 import com.radixdlt.universe.Universe;
 import org.radix.common.Syncronicity;
 import org.radix.events.EventListener;
@@ -41,15 +45,15 @@ import org.radix.network2.addressbook.Peer;
 import org.radix.network2.addressbook.PeersAddedEvent;
 import org.radix.network2.addressbook.PeersRemovedEvent;
 import org.radix.network2.addressbook.PeersUpdatedEvent;
+import org.radix.network2.messaging.DispatchPolicy;
 import org.radix.network2.messaging.MessageCentral;
-import org.radix.utils.SimpleThreadPool;
+import org.radix.utils.SystemMetaData;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Objects;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -64,27 +68,38 @@ public final class IterativeDiscoverer implements AtomDiscoverer {
 	private static final int DEFAULT_REQUEST_TIMEOUT_SECONDS = 5;
 	private static final int DEFAULT_MAX_BACKOFF = 4;
 	private static final int DEFAULT_RESPONSE_LIMIT = 10;
+	private static final int DEFAULT_MAX_RESPONSE_LIMIT = 1024;
+	private static final int DEFAULT_REQUEST_WINDOW = 4;
+	private static final int DEFAULT_FAST_RESPONSE_MILLIS = 500;
+	private static final int DEFAULT_MAX_BULK_PEERS = 1;
+	private static final int DEFAULT_MAX_BULK_RESPONSE_BYTES = 512 * 1024;
+	private static final int DEFAULT_CURSOR_FLUSH_INTERVAL_MILLIS = 5000;
+	private static final int DEFAULT_CURSOR_FLUSH_THRESHOLD = 64;
+	private static final int DEFAULT_MAX_CURSOR_LAG = 16384;
 	private static final int DEFAULT_REQUEST_QUEUE_CAPACITY = 8192;
 	private static final int DEFAULT_REQUEST_PROCESSOR_THREADS = 2;
 
 	private final EUID self;
 	private final int maxBackoff;
 	private final int responseLimit;
+	private final int maxResponseLimit;
+	private final int requestWindow;
 	private final int requestTimeoutSeconds;
+	private final int maxBulkPeers;
+	private final int maxBulkResponseBytes;
 
 	@VisibleForTesting
-	final IterativeDiscoveryState discoveryState = new IterativeDiscoveryState();
+	final IterativeDiscoveryState discoveryState;
 
-	private final CursorStore cursorStore;
+	private final WriteBehindCursorCache cursors;
 	private final LedgerEntryStoreView storeView;
 	private final Scheduler scheduler;
+	private final WallclockTimeSupplier wallclockTimeSupplier;
 	private final MessageCentral messageCentral;
 	private final int universeMagic;
 
 	private final Collection<AtomDiscoveryListener> discoveryListeners;
-
-	private final BlockingQueue<IterativeDiscoveryRequest> requestQueue;
-	private final SimpleThreadPool<IterativeDiscoveryRequest> requestThreadPool;
+	private final Collection<LedgerEntryDiscoveryListener> entryListeners;
 
 	@Inject
 	public IterativeDiscoverer(
@@ -92,6 +107,7 @@ public final class IterativeDiscoverer implements AtomDiscoverer {
 		LedgerEntryStoreView storeView,
 		CursorStore cursorStore,
 		Scheduler scheduler,
+		WallclockTimeSupplier wallclockTimeSupplier,
 		MessageCentral messageCentral,
 		Events events,
 		IterativeDiscovererConfiguration configuration,
@@ -99,13 +115,14 @@ public final class IterativeDiscoverer implements AtomDiscoverer {
 	) {
 		this.self = Objects.requireNonNull(self);
 		this.storeView = Objects.requireNonNull(storeView);
-		this.cursorStore = Objects.requireNonNull(cursorStore);
 		this.scheduler = Objects.requireNonNull(scheduler);
+		this.wallclockTimeSupplier = Objects.requireNonNull(wallclockTimeSupplier);
 		this.messageCentral = Objects.requireNonNull(messageCentral);
 		this.universeMagic = Objects.requireNonNull(universe).getMagic();
 
 		// TODO improve locking to something like in messaging
 		this.discoveryListeners = Collections.synchronizedList(new ArrayList<>());
+		this.entryListeners = Collections.synchronizedList(new ArrayList<>());
 
 		// TODO replace with more restricted address book once it's hooked up
 		// TODO remove listener when closed
@@ -116,50 +133,100 @@ public final class IterativeDiscoverer implements AtomDiscoverer {
 			.forEach(IterativeDiscoverer.this::abandonDiscovery));
 
 		this.responseLimit = configuration.responseLimit(DEFAULT_RESPONSE_LIMIT);
+		this.maxResponseLimit = Math.max(responseLimit, configuration.maxResponseLimit(DEFAULT_MAX_RESPONSE_LIMIT));
+		this.requestWindow = Math.max(1, configuration.requestWindow(DEFAULT_REQUEST_WINDOW));
 		this.maxBackoff = configuration.maxBackoff(DEFAULT_MAX_BACKOFF);
 		this.requestTimeoutSeconds = configuration.requestTimeoutSeconds(DEFAULT_REQUEST_TIMEOUT_SECONDS);
+		int fastResponseMillis = configuration.fastResponseMillis(DEFAULT_FAST_RESPONSE_MILLIS);
+		this.maxBulkPeers = configuration.maxBulkPeers(DEFAULT_MAX_BULK_PEERS);
+		this.maxBulkResponseBytes = configuration.maxBulkResponseBytes(DEFAULT_MAX_BULK_RESPONSE_BYTES);
+		this.discoveryState = new IterativeDiscoveryState(responseLimit, maxResponseLimit, fastResponseMillis);
+		this.cursors = new WriteBehindCursorCache(Objects.requireNonNull(cursorStore), scheduler,
+			configuration.cursorFlushIntervalMillis(DEFAULT_CURSOR_FLUSH_INTERVAL_MILLIS),
+			configuration.cursorFlushThreshold(DEFAULT_CURSOR_FLUSH_THRESHOLD),
+			configuration.maxCursorLag(DEFAULT_MAX_CURSOR_LAG));
 
-		this.messageCentral.addListener(IterativeDiscoveryRequestMessage.class, this::onRequest);
-		this.messageCentral.addListener(IterativeDiscoveryResponseMessage.class, this::onResponse);
-
-		this.requestQueue = new ArrayBlockingQueue<>(configuration.requestProcessorThreads(DEFAULT_REQUEST_QUEUE_CAPACITY));
 		int processorThreads = configuration.requestProcessorThreads(DEFAULT_REQUEST_PROCESSOR_THREADS);
-		this.requestThreadPool = new SimpleThreadPool<>("Iterative discovery processing", processorThreads, requestQueue::take, this::processRequest, log);
-		this.requestThreadPool.start();
+		// requests read from the store, so are processed on their own lane unless processed inline
+		DispatchPolicy requestPolicy = processorThreads > 0
+			? DispatchPolicy.dedicated("discovery", processorThreads, configuration.requestQueueCapacity(DEFAULT_REQUEST_QUEUE_CAPACITY))
+			: DispatchPolicy.inline();
+		this.messageCentral.addListener(IterativeDiscoveryRequestMessage.class, this::onRequest, requestPolicy);
+		this.messageCentral.addListener(IterativeDiscoveryResponseMessage.class, this::onResponse);
 	}
 
 	private void onRequest(Peer peer, IterativeDiscoveryRequestMessage message) {
-		IterativeDiscoveryRequest request = new IterativeDiscoveryRequest(peer, message);
-		requestQueue.add(request);
-	}
-
-	private void processRequest(IterativeDiscoveryRequest request) {
-		IterativeDiscoveryResponseMessage response = fetchResponse(request.getMessage().getCursor());
+		IterativeDiscoveryResponseMessage response = fetchResponse(message.getCursor(), message.getLimit(), message.isBulk());
 		if (log.hasLevel(Logging.DEBUG)) {
-			log.debug("Responding to iterative discovery request from " + request.getPeer() + " with " + response.getCursor() + "");
+			log.debug("Responding to iterative discovery request from " + peer + " with " + response.getCursor() + "");
 		}
-		messageCentral.send(request.getPeer(), response);
+		messageCentral.send(peer, response);
 	}
 
 	private void onResponse(Peer peer, IterativeDiscoveryResponseMessage message) {
 		EUID peerNid = peer.getNID();
+		if (!message.getEntries().isEmpty()) {
+			notifyEntryListeners(message.getEntries(), peer);
+			SystemMetaData.ifPresent(a -> a.increment("tempo.discovery.iterative.entries", message.getEntries().size()));
+		}
 		notifyListeners(message.getAids(), peer);
-		discoveryState.removeRequest(peerNid, message.getCursor().getLcPosition());
-
-		boolean isLatest = updateCursor(peer, message.getCursor());
-		if (discoveryState.contains(peerNid) && isLatest) {
-			// if there is more to synchronise, request more immediately
-			if (message.getCursor().hasNext()) {
-				discoveryState.onDiscovering(peerNid);
-				requestDiscovery(peer, message.getCursor().getNext());
-			} else { // if synchronised, back off exponentially
-				discoveryState.onDiscovered(peerNid);
-				int timeout = 1 << Math.min(discoveryState.getBackoff(peerNid), maxBackoff);
-				// TODO aggregate cancellables and cancel on stop
-				scheduler.schedule(() -> initiateDiscovery(peer), timeout, TimeUnit.SECONDS);
+		SystemMetaData.ifPresent(a -> a.increment("tempo.discovery.iterative.aids", message.getAids().size()));
+
+		// the number of logical clock positions covered by this response
+		LogicalClockCursor cursor = message.getCursor();
+		long position = cursor.getLcPosition();
+		int covered = cursor.hasNext() ? (int) (cursor.getNext().getLcPosition() - position) : 0;
+		PageCompletion completion = discoveryState.completeRequest(peerNid, position, covered,
+			message.getLimit(), wallclockTimeSupplier.getAsLong());
+		if (completion == PageCompletion.STALE) {
+			// late or duplicate response, the page has already been dealt with
+			return;
+		}
 
-				if (log.hasLevel(Logging.DEBUG)) {
-					log.debug(String.format("Backing off from iterative discovery with %s for %d seconds as all synced up", peer, timeout));
+		updateCursor(peer, discoveryState.getCursorPosition(peerNid));
+		updateBulk(peer, message, covered);
+		if (completion == PageCompletion.IN_PROGRESS) {
+			// if there is more to synchronise, keep the request window full
+			requestPages(peer);
+		} else { // if synchronised, back off exponentially
+			int timeout = 1 << Math.min(discoveryState.getBackoff(peerNid), maxBackoff);
+			// TODO aggregate cancellables and cancel on stop
+			scheduler.schedule(() -> initiateDiscovery(peer), timeout, TimeUnit.SECONDS);
+
+			if (log.hasLevel(Logging.DEBUG)) {
+				log.debug(String.format("Backing off from iterative discovery with %s for %d seconds as all synced up: %s",
+					peer, timeout, discoveryState.getStats(peerNid)));
+			}
+		}
+	}
+
+	private void updateBulk(Peer peer, IterativeDiscoveryResponseMessage message, int covered) {
+		if (maxBulkPeers <= 0) {
+			return;
+		}
+
+		EUID peerNid = peer.getNID();
+		if (discoveryState.isBulk(peerNid)) {
+			// go back to aids once caught up, when mostly receiving known entries or if the peer does not support bulk
+			ImmutableList<LedgerEntry> entries = message.getEntries();
+			long known = entries.stream()
+				.map(LedgerEntry::getAID)
+				.filter(storeView::contains)
+				.count();
+			if (covered < message.getLimit() || known * 2 > entries.size() || !message.getAids().isEmpty()) {
+				if (discoveryState.setBulk(peerNid, false, maxBulkPeers)) {
+					log.info("Finished bulk catch-up with " + peer);
+				}
+			}
+		} else {
+			// catch up in bulk if almost all aids in a full page are unknown
+			ImmutableList<AID> aids = message.getAids();
+			if (message.getLimit() > 0 && covered >= message.getLimit() && !aids.isEmpty()) {
+				long unknown = aids.stream()
+					.filter(aid -> !storeView.contains(aid))
+					.count();
+				if (unknown * 10 >= aids.size() * 9L && discoveryState.setBulk(peerNid, true, maxBulkPeers)) {
+					log.info("Starting bulk catch-up with " + peer);
 				}
 			}
 		}
@@ -167,11 +234,18 @@ public final class IterativeDiscoverer implements AtomDiscoverer {
 
 	private void initiateDiscovery(Peer peer) {
 		log.info("Initiating iterative discovery with " + peer);
-		discoveryState.add(peer.getNID());
+		EUID peerNid = peer.getNID();
+		discoveryState.add(peerNid);
+		discoveryState.startRound(peerNid, getLatestCursorPosition(peer), wallclockTimeSupplier.getAsLong());
+		requestPages(peer);
+	}
 
-		long latestCursorPosition = getLatestCursorPosition(peer);
-		LogicalClockCursor cursor = new LogicalClockCursor(latestCursorPosition);
-		requestDiscovery(peer, cursor);
+	private void requestPages(Peer peer) {
+		EUID peerNid = peer.getNID();
+		Optional<PageRequest> page;
+		while ((page = discoveryState.nextRequest(peerNid, requestWindow, wallclockTimeSupplier.getAsLong())).isPresent()) {
+			requestDiscovery(peer, page.get());
+		}
 	}
 
 	private void abandonDiscovery(Peer peer) {
@@ -179,54 +253,75 @@ public final class IterativeDiscoverer implements AtomDiscoverer {
 		discoveryState.remove(peer.getNID());
 	}
 
-	private void requestDiscovery(Peer peer, LogicalClockCursor cursor) {
-		IterativeDiscoveryRequestMessage request = new IterativeDiscoveryRequestMessage(cursor, universeMagic);
-		discoveryState.addRequest(peer.getNID(), cursor.getLcPosition());
+	private void requestDiscovery(Peer peer, PageRequest page) {
+		LogicalClockCursor cursor = new LogicalClockCursor(page.getPosition());
+		IterativeDiscoveryRequestMessage request = new IterativeDiscoveryRequestMessage(cursor, page.getLimit(), page.isBulk(), universeMagic);
 		messageCentral.send(peer, request);
 		if (log.hasLevel(Logging.DEBUG)) {
-			log.debug("Requesting iterative discovery from " + peer + " at " + cursor);
+			log.debug("Requesting iterative discovery from " + peer + " at " + page);
 		}
 
 		// re-request after a certain timeout if no response has been received
-		scheduler.schedule(() -> {
-			if (discoveryState.isPending(peer.getNID(), cursor.getLcPosition())) {
+		scheduler.schedule(() -> discoveryState.retryRequest(peer.getNID(), page.getPosition(), wallclockTimeSupplier.getAsLong())
+			.ifPresent(retry -> {
 				if (log.hasLevel(Logging.DEBUG)) {
-					log.debug("Iterative discovery request to peer " + peer + " at " + cursor + " has timed out, resending");
+					log.debug("Iterative discovery request to peer " + peer + " at " + page + " has timed out, resending");
 				}
 
-				requestDiscovery(peer, cursor);
-			}
-		}, requestTimeoutSeconds, TimeUnit.SECONDS);
+				requestDiscovery(peer, retry);
+			}), requestTimeoutSeconds, TimeUnit.SECONDS);
 	}
 
 	private long getLatestCursorPosition(Peer peer) {
-		return this.cursorStore.get(peer.getNID()).orElse(0L);
+		return this.cursors.get(peer.getNID()).orElse(0L);
 	}
 
-	private boolean updateCursor(Peer peer, LogicalClockCursor peerCursor) {
-		EUID peerNid = peer.getNID();
-		LogicalClockCursor nextCursor = peerCursor.hasNext() ? peerCursor.getNext() : peerCursor;
-		long latestCursor = getLatestCursorPosition(peer);
-		// store new cursor if higher than current
-		if (nextCursor.getLcPosition() > latestCursor) {
-			cursorStore.put(peerNid, nextCursor.getLcPosition());
-		}
-		// return whether this new cursor was the latest
-		return nextCursor.getLcPosition() >= latestCursor;
+	private void updateCursor(Peer peer, long cursorPosition) {
+		// cursors only move forward and are written to the store in batches
+		cursors.advance(peer.getNID(), cursorPosition);
 	}
 
-	private IterativeDiscoveryResponseMessage fetchResponse(LogicalClockCursor cursor) {
+	private IterativeDiscoveryResponseMessage fetchResponse(LogicalClockCursor cursor, int requestedLimit, boolean bulk) {
 		long lcPosition = cursor.getLcPosition();
-		ImmutableList<AID> aids = storeView.getNextCommitted(lcPosition, responseLimit);
+		// requests without a limit are served with the default page size
+		int limit = requestedLimit > 0 ? Math.min(requestedLimit, maxResponseLimit) : responseLimit;
+		ImmutableList<AID> aids = storeView.getNextCommitted(lcPosition, limit);
+
+		if (bulk) {
+			ImmutableList.Builder<LedgerEntry> entries = ImmutableList.builder();
+			int consumed = 0;
+			long entriesBytes = 0;
+			for (AID aid : aids) {
+				Optional<LedgerEntry> entry = storeView.get(aid);
+				if (entry.isPresent()) {
+					int entryBytes = entry.get().getContent().length;
+					// always include at least one entry to guarantee progress
+					if (consumed > 0 && entriesBytes + entryBytes > maxBulkResponseBytes) {
+						break;
+					}
+					entriesBytes += entryBytes;
+					entries.add(entry.get());
+				}
+				consumed++;
+			}
+			// if cut short by size, report the number of consumed positions as the limit so the rest is requested separately
+			if (consumed < aids.size()) {
+				limit = consumed;
+			}
+			return new IterativeDiscoveryResponseMessage(ImmutableList.of(), entries.build(), toResponseCursor(lcPosition, consumed), limit, universeMagic);
+		}
+
+		return new IterativeDiscoveryResponseMessage(aids, toResponseCursor(lcPosition, aids.size()), limit, universeMagic);
+	}
 
-		long nextLcPosition = lcPosition + aids.size();
+	private static LogicalClockCursor toResponseCursor(long lcPosition, int consumed) {
+		long nextLcPosition = lcPosition + consumed;
 		LogicalClockCursor nextCursor = null;
 		// only set next cursor if the cursor was actually advanced
 		if (nextLcPosition > lcPosition) {
 			nextCursor = new LogicalClockCursor(nextLcPosition, null);
 		}
-		LogicalClockCursor responseCursor = new LogicalClockCursor(lcPosition, nextCursor);
-		return new IterativeDiscoveryResponseMessage(aids, responseCursor, universeMagic);
+		return new LogicalClockCursor(lcPosition, nextCursor);
 	}
 
 	@Override
@@ -239,14 +334,28 @@ public final class IterativeDiscoverer implements AtomDiscoverer {
 		discoveryListeners.remove(listener);
 	}
 
+	@Override
+	public void addEntryListener(LedgerEntryDiscoveryListener listener) {
+		entryListeners.add(listener);
+	}
+
+	@Override
+	public void removeEntryListener(LedgerEntryDiscoveryListener listener) {
+		entryListeners.remove(listener);
+	}
+
 	private void notifyListeners(ImmutableList<AID> aids, Peer peer) {
 		discoveryListeners.forEach(listener -> listener.accept(ImmutableSet.copyOf(aids), peer));
 	}
 
+	private void notifyEntryListeners(ImmutableList<LedgerEntry> entries, Peer peer) {
+		entryListeners.forEach(listener -> listener.accept(entries, peer));
+	}
+
 	public void close() {
-		requestThreadPool.stop();
 		messageCentral.removeListener(IterativeDiscoveryRequestMessage.class, this::onRequest);
 		messageCentral.removeListener(IterativeDiscoveryResponseMessage.class, this::onResponse);
+		cursors.close();
 	}
 
 	private void handleNewPeers(Stream<Peer> peers) {
@@ -274,22 +383,4 @@ public final class IterativeDiscoverer implements AtomDiscoverer {
 			return Syncronicity.SYNCRONOUS;
 		}
 	}
-
-	private static final class IterativeDiscoveryRequest {
-		private final Peer peer;
-		private final IterativeDiscoveryRequestMessage message;
-
-		private IterativeDiscoveryRequest(Peer peer, IterativeDiscoveryRequestMessage message) {
-			this.peer = peer;
-			this.message = message;
-		}
-
-		private Peer getPeer() {
-			return peer;
-		}
-
-		private IterativeDiscoveryRequestMessage getMessage() {
-			return message;
-		}
-	}
 }
@@ -27,10 +27,63 @@ public interface IterativeDiscovererConfiguration {
 
 	int maxBackoff(int defaultValue);
 
+	/**
+	 * Gets the initial (and minimum) number of aids requested per page.
+	 */
 	int responseLimit(int defaultValue);
 
+	/**
+	 * Gets the maximum number of aids requested from or served to a peer per page.
+	 */
+	int maxResponseLimit(int defaultValue);
+
+	/**
+	 * Gets the maximum number of outstanding page requests per peer.
+	 */
+	int requestWindow(int defaultValue);
+
+	/**
+	 * Gets the response latency in milliseconds below which the page size is grown.
+	 */
+	int fastResponseMillis(int defaultValue);
+
+	/**
+	 * Gets the maximum number of peers ledger entries are requested from in bulk at the same time.
+	 * If zero, only aids are ever requested.
+	 */
+	int maxBulkPeers(int defaultValue);
+
+	/**
+	 * Gets the maximum size in bytes of the ledger entries served in a single bulk response.
+	 */
+	int maxBulkResponseBytes(int defaultValue);
+
+	/**
+	 * Gets the interval in milliseconds at which discovery cursors are written to the cursor store.
+	 * If zero, cursors are written immediately.
+	 */
+	int cursorFlushIntervalMillis(int defaultValue);
+
+	/**
+	 * Gets the number of peers with unwritten cursors at which cursors are written early.
+	 */
+	int cursorFlushThreshold(int defaultValue);
+
+	/**
+	 * Gets the number of logical clock positions a cursor may be ahead of its written value before it is written early.
+	 * This bounds how much has to be discovered again after a crash.
+	 */
+	int maxCursorLag(int defaultValue);
+
+	/**
+	 * Gets the number of inbound requests that are queued before further requests are dropped.
+	 */
 	int requestQueueCapacity(int defaultValue);
 
+	/**
+	 * Gets the number of threads processing inbound requests.
+	 * If zero, requests are processed inline on the messaging thread (as used in deterministic simulations).
+	 */
 	int requestProcessorThreads(int defaultValue);
 
 	static IterativeDiscovererConfiguration fromRuntimeProperties(RuntimeProperties properties) {
@@ -50,6 +103,46 @@ public interface IterativeDiscovererConfiguration {
 				return properties.get("tempo.discovery.iterative.response_limit", defaultValue);
 			}
 
+			@Override
+			public int maxResponseLimit(int defaultValue) {
+				return properties.get("tempo.discovery.iterative.max_response_limit", defaultValue);
+			}
+
+			@Override
+			public int requestWindow(int defaultValue) {
+				return properties.get("tempo.discovery.iterative.request_window", defaultValue);
+			}
+
+			@Override
+			public int fastResponseMillis(int defaultValue) {
+				return properties.get("tempo.discovery.iterative.fast_response_millis", defaultValue);
+			}
+
+			@Override
+			public int maxBulkPeers(int defaultValue) {
+				return properties.get("tempo.discovery.iterative.max_bulk_peers", defaultValue);
+			}
+
+			@Override
+			public int maxBulkResponseBytes(int defaultValue) {
+				return properties.get("tempo.discovery.iterative.max_bulk_response_bytes", defaultValue);
+			}
+
+			@Override
+			public int cursorFlushIntervalMillis(int defaultValue) {
+				return properties.get("tempo.discovery.iterative.cursor_flush_interval_millis", defaultValue);
+			}
+
+			@Override
+			public int cursorFlushThreshold(int defaultValue) {
+				return properties.get("tempo.discovery.iterative.cursor_flush_threshold", defaultValue);
+			}
+
+			@Override
+			public int maxCursorLag(int defaultValue) {
+				return properties.get("tempo.discovery.iterative.max_cursor_lag", defaultValue);
+			}
+
 			@Override
 			public int requestQueueCapacity(int defaultValue) {
 				return properties.get("tempo.discovery.iterative.request_queue_capacity", defaultValue);
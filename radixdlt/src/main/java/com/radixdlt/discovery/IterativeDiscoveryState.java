@@ -19,86 +19,175 @@ package com.radixdlt.discovery;
 
 import com.radixdlt.common.EUID;
 import com.radixdlt.consensus.tempo.TempoException;
-import org.radix.network2.utils.Locking;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 /**
  * The state of iterative discovery across multiple peers.
- * The individual peer states capture pending requests and a 'backoff' when discovery is synchronised.
+ * The individual peer states capture a window of pending page requests, the adaptive page size,
+ * whether entries are requested in bulk, throughput statistics and a 'backoff' when discovery is synchronised.
+ * <p>
+ * Peers are kept in a concurrent map and each peer state is guarded by its own monitor, so requests,
+ * responses and timeouts of different peers never contend. Frequently read scalars such as the cursor,
+ * the backoff and the bulk flag are volatile and can be read without synchronisation.
  */
 class IterativeDiscoveryState {
-	private final Lock stateLock = new ReentrantLock(true);
-	private final Map<EUID, IterativeDiscoveryPeerState> states = new HashMap<>();
+	/**
+	 * Outcome of completing a page request.
+	 */
+	enum PageCompletion {
+		/**
+		 * The page was not pending (e.g. a late response to a request that was already answered).
+		 */
+		STALE,
+		/**
+		 * The page was completed and there is more to discover in the current round.
+		 */
+		IN_PROGRESS,
+		/**
+		 * The page was the last outstanding page of the current round.
+		 */
+		ROUND_COMPLETE
+	}
+
+	private final ConcurrentMap<EUID, IterativeDiscoveryPeerState> states = new ConcurrentHashMap<>();
+	// number of peers currently in bulk mode, reserved before a peer switches to bulk
+	private final AtomicInteger bulkPeers = new AtomicInteger();
 
-	IterativeDiscoveryState() {
-		// nothing to do here
+	private final int minPageSize;
+	private final int maxPageSize;
+	private final long fastResponseMillis;
+
+	IterativeDiscoveryState(int minPageSize, int maxPageSize, long fastResponseMillis) {
+		if (minPageSize < 1 || maxPageSize < minPageSize) {
+			throw new IllegalArgumentException("Invalid page size range: " + minPageSize + ".." + maxPageSize);
+		}
+		this.minPageSize = minPageSize;
+		this.maxPageSize = maxPageSize;
+		this.fastResponseMillis = fastResponseMillis;
 	}
 
 	boolean isDiscovered(EUID nid) {
-		return Locking.withSupplierLock(stateLock, () -> states.containsKey(nid) && states.get(nid).backoffCounter == 0);
+		IterativeDiscoveryPeerState state = states.get(nid);
+		return state != null && state.backoffCounter == 0;
 	}
 
 	boolean contains(EUID nid) {
-		return Locking.withSupplierLock(stateLock, () -> states.containsKey(nid));
+		return states.containsKey(nid);
 	}
 
-	boolean isPending(EUID nid, long request) {
-		return Locking.withSupplierLock(stateLock, () -> states.containsKey(nid) && states.get(nid).isPending(request));
+	boolean isPending(EUID nid, long position) {
+		IterativeDiscoveryPeerState state = states.get(nid);
+		return state != null && state.isPending(position);
 	}
 
 	public void add(EUID nid) {
-		Locking.withLock(stateLock, () -> states.computeIfAbsent(nid, n -> new IterativeDiscoveryPeerState()));
+		states.computeIfAbsent(nid, n -> new IterativeDiscoveryPeerState(minPageSize));
 	}
 
 	void remove(EUID nid) {
-		Locking.withLock(stateLock, () -> states.remove(nid));
+		IterativeDiscoveryPeerState state = states.remove(nid);
+		if (state != null) {
+			state.release();
+		}
 	}
 
-	void addRequest(EUID nid, long request) {
-		Locking.withLock(stateLock, () -> {
-			IterativeDiscoveryPeerState state = states.get(nid);
-			if (state == null) {
-				throw new TempoException("State for nid '" + nid + "' does not exist");
-			}
-			state.addRequest(request);
-		});
+	boolean isBulk(EUID nid) {
+		IterativeDiscoveryPeerState state = states.get(nid);
+		return state != null && state.bulk;
 	}
 
-	void removeRequest(EUID nid, long request) {
-		Locking.withLock(stateLock, () -> {
-			IterativeDiscoveryPeerState state = states.get(nid);
-			if (state == null) {
-				throw new TempoException("State for nid '" + nid + "' does not exist");
-			}
-			state.removeRequest(request);
-		});
+	/**
+	 * Switches a peer between requesting aids and requesting entries in bulk.
+	 * The page size is reset when switching as entries are considerably larger than aids.
+	 *
+	 * @param nid The peer
+	 * @param bulk Whether to request entries in bulk
+	 * @param maxBulkPeers The maximum number of peers entries may be requested from in bulk at the same time
+	 * @return Whether the mode of the peer was changed
+	 */
+	boolean setBulk(EUID nid, boolean bulk, int maxBulkPeers) {
+		IterativeDiscoveryPeerState state = states.get(nid);
+		return state != null && state.setBulk(bulk, maxBulkPeers);
 	}
 
-	void onDiscovered(EUID nid) {
-		Locking.withLock(stateLock, () -> {
-			IterativeDiscoveryPeerState state = states.get(nid);
-			if (state == null) {
-				throw new TempoException("State for nid '" + nid + "' does not exist");
-			}
-			state.onDiscovered();
-		});
+	/**
+	 * Starts a new discovery round with a peer from the given logical clock position.
+	 * Any outstanding pages of a previous round are forgotten.
+	 */
+	void startRound(EUID nid, long position, long now) {
+		getState(nid).startRound(position, now);
 	}
 
-	void onDiscovering(EUID nid) {
-		Locking.withLock(stateLock, () -> {
-			IterativeDiscoveryPeerState state = states.get(nid);
-			if (state == null) {
-				throw new TempoException("State for nid '" + nid + "' does not exist");
-			}
-			state.onDiscovering();
-		});
+	/**
+	 * Takes the next page to request from a peer if the window allows for another request.
+	 *
+	 * @param nid The peer
+	 * @param window The maximum number of outstanding pages
+	 * @param now The current time in milliseconds
+	 * @return The page to request, or empty if the window is full or the peer is exhausted
+	 */
+	Optional<PageRequest> nextRequest(EUID nid, int window, long now) {
+		IterativeDiscoveryPeerState state = states.get(nid);
+		if (state == null) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(state.nextRequest(window, now));
+	}
+
+	/**
+	 * Marks a pending page as timed out, shrinking the page size for the peer.
+	 *
+	 * @return The page to request again, or empty if the page is no longer pending
+	 */
+	Optional<PageRequest> retryRequest(EUID nid, long position, long now) {
+		IterativeDiscoveryPeerState state = states.get(nid);
+		if (state == null) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(state.retryRequest(position, now));
+	}
+
+	/**
+	 * Completes a pending page with the number of aids received.
+	 *
+	 * @param nid The peer
+	 * @param position The requested logical clock position
+	 * @param numAids The number of aids (or entries in bulk) in the response
+	 * @param appliedLimit The limit the peer applied when responding, or 0 if unknown
+	 * @param now The current time in milliseconds
+	 * @return The outcome of completing the page
+	 */
+	PageCompletion completeRequest(EUID nid, long position, int numAids, int appliedLimit, long now) {
+		IterativeDiscoveryPeerState state = states.get(nid);
+		if (state == null) {
+			return PageCompletion.STALE;
+		}
+		return state.completeRequest(position, numAids, appliedLimit, now);
+	}
+
+	/**
+	 * Gets the highest logical clock position up to which all pages of a peer have been completed.
+	 */
+	long getCursorPosition(EUID nid) {
+		return getState(nid).contiguousPosition;
+	}
+
+	int getBackoff(EUID nid) {
+		return getState(nid).backoffCounter;
+	}
+
+	PeerStats getStats(EUID nid) {
+		return getState(nid).getStats();
 	}
 
 	@Override
@@ -107,49 +196,284 @@ class IterativeDiscoveryState {
 			"states=" + states + '}';
 	}
 
-	int getBackoff(EUID nid) {
+	public Stream<EUID> peers() {
+		return this.states.keySet().stream();
+	}
+
+	public void reset() {
+		this.states.keySet().forEach(this::remove);
+	}
+
+	private IterativeDiscoveryPeerState getState(EUID nid) {
 		IterativeDiscoveryPeerState state = states.get(nid);
 		if (state == null) {
-			throw new TempoException("State for '" + nid + "' does not exist");
+			throw new TempoException("State for nid '" + nid + "' does not exist");
 		}
-		return state.backoffCounter;
+		return state;
 	}
 
-	public Stream<EUID> peers() {
-		return this.states.keySet().stream();
+	/**
+	 * A requested page of logical clock positions.
+	 */
+	static final class PageRequest {
+		private final long position;
+		private final int limit;
+		private final boolean bulk;
+		private final long requestedAt;
+
+		private PageRequest(long position, int limit, boolean bulk, long requestedAt) {
+			this.position = position;
+			this.limit = limit;
+			this.bulk = bulk;
+			this.requestedAt = requestedAt;
+		}
+
+		long getPosition() {
+			return position;
+		}
+
+		int getLimit() {
+			return limit;
+		}
+
+		/**
+		 * Whether entries rather than aids are requested for this page.
+		 */
+		boolean isBulk() {
+			return bulk;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("PageRequest{pos=%d, limit=%d, bulk=%s}", position, limit, bulk);
+		}
 	}
 
-	public void reset() {
-		Locking.withLock(stateLock, this.states::clear);
+	/**
+	 * Snapshot of the throughput of discovery with a single peer.
+	 */
+	static final class PeerStats {
+		private final long discoveredAids;
+		private final long responses;
+		private final long averageLatencyMillis;
+		private final int pageSize;
+		private final long roundAids;
+		private final long roundDurationMillis;
+
+		private PeerStats(long discoveredAids, long responses, long averageLatencyMillis, int pageSize, long roundAids, long roundDurationMillis) {
+			this.discoveredAids = discoveredAids;
+			this.responses = responses;
+			this.averageLatencyMillis = averageLatencyMillis;
+			this.pageSize = pageSize;
+			this.roundAids = roundAids;
+			this.roundDurationMillis = roundDurationMillis;
+		}
+
+		long getDiscoveredAids() {
+			return discoveredAids;
+		}
+
+		long getResponses() {
+			return responses;
+		}
+
+		long getAverageLatencyMillis() {
+			return averageLatencyMillis;
+		}
+
+		int getPageSize() {
+			return pageSize;
+		}
+
+		long getRoundAids() {
+			return roundAids;
+		}
+
+		/**
+		 * Gets the number of aids per second discovered in the last round.
+		 */
+		double getRoundThroughput() {
+			return roundDurationMillis <= 0 ? roundAids : roundAids * 1000.0 / roundDurationMillis;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("PeerStats{aids=%d, responses=%d, latency=%dms, pageSize=%d, roundThroughput=%.1f/s}",
+				discoveredAids, responses, averageLatencyMillis, pageSize, getRoundThroughput());
+		}
 	}
 
+	/**
+	 * The state of a single peer, mutated only while holding its monitor.
+	 */
 	private class IterativeDiscoveryPeerState {
-		private final Set<Long> pendingRequests;
-		private int backoffCounter;
+		private final Map<Long, PageRequest> pendingRequests = new HashMap<>();
+		// pages which were cut short by the peer's response limit and still need to be requested
+		private final Deque<PageRequest> gaps = new ArrayDeque<>();
+		// completed pages by start position to their end position, used to advance the contiguous cursor
+		private final TreeMap<Long, Long> completedPages = new TreeMap<>();
+		private long nextPosition;
+		private volatile long contiguousPosition;
+		private boolean exhausted;
+		private volatile boolean bulk;
+		private boolean released;
+		private int pageSize;
+		private int peerMaxPageSize;
+		private volatile int backoffCounter;
+
+		private long discoveredAids;
+		private long responses;
+		private long averageLatencyMillis;
+		private long roundAids;
+		private long roundStartedAt;
+		private long roundDurationMillis;
 
-		private IterativeDiscoveryPeerState() {
-			this.pendingRequests = new HashSet<>();
+		private IterativeDiscoveryPeerState(int initialPageSize) {
+			this.pageSize = initialPageSize;
+			this.peerMaxPageSize = maxPageSize;
 			this.backoffCounter = 0;
 		}
 
-		private void addRequest(long request) {
-			pendingRequests.add(request);
+		private synchronized boolean isPending(long position) {
+			return pendingRequests.containsKey(position);
 		}
 
-		private void removeRequest(long request) {
-			pendingRequests.remove(request);
+		private synchronized boolean setBulk(boolean bulk, int maxBulkPeers) {
+			if (released || this.bulk == bulk) {
+				return false;
+			}
+			if (bulk) {
+				int current;
+				do {
+					current = bulkPeers.get();
+					if (current >= maxBulkPeers) {
+						return false;
+					}
+				} while (!bulkPeers.compareAndSet(current, current + 1));
+			} else {
+				bulkPeers.decrementAndGet();
+			}
+			this.bulk = bulk;
+			this.pageSize = minPageSize;
+			this.peerMaxPageSize = maxPageSize;
+			return true;
 		}
 
-		private boolean isPending(long requestedLCPosition) {
-			return pendingRequests.contains(requestedLCPosition);
+		/**
+		 * Releases the bulk slot of this peer after it was removed.
+		 */
+		private synchronized void release() {
+			if (!released && bulk) {
+				bulkPeers.decrementAndGet();
+			}
+			this.released = true;
 		}
 
-		private void onDiscovered() {
-			this.backoffCounter = Math.min(backoffCounter + 1, Integer.MAX_VALUE - 1);
+		private synchronized void startRound(long position, long now) {
+			this.pendingRequests.clear();
+			this.gaps.clear();
+			this.completedPages.clear();
+			this.nextPosition = position;
+			this.contiguousPosition = position;
+			this.exhausted = false;
+			this.roundAids = 0;
+			this.roundStartedAt = now;
 		}
 
-		private void onDiscovering() {
-			this.backoffCounter = 0;
+		private synchronized PageRequest nextRequest(int window, long now) {
+			if (pendingRequests.size() >= window) {
+				return null;
+			}
+			PageRequest gap = gaps.poll();
+			if (gap != null) {
+				PageRequest request = new PageRequest(gap.position, gap.limit, gap.bulk, now);
+				pendingRequests.put(request.position, request);
+				return request;
+			}
+			if (exhausted) {
+				return null;
+			}
+			PageRequest request = new PageRequest(nextPosition, pageSize, bulk, now);
+			pendingRequests.put(request.position, request);
+			nextPosition += pageSize;
+			return request;
+		}
+
+		private synchronized PageRequest retryRequest(long position, long now) {
+			PageRequest pending = pendingRequests.get(position);
+			if (pending == null) {
+				return null;
+			}
+			shrinkPageSize();
+			PageRequest retry = new PageRequest(pending.position, pending.limit, pending.bulk, now);
+			pendingRequests.put(position, retry);
+			return retry;
+		}
+
+		private synchronized PageCompletion completeRequest(long position, int numAids, int appliedLimit, long now) {
+			PageRequest request = pendingRequests.remove(position);
+			if (request == null) {
+				return PageCompletion.STALE;
+			}
+
+			long latency = Math.max(0L, now - request.requestedAt);
+			this.averageLatencyMillis = responses == 0 ? latency : (averageLatencyMillis * 7 + latency) / 8;
+			this.responses += 1;
+			this.discoveredAids += numAids;
+			this.roundAids += numAids;
+			if (numAids > 0) {
+				this.backoffCounter = 0;
+			}
+
+			int effectiveLimit = request.limit;
+			if (appliedLimit > 0 && appliedLimit < request.limit) {
+				// peer serves smaller pages than requested, remember and request the remainder separately
+				effectiveLimit = appliedLimit;
+				this.peerMaxPageSize = Math.max(minPageSize, appliedLimit);
+				this.pageSize = Math.min(pageSize, peerMaxPageSize);
+			}
+
+			if (numAids >= effectiveLimit) {
+				if (effectiveLimit < request.limit) {
+					gaps.add(new PageRequest(position + numAids, request.limit - numAids, request.bulk, now));
+				}
+				completedPages.put(position, position + numAids);
+				if (latency <= fastResponseMillis) {
+					this.pageSize = Math.min(pageSize * 2, peerMaxPageSize);
+				} else if (latency > fastResponseMillis * 2) {
+					shrinkPageSize();
+				}
+			} else {
+				// a partial page means the peer has nothing beyond it (yet)
+				completedPages.put(position, position + numAids);
+				this.exhausted = true;
+			}
+
+			Long end;
+			while ((end = completedPages.remove(contiguousPosition)) != null) {
+				this.contiguousPosition = end;
+			}
+
+			if (exhausted && pendingRequests.isEmpty() && gaps.isEmpty()) {
+				this.roundDurationMillis = now - roundStartedAt;
+				this.backoffCounter = Math.min(backoffCounter + 1, Integer.MAX_VALUE - 1);
+				return PageCompletion.ROUND_COMPLETE;
+			}
+			return PageCompletion.IN_PROGRESS;
+		}
+
+		private void shrinkPageSize() {
+			this.pageSize = Math.max(pageSize / 2, minPageSize);
+		}
+
+		private synchronized PeerStats getStats() {
+			return new PeerStats(discoveredAids, responses, averageLatencyMillis, pageSize, roundAids, roundDurationMillis);
+		}
+
+		@Override
+		public synchronized String toString() {
+			return String.format("PeerState{pending=%s, cursor=%d, pageSize=%d, bulk=%s, backoff=%d}",
+				pendingRequests.keySet(), contiguousPosition, pageSize, bulk, backoffCounter);
 		}
 	}
 }
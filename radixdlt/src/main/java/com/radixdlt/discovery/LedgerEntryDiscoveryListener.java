@@ -0,0 +1,31 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.discovery;
+
+import com.radixdlt.store.LedgerEntry;
+import org.radix.network2.addressbook.Peer;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Thread-safe sink for ledger entries received directly from a given peer during discovery.
+ */
+public interface LedgerEntryDiscoveryListener extends BiConsumer<List<LedgerEntry>, Peer> {
+	// only extends consumer interface
+}
@@ -0,0 +1,274 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.radixdlt.discovery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.radixdlt.common.AID;
+import com.radixdlt.common.EUID;
+import com.radixdlt.consensus.tempo.Scheduler;
+import com.radixdlt.discovery.messages.ReconciliationRequestMessage;
+import com.radixdlt.discovery.messages.ReconciliationResponseMessage;
+import com.radixdlt.store.AidBucketTree;
+import com.radixdlt.store.BucketDigest;
+import com.radixdlt.store.LedgerEntryStoreView;
+import com.radixdlt.universe.Universe;
+import org.radix.events.EventListener;
+import org.radix.events.Events;
+import org.radix.logging.Logger;
+import org.radix.logging.Logging;
+import org.radix.network2.addressbook.Peer;
+import org.radix.network2.addressbook.PeersAddedEvent;
+import org.radix.network2.addressbook.PeersRemovedEvent;
+import org.radix.network2.addressbook.PeersUpdatedEvent;
+import org.radix.network2.messaging.DispatchPolicy;
+import org.radix.network2.messaging.MessageCentral;
+import org.radix.network2.messaging.MessageListener;
+import org.radix.utils.SystemMetaData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discoverer which reconciles the committed {@link AID}s with one peer at a time by comparing
+ * the digests of an {@link AidBucketTree}, only descending into buckets which differ.
+ * <p>
+ * A round starts with the digest of the root bucket, so reconciling with a peer that is in sync costs a single
+ * exchange, and finding a few missing aids costs one exchange per level, regardless of the size of the ledger.
+ * Both sides reconcile independently, so each side only discovers what it is missing itself.
+ */
+@Singleton
+public final class ReconciliationDiscoverer implements AtomDiscoverer {
+	private static final Logger log = Logging.getLogger("discoverer.reconciliation");
+
+	private static final int DEFAULT_ROUND_INTERVAL_MILLIS = 10000;
+	private static final int DEFAULT_MAX_BUCKETS_PER_REQUEST = 16;
+	private static final int DEFAULT_MAX_AIDS_PER_BUCKET = 1024;
+	private static final int DEFAULT_REQUEST_QUEUE_CAPACITY = 8192;
+	private static final int DEFAULT_REQUEST_PROCESSOR_THREADS = 1;
+
+	private final int roundIntervalMillis;
+	private final int maxBucketsPerRequest;
+	private final int maxAidsPerBucket;
+
+	private final LedgerEntryStoreView storeView;
+	private final Scheduler scheduler;
+	private final MessageCentral messageCentral;
+	private final Events events;
+	private final int universeMagic;
+
+	private final Collection<AtomDiscoveryListener> discoveryListeners;
+	private final MessageListener<ReconciliationRequestMessage> requestListener = this::onRequest;
+	private final MessageListener<ReconciliationResponseMessage> responseListener = this::onResponse;
+	private final EventListener<PeersAddedEvent> peersAddedListener = event -> event.peers().forEach(this::addPeer);
+	private final EventListener<PeersUpdatedEvent> peersUpdatedListener = event -> event.peers().forEach(this::addPeer);
+	private final EventListener<PeersRemovedEvent> peersRemovedListener = event -> event.peers().forEach(this::removePeer);
+
+	// known peers in order of their addition, reconciled with in turn
+	private final Map<EUID, Peer> peers = new LinkedHashMap<>();
+	private int nextPeerIndex = 0;
+	private volatile boolean closed = false;
+
+	@Inject
+	public ReconciliationDiscoverer(
+		LedgerEntryStoreView storeView,
+		Scheduler scheduler,
+		MessageCentral messageCentral,
+		Events events,
+		ReconciliationDiscovererConfiguration configuration,
+		Universe universe
+	) {
+		this.storeView = Objects.requireNonNull(storeView);
+		this.scheduler = Objects.requireNonNull(scheduler);
+		this.messageCentral = Objects.requireNonNull(messageCentral);
+		this.events = Objects.requireNonNull(events);
+		this.universeMagic = Objects.requireNonNull(universe).getMagic();
+
+		this.discoveryListeners = Collections.synchronizedList(new ArrayList<>());
+
+		this.roundIntervalMillis = configuration.roundIntervalMillis(DEFAULT_ROUND_INTERVAL_MILLIS);
+		this.maxBucketsPerRequest = Math.max(1, configuration.maxBucketsPerRequest(DEFAULT_MAX_BUCKETS_PER_REQUEST));
+		this.maxAidsPerBucket = Math.max(1, configuration.maxAidsPerBucket(DEFAULT_MAX_AIDS_PER_BUCKET));
+
+		events.register(PeersAddedEvent.class, peersAddedListener);
+		events.register(PeersUpdatedEvent.class, peersUpdatedListener);
+		events.register(PeersRemovedEvent.class, peersRemovedListener);
+
+		int processorThreads = configuration.requestProcessorThreads(DEFAULT_REQUEST_PROCESSOR_THREADS);
+		// requests read from the store, so are processed on their own lane unless processed inline
+		DispatchPolicy requestPolicy = processorThreads > 0
+			? DispatchPolicy.dedicated("reconciliation", processorThreads, configuration.requestQueueCapacity(DEFAULT_REQUEST_QUEUE_CAPACITY))
+			: DispatchPolicy.inline();
+		this.messageCentral.addListener(ReconciliationRequestMessage.class, requestListener, requestPolicy);
+		this.messageCentral.addListener(ReconciliationResponseMessage.class, responseListener);
+
+		if (roundIntervalMillis > 0) {
+			scheduleRound();
+		}
+	}
+
+	private void addPeer(Peer peer) {
+		if (peer.hasSystem()) {
+			synchronized (peers) {
+				peers.putIfAbsent(peer.getNID(), peer);
+			}
+		}
+	}
+
+	private void removePeer(Peer peer) {
+		synchronized (peers) {
+			peers.remove(peer.getNID());
+		}
+	}
+
+	private void scheduleRound() {
+		scheduler.schedule(() -> {
+			if (!closed) {
+				startRound();
+				scheduleRound();
+			}
+		}, roundIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void startRound() {
+		Peer peer;
+		synchronized (peers) {
+			if (peers.isEmpty()) {
+				return;
+			}
+			List<Peer> knownPeers = new ArrayList<>(peers.values());
+			peer = knownPeers.get(nextPeerIndex % knownPeers.size());
+			nextPeerIndex = (nextPeerIndex + 1) % knownPeers.size();
+		}
+
+		if (log.hasLevel(Logging.DEBUG)) {
+			log.debug("Starting reconciliation with " + peer);
+		}
+		SystemMetaData.ifPresent(a -> a.increment("tempo.discovery.reconciliation.rounds"));
+		requestReconciliation(peer, 0, ImmutableList.of(storeView.getCommittedDigest(0, 0)));
+	}
+
+	private void requestReconciliation(Peer peer, int level, List<BucketDigest> digests) {
+		for (List<BucketDigest> chunk : Lists.partition(digests, maxBucketsPerRequest)) {
+			messageCentral.send(peer, new ReconciliationRequestMessage(level, ImmutableList.copyOf(chunk), universeMagic));
+		}
+	}
+
+	private void onRequest(Peer peer, ReconciliationRequestMessage message) {
+		int level = message.getLevel();
+		if (level < 0 || level > AidBucketTree.LEAF_LEVEL || message.getDigests().size() > maxBucketsPerRequest) {
+			log.warn("Ignoring invalid reconciliation request from " + peer + " at level " + level
+				+ " with " + message.getDigests().size() + " buckets");
+			return;
+		}
+
+		ImmutableList.Builder<BucketDigest> childDigests = ImmutableList.builder();
+		ImmutableList.Builder<AID> aids = ImmutableList.builder();
+		for (BucketDigest theirs : message.getDigests()) {
+			if (theirs.getBucket() < 0 || theirs.getBucket() >= AidBucketTree.numBuckets(level)) {
+				continue;
+			}
+			BucketDigest ours = storeView.getCommittedDigest(level, theirs.getBucket());
+			// nothing to offer if equal or if we have nothing in that bucket
+			if (ours.getCount() == 0 || ours.matches(theirs)) {
+				continue;
+			}
+			if (level < AidBucketTree.LEAF_LEVEL) {
+				childDigests.addAll(storeView.getCommittedChildDigests(level, theirs.getBucket()));
+			} else {
+				aids.addAll(storeView.getCommittedInBucket(theirs.getBucket(), maxAidsPerBucket));
+			}
+		}
+
+		int responseLevel = level < AidBucketTree.LEAF_LEVEL ? level + 1 : level;
+		messageCentral.send(peer, new ReconciliationResponseMessage(responseLevel, childDigests.build(), aids.build(), universeMagic));
+	}
+
+	private void onResponse(Peer peer, ReconciliationResponseMessage message) {
+		int level = message.getLevel();
+		if (level < 0 || level > AidBucketTree.LEAF_LEVEL) {
+			log.warn("Ignoring invalid reconciliation response from " + peer + " at level " + level);
+			return;
+		}
+
+		if (!message.getAids().isEmpty()) {
+			ImmutableSet<AID> missingAids = message.getAids().stream()
+				.filter(aid -> !storeView.contains(aid))
+				.collect(ImmutableSet.toImmutableSet());
+			if (!missingAids.isEmpty()) {
+				if (log.hasLevel(Logging.DEBUG)) {
+					log.debug("Reconciliation with " + peer + " discovered " + missingAids.size() + " missing aids");
+				}
+				SystemMetaData.ifPresent(a -> a.increment("tempo.discovery.reconciliation.aids", missingAids.size()));
+				discoveryListeners.forEach(listener -> listener.accept(missingAids, peer));
+			}
+		}
+
+		// descend into all buckets which still differ, sending our own digests so the peer can compare
+		List<BucketDigest> differing = new ArrayList<>();
+		for (BucketDigest theirs : message.getDigests()) {
+			if (theirs.getBucket() < 0 || theirs.getBucket() >= AidBucketTree.numBuckets(level)) {
+				continue;
+			}
+			BucketDigest ours = storeView.getCommittedDigest(level, theirs.getBucket());
+			if (!ours.matches(theirs)) {
+				differing.add(ours);
+			}
+		}
+		if (!differing.isEmpty()) {
+			requestReconciliation(peer, level, differing);
+		}
+	}
+
+	@Override
+	public void addListener(AtomDiscoveryListener listener) {
+		discoveryListeners.add(listener);
+	}
+
+	@Override
+	public void removeListener(AtomDiscoveryListener listener) {
+		discoveryListeners.remove(listener);
+	}
+
+	@Override
+	public void addEntryListener(LedgerEntryDiscoveryListener listener) {
+		// reconciliation only ever discovers aids, entries are left to delivery
+	}
+
+	@Override
+	public void removeEntryListener(LedgerEntryDiscoveryListener listener) {
+		// nothing to remove, entry listeners are never registered
+	}
+
+	public void close() {
+		this.closed = true;
+		events.deregister(PeersAddedEvent.class, peersAddedListener);
+		events.deregister(PeersUpdatedEvent.class, peersUpdatedListener);
+		events.deregister(PeersRemovedEvent.class, peersRemovedListener);
+		messageCentral.removeListener(ReconciliationRequestMessage.class, requestListener);
+		messageCentral.removeListener(ReconciliationResponseMessage.class, responseListener);
+	}
+}
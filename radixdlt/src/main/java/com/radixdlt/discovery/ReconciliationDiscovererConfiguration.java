@@ -0,0 +1,80 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.radixdlt.discovery;
+
+import org.radix.properties.RuntimeProperties;
+
+/**
+ * Static configuration for a {@link ReconciliationDiscoverer}
+ */
+public interface ReconciliationDiscovererConfiguration {
+	/**
+	 * Gets the interval in milliseconds between reconciliation rounds, each with the next known peer.
+	 * If zero, reconciliation is disabled.
+	 */
+	int roundIntervalMillis(int defaultValue);
+
+	/**
+	 * Gets the maximum number of bucket digests sent in a single request.
+	 */
+	int maxBucketsPerRequest(int defaultValue);
+
+	/**
+	 * Gets the maximum number of aids served per differing leaf bucket.
+	 */
+	int maxAidsPerBucket(int defaultValue);
+
+	/**
+	 * Gets the number of inbound requests that are queued before further requests are dropped.
+	 */
+	int requestQueueCapacity(int defaultValue);
+
+	/**
+	 * Gets the number of threads processing inbound requests.
+	 * If zero, requests are processed inline on the messaging thread (as used in deterministic simulations).
+	 */
+	int requestProcessorThreads(int defaultValue);
+
+	static ReconciliationDiscovererConfiguration fromRuntimeProperties(RuntimeProperties properties) {
+		return new ReconciliationDiscovererConfiguration() {
+			@Override
+			public int roundIntervalMillis(int defaultValue) {
+				return properties.get("tempo.discovery.reconciliation.round_interval_millis", defaultValue);
+			}
+
+			@Override
+			public int maxBucketsPerRequest(int defaultValue) {
+				return properties.get("tempo.discovery.reconciliation.max_buckets_per_request", defaultValue);
+			}
+
+			@Override
+			public int maxAidsPerBucket(int defaultValue) {
+				return properties.get("tempo.discovery.reconciliation.max_aids_per_bucket", defaultValue);
+			}
+
+			@Override
+			public int requestQueueCapacity(int defaultValue) {
+				return properties.get("tempo.discovery.reconciliation.request_queue_capacity", defaultValue);
+			}
+
+			@Override
+			public int requestProcessorThreads(int defaultValue) {
+				return properties.get("tempo.discovery.reconciliation.request_processor_threads", defaultValue);
+			}
+		};
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.discovery;
+
+import com.radixdlt.common.EUID;
+import com.radixdlt.consensus.tempo.Scheduler;
+import com.radixdlt.consensus.tempo.TempoException;
+import com.radixdlt.store.CursorStore;
+import org.radix.logging.Logger;
+import org.radix.logging.Logging;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory cursors of iterative discovery which are written behind to a {@link CursorStore} in batches.
+ * <p>
+ * The cached cursors are the source of truth while running. Dirty cursors are flushed periodically,
+ * once too many peers are dirty or once a cursor is too far ahead of its persisted value. After a crash
+ * a peer is therefore re-discovered from at most {@code maxCursorLag} positions behind where it was.
+ */
+final class WriteBehindCursorCache {
+	private static final Logger log = Logging.getLogger("discoverer.iterative");
+
+	private final CursorStore cursorStore;
+	private final Scheduler scheduler;
+	private final long flushIntervalMillis;
+	private final int maxDirtyCursors;
+	private final long maxCursorLag;
+
+	private final ConcurrentMap<EUID, Long> cursors = new ConcurrentHashMap<>();
+	private final ConcurrentMap<EUID, Long> persistedCursors = new ConcurrentHashMap<>();
+	private final ConcurrentMap<EUID, Long> dirtyCursors = new ConcurrentHashMap<>();
+	private final Object flushLock = new Object();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates a cache writing behind to the given store.
+	 *
+	 * @param cursorStore The store to persist cursors to
+	 * @param scheduler The scheduler to run flushes on
+	 * @param flushIntervalMillis The interval between periodic flushes, or 0 to write through immediately
+	 * @param maxDirtyCursors The number of dirty cursors at which a flush is triggered
+	 * @param maxCursorLag The distance between a cursor and its persisted value at which a flush is triggered
+	 */
+	WriteBehindCursorCache(CursorStore cursorStore, Scheduler scheduler, long flushIntervalMillis, int maxDirtyCursors, long maxCursorLag) {
+		this.cursorStore = Objects.requireNonNull(cursorStore);
+		this.scheduler = Objects.requireNonNull(scheduler);
+		this.flushIntervalMillis = flushIntervalMillis;
+		this.maxDirtyCursors = Math.max(1, maxDirtyCursors);
+		this.maxCursorLag = Math.max(1L, maxCursorLag);
+
+		if (flushIntervalMillis > 0) {
+			schedulePeriodicFlush();
+		}
+	}
+
+	/**
+	 * Gets the cursor of a peer, loading it from the store if it is not cached yet.
+	 */
+	OptionalLong get(EUID nid) {
+		Long cursor = cursors.get(nid);
+		if (cursor == null) {
+			OptionalLong stored = cursorStore.get(nid);
+			if (!stored.isPresent()) {
+				return OptionalLong.empty();
+			}
+			persistedCursors.putIfAbsent(nid, stored.getAsLong());
+			cursor = cursors.merge(nid, stored.getAsLong(), Math::max);
+		}
+		return OptionalLong.of(cursor);
+	}
+
+	/**
+	 * Advances the cursor of a peer if the given position is ahead of the current cursor.
+	 */
+	void advance(EUID nid, long cursor) {
+		if (closed) {
+			return;
+		}
+		long current = get(nid).orElse(0L);
+		if (cursor <= current) {
+			return;
+		}
+		long updated = cursors.merge(nid, cursor, Math::max);
+		dirtyCursors.merge(nid, updated, Math::max);
+
+		if (flushIntervalMillis <= 0) {
+			flush();
+		} else if (dirtyCursors.size() >= maxDirtyCursors || updated - persistedCursors.getOrDefault(nid, 0L) >= maxCursorLag) {
+			// flush soon, but not on the caller's thread
+			if (flushScheduled.compareAndSet(false, true)) {
+				scheduler.schedule(this::flush, 0, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Writes all dirty cursors to the store in a single batch.
+	 * Cursors which could not be written remain dirty and are retried with the next flush.
+	 */
+	void flush() {
+		synchronized (flushLock) {
+			flushScheduled.set(false);
+			if (dirtyCursors.isEmpty()) {
+				return;
+			}
+
+			Map<EUID, Long> batch = new HashMap<>();
+			for (EUID nid : dirtyCursors.keySet()) {
+				Long cursor = dirtyCursors.remove(nid);
+				if (cursor != null) {
+					batch.put(nid, cursor);
+				}
+			}
+			try {
+				cursorStore.putAll(batch);
+				batch.forEach((nid, cursor) -> persistedCursors.merge(nid, cursor, Math::max));
+				if (log.hasLevel(Logging.DEBUG)) {
+					log.debug("Flushed " + batch.size() + " iterative discovery cursors");
+				}
+			} catch (TempoException e) {
+				log.error("Failed to flush " + batch.size() + " iterative discovery cursors, retrying later", e);
+				batch.forEach((nid, cursor) -> dirtyCursors.merge(nid, cursor, Math::max));
+			}
+		}
+	}
+
+	/**
+	 * Stops periodic flushing and writes all remaining dirty cursors.
+	 * The underlying store is not closed.
+	 */
+	void close() {
+		this.closed = true;
+		flush();
+	}
+
+	private void schedulePeriodicFlush() {
+		scheduler.schedule(() -> {
+			if (!closed) {
+				flush();
+				schedulePeriodicFlush();
+			}
+		}, flushIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public String toString() {
+		return "WriteBehindCursorCache{" +
+			"cursors=" + cursors.size() +
+			", dirty=" + dirtyCursors.size() +
+			'}';
+	}
+}
@@ -30,20 +30,52 @@ public class IterativeDiscoveryRequestMessage extends Message {
 	@DsonOutput(DsonOutput.Output.ALL)
 	private LogicalClockCursor cursor;
 
+	@JsonProperty("limit")
+	@DsonOutput(DsonOutput.Output.ALL)
+	private int limit;
+
+	@JsonProperty("bulk")
+	@DsonOutput(DsonOutput.Output.ALL)
+	private boolean bulk;
+
 	IterativeDiscoveryRequestMessage() {
 		// Serializer only
 		super(0);
 	}
 
 	public IterativeDiscoveryRequestMessage(LogicalClockCursor cursor, int magic) {
+		this(cursor, 0, magic);
+	}
+
+	public IterativeDiscoveryRequestMessage(LogicalClockCursor cursor, int limit, int magic) {
+		this(cursor, limit, false, magic);
+	}
+
+	public IterativeDiscoveryRequestMessage(LogicalClockCursor cursor, int limit, boolean bulk, int magic) {
 		super(magic);
 		this.cursor = cursor;
+		this.limit = limit;
+		this.bulk = bulk;
 	}
 
 	public LogicalClockCursor getCursor() {
 		return cursor;
 	}
 
+	/**
+	 * Gets the maximum number of aids requested, or 0 if the responder should use its default.
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Whether the ledger entries themselves rather than their aids are requested.
+	 */
+	public boolean isBulk() {
+		return bulk;
+	}
+
 	@Override
 	public String getCommand() {
 		return "tempo.sync.discovery.iterative.request";
@@ -24,6 +24,7 @@ import com.radixdlt.common.AID;
 import com.radixdlt.serialization.DsonOutput;
 import com.radixdlt.serialization.SerializerId2;
 import com.radixdlt.discovery.LogicalClockCursor;
+import com.radixdlt.store.LedgerEntry;
 import org.radix.network.messaging.Message;
 
 @SerializerId2("tempo.sync.discovery.iterative.response")
@@ -32,30 +33,63 @@ public class IterativeDiscoveryResponseMessage extends Message {
 	@DsonOutput(DsonOutput.Output.ALL)
 	private ImmutableList<AID> aids;
 
+	@JsonProperty("entries")
+	@DsonOutput(DsonOutput.Output.ALL)
+	private ImmutableList<LedgerEntry> entries;
+
 	@JsonProperty("cursor")
 	@DsonOutput(DsonOutput.Output.ALL)
 	private LogicalClockCursor cursor;
 
+	@JsonProperty("limit")
+	@DsonOutput(DsonOutput.Output.ALL)
+	private int limit;
+
 	IterativeDiscoveryResponseMessage() {
 		// Serializer only
 		super(0);
 		aids = ImmutableList.of();
+		entries = ImmutableList.of();
 	}
 
 	public IterativeDiscoveryResponseMessage(ImmutableList<AID> aids, LogicalClockCursor cursor, int magic) {
+		this(aids, cursor, 0, magic);
+	}
+
+	public IterativeDiscoveryResponseMessage(ImmutableList<AID> aids, LogicalClockCursor cursor, int limit, int magic) {
+		this(aids, ImmutableList.of(), cursor, limit, magic);
+	}
+
+	public IterativeDiscoveryResponseMessage(ImmutableList<AID> aids, ImmutableList<LedgerEntry> entries, LogicalClockCursor cursor, int limit, int magic) {
 		super(magic);
 		this.aids = aids;
+		this.entries = entries;
 		this.cursor = cursor;
+		this.limit = limit;
 	}
 
 	public ImmutableList<AID> getAids() {
 		return aids;
 	}
 
+	/**
+	 * Gets the ledger entries of a bulk response, empty otherwise.
+	 */
+	public ImmutableList<LedgerEntry> getEntries() {
+		return entries;
+	}
+
 	public LogicalClockCursor getCursor() {
 		return cursor;
 	}
 
+	/**
+	 * Gets the limit the responder applied to the number of aids, or 0 if unknown.
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
 	@Override
 	public String getCommand() {
 		return "tempo.sync.discovery.iterative.response";
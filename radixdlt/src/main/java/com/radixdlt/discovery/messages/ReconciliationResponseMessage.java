@@ -0,0 +1,80 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.radixdlt.discovery.messages;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.AID;
+import com.radixdlt.serialization.DsonOutput;
+import com.radixdlt.serialization.SerializerId2;
+import com.radixdlt.store.BucketDigest;
+import org.radix.network.messaging.Message;
+
+@SerializerId2("tempo.sync.discovery.reconciliation.response")
+public class ReconciliationResponseMessage extends Message {
+	@JsonProperty("level")
+	@DsonOutput(DsonOutput.Output.ALL)
+	private int level;
+
+	@JsonProperty("digests")
+	@DsonOutput(DsonOutput.Output.ALL)
+	private ImmutableList<BucketDigest> digests;
+
+	@JsonProperty("aids")
+	@DsonOutput(DsonOutput.Output.ALL)
+	private ImmutableList<AID> aids;
+
+	ReconciliationResponseMessage() {
+		// Serializer only
+		super(0);
+		digests = ImmutableList.of();
+		aids = ImmutableList.of();
+	}
+
+	public ReconciliationResponseMessage(int level, ImmutableList<BucketDigest> digests, ImmutableList<AID> aids, int magic) {
+		super(magic);
+		this.level = level;
+		this.digests = digests;
+		this.aids = aids;
+	}
+
+	/**
+	 * Gets the level of the digests in this response.
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Gets the responder's digests of the children of all requested buckets that differed.
+	 */
+	public ImmutableList<BucketDigest> getDigests() {
+		return digests;
+	}
+
+	/**
+	 * Gets the responder's committed aids in all requested leaf buckets that differed.
+	 */
+	public ImmutableList<AID> getAids() {
+		return aids;
+	}
+
+	@Override
+	public String getCommand() {
+		return "tempo.sync.discovery.reconciliation.response";
+	}
+}
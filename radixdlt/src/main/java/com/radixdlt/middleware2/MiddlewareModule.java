@@ -30,11 +30,15 @@ import com.radixdlt.constraintmachine.ConstraintMachine;
 import com.radixdlt.engine.RadixEngine;
 import com.radixdlt.middleware.AtomCheckHook;
 import com.radixdlt.middleware2.converters.AtomToBinaryConverter;
+import com.radixdlt.middleware2.processing.CompositeAtomEventListener;
 import com.radixdlt.middleware2.processing.EngineAtomEventListener;
+import com.radixdlt.middleware2.processing.ParallelAtomValidator;
 import com.radixdlt.middleware2.store.LedgerEngineStore;
+import com.radixdlt.middleware2.store.SpeculativeEngineStore;
 import com.radixdlt.serialization.Serialization;
 import com.radixdlt.store.CMStore;
 import com.radixdlt.store.EngineStore;
+import com.radixdlt.tracing.AtomLifecycleTracer;
 import com.radixdlt.universe.Universe;
 import org.radix.properties.RuntimeProperties;
 import org.radix.time.Time;
@@ -73,15 +77,71 @@ public class MiddlewareModule extends AbstractModule {
 		return atomOS.buildVirtualLayer();
 	}
 
+	@Provides
+	@Singleton
+	private CompositeAtomEventListener getAtomEventListeners(Serialization serialization) {
+		CompositeAtomEventListener atomEventListeners = new CompositeAtomEventListener();
+		atomEventListeners.addListener(new EngineAtomEventListener(serialization));
+		return atomEventListeners;
+	}
+
 	@Provides
 	@Singleton
 	private RadixEngine getRadixEngine(
 			ConstraintMachine constraintMachine,
 			UnaryOperator<CMStore> virtualStoreLayer,
 			EngineStore engineStore,
+			CompositeAtomEventListener atomEventListeners,
+			RuntimeProperties properties,
+			Universe universe
+	) {
+		RadixEngine radixEngine = buildRadixEngine(constraintMachine, virtualStoreLayer, engineStore, properties, universe);
+		radixEngine.addAtomEventListener(atomEventListeners);
+		radixEngine.start();
+		return radixEngine;
+	}
+
+	@Provides
+	@Singleton
+	private ParallelAtomValidator getParallelAtomValidator(
+			ConstraintMachine constraintMachine,
+			UnaryOperator<CMStore> virtualStoreLayer,
+			EngineStore engineStore,
+			RadixEngine radixEngine,
+			CompositeAtomEventListener atomEventListeners,
 			Serialization serialization,
 			RuntimeProperties properties,
 			Universe universe
+	) {
+		return new ParallelAtomValidator(
+			properties.get("radix_engine.parallel_validation.threads", 0),
+			properties.get("radix_engine.parallel_validation.batch_size", 64),
+			properties.get("radix_engine.parallel_validation.timeout_millis", 10000),
+			properties.get("radix_engine.parallel_validation.max_abandoned_lanes", 8),
+			() -> new SpeculativeEngineStore(engineStore, serialization),
+			store -> {
+				RadixEngine laneEngine = buildRadixEngine(constraintMachine, virtualStoreLayer, store, properties, universe);
+				laneEngine.start();
+				return laneEngine;
+			},
+			engineStore,
+			atomEventListeners,
+			radixEngine
+		);
+	}
+
+	@Provides
+	@Singleton
+	private AtomLifecycleTracer getAtomLifecycleTracer(RuntimeProperties properties) {
+		return AtomLifecycleTracer.fromRuntimeProperties(properties);
+	}
+
+	private static RadixEngine buildRadixEngine(
+			ConstraintMachine constraintMachine,
+			UnaryOperator<CMStore> virtualStoreLayer,
+			EngineStore engineStore,
+			RuntimeProperties properties,
+			Universe universe
 	) {
 		RadixEngine radixEngine = new RadixEngine(
 			constraintMachine,
@@ -99,9 +159,6 @@ public class MiddlewareModule extends AbstractModule {
 						Time.MAXIMUM_DRIFT
 				)
 		);
-
-		radixEngine.addAtomEventListener(new EngineAtomEventListener(serialization));
-		radixEngine.start();
 		return radixEngine;
 	}
 
@@ -0,0 +1,78 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.middleware2.processing;
+
+import com.radixdlt.common.AID;
+import com.radixdlt.common.Atom;
+import com.radixdlt.constraintmachine.CMError;
+import com.radixdlt.constraintmachine.DataPointer;
+import com.radixdlt.constraintmachine.Particle;
+import com.radixdlt.engine.AtomEventListener;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The chain of {@link AtomEventListener}s notified of the outcome of committed atoms.
+ * <p>
+ * This is the only listener registered on the serial {@link com.radixdlt.engine.RadixEngine}, and the
+ * {@link ParallelAtomValidator} reports the atoms it commits to it as well, so listeners which need to
+ * see every committed atom should be added here rather than to the engine.
+ */
+public final class CompositeAtomEventListener implements AtomEventListener {
+	private final List<AtomEventListener> listeners = new CopyOnWriteArrayList<>();
+
+	public void addListener(AtomEventListener listener) {
+		listeners.add(Objects.requireNonNull(listener));
+	}
+
+	public void removeListener(AtomEventListener listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public void onCMSuccess(Atom atom) {
+		listeners.forEach(listener -> listener.onCMSuccess(atom));
+	}
+
+	@Override
+	public void onCMError(Atom atom, CMError error) {
+		listeners.forEach(listener -> listener.onCMError(atom, error));
+	}
+
+	@Override
+	public void onStateStore(Atom atom) {
+		listeners.forEach(listener -> listener.onStateStore(atom));
+	}
+
+	@Override
+	public void onVirtualStateConflict(Atom atom, DataPointer issueParticle) {
+		listeners.forEach(listener -> listener.onVirtualStateConflict(atom, issueParticle));
+	}
+
+	@Override
+	public void onStateConflict(Atom atom, DataPointer issueParticle, Atom conflictingAtom) {
+		listeners.forEach(listener -> listener.onStateConflict(atom, issueParticle, conflictingAtom));
+	}
+
+	@Override
+	public void onStateMissingDependency(AID atomId, Particle particle) {
+		listeners.forEach(listener -> listener.onStateMissingDependency(atomId, particle));
+	}
+}
@@ -0,0 +1,371 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.middleware2.processing;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.radixdlt.common.AID;
+import com.radixdlt.common.Atom;
+import com.radixdlt.common.EUID;
+import com.radixdlt.constraintmachine.CMError;
+import com.radixdlt.constraintmachine.DataPointer;
+import com.radixdlt.constraintmachine.Particle;
+import com.radixdlt.engine.AtomEventListener;
+import com.radixdlt.engine.RadixEngine;
+import com.radixdlt.middleware2.store.SpeculativeEngineStore;
+import com.radixdlt.store.EngineStore;
+import org.radix.logging.Logger;
+import org.radix.logging.Logging;
+import org.radix.utils.SystemMetaData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Optimistic parallel validation of batches of committed atoms.
+ * <p>
+ * Atoms of a batch are validated concurrently by several {@link RadixEngine} lanes, each running against
+ * a {@link SpeculativeEngineStore} view of the ledger which records the particles an atom reads and spins.
+ * Validated atoms are then committed in batch order. An atom which read a particle spun by an earlier atom
+ * of the same batch may have seen stale state and is validated again before it is committed.
+ * <p>
+ * Atoms which cannot be validated speculatively in time are handed to the regular serial engine,
+ * together with the remainder of their batch to preserve ordering. Serially validated atoms are waited
+ * for, so that everything validated afterwards observes their effects.
+ * <p>
+ * A lane which timed out may still be busy and is abandoned together with its engine, which is replaced.
+ * As abandoned engines are not reclaimed, parallel validation is disabled for good once too many lanes
+ * have been abandoned, and all further atoms are validated serially.
+ */
+public final class ParallelAtomValidator {
+	private static final Logger log = Logging.getLogger("middleware2.parallelValidator");
+
+	private final Supplier<SpeculativeEngineStore> storeFactory;
+	private final Function<EngineStore, RadixEngine> engineFactory;
+	private final EngineStore engineStore;
+	private final AtomEventListener eventListener;
+	private final RadixEngine radixEngine;
+	private final int batchSize;
+	private final long timeoutMillis;
+	private final int maxAbandonedLanes;
+
+	private final BlockingQueue<Lane> lanes;
+	private final ExecutorService executor;
+	private final AtomicInteger abandonedLanes = new AtomicInteger();
+	private volatile boolean serialOnly;
+
+	/**
+	 * Creates a parallel validator with the given number of lanes.
+	 *
+	 * @param threads The number of concurrent validation lanes, or 0 to disable parallel validation
+	 * @param batchSize The maximum number of atoms validated as one batch
+	 * @param timeoutMillis The maximum time to wait for the speculative validation of a single atom
+	 * @param maxAbandonedLanes The number of timed out lanes replaced before falling back to serial validation
+	 * @param storeFactory The factory creating the speculative stores of the lanes
+	 * @param engineFactory The factory creating the lane engines on top of a given store
+	 * @param engineStore The store validated atoms are committed to
+	 * @param eventListener The listener registered on the serial engine, to report the outcomes of
+	 * 	atoms committed in parallel to
+	 * @param radixEngine The regular serial engine to fall back to
+	 */
+	public ParallelAtomValidator(
+		int threads,
+		int batchSize,
+		long timeoutMillis,
+		int maxAbandonedLanes,
+		Supplier<SpeculativeEngineStore> storeFactory,
+		Function<EngineStore, RadixEngine> engineFactory,
+		EngineStore engineStore,
+		AtomEventListener eventListener,
+		RadixEngine radixEngine
+	) {
+		this.storeFactory = Objects.requireNonNull(storeFactory);
+		this.engineFactory = Objects.requireNonNull(engineFactory);
+		this.engineStore = Objects.requireNonNull(engineStore);
+		this.eventListener = Objects.requireNonNull(eventListener);
+		this.radixEngine = Objects.requireNonNull(radixEngine);
+		this.batchSize = Math.max(1, batchSize);
+		this.timeoutMillis = Math.max(1, timeoutMillis);
+		this.maxAbandonedLanes = maxAbandonedLanes;
+
+		this.lanes = new LinkedBlockingQueue<>();
+		for (int i = 0; i < threads; i++) {
+			this.lanes.add(newLane());
+		}
+		this.executor = threads > 0
+			? Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("ParallelAtomValidator-%d").setDaemon(true).build())
+			: null;
+	}
+
+	/**
+	 * Whether parallel validation is enabled.
+	 */
+	public boolean isEnabled() {
+		return executor != null;
+	}
+
+	/**
+	 * Gets the maximum number of atoms validated as one batch.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Validates the given atoms concurrently and commits those which are valid in the given order.
+	 * All atoms have been either committed or rejected when this method returns.
+	 *
+	 * @param atoms The atoms to validate, in commit order
+	 * @throws InterruptedException if interrupted while waiting for validation
+	 */
+	public void validate(List<Atom> atoms) throws InterruptedException {
+		if (!isEnabled() || serialOnly) {
+			for (Atom atom : atoms) {
+				validateSerially(atom);
+			}
+			return;
+		}
+
+		List<Future<Speculation>> speculations = new ArrayList<>(atoms.size());
+		for (Atom atom : atoms) {
+			speculations.add(executor.submit(() -> speculate(atom)));
+		}
+
+		Set<EUID> batchWrites = new HashSet<>();
+		boolean serial = false;
+		for (int i = 0; i < atoms.size(); i++) {
+			Atom atom = atoms.get(i);
+			Speculation speculation = awaitSpeculation(speculations.get(i));
+			if (serial) {
+				validateSerially(atom);
+				continue;
+			}
+
+			if (speculation != null && !Collections.disjoint(speculation.readSet, batchWrites)) {
+				// an earlier atom of this batch spun a particle this one depends on, all earlier atoms
+				// are committed by now so validating again observes their effects
+				SystemMetaData.ifPresent(a -> a.increment("radix_engine.parallel_validation.revalidated"));
+				speculation = speculate(atom);
+			}
+
+			if (speculation == null) {
+				log.warn("Speculative validation of " + atom.getAID() + " did not complete, validating remaining "
+					+ (atoms.size() - i) + " atoms of batch serially");
+				serial = true;
+				validateSerially(atom);
+				continue;
+			}
+
+			if (speculation.stored) {
+				engineStore.storeAtom(atom);
+				batchWrites.addAll(speculation.writeSet);
+			}
+			speculation.outcome.accept(eventListener);
+		}
+		SystemMetaData.ifPresent(a -> a.increment("radix_engine.parallel_validation.atoms", atoms.size()));
+	}
+
+	/**
+	 * Stops all validation lanes.
+	 */
+	public void stop() {
+		serialOnly = true;
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	private void validateSerially(Atom atom) throws InterruptedException {
+		// the serial engine stores asynchronously, wait for it so that later atoms see the outcome
+		CountDownLatch done = new CountDownLatch(1);
+		radixEngine.store(atom, new AtomEventListener() {
+			@Override
+			public void onCMError(Atom atom, CMError error) {
+				done.countDown();
+			}
+
+			@Override
+			public void onStateStore(Atom atom) {
+				done.countDown();
+			}
+
+			@Override
+			public void onVirtualStateConflict(Atom atom, DataPointer issueParticle) {
+				done.countDown();
+			}
+
+			@Override
+			public void onStateConflict(Atom atom, DataPointer issueParticle, Atom conflictingAtom) {
+				done.countDown();
+			}
+
+			@Override
+			public void onStateMissingDependency(AID atomId, Particle particle) {
+				done.countDown();
+			}
+		});
+		while (!done.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+			log.warn("Still waiting for serial validation of " + atom.getAID());
+		}
+		SystemMetaData.ifPresent(a -> a.increment("radix_engine.parallel_validation.serial"));
+	}
+
+	private Speculation awaitSpeculation(Future<Speculation> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			log.error("Speculative validation failed", e.getCause());
+			return null;
+		}
+	}
+
+	private Speculation speculate(Atom atom) throws InterruptedException {
+		Lane lane;
+		while ((lane = lanes.poll(timeoutMillis, TimeUnit.MILLISECONDS)) == null) {
+			if (serialOnly) {
+				// lanes are no longer replaced
+				return null;
+			}
+		}
+		Speculation speculation = null;
+		try {
+			speculation = lane.speculate(atom);
+			return speculation;
+		} finally {
+			if (speculation != null) {
+				lanes.add(lane);
+			} else {
+				abandon();
+			}
+		}
+	}
+
+	private void abandon() {
+		// the lane's engine may still be validating the atom and writing to its store,
+		// so it is abandoned and replaced by a fresh lane unless too many were abandoned
+		SystemMetaData.ifPresent(a -> a.increment("radix_engine.parallel_validation.abandoned"));
+		if (abandonedLanes.incrementAndGet() > maxAbandonedLanes) {
+			if (!serialOnly) {
+				serialOnly = true;
+				log.error("Abandoned " + maxAbandonedLanes + " speculative validation lanes, validating serially from now on");
+			}
+			return;
+		}
+		lanes.add(newLane());
+	}
+
+	private Lane newLane() {
+		SpeculativeEngineStore store = storeFactory.get();
+		return new Lane(engineFactory.apply(store), store);
+	}
+
+	private final class Lane {
+		private final RadixEngine engine;
+		private final SpeculativeEngineStore store;
+
+		private Lane(RadixEngine engine, SpeculativeEngineStore store) {
+			this.engine = engine;
+			this.store = store;
+		}
+
+		private Speculation speculate(Atom atom) throws InterruptedException {
+			CompletableFuture<Consumer<AtomEventListener>> outcome = new CompletableFuture<>();
+			// the constraint machine check precedes the state check, so its success is replayed first
+			AtomicBoolean cmSuccess = new AtomicBoolean();
+			store.begin(atom.getAID(), stored -> outcome.complete(listener -> {
+				listener.onCMSuccess(stored);
+				listener.onStateStore(stored);
+			}));
+			engine.store(atom, new AtomEventListener() {
+				@Override
+				public void onCMSuccess(Atom atom) {
+					cmSuccess.set(true);
+				}
+
+				@Override
+				public void onCMError(Atom atom, CMError error) {
+					outcome.complete(listener -> listener.onCMError(atom, error));
+				}
+
+				@Override
+				public void onVirtualStateConflict(Atom atom, DataPointer issueParticle) {
+					outcome.complete(listener -> listener.onVirtualStateConflict(atom, issueParticle));
+				}
+
+				@Override
+				public void onStateConflict(Atom atom, DataPointer issueParticle, Atom conflictingAtom) {
+					outcome.complete(listener -> {
+						if (cmSuccess.get()) {
+							listener.onCMSuccess(atom);
+						}
+						listener.onStateConflict(atom, issueParticle, conflictingAtom);
+					});
+				}
+
+				@Override
+				public void onStateMissingDependency(AID atomId, Particle particle) {
+					outcome.complete(listener -> {
+						if (cmSuccess.get()) {
+							listener.onCMSuccess(atom);
+						}
+						listener.onStateMissingDependency(atomId, particle);
+					});
+				}
+			});
+
+			try {
+				Consumer<AtomEventListener> result = outcome.get(timeoutMillis, TimeUnit.MILLISECONDS);
+				return new Speculation(store.getReadSet(), store.getWriteSet(), store.isStored(), result);
+			} catch (ExecutionException | TimeoutException e) {
+				return null;
+			}
+		}
+	}
+
+	private static final class Speculation {
+		private final Set<EUID> readSet;
+		private final Set<EUID> writeSet;
+		private final boolean stored;
+		private final Consumer<AtomEventListener> outcome;
+
+		private Speculation(Set<EUID> readSet, Set<EUID> writeSet, boolean stored, Consumer<AtomEventListener> outcome) {
+			this.readSet = readSet;
+			this.writeSet = writeSet;
+			this.stored = stored;
+			this.outcome = outcome;
+		}
+	}
+}
@@ -32,11 +32,14 @@ import com.radixdlt.middleware2.converters.AtomToBinaryConverter;
 import com.radixdlt.serialization.Serialization;
 import com.radixdlt.store.LedgerEntry;
 import com.radixdlt.store.LedgerEntryStore;
+import com.radixdlt.tracing.AtomLifecycleStage;
+import com.radixdlt.tracing.AtomLifecycleTracer;
 import com.radixdlt.universe.Universe;
 import org.json.JSONObject;
 import org.radix.logging.Logger;
 import org.radix.logging.Logging;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -56,8 +59,10 @@ public class RadixEngineAtomProcessor implements Application {
 	private final Consensus consensus;
 	private final LedgerEntryStore store;
 	private final RadixEngine radixEngine;
+	private final ParallelAtomValidator parallelAtomValidator;
 	private final Serialization serialization;
 	private final AtomToBinaryConverter atomToBinaryConverter;
+	private final AtomLifecycleTracer tracer;
 	private final BlockingDeque<Atom> parkedAtoms;
 	private final Map<Atom, ProcessorAtomEventListener> parkedListeners;
 
@@ -66,14 +71,18 @@ public class RadixEngineAtomProcessor implements Application {
 		Consensus consensus,
 		LedgerEntryStore store,
 		RadixEngine radixEngine,
+		ParallelAtomValidator parallelAtomValidator,
 		Serialization serialization,
-		AtomToBinaryConverter atomToBinaryConverter
+		AtomToBinaryConverter atomToBinaryConverter,
+		AtomLifecycleTracer tracer
 	) {
 		this.consensus = consensus;
 		this.store = store;
 		this.radixEngine = radixEngine;
+		this.parallelAtomValidator = parallelAtomValidator;
 		this.serialization = serialization;
 		this.atomToBinaryConverter = atomToBinaryConverter;
+		this.tracer = tracer;
 		this.parkedAtoms = new LinkedBlockingDeque<>();
 		this.parkedListeners = new ConcurrentHashMap<>();
 	}
@@ -81,13 +90,20 @@ public class RadixEngineAtomProcessor implements Application {
 	@Override
 	public LedgerEntry takeNextEntry() throws InterruptedException {
 		Atom atom = parkedAtoms.take();
+		tracer.record(atom.getAID(), AtomLifecycleStage.CONSENSUS_SUBMITTED);
 		return new LedgerEntry(atomToBinaryConverter.toLedgerEntryContent(atom), atom.getAID());
 	}
 
 	private void process() throws InterruptedException {
+		if (parallelAtomValidator.isEnabled()) {
+			processInBatches();
+			return;
+		}
+
 		while (!interrupted) {
 			ConsensusObservation consensusObservation = consensus.observe();
 			if (consensusObservation.getType() == ConsensusObservation.Type.COMMIT) {
+				tracer.record(consensusObservation.getEntry().getAID(), AtomLifecycleStage.CONSENSUS_COMMITTED);
 				Atom atom = atomToBinaryConverter.toAtom(consensusObservation.getEntry().getContent());
 				try {
 					radixEngine.store(atom, new AtomEventListener() {
@@ -109,6 +125,43 @@ public class RadixEngineAtomProcessor implements Application {
 		}
 	}
 
+	private void processInBatches() throws InterruptedException {
+		List<Atom> batch = new ArrayList<>(parallelAtomValidator.getBatchSize());
+		while (!interrupted) {
+			// block for the first observation, then take whatever else is already available
+			Optional<ConsensusObservation> consensusObservation = Optional.of(consensus.observe());
+			while (consensusObservation.isPresent()) {
+				if (consensusObservation.get().getType() == ConsensusObservation.Type.COMMIT) {
+					tracer.record(consensusObservation.get().getEntry().getAID(), AtomLifecycleStage.CONSENSUS_COMMITTED);
+					batch.add(atomToBinaryConverter.toAtom(consensusObservation.get().getEntry().getContent()));
+				}
+				consensusObservation = batch.size() < parallelAtomValidator.getBatchSize() ? consensus.poll() : Optional.empty();
+			}
+			if (batch.isEmpty()) {
+				continue;
+			}
+
+			try {
+				parallelAtomValidator.validate(batch);
+			} catch (InterruptedException e) {
+				throw e;
+			} catch (Exception e) {
+				batch.forEach(atom -> parkedListeners.computeIfPresent(atom, (a, listener) -> {
+					listener.onError(e);
+					return null;
+				}));
+				log.error("Storing batch of " + batch.size() + " atoms failed", e);
+			}
+			for (Atom atom : batch) {
+				if (!parkedAtoms.remove(atom)) {
+					log.error("Removing unknown atom in RadixEngineAtomProcessor.processInBatches()");
+				}
+				log.info("Committing to '" + atom.getAID());
+			}
+			batch.clear();
+		}
+	}
+
 	public AID process(JSONObject jsonAtom, Optional<ProcessorAtomEventListener> processorAtomEventListener) {
 		final Atom atom = serialization.fromJsonObject(jsonAtom, Atom.class);
 		processorAtomEventListener.ifPresent(listener -> listener.onDeserializationCompleted(atom.getAID()));
@@ -145,6 +198,7 @@ public class RadixEngineAtomProcessor implements Application {
 		synchronized (this.threadLock) {
 			if (this.thread != null) {
 				this.interrupted = true;
+				this.parallelAtomValidator.stop();
 				this.store.close();
 				try {
 					this.thread.interrupt();
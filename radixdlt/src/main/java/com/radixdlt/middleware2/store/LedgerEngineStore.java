@@ -31,6 +31,8 @@ import com.radixdlt.middleware2.converters.AtomToBinaryConverter;
 import com.radixdlt.store.EngineStore;
 import com.radixdlt.store.LedgerEntry;
 import com.radixdlt.store.LedgerEntryStore;
+import com.radixdlt.tracing.AtomLifecycleStage;
+import com.radixdlt.tracing.AtomLifecycleTracer;
 import org.radix.logging.Logger;
 import org.radix.logging.Logging;
 
@@ -43,15 +45,18 @@ public class LedgerEngineStore implements EngineStore {
 
     private final Serialization serialization;
     private final LedgerEntryStore store;
+    private final AtomLifecycleTracer tracer;
     private AtomToBinaryConverter atomToBinaryConverter;
 
     @Inject
     public LedgerEngineStore(LedgerEntryStore store,
                              AtomToBinaryConverter atomToBinaryConverter,
-                             Serialization serialization) {
+                             Serialization serialization,
+                             AtomLifecycleTracer tracer) {
         this.serialization = serialization;
         this.store = store;
         this.atomToBinaryConverter = atomToBinaryConverter;
+        this.tracer = tracer;
     }
 
     @Override
@@ -75,10 +80,12 @@ public class LedgerEngineStore implements EngineStore {
 
     @Override
     public void storeAtom(Atom atom) {
+        tracer.record(atom.getAID(), AtomLifecycleStage.ENGINE_VALIDATED);
         byte binaryAtom[] = atomToBinaryConverter.toLedgerEntryContent(atom);
         LedgerEntry ledgerEntry = new LedgerEntry(binaryAtom,atom.getAID());
         EngineAtomIndices engineAtomIndices = EngineAtomIndices.from(atom, serialization);
         store.store(ledgerEntry, engineAtomIndices.getUniqueIndices(), engineAtomIndices.getDuplicateIndices());
+        tracer.record(atom.getAID(), AtomLifecycleStage.STORED);
     }
 
     @Override
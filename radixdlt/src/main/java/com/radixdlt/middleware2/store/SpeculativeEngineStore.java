@@ -0,0 +1,150 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.middleware2.store;
+
+import com.radixdlt.common.AID;
+import com.radixdlt.common.Atom;
+import com.radixdlt.common.EUID;
+import com.radixdlt.constraintmachine.Particle;
+import com.radixdlt.constraintmachine.Spin;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.store.EngineStore;
+import com.radixdlt.store.StoreIndex;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A read-through view of an {@link EngineStore} used to validate an atom speculatively.
+ * <p>
+ * Reads are passed on to the underlying store and the particles they touch are recorded as the read set
+ * of the current atom. Stores are not written through, instead the spun particles of the stored atom are
+ * recorded as its write set and the atom is handed to the given callback to be committed later.
+ * <p>
+ * A speculative store validates one atom at a time and is not thread-safe.
+ */
+public final class SpeculativeEngineStore implements EngineStore {
+	private final EngineStore delegate;
+	private final Function<Atom, Set<EUID>> spunParticles;
+
+	private final Set<EUID> readSet = new HashSet<>();
+	private final Set<EUID> writeSet = new HashSet<>();
+	private volatile AID current;
+	private boolean stored;
+	private Consumer<Atom> onStore;
+
+	public SpeculativeEngineStore(EngineStore delegate, Serialization serialization) {
+		this(delegate, spunParticlesFrom(Objects.requireNonNull(serialization)));
+	}
+
+	/**
+	 * Creates a speculative store computing the write set of an atom with the given function.
+	 *
+	 * @param delegate The store reads are passed on to
+	 * @param spunParticles The function giving the HIDs of the particles spun by an atom
+	 */
+	public SpeculativeEngineStore(EngineStore delegate, Function<Atom, Set<EUID>> spunParticles) {
+		this.delegate = Objects.requireNonNull(delegate);
+		this.spunParticles = Objects.requireNonNull(spunParticles);
+	}
+
+	/**
+	 * Starts the speculative validation of a new atom, clearing the read and write sets of the previous one.
+	 *
+	 * @param atomId The id of the atom to validate
+	 * @param onStore The callback to invoke once the engine decided to store the atom
+	 */
+	public void begin(AID atomId, Consumer<Atom> onStore) {
+		this.readSet.clear();
+		this.writeSet.clear();
+		this.current = Objects.requireNonNull(atomId);
+		this.stored = false;
+		this.onStore = Objects.requireNonNull(onStore);
+	}
+
+	/**
+	 * Whether the engine decided to store the current atom.
+	 */
+	public boolean isStored() {
+		return stored;
+	}
+
+	/**
+	 * Gets the HIDs of the particles read while validating the current atom.
+	 */
+	public Set<EUID> getReadSet() {
+		return new HashSet<>(readSet);
+	}
+
+	/**
+	 * Gets the HIDs of the particles spun by the current atom, empty if the atom was not stored.
+	 */
+	public Set<EUID> getWriteSet() {
+		return new HashSet<>(writeSet);
+	}
+
+	@Override
+	public void getAtomContaining(Particle particle, boolean isInput, Consumer<Atom> callback) {
+		readSet.add(particle.getHID());
+		delegate.getAtomContaining(particle, isInput, callback);
+	}
+
+	@Override
+	public void storeAtom(Atom atom) {
+		if (!atom.getAID().equals(current)) {
+			// late store of an atom whose validation was abandoned
+			return;
+		}
+		writeSet.addAll(spunParticles.apply(atom));
+		stored = true;
+		onStore.accept(atom);
+	}
+
+	private static Function<Atom, Set<EUID>> spunParticlesFrom(Serialization serialization) {
+		return atom -> {
+			Set<EUID> spun = new HashSet<>();
+			EngineAtomIndices engineAtomIndices = EngineAtomIndices.from(atom, serialization);
+			for (StoreIndex index : engineAtomIndices.getUniqueIndices()) {
+				if (index.getPrefix() == EngineAtomIndices.IndexType.PARTICLE_UP.getValue()
+					|| index.getPrefix() == EngineAtomIndices.IndexType.PARTICLE_DOWN.getValue()) {
+					spun.add(new EUID(index.getIdentifier()));
+				}
+			}
+			return spun;
+		};
+	}
+
+	@Override
+	public void deleteAtom(AID atomId) {
+		throw new UnsupportedOperationException("Delete operation is not supported by speculative store");
+	}
+
+	@Override
+	public boolean supports(Set<EUID> destinations) {
+		return delegate.supports(destinations);
+	}
+
+	@Override
+	public Spin getSpin(Particle particle) {
+		readSet.add(particle.getHID());
+		return delegate.getSpin(particle);
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.store;
+
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.AID;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical digests of a set of {@link AID}s, bucketed by their leading bytes.
+ * <p>
+ * Level 0 is a single bucket containing all aids, every further level splits each bucket of the previous level
+ * into {@link #FANOUT} buckets by the next byte of the aid. As aids are hashes, buckets are evenly populated.
+ * Bucket hashes are the XOR of the hashes of their aids, so the tree is updated incrementally in constant time
+ * and the digests of two sets only differ in the buckets containing the differences.
+ * <p>
+ * Logical clocks are assigned locally, so buckets are by aid rather than by logical clock to be comparable across nodes.
+ */
+public final class AidBucketTree {
+	public static final int FANOUT = 256;
+	public static final int LEAF_LEVEL = 2;
+
+	private final long[][] counts = new long[LEAF_LEVEL + 1][];
+	private final long[][] hashes = new long[LEAF_LEVEL + 1][];
+
+	public AidBucketTree() {
+		for (int level = 0; level <= LEAF_LEVEL; level++) {
+			this.counts[level] = new long[numBuckets(level)];
+			this.hashes[level] = new long[numBuckets(level)];
+		}
+	}
+
+	/**
+	 * Adds an aid to the tree. Adding an aid twice has no defined result.
+	 */
+	public synchronized void add(AID aid) {
+		update(aid, 1);
+	}
+
+	/**
+	 * Removes a previously added aid from the tree.
+	 */
+	public synchronized void remove(AID aid) {
+		update(aid, -1);
+	}
+
+	public synchronized void clear() {
+		for (int level = 0; level <= LEAF_LEVEL; level++) {
+			Arrays.fill(counts[level], 0L);
+			Arrays.fill(hashes[level], 0L);
+		}
+	}
+
+	public synchronized BucketDigest getDigest(int level, int bucket) {
+		checkBucket(level, bucket);
+		return new BucketDigest(bucket, counts[level][bucket], hashes[level][bucket]);
+	}
+
+	/**
+	 * Gets the digests of all non-empty children of a bucket.
+	 */
+	public synchronized ImmutableList<BucketDigest> getChildren(int level, int bucket) {
+		checkBucket(level, bucket);
+		if (level >= LEAF_LEVEL) {
+			throw new IllegalArgumentException("Leaf buckets have no children");
+		}
+		ImmutableList.Builder<BucketDigest> children = ImmutableList.builder();
+		int firstChild = bucket * FANOUT;
+		for (int child = firstChild; child < firstChild + FANOUT; child++) {
+			if (counts[level + 1][child] > 0) {
+				children.add(new BucketDigest(child, counts[level + 1][child], hashes[level + 1][child]));
+			}
+		}
+		return children.build();
+	}
+
+	private void update(AID aid, int delta) {
+		byte[] bytes = aid.getBytes();
+		long hash = hash(bytes);
+		for (int level = 0; level <= LEAF_LEVEL; level++) {
+			int bucket = bucketOf(bytes, level);
+			this.counts[level][bucket] += delta;
+			this.hashes[level][bucket] ^= hash;
+		}
+	}
+
+	/**
+	 * Gets the bucket of an aid at a certain level.
+	 */
+	public static int bucketOf(AID aid, int level) {
+		return bucketOf(aid.getBytes(), level);
+	}
+
+	/**
+	 * Gets the number of buckets at a certain level.
+	 */
+	public static int numBuckets(int level) {
+		if (level < 0 || level > LEAF_LEVEL) {
+			throw new IllegalArgumentException("Invalid level: " + level);
+		}
+		return 1 << (8 * level);
+	}
+
+	/**
+	 * Gets the leading aid bytes shared by all aids in a bucket at a certain level.
+	 */
+	public static byte[] prefixOf(int level, int bucket) {
+		checkBucket(level, bucket);
+		byte[] prefix = new byte[level];
+		for (int i = level - 1; i >= 0; i--) {
+			prefix[i] = (byte) bucket;
+			bucket >>>= 8;
+		}
+		return prefix;
+	}
+
+	private static int bucketOf(byte[] aidBytes, int level) {
+		int bucket = 0;
+		for (int i = 0; i < level; i++) {
+			bucket = (bucket << 8) | (aidBytes[i] & 0xFF);
+		}
+		return bucket;
+	}
+
+	private static long hash(byte[] aidBytes) {
+		// aids are hashes already, folding all of their bytes is sufficient
+		long hash = 0L;
+		for (int i = 0; i < aidBytes.length; i++) {
+			hash ^= (aidBytes[i] & 0xFFL) << (8 * (i % Long.BYTES));
+		}
+		return hash;
+	}
+
+	private static void checkBucket(int level, int bucket) {
+		if (bucket < 0 || bucket >= numBuckets(level)) {
+			throw new IllegalArgumentException("Invalid bucket " + bucket + " at level " + level);
+		}
+	}
+}
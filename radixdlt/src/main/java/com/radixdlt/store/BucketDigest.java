@@ -0,0 +1,107 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.store;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.radixdlt.serialization.DsonOutput;
+import com.radixdlt.serialization.SerializerConstants;
+import com.radixdlt.serialization.SerializerDummy;
+import com.radixdlt.serialization.SerializerId2;
+
+import java.util.Objects;
+
+/**
+ * A summary of the committed {@link com.radixdlt.common.AID}s within a single bucket of an {@link AidBucketTree}.
+ * Two buckets with equal digests contain the same aids with overwhelming probability.
+ */
+@SerializerId2("tempo.sync.reconciliation.digest")
+public final class BucketDigest {
+	// Placeholder for the serializer ID
+	@JsonProperty(SerializerConstants.SERIALIZER_NAME)
+	@DsonOutput(DsonOutput.Output.ALL)
+	private SerializerDummy serializer = SerializerDummy.DUMMY;
+
+	@JsonProperty("bucket")
+	@DsonOutput(DsonOutput.Output.ALL)
+	private int bucket;
+
+	@JsonProperty("count")
+	@DsonOutput(DsonOutput.Output.ALL)
+	private long count;
+
+	@JsonProperty("hash")
+	@DsonOutput(DsonOutput.Output.ALL)
+	private long hash;
+
+	private BucketDigest() {
+		// For serializer
+	}
+
+	public BucketDigest(int bucket, long count, long hash) {
+		this.bucket = bucket;
+		this.count = count;
+		this.hash = hash;
+	}
+
+	public int getBucket() {
+		return bucket;
+	}
+
+	/**
+	 * Gets the number of aids in the bucket.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the combined hash of all aids in the bucket.
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Checks whether the given digest summarises the same aids as this digest, regardless of its bucket.
+	 */
+	public boolean matches(BucketDigest other) {
+		return other != null && this.count == other.count && this.hash == other.hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		BucketDigest that = (BucketDigest) o;
+		return bucket == that.bucket && count == that.count && hash == that.hash;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(bucket, count, hash);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BucketDigest{bucket=%d, count=%d, hash=%016x}", bucket, count, hash);
+	}
+}
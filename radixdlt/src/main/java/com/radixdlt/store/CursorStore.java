@@ -19,10 +19,16 @@ package com.radixdlt.store;
 
 import com.radixdlt.common.EUID;
 
+import java.util.Map;
 import java.util.OptionalLong;
 
 public interface CursorStore {
 	void put(EUID nid, long cursor);
+
+	/**
+	 * Stores the cursors of multiple nids at once.
+	 */
+	void putAll(Map<EUID, Long> cursors);
 
 	OptionalLong get(EUID nid);
 
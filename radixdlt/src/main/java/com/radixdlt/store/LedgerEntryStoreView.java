@@ -88,4 +88,40 @@ public interface LedgerEntryStoreView {
 	 * @return The relevant aids and the advanced cursor
 	 */
 	ImmutableList<AID> getNextCommitted(long logicalClock, int limit);
+
+	/**
+	 * Gets the digest of the committed aids in a bucket of an {@link AidBucketTree}
+	 * @param level The level of the bucket
+	 * @param bucket The bucket
+	 * @return The digest of that bucket
+	 */
+	BucketDigest getCommittedDigest(int level, int bucket);
+
+	/**
+	 * Gets the digests of the non-empty child buckets of a bucket of committed aids
+	 * @param level The level of the parent bucket, below {@link AidBucketTree#LEAF_LEVEL}
+	 * @param bucket The parent bucket
+	 * @return The digests of the non-empty children at the next level
+	 */
+	ImmutableList<BucketDigest> getCommittedChildDigests(int level, int bucket);
+
+	/**
+	 * Gets up to a certain number of committed aids within a leaf bucket of an {@link AidBucketTree}
+	 * @param bucket The bucket at {@link AidBucketTree#LEAF_LEVEL}
+	 * @param limit The maximum number of aids
+	 * @return The committed aids in that bucket
+	 */
+	ImmutableList<AID> getCommittedInBucket(int bucket, int limit);
+
+	/**
+	 * Adds a listener which is notified of every {@link AID} after it was committed
+	 * @param listener The listener, which is called on the committing thread
+	 */
+	void addCommitListener(CommitListener listener);
+
+	/**
+	 * Removes a listener for committed {@link AID}s
+	 * @param listener The listener
+	 */
+	void removeCommitListener(CommitListener listener);
 }
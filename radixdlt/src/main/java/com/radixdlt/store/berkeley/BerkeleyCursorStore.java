@@ -36,6 +36,7 @@ import org.radix.database.DatabaseEnvironment;
 import org.radix.logging.Logger;
 import org.radix.logging.Logging;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.OptionalLong;
 
@@ -130,6 +131,32 @@ public final class BerkeleyCursorStore implements CursorStore {
 		}
 	}
 
+	@Override
+	public void putAll(Map<EUID, Long> cursors) {
+		if (cursors.isEmpty()) {
+			return;
+		}
+
+		// all cursors are written in one transaction to avoid a commit per cursor
+		Transaction transaction = dbEnv.getEnvironment().beginTransaction(null, null);
+		try {
+			for (Map.Entry<EUID, Long> cursor : cursors.entrySet()) {
+				DatabaseEntry key = new DatabaseEntry(toPKey(cursor.getKey()));
+				DatabaseEntry value = new DatabaseEntry(Longs.toByteArray(cursor.getValue()));
+
+				OperationStatus status = this.cursors.put(transaction, key, value);
+				if (status != OperationStatus.SUCCESS) {
+					fail("Database returned status " + status + " for put operation");
+				}
+			}
+
+			transaction.commit();
+		} catch (Exception e) {
+			transaction.abort();
+			fail("Error while storing " + cursors.size() + " cursors", e);
+		}
+	}
+
 	@Override
 	public OptionalLong get(EUID nid) {
 		try {
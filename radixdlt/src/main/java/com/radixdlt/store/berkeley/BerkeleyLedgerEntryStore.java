@@ -33,6 +33,9 @@ import com.radixdlt.store.LedgerSearchMode;
 import com.radixdlt.serialization.DsonOutput.Output;
 import com.radixdlt.serialization.Serialization;
 import com.radixdlt.serialization.SerializationException;
+import com.radixdlt.store.AidBucketTree;
+import com.radixdlt.store.BucketDigest;
+import com.radixdlt.store.CommitListener;
 import com.radixdlt.store.LedgerEntry;
 import com.radixdlt.consensus.tempo.TempoException;
 import com.radixdlt.store.LedgerEntryConflict;
@@ -70,6 +73,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -98,6 +102,9 @@ public class BerkeleyLedgerEntryStore implements LedgerEntryStore {
 
 	private final AtomicLong pendingLogicalClock;
 	private final Map<AID, LedgerEntryIndices> currentIndices = new ConcurrentHashMap<>();
+	// digests of committed aids, rebuilt on open and maintained on commit
+	private final AidBucketTree committedBuckets = new AidBucketTree();
+	private final List<CommitListener> commitListeners = new CopyOnWriteArrayList<>();
 
 	private Database atoms; // TempoAtoms by primary keys (logical clock + AID bytes, no prefixes)
 	private SecondaryDatabase uniqueIndices; // TempoAtoms by secondary unique indices (with prefixes)
@@ -116,6 +123,7 @@ public class BerkeleyLedgerEntryStore implements LedgerEntryStore {
 		this.dbEnv = Objects.requireNonNull(dbEnv);
 
 		this.open();
+		this.loadCommittedBuckets();
 
 		// TODO is this LC persistence sufficient? might be reset if there are no pending at some point in time
 		this.pendingLogicalClock = new AtomicLong(getLastPendingCursor());
@@ -178,6 +186,7 @@ public class BerkeleyLedgerEntryStore implements LedgerEntryStore {
 				env.truncateDatabase(transaction, ATOM_INDICES_DB_NAME, false);
 				env.truncateDatabase(transaction, PENDING_DB_NAME, false);
 				transaction.commit();
+				committedBuckets.clear();
 			} catch (DatabaseNotFoundException e) {
 				if (transaction != null) {
 					transaction.abort();
@@ -275,6 +284,12 @@ public class BerkeleyLedgerEntryStore implements LedgerEntryStore {
 
 	@Override
 	public void commit(AID aid) {
+		if (doCommit(aid)) {
+			commitListeners.forEach(listener -> listener.accept(aid));
+		}
+	}
+
+	private boolean doCommit(AID aid) {
 		// delete from pending and move to committed
 		Transaction transaction = dbEnv.getEnvironment().beginTransaction(null, null);
 		try {
@@ -296,11 +311,14 @@ public class BerkeleyLedgerEntryStore implements LedgerEntryStore {
 			LedgerEntryStoreResult result = doStore(PREFIX_COMMITTED, logicalClock, aid, value.getData(), indices, transaction);
 			if (result.isSuccess()) {
 				transaction.commit();
+				committedBuckets.add(aid);
+				return true;
 			}
 		} catch (Exception e) {
 			transaction.abort();
 			fail("Commit of pending atom '" + aid + "' failed", e);
 		}
+		return false;
 	}
 
 	@Override
@@ -482,6 +500,75 @@ public class BerkeleyLedgerEntryStore implements LedgerEntryStore {
 			return aids.build();
 		}
 	}
+
+	@Override
+	public BucketDigest getCommittedDigest(int level, int bucket) {
+		return committedBuckets.getDigest(level, bucket);
+	}
+
+	@Override
+	public ImmutableList<BucketDigest> getCommittedChildDigests(int level, int bucket) {
+		return committedBuckets.getChildren(level, bucket);
+	}
+
+	@Override
+	public ImmutableList<AID> getCommittedInBucket(int bucket, int limit) {
+		// the entry index is keyed by aid, so all aids of a bucket are adjacent
+		byte[] prefix = StoreIndex.from(ENTRY_INDEX_PREFIX, AidBucketTree.prefixOf(AidBucketTree.LEAF_LEVEL, bucket));
+		try (SecondaryCursor cursor = this.uniqueIndices.openCursor(null, null)) {
+			ImmutableList.Builder<AID> aids = ImmutableList.builder();
+			DatabaseEntry key = new DatabaseEntry(prefix);
+			DatabaseEntry pKey = new DatabaseEntry();
+			OperationStatus status = cursor.getSearchKeyRange(key, pKey, null, LockMode.DEFAULT);
+
+			int size = 0;
+			while (status == OperationStatus.SUCCESS && size < limit && startsWith(key.getData(), prefix)) {
+				if (pKey.getData()[0] == PREFIX_COMMITTED) {
+					aids.add(getAidFromPKey(pKey));
+					size++;
+				}
+				status = cursor.getNext(key, pKey, null, LockMode.DEFAULT);
+			}
+
+			return aids.build();
+		}
+	}
+
+	@Override
+	public void addCommitListener(CommitListener listener) {
+		commitListeners.add(listener);
+	}
+
+	@Override
+	public void removeCommitListener(CommitListener listener) {
+		commitListeners.remove(listener);
+	}
+
+	private void loadCommittedBuckets() {
+		try (Cursor cursor = this.atoms.openCursor(null, null)) {
+			DatabaseEntry pKey = toPKey(PREFIX_COMMITTED, 0);
+			OperationStatus status = cursor.getSearchKeyRange(pKey, null, LockMode.DEFAULT);
+			while (status == OperationStatus.SUCCESS && pKey.getData()[0] == PREFIX_COMMITTED) {
+				committedBuckets.add(getAidFromPKey(pKey));
+				status = cursor.getNext(pKey, null, LockMode.DEFAULT);
+			}
+		} catch (Exception e) {
+			throw new TempoException("Error while loading committed aids", e);
+		}
+	}
+
+	private static boolean startsWith(byte[] bytes, byte[] prefix) {
+		if (bytes.length < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (bytes[i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public SearchCursor search(LedgerIndexType type, StoreIndex index, LedgerSearchMode mode) {
 		Objects.requireNonNull(type, "type is required");
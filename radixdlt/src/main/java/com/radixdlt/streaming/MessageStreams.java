@@ -0,0 +1,491 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.streaming;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.radixdlt.common.EUID;
+import com.radixdlt.consensus.tempo.Scheduler;
+import com.radixdlt.streaming.messages.StreamAckMessage;
+import com.radixdlt.streaming.messages.StreamChunkMessage;
+import com.radixdlt.streaming.messages.StreamOpenMessage;
+import com.radixdlt.universe.Universe;
+import com.radixdlt.utils.UInt128;
+import org.radix.logging.Logger;
+import org.radix.logging.Logging;
+import org.radix.network2.addressbook.Peer;
+import org.radix.network2.messaging.MessageCentral;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Streams payloads of any size to peers as a sequence of chunk messages, for transfers which do not
+ * fit into a single message such as bulk ledger sync and snapshots.
+ * <p>
+ * Each stream is identified by a stream id. The sender reads chunks from a {@link StreamSource} and
+ * keeps at most a window of chunks unacknowledged. The receiver writes chunks in order to the
+ * {@link StreamSink} opened by the {@link StreamHandler} of the stream's topic and acknowledges the
+ * offset it expects next. Chunks which arrive out of order, such as when chunks of a stream take
+ * different channels, are dropped and acknowledged with the expected offset. The sender goes back
+ * to the last acknowledged offset on the first duplicate acknowledgement of an offset, or if no
+ * progress is made within the acknowledgement timeout. A stream is resumed by sending it again with the same stream
+ * id, in which case the receiver's sink position determines where the transfer continues.
+ * <p>
+ * Neither side holds more than a window of chunks in memory. Note that sinks are written to on the
+ * messaging thread.
+ */
+@Singleton
+public final class MessageStreams {
+	private static final Logger log = Logging.getLogger("network.stream");
+
+	// leaves headroom below the 1 MiB TCP packet limit for serialization overhead
+	private static final int DEFAULT_CHUNK_BYTES = 256 * 1024;
+	private static final int DEFAULT_WINDOW_CHUNKS = 8;
+	private static final int DEFAULT_ACK_TIMEOUT_MILLIS = 5000;
+	private static final int DEFAULT_MAX_RETRIES = 5;
+	private static final int DEFAULT_IDLE_TIMEOUT_MILLIS = 60000;
+	// completed inbound streams are remembered so that a lost final acknowledgement does not reopen them
+	private static final int COMPLETED_STREAMS_REMEMBERED = 1024;
+
+	private final Scheduler scheduler;
+	private final MessageCentral messageCentral;
+	private final Universe universe;
+
+	private final int chunkBytes;
+	private final long windowBytes;
+	private final int ackTimeoutMillis;
+	private final int maxRetries;
+	private final int idleTimeoutMillis;
+
+	private final SecureRandom random = new SecureRandom();
+	private final ConcurrentMap<String, StreamHandler> handlers = new ConcurrentHashMap<>();
+	@VisibleForTesting
+	final ConcurrentMap<EUID, OutboundStream> outboundStreams = new ConcurrentHashMap<>();
+	@VisibleForTesting
+	final ConcurrentMap<EUID, InboundStream> inboundStreams = new ConcurrentHashMap<>();
+	private final Map<EUID, Boolean> completedStreams = Collections.synchronizedMap(new LinkedHashMap<EUID, Boolean>() {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<EUID, Boolean> eldest) {
+			return size() > COMPLETED_STREAMS_REMEMBERED;
+		}
+	});
+
+	@Inject
+	public MessageStreams(
+		Scheduler scheduler,
+		MessageCentral messageCentral,
+		MessageStreamsConfiguration configuration,
+		Universe universe
+	) {
+		this.scheduler = Objects.requireNonNull(scheduler);
+		this.messageCentral = Objects.requireNonNull(messageCentral);
+		this.universe = Objects.requireNonNull(universe);
+
+		this.chunkBytes = Math.max(1, configuration.chunkBytes(DEFAULT_CHUNK_BYTES));
+		this.windowBytes = (long) this.chunkBytes * Math.max(1, configuration.windowChunks(DEFAULT_WINDOW_CHUNKS));
+		this.ackTimeoutMillis = configuration.ackTimeoutMillis(DEFAULT_ACK_TIMEOUT_MILLIS);
+		this.maxRetries = configuration.maxRetries(DEFAULT_MAX_RETRIES);
+		this.idleTimeoutMillis = configuration.idleTimeoutMillis(DEFAULT_IDLE_TIMEOUT_MILLIS);
+
+		this.messageCentral.addListener(StreamOpenMessage.class, this::onOpen);
+		this.messageCentral.addListener(StreamChunkMessage.class, this::onChunk);
+		this.messageCentral.addListener(StreamAckMessage.class, this::onAck);
+	}
+
+	/**
+	 * Registers the handler accepting inbound streams of a topic.
+	 *
+	 * @param topic The topic to handle
+	 * @param handler The handler opening sinks for streams of the topic
+	 * @throws IllegalStateException if a handler is already registered for the topic
+	 */
+	public void addHandler(String topic, StreamHandler handler) {
+		Objects.requireNonNull(handler);
+		if (handlers.putIfAbsent(Objects.requireNonNull(topic), handler) != null) {
+			throw new IllegalStateException("Handler for stream topic '" + topic + "' is already registered");
+		}
+	}
+
+	public void removeHandler(String topic) {
+		handlers.remove(topic);
+	}
+
+	/**
+	 * Sends a new stream to a peer.
+	 *
+	 * @param peer The peer to send to
+	 * @param topic The topic selecting the handler at the peer
+	 * @param source The data to send
+	 * @return a future completed once the peer has received all data
+	 */
+	public CompletableFuture<Void> send(Peer peer, String topic, StreamSource source) {
+		return send(peer, topic, new EUID(UInt128.from(random.nextLong(), random.nextLong())), source);
+	}
+
+	/**
+	 * Sends a stream to a peer, resuming it if the peer already received part of a stream with the same id.
+	 *
+	 * @param peer The peer to send to
+	 * @param topic The topic selecting the handler at the peer
+	 * @param streamId The id of the stream
+	 * @param source The data to send
+	 * @return a future completed once the peer has received all data
+	 */
+	public CompletableFuture<Void> send(Peer peer, String topic, EUID streamId, StreamSource source) {
+		OutboundStream stream = new OutboundStream(peer, streamId, topic, source);
+		if (outboundStreams.putIfAbsent(streamId, stream) != null) {
+			CompletableFuture<Void> failed = new CompletableFuture<>();
+			failed.completeExceptionally(new IllegalStateException("Stream " + streamId + " is already being sent"));
+			return failed;
+		}
+		stream.start();
+		return stream.future;
+	}
+
+	/**
+	 * Aborts all streams in progress.
+	 */
+	public void close() {
+		IOException closed = new IOException("Streams closed");
+		outboundStreams.values().forEach(stream -> stream.fail(closed));
+		inboundStreams.values().forEach(stream -> stream.abort(closed));
+	}
+
+	private void onOpen(Peer peer, StreamOpenMessage message) {
+		EUID streamId = message.getStreamId();
+		InboundStream existing = inboundStreams.get(streamId);
+		if (existing != null) {
+			if (existing.isFrom(peer)) {
+				existing.onOpen();
+			} else {
+				sendAck(peer, streamId, 0L, StreamAckMessage.STATUS_REJECTED);
+			}
+			return;
+		}
+		if (completedStreams.containsKey(streamId)) {
+			sendAck(peer, streamId, 0L, StreamAckMessage.STATUS_COMPLETE);
+			return;
+		}
+
+		StreamSink sink = null;
+		StreamHandler handler = handlers.get(message.getTopic());
+		if (handler == null) {
+			log.warn("Rejecting stream " + streamId + " from " + peer + ", no handler for topic '" + message.getTopic() + "'");
+		} else {
+			try {
+				sink = handler.open(peer, streamId, message.getLength());
+			} catch (RuntimeException e) {
+				log.error("Handler for topic '" + message.getTopic() + "' failed to open stream " + streamId, e);
+			}
+		}
+		if (sink == null) {
+			sendAck(peer, streamId, 0L, StreamAckMessage.STATUS_REJECTED);
+			return;
+		}
+
+		InboundStream stream = new InboundStream(peer, streamId, sink);
+		existing = inboundStreams.putIfAbsent(streamId, stream);
+		if (existing != null) {
+			// raced with a retransmitted open of the same stream
+			sink.abort(new IllegalStateException("Stream " + streamId + " is already open"));
+			existing.onOpen();
+		} else {
+			if (log.hasLevel(Logging.DEBUG)) {
+				log.debug("Opened stream " + streamId + " of topic '" + message.getTopic() + "' from " + peer);
+			}
+			stream.start();
+		}
+	}
+
+	private void onChunk(Peer peer, StreamChunkMessage message) {
+		EUID streamId = message.getStreamId();
+		InboundStream stream = inboundStreams.get(streamId);
+		if (stream == null) {
+			int status = completedStreams.containsKey(streamId) ? StreamAckMessage.STATUS_COMPLETE : StreamAckMessage.STATUS_UNKNOWN;
+			sendAck(peer, streamId, 0L, status);
+		} else if (stream.isFrom(peer)) {
+			stream.onChunk(message);
+		}
+	}
+
+	private void onAck(Peer peer, StreamAckMessage message) {
+		OutboundStream stream = outboundStreams.get(message.getStreamId());
+		if (stream != null && stream.isTo(peer)) {
+			stream.onAck(message);
+		}
+	}
+
+	private void sendAck(Peer peer, EUID streamId, long offset, int status) {
+		messageCentral.send(peer, new StreamAckMessage(streamId, offset, status, universe.getMagic()));
+	}
+
+	private static boolean samePeer(Peer a, Peer b) {
+		return a == b || Objects.equals(a.getNID(), b.getNID());
+	}
+
+	@VisibleForTesting
+	final class OutboundStream {
+		private final Peer peer;
+		private final EUID streamId;
+		private final String topic;
+		private final StreamSource source;
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		// guarded by this
+		private boolean opened;
+		private long acked;
+		private long sent;
+		private boolean lastSent;
+		// acknowledged offset the stream last went back to, so duplicates of it are only acted on once
+		private long resentFrom = -1L;
+		private long progress;
+		private int retries;
+
+		private OutboundStream(Peer peer, EUID streamId, String topic, StreamSource source) {
+			this.peer = peer;
+			this.streamId = streamId;
+			this.topic = topic;
+			this.source = source;
+		}
+
+		private boolean isTo(Peer peer) {
+			return samePeer(this.peer, peer);
+		}
+
+		private synchronized void start() {
+			sendOpen();
+			scheduleTimeout();
+		}
+
+		private synchronized void onAck(StreamAckMessage message) {
+			if (future.isDone()) {
+				return;
+			}
+			switch (message.getStatus()) {
+			case StreamAckMessage.STATUS_COMPLETE:
+				if (log.hasLevel(Logging.DEBUG)) {
+					log.debug("Completed stream " + streamId + " to " + peer);
+				}
+				outboundStreams.remove(streamId, this);
+				future.complete(null);
+				break;
+			case StreamAckMessage.STATUS_REJECTED:
+				fail(new IOException("Stream " + streamId + " was rejected by " + peer));
+				break;
+			case StreamAckMessage.STATUS_UNKNOWN:
+				if (opened) {
+					// the peer lost the stream, it resumes from whatever its sink retained
+					opened = false;
+					sendOpen();
+				}
+				break;
+			default:
+				long offset = message.getOffset();
+				if (!opened) {
+					// the first acknowledgement tells where the peer wants the stream to start
+					opened = true;
+					acked = offset;
+					sent = offset;
+					lastSent = false;
+					madeProgress();
+				} else if (offset > acked && offset <= sent) {
+					acked = offset;
+					madeProgress();
+				} else if (offset == acked && (acked < sent || lastSent) && resentFrom != acked) {
+					// the peer dropped a chunk which arrived out of order, resend instead of waiting for the timeout
+					resend();
+				}
+				break;
+			}
+		}
+
+		private void madeProgress() {
+			progress += 1;
+			retries = 0;
+			sendWindow();
+		}
+
+		private void resend() {
+			resentFrom = acked;
+			sent = acked;
+			lastSent = false;
+			sendWindow();
+		}
+
+		private void sendOpen() {
+			messageCentral.send(peer, new StreamOpenMessage(streamId, topic, source.length(), universe.getMagic()));
+		}
+
+		private void sendWindow() {
+			while (!lastSent && sent - acked < windowBytes) {
+				byte[] buffer = new byte[chunkBytes];
+				int read;
+				try {
+					read = source.read(sent, buffer);
+				} catch (IOException e) {
+					fail(e);
+					return;
+				}
+				long offset = sent;
+				if (read <= 0) {
+					lastSent = true;
+					messageCentral.send(peer, new StreamChunkMessage(streamId, offset, new byte[0], true, universe.getMagic()));
+				} else {
+					byte[] data = read == buffer.length ? buffer : Arrays.copyOf(buffer, read);
+					sent += read;
+					messageCentral.send(peer, new StreamChunkMessage(streamId, offset, data, false, universe.getMagic()));
+				}
+			}
+		}
+
+		private void scheduleTimeout() {
+			long progressAtSchedule = progress;
+			scheduler.schedule(() -> timeout(progressAtSchedule), ackTimeoutMillis, TimeUnit.MILLISECONDS);
+		}
+
+		private synchronized void timeout(long progressAtSchedule) {
+			if (future.isDone()) {
+				return;
+			}
+			if (progress == progressAtSchedule) {
+				retries += 1;
+				if (retries > maxRetries) {
+					fail(new TimeoutException("Stream " + streamId + " to " + peer + " made no progress after " + maxRetries + " retries"));
+					return;
+				}
+				if (log.hasLevel(Logging.DEBUG)) {
+					log.debug("Stream " + streamId + " to " + peer + " timed out at offset " + acked + ", retrying");
+				}
+				if (opened) {
+					resend();
+				} else {
+					sendOpen();
+				}
+			}
+			if (!future.isDone()) {
+				scheduleTimeout();
+			}
+		}
+
+		private synchronized void fail(Throwable cause) {
+			outboundStreams.remove(streamId, this);
+			if (future.completeExceptionally(cause)) {
+				log.warn("Stream " + streamId + " to " + peer + " failed: " + cause.getMessage());
+			}
+		}
+	}
+
+	@VisibleForTesting
+	final class InboundStream {
+		private final Peer peer;
+		private final EUID streamId;
+		private final StreamSink sink;
+
+		// guarded by this
+		private long expected;
+		private long activity;
+		private boolean closed;
+
+		private InboundStream(Peer peer, EUID streamId, StreamSink sink) {
+			this.peer = peer;
+			this.streamId = streamId;
+			this.sink = sink;
+			this.expected = sink.position();
+		}
+
+		private boolean isFrom(Peer peer) {
+			return samePeer(this.peer, peer);
+		}
+
+		private synchronized void start() {
+			sendAck(peer, streamId, expected, StreamAckMessage.STATUS_OPEN);
+			scheduleIdleCheck();
+		}
+
+		private synchronized void onOpen() {
+			if (!closed) {
+				activity += 1;
+				sendAck(peer, streamId, expected, StreamAckMessage.STATUS_OPEN);
+			}
+		}
+
+		private synchronized void onChunk(StreamChunkMessage message) {
+			if (closed) {
+				return;
+			}
+			activity += 1;
+			if (message.getOffset() != expected) {
+				sendAck(peer, streamId, expected, StreamAckMessage.STATUS_OPEN);
+				return;
+			}
+			try {
+				if (message.isLast()) {
+					sink.complete();
+					closed = true;
+					inboundStreams.remove(streamId, this);
+					completedStreams.put(streamId, Boolean.TRUE);
+					sendAck(peer, streamId, expected, StreamAckMessage.STATUS_COMPLETE);
+				} else {
+					sink.write(message.getData());
+					expected += message.getData().length;
+					sendAck(peer, streamId, expected, StreamAckMessage.STATUS_OPEN);
+				}
+			} catch (IOException e) {
+				log.error("Failed to write stream " + streamId + " from " + peer, e);
+				abort(e);
+				sendAck(peer, streamId, expected, StreamAckMessage.STATUS_REJECTED);
+			}
+		}
+
+		private void scheduleIdleCheck() {
+			long activityAtSchedule = activity;
+			scheduler.schedule(() -> idleCheck(activityAtSchedule), idleTimeoutMillis, TimeUnit.MILLISECONDS);
+		}
+
+		private synchronized void idleCheck(long activityAtSchedule) {
+			if (closed) {
+				return;
+			}
+			if (activity == activityAtSchedule) {
+				abort(new TimeoutException("Stream " + streamId + " from " + peer + " is idle"));
+			} else {
+				scheduleIdleCheck();
+			}
+		}
+
+		private synchronized void abort(Throwable cause) {
+			if (!closed) {
+				closed = true;
+				inboundStreams.remove(streamId, this);
+				sink.abort(cause);
+			}
+		}
+	}
+}
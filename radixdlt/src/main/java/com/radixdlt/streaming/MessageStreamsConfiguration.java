@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.streaming;
+
+import com.google.inject.Provides;
+import org.radix.properties.RuntimeProperties;
+
+/**
+ * Static configuration for {@link MessageStreams}
+ */
+public interface MessageStreamsConfiguration {
+	/**
+	 * Gets the maximum number of bytes sent in a single chunk.
+	 */
+	int chunkBytes(int defaultValue);
+
+	/**
+	 * Gets the number of chunks which may be sent ahead of the last acknowledged offset.
+	 */
+	int windowChunks(int defaultValue);
+
+	/**
+	 * Gets the time in milliseconds without acknowledged progress after which unacknowledged chunks are sent again.
+	 */
+	int ackTimeoutMillis(int defaultValue);
+
+	/**
+	 * Gets the number of consecutive timeouts after which a stream is aborted.
+	 */
+	int maxRetries(int defaultValue);
+
+	/**
+	 * Gets the time in milliseconds without any chunk after which an inbound stream is aborted.
+	 */
+	int idleTimeoutMillis(int defaultValue);
+
+	@Provides
+	static MessageStreamsConfiguration fromRuntimeProperties(RuntimeProperties properties) {
+		return new MessageStreamsConfiguration() {
+			@Override
+			public int chunkBytes(int defaultValue) {
+				return properties.get("network.stream.chunk_bytes", defaultValue);
+			}
+
+			@Override
+			public int windowChunks(int defaultValue) {
+				return properties.get("network.stream.window_chunks", defaultValue);
+			}
+
+			@Override
+			public int ackTimeoutMillis(int defaultValue) {
+				return properties.get("network.stream.ack_timeout_millis", defaultValue);
+			}
+
+			@Override
+			public int maxRetries(int defaultValue) {
+				return properties.get("network.stream.max_retries", defaultValue);
+			}
+
+			@Override
+			public int idleTimeoutMillis(int defaultValue) {
+				return properties.get("network.stream.idle_timeout_millis", defaultValue);
+			}
+		};
+	}
+}
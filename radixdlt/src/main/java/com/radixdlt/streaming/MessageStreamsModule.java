@@ -0,0 +1,41 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.streaming;
+
+import com.google.inject.AbstractModule;
+import org.radix.properties.RuntimeProperties;
+
+public class MessageStreamsModule extends AbstractModule {
+	private final MessageStreamsConfiguration configuration;
+
+	public MessageStreamsModule(RuntimeProperties properties) {
+		this(MessageStreamsConfiguration.fromRuntimeProperties(properties));
+	}
+
+	public MessageStreamsModule(MessageStreamsConfiguration configuration) {
+		this.configuration = configuration;
+	}
+
+	@Override
+	protected void configure() {
+		// main target
+		bind(MessageStreamsConfiguration.class).toInstance(configuration);
+		// registers the stream message listeners, so streams are received without any handler injecting it
+		bind(MessageStreams.class).asEagerSingleton();
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.streaming;
+
+import com.radixdlt.common.EUID;
+import org.radix.network2.addressbook.Peer;
+
+/**
+ * Accepts streams of a topic from peers.
+ */
+@FunctionalInterface
+public interface StreamHandler {
+	/**
+	 * Opens the sink for a stream. To resume a stream, return a sink positioned after the data
+	 * received so far for the same stream id.
+	 *
+	 * @param peer The peer sending the stream
+	 * @param streamId The id of the stream
+	 * @param length The total length of the stream in bytes, or -1 if not known in advance
+	 * @return The sink to write the stream to, or {@code null} to reject the stream
+	 */
+	StreamSink open(Peer peer, EUID streamId, long length);
+}
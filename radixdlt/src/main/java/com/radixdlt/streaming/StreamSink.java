@@ -0,0 +1,53 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.streaming;
+
+import java.io.IOException;
+
+/**
+ * Receiving end of a single stream, which is written to in order.
+ */
+public interface StreamSink {
+	/**
+	 * Gets the number of bytes already written, which is where a resumed stream continues.
+	 */
+	long position();
+
+	/**
+	 * Appends the next chunk of data.
+	 *
+	 * @param data The data at the current position
+	 * @throws IOException if the data could not be written, which aborts the stream
+	 */
+	void write(byte[] data) throws IOException;
+
+	/**
+	 * Called once after all data of the stream has been written.
+	 *
+	 * @throws IOException if the stream could not be completed
+	 */
+	void complete() throws IOException;
+
+	/**
+	 * Called if the stream is aborted before it is complete.
+	 * Data written so far may be kept to resume the stream later.
+	 *
+	 * @param cause The reason the stream was aborted
+	 */
+	void abort(Throwable cause);
+}
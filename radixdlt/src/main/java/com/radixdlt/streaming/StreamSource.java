@@ -0,0 +1,66 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.streaming;
+
+import java.io.IOException;
+
+/**
+ * Positional source of the data sent on a stream.
+ * Data is read one chunk at a time, and may be read again from an earlier offset when chunks are
+ * retransmitted or a transfer is resumed, so the payload never has to be held in memory as a whole.
+ */
+public interface StreamSource {
+	/**
+	 * Gets the total length of the data in bytes, or -1 if not known in advance.
+	 */
+	default long length() {
+		return -1L;
+	}
+
+	/**
+	 * Reads data starting at the given offset into the buffer.
+	 *
+	 * @param offset The offset in the stream to read from
+	 * @param buffer The buffer to read into
+	 * @return The number of bytes read, which is only less than the buffer size at the end of the data, or -1 if there is no data at the offset
+	 * @throws IOException if the data could not be read
+	 */
+	int read(long offset, byte[] buffer) throws IOException;
+
+	/**
+	 * Creates a source of data held in memory.
+	 */
+	static StreamSource of(byte[] data) {
+		return new StreamSource() {
+			@Override
+			public long length() {
+				return data.length;
+			}
+
+			@Override
+			public int read(long offset, byte[] buffer) {
+				if (offset >= data.length) {
+					return -1;
+				}
+				int length = Math.min(buffer.length, data.length - (int) offset);
+				System.arraycopy(data, (int) offset, buffer, 0, length);
+				return length;
+			}
+		};
+	}
+}
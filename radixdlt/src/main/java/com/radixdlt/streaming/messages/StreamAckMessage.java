@@ -0,0 +1,89 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.streaming.messages;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.radixdlt.common.EUID;
+import com.radixdlt.serialization.DsonOutput;
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.SerializerId2;
+import org.radix.network.messaging.Message;
+
+/**
+ * Acknowledges all stream data before an offset, which is also the offset the receiver expects next.
+ */
+@SerializerId2("network.stream.ack")
+public class StreamAckMessage extends Message {
+	/**
+	 * The stream is open, data is expected at the acknowledged offset.
+	 */
+	public static final int STATUS_OPEN = 0;
+	/**
+	 * All data of the stream has been received.
+	 */
+	public static final int STATUS_COMPLETE = 1;
+	/**
+	 * The receiver does not accept the stream.
+	 */
+	public static final int STATUS_REJECTED = 2;
+	/**
+	 * The receiver does not know the stream, which has to be opened again.
+	 */
+	public static final int STATUS_UNKNOWN = 3;
+
+	@JsonProperty("stream")
+	@DsonOutput(Output.ALL)
+	private EUID streamId;
+
+	@JsonProperty("offset")
+	@DsonOutput(Output.ALL)
+	private long offset;
+
+	@JsonProperty("status")
+	@DsonOutput(Output.ALL)
+	private int status;
+
+	StreamAckMessage() {
+		// Serializer only
+		super(0);
+	}
+
+	public StreamAckMessage(EUID streamId, long offset, int status, int magic) {
+		super(magic);
+		this.streamId = streamId;
+		this.offset = offset;
+		this.status = status;
+	}
+
+	@Override
+	public String getCommand() {
+		return "network.stream.ack";
+	}
+
+	public EUID getStreamId() {
+		return streamId;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+}
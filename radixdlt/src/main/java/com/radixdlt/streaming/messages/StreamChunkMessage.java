@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.streaming.messages;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.radixdlt.common.EUID;
+import com.radixdlt.serialization.DsonOutput;
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.SerializerId2;
+import org.radix.network.messaging.Message;
+
+/**
+ * A chunk of stream data at a given offset. The last chunk of a stream is empty and flagged as such.
+ */
+@SerializerId2("network.stream.chunk")
+public class StreamChunkMessage extends Message {
+	@JsonProperty("stream")
+	@DsonOutput(Output.ALL)
+	private EUID streamId;
+
+	@JsonProperty("offset")
+	@DsonOutput(Output.ALL)
+	private long offset;
+
+	@JsonProperty("data")
+	@DsonOutput(Output.ALL)
+	private byte[] data;
+
+	@JsonProperty("last")
+	@DsonOutput(Output.ALL)
+	private boolean last;
+
+	StreamChunkMessage() {
+		// Serializer only
+		super(0);
+	}
+
+	public StreamChunkMessage(EUID streamId, long offset, byte[] data, boolean last, int magic) {
+		super(magic);
+		this.streamId = streamId;
+		this.offset = offset;
+		this.data = data;
+		this.last = last;
+	}
+
+	@Override
+	public String getCommand() {
+		return "network.stream.chunk";
+	}
+
+	public EUID getStreamId() {
+		return streamId;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public byte[] getData() {
+		return data;
+	}
+
+	public boolean isLast() {
+		return last;
+	}
+}
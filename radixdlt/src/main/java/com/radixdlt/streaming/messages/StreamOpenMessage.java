@@ -0,0 +1,80 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.streaming.messages;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.radixdlt.common.EUID;
+import com.radixdlt.serialization.DsonOutput;
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.SerializerId2;
+import org.radix.network.messaging.Message;
+
+/**
+ * Opens a stream, or asks the receiver where to resume a stream it already knows.
+ */
+@SerializerId2("network.stream.open")
+public class StreamOpenMessage extends Message {
+	@JsonProperty("stream")
+	@DsonOutput(Output.ALL)
+	private EUID streamId;
+
+	@JsonProperty("topic")
+	@DsonOutput(Output.ALL)
+	private String topic;
+
+	@JsonProperty("length")
+	@DsonOutput(Output.ALL)
+	private long length;
+
+	StreamOpenMessage() {
+		// Serializer only
+		super(0);
+	}
+
+	/**
+	 * Creates a new open message.
+	 *
+	 * @param streamId The id of the stream
+	 * @param topic The topic selecting the handler at the receiver
+	 * @param length The total length of the stream in bytes, or -1 if not known in advance
+	 * @param magic The universe magic
+	 */
+	public StreamOpenMessage(EUID streamId, String topic, long length, int magic) {
+		super(magic);
+		this.streamId = streamId;
+		this.topic = topic;
+		this.length = length;
+	}
+
+	@Override
+	public String getCommand() {
+		return "network.stream.open";
+	}
+
+	public EUID getStreamId() {
+		return streamId;
+	}
+
+	public String getTopic() {
+		return topic;
+	}
+
+	public long getLength() {
+		return length;
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.tracing;
+
+/**
+ * The stages an atom submitted through the API passes through, in lifecycle order.
+ * The latency attributed to a stage is the time between the previous recorded stage and this one.
+ */
+public enum AtomLifecycleStage {
+	/** Submission request received by the API, before JSON parsing */
+	RECEIVED,
+	/** Atom passed schema validation */
+	SCHEMA_VALIDATED,
+	/** Atom deserialized and parked for consensus */
+	DESERIALIZED,
+	/** Atom taken from the parked atoms by consensus */
+	CONSENSUS_SUBMITTED,
+	/** Atom committed by consensus */
+	CONSENSUS_COMMITTED,
+	/** Atom validated by the engine and about to be stored */
+	ENGINE_VALIDATED,
+	/** Atom written to the ledger store */
+	STORED,
+	/** Stored event delivered to API subscribers */
+	DELIVERED;
+
+	private static final AtomLifecycleStage[] STAGES = values();
+
+	static AtomLifecycleStage[] stages() {
+		return STAGES;
+	}
+}
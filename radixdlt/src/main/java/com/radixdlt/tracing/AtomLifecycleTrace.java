@@ -0,0 +1,79 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.tracing;
+
+import com.radixdlt.common.AID;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A finished trace of a single atom, holding the offsets of each recorded stage from the first recorded stage.
+ */
+public final class AtomLifecycleTrace {
+	private final AID aid;
+	private final long finishedAt;
+	private final boolean failed;
+	private final Map<AtomLifecycleStage, Long> offsetNanos;
+
+	AtomLifecycleTrace(AID aid, long finishedAt, boolean failed, Map<AtomLifecycleStage, Long> offsetNanos) {
+		this.aid = Objects.requireNonNull(aid);
+		this.finishedAt = finishedAt;
+		this.failed = failed;
+		this.offsetNanos = Collections.unmodifiableMap(new EnumMap<>(offsetNanos));
+	}
+
+	public AID getAid() {
+		return aid;
+	}
+
+	/**
+	 * Gets the wallclock time in milliseconds at which the trace finished.
+	 */
+	public long getFinishedAt() {
+		return finishedAt;
+	}
+
+	/**
+	 * Whether the atom failed before it was delivered.
+	 */
+	public boolean isFailed() {
+		return failed;
+	}
+
+	/**
+	 * Gets the offset of each recorded stage from the first recorded stage in nanoseconds.
+	 */
+	public Map<AtomLifecycleStage, Long> getOffsetNanos() {
+		return offsetNanos;
+	}
+
+	/**
+	 * Gets the time between the first and the last recorded stage in nanoseconds.
+	 */
+	public long getTotalNanos() {
+		return offsetNanos.values().stream().mapToLong(Long::longValue).max().orElse(0L);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s failed=%s %s]", getClass().getSimpleName(), aid, failed, offsetNanos);
+	}
+}
@@ -0,0 +1,307 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.tracing;
+
+import com.radixdlt.common.AID;
+import org.radix.properties.RuntimeProperties;
+import org.radix.utils.SystemMetaData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Lightweight lifecycle tracing of atoms submitted through the API, keyed by {@link AID}.
+ * <p>
+ * A trace is started once a submitted atom is deserialized and stages are timestamped as the atom
+ * passes through the node. Stages of atoms without a trace, such as atoms received from peers, are ignored.
+ * Once an atom is delivered the latency of each stage is recorded into a lock-free {@link LatencyRing}.
+ * Every {@code sampleRate}th finished trace as well as every trace slower than {@code slowThresholdMillis}
+ * is kept in a ring of recent traces for inspection.
+ */
+public final class AtomLifecycleTracer {
+	private static final int SWEEP_INTERVAL = 1024;
+	private static final long UNSET = 0L;
+
+	private final boolean enabled;
+	private final int maxActive;
+	private final int sampleRate;
+	private final long slowThresholdNanos;
+	private final long timeoutNanos;
+	private final LongSupplier nanoTime;
+
+	private final ConcurrentMap<AID, Trace> active = new ConcurrentHashMap<>();
+	private final Map<AtomLifecycleStage, LatencyRing> stageLatencies = new EnumMap<>(AtomLifecycleStage.class);
+	private final LatencyRing totalLatencies;
+	private final AtomicReferenceArray<AtomLifecycleTrace> traces;
+	private final AtomicLong traceCount = new AtomicLong();
+	private final AtomicLong finishedCount = new AtomicLong();
+	private final AtomicLong beginCount = new AtomicLong();
+
+	/**
+	 * Creates a tracer.
+	 *
+	 * @param enabled Whether tracing is enabled at all
+	 * @param maxActive The maximum number of atoms traced at the same time
+	 * @param samplesPerStage The number of recent latency samples kept per stage
+	 * @param maxTraces The number of recent finished traces kept for inspection
+	 * @param sampleRate Keep every {@code sampleRate}th finished trace for inspection, 0 to keep only slow traces
+	 * @param slowThresholdMillis The total latency above which a finished trace is always kept for inspection
+	 * @param timeoutMillis The time after which unfinished traces are discarded
+	 * @param nanoTime The source of monotonic time in nanoseconds
+	 */
+	public AtomLifecycleTracer(boolean enabled, int maxActive, int samplesPerStage, int maxTraces, int sampleRate,
+	                           long slowThresholdMillis, long timeoutMillis, LongSupplier nanoTime) {
+		this.enabled = enabled;
+		this.maxActive = maxActive;
+		this.sampleRate = sampleRate;
+		this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+		this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		this.nanoTime = Objects.requireNonNull(nanoTime);
+
+		for (AtomLifecycleStage stage : AtomLifecycleStage.stages()) {
+			this.stageLatencies.put(stage, new LatencyRing(samplesPerStage));
+		}
+		this.totalLatencies = new LatencyRing(samplesPerStage);
+		this.traces = new AtomicReferenceArray<>(Math.max(0, maxTraces));
+	}
+
+	public static AtomLifecycleTracer fromRuntimeProperties(RuntimeProperties properties) {
+		return new AtomLifecycleTracer(
+			properties.get("tracing.atoms.enabled", true),
+			properties.get("tracing.atoms.max_active", 10000),
+			properties.get("tracing.atoms.samples_per_stage", 4096),
+			properties.get("tracing.atoms.max_traces", 256),
+			properties.get("tracing.atoms.sample_rate", 64),
+			properties.get("tracing.atoms.slow_threshold_millis", 5000),
+			properties.get("tracing.atoms.timeout_millis", 300000),
+			System::nanoTime
+		);
+	}
+
+	/**
+	 * Creates a tracer which does not trace anything.
+	 */
+	public static AtomLifecycleTracer disabled() {
+		return new AtomLifecycleTracer(false, 0, 1, 0, 0, 0L, 0L, System::nanoTime);
+	}
+
+	/**
+	 * Gets the current time of this tracer in nanoseconds, for stages captured before the aid of an atom is known.
+	 */
+	public long now() {
+		return nanoTime.getAsLong();
+	}
+
+	/**
+	 * Starts tracing an atom at the given stage.
+	 * Does nothing if tracing is disabled, the atom is already traced or too many atoms are traced already.
+	 */
+	public void begin(AID aid, AtomLifecycleStage stage) {
+		if (!enabled) {
+			return;
+		}
+		if (beginCount.incrementAndGet() % SWEEP_INTERVAL == 0) {
+			sweep();
+		}
+		if (active.size() >= maxActive) {
+			SystemMetaData.ifPresent(a -> a.increment("tracing.atoms.dropped"));
+			return;
+		}
+		long now = nanoTime.getAsLong();
+		Trace trace = active.computeIfAbsent(aid, k -> new Trace(now));
+		trace.stamp(stage, now);
+	}
+
+	/**
+	 * Records that a traced atom reached the given stage now.
+	 */
+	public void record(AID aid, AtomLifecycleStage stage) {
+		if (enabled) {
+			record(aid, stage, nanoTime.getAsLong());
+		}
+	}
+
+	/**
+	 * Records that a traced atom reached the given stage at the given time, as obtained from {@link #now()}.
+	 * Stages which were already recorded are not overwritten.
+	 */
+	public void record(AID aid, AtomLifecycleStage stage, long nanos) {
+		if (!enabled) {
+			return;
+		}
+		Trace trace = active.get(aid);
+		if (trace != null) {
+			trace.stamp(stage, nanos);
+		}
+	}
+
+	/**
+	 * Finishes the trace of a delivered atom, recording the latency of all its stages.
+	 */
+	public void complete(AID aid) {
+		if (!enabled) {
+			return;
+		}
+		Trace trace = active.remove(aid);
+		if (trace == null) {
+			return;
+		}
+		trace.stamp(AtomLifecycleStage.DELIVERED, nanoTime.getAsLong());
+
+		Map<AtomLifecycleStage, Long> offsets = trace.offsets();
+		Long previous = null;
+		long total = 0L;
+		for (Map.Entry<AtomLifecycleStage, Long> offset : offsets.entrySet()) {
+			// the first recorded stage has nothing to be measured against
+			if (previous != null) {
+				stageLatencies.get(offset.getKey()).record(Math.max(0L, offset.getValue() - previous));
+			}
+			previous = offset.getValue();
+			total = Math.max(total, offset.getValue());
+		}
+		totalLatencies.record(total);
+		keep(aid, false, offsets, total);
+	}
+
+	/**
+	 * Finishes the trace of an atom which failed, without recording any latencies.
+	 */
+	public void fail(AID aid) {
+		if (!enabled) {
+			return;
+		}
+		Trace trace = active.remove(aid);
+		if (trace != null) {
+			Map<AtomLifecycleStage, Long> offsets = trace.offsets();
+			keep(aid, true, offsets, offsets.values().stream().mapToLong(Long::longValue).max().orElse(0L));
+		}
+	}
+
+	/**
+	 * Gets the recent latency samples of each stage in nanoseconds, sorted ascending.
+	 */
+	public Map<AtomLifecycleStage, long[]> getStageLatencies() {
+		Map<AtomLifecycleStage, long[]> latencies = new EnumMap<>(AtomLifecycleStage.class);
+		stageLatencies.forEach((stage, ring) -> latencies.put(stage, ring.sortedSnapshot()));
+		return latencies;
+	}
+
+	/**
+	 * Gets the recent total latency samples from the first to the last stage in nanoseconds, sorted ascending.
+	 */
+	public long[] getTotalLatencies() {
+		return totalLatencies.sortedSnapshot();
+	}
+
+	/**
+	 * Gets the number of atoms currently traced.
+	 */
+	public int getActiveCount() {
+		return active.size();
+	}
+
+	/**
+	 * Gets the number of finished traces.
+	 */
+	public long getFinishedCount() {
+		return finishedCount.get();
+	}
+
+	/**
+	 * Gets the recent finished traces kept for inspection, most recent first.
+	 */
+	public List<AtomLifecycleTrace> getTraces() {
+		List<AtomLifecycleTrace> result = new ArrayList<>(traces.length());
+		for (int i = 0; i < traces.length(); i++) {
+			AtomLifecycleTrace trace = traces.get(i);
+			if (trace != null) {
+				result.add(trace);
+			}
+		}
+		result.sort(Comparator.comparingLong(AtomLifecycleTrace::getFinishedAt).reversed());
+		return Collections.unmodifiableList(result);
+	}
+
+	private void keep(AID aid, boolean failed, Map<AtomLifecycleStage, Long> offsets, long totalNanos) {
+		long finished = finishedCount.incrementAndGet();
+		boolean sampled = sampleRate > 0 && finished % sampleRate == 0;
+		if ((sampled || totalNanos >= slowThresholdNanos) && traces.length() > 0) {
+			long index = traceCount.getAndIncrement();
+			traces.set((int) (index % traces.length()), new AtomLifecycleTrace(aid, System.currentTimeMillis(), failed, offsets));
+		}
+	}
+
+	private void sweep() {
+		long now = nanoTime.getAsLong();
+		int before = active.size();
+		active.values().removeIf(trace -> now - trace.begin > timeoutNanos);
+		int expired = before - active.size();
+		if (expired > 0) {
+			SystemMetaData.ifPresent(a -> a.increment("tracing.atoms.expired", expired));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[enabled=%s active=%s finished=%s]", getClass().getSimpleName(), enabled, active.size(), finishedCount.get());
+	}
+
+	private static final class Trace {
+		private final long begin;
+		private final AtomicLongArray stamps = new AtomicLongArray(AtomLifecycleStage.stages().length);
+
+		private Trace(long begin) {
+			this.begin = begin;
+		}
+
+		private void stamp(AtomLifecycleStage stage, long nanos) {
+			// avoid the unset marker, a clock reading of exactly zero is shifted by a nanosecond
+			stamps.compareAndSet(stage.ordinal(), UNSET, nanos == UNSET ? 1L : nanos);
+		}
+
+		private Map<AtomLifecycleStage, Long> offsets() {
+			long first = Long.MAX_VALUE;
+			for (int i = 0; i < stamps.length(); i++) {
+				long stamp = stamps.get(i);
+				if (stamp != UNSET) {
+					first = Math.min(first, stamp);
+				}
+			}
+			Map<AtomLifecycleStage, Long> offsets = new EnumMap<>(AtomLifecycleStage.class);
+			for (AtomLifecycleStage stage : AtomLifecycleStage.stages()) {
+				long stamp = stamps.get(stage.ordinal());
+				if (stamp != UNSET) {
+					offsets.put(stage, Math.max(0L, stamp - first));
+				}
+			}
+			return offsets;
+		}
+	}
+}
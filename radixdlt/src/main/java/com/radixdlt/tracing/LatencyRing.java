@@ -0,0 +1,84 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.tracing;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free ring of the most recent latency samples.
+ * <p>
+ * Recording overwrites the oldest sample. Snapshots are taken without coordination with writers,
+ * so a snapshot taken while samples are being recorded may contain a few samples which are slightly
+ * older than expected, which is fine for percentile estimates.
+ */
+public final class LatencyRing {
+	private final AtomicLongArray samples;
+	private final AtomicLong count = new AtomicLong();
+
+	public LatencyRing(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		this.samples = new AtomicLongArray(capacity);
+	}
+
+	/**
+	 * Records a sample, overwriting the oldest sample if the ring is full.
+	 */
+	public void record(long sample) {
+		long index = count.getAndIncrement();
+		samples.set((int) (index % samples.length()), sample);
+	}
+
+	/**
+	 * Gets the total number of samples ever recorded.
+	 */
+	public long count() {
+		return count.get();
+	}
+
+	/**
+	 * Gets the samples currently held by the ring in ascending order.
+	 */
+	public long[] sortedSnapshot() {
+		int size = (int) Math.min(count.get(), samples.length());
+		long[] snapshot = new long[size];
+		for (int i = 0; i < size; i++) {
+			snapshot[i] = samples.get(i);
+		}
+		Arrays.sort(snapshot);
+		return snapshot;
+	}
+
+	/**
+	 * Gets the given percentile of a sorted snapshot using the nearest-rank method.
+	 *
+	 * @param sorted The samples in ascending order
+	 * @param percentile The percentile between 0 and 100
+	 * @return The percentile, or 0 if there are no samples
+	 */
+	public static long percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0L;
+		}
+		int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+		return sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix;
+
+import com.radixdlt.atomos.RadixAddress;
+import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.keys.Keys;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.universe.Universe;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.json.JSONObject;
+import org.radix.api.services.spamathon.SpamAtomFactory;
+import org.radix.api.services.spamathon.SpamAtomFactory.PreparedAtom;
+import org.radix.api.services.spamathon.WorkloadMix;
+import org.radix.corpus.AtomCorpus;
+import org.radix.logging.Logger;
+import org.radix.logging.Logging;
+import org.radix.properties.RuntimeProperties;
+import org.radix.utils.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.Security;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Generates a deterministic corpus of valid signed atoms for the development universe,
+ * to be replayed by ingest benchmarks.
+ * <p>
+ * Atoms are derived from {@code corpus.seed} and the key in {@code corpus.key.path}, so the same seed and key
+ * always produce the same corpus. Example:
+ * <pre>
+ *    $ ./gradlew run -P overrideMainClassName=org.radix.GenerateAtomCorpus --args="-corpus.size 100000"
+ * </pre>
+ */
+public final class GenerateAtomCorpus {
+	private static final Logger LOGGER = Logging.getLogger("GenerateAtomCorpus");
+
+	private static final int CHUNK_SIZE = 4096;
+
+	private GenerateAtomCorpus() {
+		throw new IllegalStateException("Can't construct");
+	}
+
+	public static void main(String[] arguments) throws Exception {
+		Security.insertProviderAt(new BouncyCastleProvider(), 1);
+		RuntimeProperties properties = loadProperties(arguments);
+		Serialization serialization = Serialization.getDefault();
+
+		File file = new File(properties.get("corpus.file", "atoms.corpus"));
+		long size = properties.get("corpus.size", 100000);
+		long seed = properties.get("corpus.seed", 0L);
+		WorkloadMix mix = WorkloadMix.parse(properties.get("corpus.mix", "unique=1"));
+		int batching = properties.get("corpus.batching", 1);
+
+		Universe universe = new GenerateUniverses(properties).generateUniverses().stream()
+			.filter(Universe::isDevelopment)
+			.findAny()
+			.orElseThrow(() -> new IllegalStateException("No development universe"));
+		ECKeyPair owner = Keys.readKey(properties.get("corpus.key.path", "corpus.ks"), "corpus", "RADIX_CORPUS_KEYSTORE_PASSWORD", "RADIX_CORPUS_KEY_PASSWORD");
+
+		// timestamps are spaced out from the universe creation, so they are deterministic and in the past
+		long baseTimestamp = TimeUnit.SECONDS.toMillis(properties.get("universe.timestamp", 1551225600));
+		SpamAtomFactory atomFactory = new SpamAtomFactory(
+			serialization,
+			owner,
+			RadixAddress.from(universe, owner.getPublicKey()),
+			mix,
+			batching,
+			properties.get("test.nullatom.junk_size", 40),
+			seed,
+			index -> baseTimestamp + index
+		);
+
+		LOGGER.info("Generating corpus of " + size + " atoms with mix " + mix + " into " + file);
+		long start = System.currentTimeMillis();
+		try (AtomCorpus.Writer writer = new AtomCorpus.Writer(file, serialization, universe)) {
+			for (long chunk = 0; chunk < size; chunk += CHUNK_SIZE) {
+				// sign in parallel, but write in index order
+				List<PreparedAtom> atoms = LongStream.range(chunk, Math.min(size, chunk + CHUNK_SIZE))
+					.parallel()
+					.mapToObj(index -> create(atomFactory, index))
+					.collect(Collectors.toList());
+				for (PreparedAtom atom : atoms) {
+					writer.write(atom.getAtom());
+				}
+				LOGGER.info("Generated " + writer.getCount() + " of " + size + " atoms");
+			}
+		}
+		LOGGER.info("Generated corpus of " + size + " atoms in " + (System.currentTimeMillis() - start) + "ms");
+	}
+
+	private static PreparedAtom create(SpamAtomFactory atomFactory, long index) {
+		try {
+			return atomFactory.create(index);
+		} catch (Exception e) {
+			throw new IllegalStateException("Failed to create atom " + index, e);
+		}
+	}
+
+	private static RuntimeProperties loadProperties(String[] arguments) throws IOException {
+		try {
+			JSONObject runtimeConfigurationJSON = new JSONObject();
+			if (Radix.class.getResourceAsStream("/runtime_options.json") != null) {
+				runtimeConfigurationJSON = new JSONObject(IOUtils.toString(Radix.class.getResourceAsStream("/runtime_options.json")));
+			}
+
+			return new RuntimeProperties(runtimeConfigurationJSON, arguments);
+		} catch (Exception ex) {
+			throw new IOException("while loading runtime properties", ex);
+		}
+	}
+}
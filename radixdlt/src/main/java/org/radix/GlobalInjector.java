@@ -25,10 +25,13 @@ import com.google.inject.name.Names;
 import com.radixdlt.TempoModule;
 import com.radixdlt.common.EUID;
 import com.radixdlt.delivery.LazyRequestDelivererModule;
+import com.radixdlt.discovery.GossipDiscovererModule;
 import com.radixdlt.discovery.IterativeDiscovererModule;
+import com.radixdlt.discovery.ReconciliationDiscovererModule;
 import com.radixdlt.middleware2.MiddlewareModule;
 import com.radixdlt.serialization.Serialization;
 import com.radixdlt.store.berkeley.BerkeleyStoreModule;
+import com.radixdlt.streaming.MessageStreamsModule;
 import com.radixdlt.universe.Universe;
 import org.radix.database.DatabaseEnvironment;
 import org.radix.events.Events;
@@ -47,10 +50,13 @@ public class GlobalInjector {
 	public GlobalInjector(RuntimeProperties properties, DatabaseEnvironment dbEnv, LocalSystem localSystem, Universe universe) {
 		Module lazyRequestDelivererModule = new LazyRequestDelivererModule(properties);
 		Module iterativeDiscovererModule = new IterativeDiscovererModule(properties);
+		Module reconciliationDiscovererModule = new ReconciliationDiscovererModule(properties);
+		Module gossipDiscovererModule = new GossipDiscovererModule(properties);
 		Module berkeleyStoreModule = new BerkeleyStoreModule();
 		Module tempoModule = new TempoModule();
 		Module middlewareModule = new MiddlewareModule();
 		Module messageCentralModule = new MessageCentralModule(properties);
+		Module messageStreamsModule = new MessageStreamsModule(properties);
 		Module udpTransportModule = new UDPTransportModule(properties);
 		Module tcpTransportModule = new TCPTransportModule(properties);
 		Module addressBookModule = new AddressBookModule(dbEnv);
@@ -73,10 +79,13 @@ public class GlobalInjector {
 		injector = Guice.createInjector(
 				lazyRequestDelivererModule,
 				iterativeDiscovererModule,
+				reconciliationDiscovererModule,
+				gossipDiscovererModule,
 				berkeleyStoreModule,
 				tempoModule,
 				middlewareModule,
 				messageCentralModule,
+				messageStreamsModule,
 				udpTransportModule,
 				tcpTransportModule,
 				addressBookModule,
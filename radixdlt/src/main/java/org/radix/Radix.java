@@ -23,6 +23,7 @@ import com.radixdlt.middleware2.processing.RadixEngineAtomProcessor;
 import com.radixdlt.serialization.Serialization;
 import com.radixdlt.serialization.SerializationException;
 import com.radixdlt.store.LedgerEntryStore;
+import com.radixdlt.tracing.AtomLifecycleTracer;
 import com.radixdlt.universe.Universe;
 import com.radixdlt.utils.Bytes;
 import org.apache.commons.cli.ParseException;
@@ -151,7 +152,8 @@ public final class Radix
 		// start API services
 		AtomToBinaryConverter atomToBinaryConverter = globalInjector.getInjector().getInstance(AtomToBinaryConverter.class);
 		LedgerEntryStore store = globalInjector.getInjector().getInstance(LedgerEntryStore.class);
-		RadixHttpServer httpServer = new RadixHttpServer(store, atomProcessor, atomToBinaryConverter, universe, serialization, properties, localSystem, addressBook);
+		AtomLifecycleTracer tracer = globalInjector.getInjector().getInstance(AtomLifecycleTracer.class);
+		RadixHttpServer httpServer = new RadixHttpServer(store, atomProcessor, atomToBinaryConverter, universe, serialization, properties, localSystem, addressBook, messageCentral, tracer);
 		httpServer.start(properties);
 
 		log.info("Node '" + localSystem.getNID() + "' started successfully");
@@ -19,6 +19,7 @@ package org.radix.api.http;
 
 import com.radixdlt.middleware2.converters.AtomToBinaryConverter;
 import com.radixdlt.middleware2.processing.RadixEngineAtomProcessor;
+import com.radixdlt.tracing.AtomLifecycleTracer;
 import com.radixdlt.serialization.DsonOutput;
 import com.radixdlt.serialization.Serialization;
 import com.radixdlt.store.LedgerEntryStore;
@@ -42,9 +43,11 @@ import org.radix.api.jsonrpc.RadixJsonRpcServer;
 import org.radix.api.services.AtomsService;
 import org.radix.api.services.InternalService;
 import org.radix.api.services.NetworkService;
+import org.radix.api.services.TracingService;
 import org.radix.logging.Logger;
 import org.radix.logging.Logging;
 import org.radix.network2.addressbook.AddressBook;
+import org.radix.network2.messaging.MessageCentral;
 import org.radix.properties.RuntimeProperties;
 import org.radix.universe.system.LocalSystem;
 
@@ -71,6 +74,7 @@ public final class RadixHttpServer {
 	private final RadixJsonRpcServer jsonRpcServer;
 	private final InternalService internalService;
 	private final NetworkService networkService;
+	private final TracingService tracingService;
 	private final Universe universe;
 	private final JSONObject apiSerializedUniverse;
 	private final LocalSystem localSystem;
@@ -83,13 +87,15 @@ public final class RadixHttpServer {
 	                       Serialization serialization,
 	                       RuntimeProperties properties,
 	                       LocalSystem localSystem,
-	                       AddressBook addressBook) {
+	                       AddressBook addressBook,
+	                       MessageCentral messageCentral,
+	                       AtomLifecycleTracer tracer) {
 		this.universe = Objects.requireNonNull(universe);
 		this.serialization = Objects.requireNonNull(serialization);
 		this.apiSerializedUniverse = serialization.toJsonObject(this.universe, DsonOutput.Output.API);
 		this.localSystem = Objects.requireNonNull(localSystem);
 		this.peers = new ConcurrentHashMap<>();
-		this.atomsService = new AtomsService(store, radixEngineAtomProcessor, atomToBinaryConverter);
+		this.atomsService = new AtomsService(store, radixEngineAtomProcessor, atomToBinaryConverter, tracer);
 		this.jsonRpcServer = new RadixJsonRpcServer(
 			serialization,
 			store,
@@ -97,10 +103,12 @@ public final class RadixHttpServer {
 			AtomSchemas.get(),
 			localSystem,
 			addressBook,
-			universe
+			universe,
+			tracer
 		);
 		this.internalService = new InternalService(radixEngineAtomProcessor, serialization, properties, universe);
-		this.networkService = new NetworkService(serialization, localSystem, addressBook);
+		this.networkService = new NetworkService(serialization, localSystem, addressBook, messageCentral);
+		this.tracingService = new TracingService(tracer);
 	}
 
     private Undertow server;
@@ -171,8 +179,15 @@ public final class RadixHttpServer {
             String iterations = getParameter(exchange, "iterations").orElse(null);
             String batching = getParameter(exchange, "batching").orElse(null);
             String rate = getParameter(exchange, "rate").orElse(null);
-
-            respond(internalService.spamathon(iterations, batching, rate), exchange);
+            String threads = getParameter(exchange, "threads").orElse(null);
+            String mix = getParameter(exchange, "mix").orElse(null);
+
+            if (iterations == null && rate == null) {
+                // without run parameters, report on the current or last run
+                respond(internalService.spamathonReport(), exchange);
+            } else {
+                respond(internalService.spamathon(iterations, batching, rate, threads, mix), exchange);
+            }
         }, handler);
 	}
 
@@ -245,6 +260,12 @@ public final class RadixHttpServer {
             respond(result, exchange);
         }, handler);
 
+        // atom lifecycle latencies
+        addGetRoute("/api/latency", exchange
+                -> respond(tracingService.getLatencies(), exchange), handler);
+        addGetRoute("/api/latency/traces", exchange
+                -> respond(tracingService.getTraces(), exchange), handler);
+
         addGetRoute("/api/latest-events", exchange -> {
         	JSONArray events = new JSONArray();
         	atomsService.getEvents().forEach(events::put);
@@ -269,6 +290,8 @@ public final class RadixHttpServer {
                 -> respond(this.networkService.getPeers().toString(), exchange), handler);
         addGetRoute("/api/network/peers/{id}", exchange
                 -> respond(this.networkService.getPeer(getParameter(exchange, "id").orElse(null)), exchange), handler);
+        addGetRoute("/api/network/outbound", exchange
+                -> respond(this.networkService.getOutbound(), exchange), handler);
 
     }
 
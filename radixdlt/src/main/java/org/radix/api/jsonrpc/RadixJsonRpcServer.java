@@ -28,6 +28,8 @@ import com.radixdlt.common.AID;
 import com.radixdlt.serialization.DsonOutput.Output;
 import com.radixdlt.serialization.Serialization;
 import com.radixdlt.store.LedgerEntryStore;
+import com.radixdlt.tracing.AtomLifecycleStage;
+import com.radixdlt.tracing.AtomLifecycleTracer;
 import io.undertow.server.HttpServerExchange;
 
 import java.util.ArrayList;
@@ -78,6 +80,7 @@ public final class RadixJsonRpcServer {
 	private final LocalSystem localSystem;
 	private final AddressBook addressBook;
 	private final Universe universe;
+	private final AtomLifecycleTracer tracer;
 
 	public RadixJsonRpcServer(Serialization serialization,
 	                          LedgerEntryStore ledger,
@@ -89,6 +92,17 @@ public final class RadixJsonRpcServer {
 		this(serialization, ledger, atomsService, atomSchema, localSystem, addressBook, universe, DEFAULT_MAX_REQUEST_SIZE);
 	}
 
+	public RadixJsonRpcServer(Serialization serialization,
+	                          LedgerEntryStore ledger,
+	                          AtomsService atomsService,
+	                          Schema atomSchema,
+	                          LocalSystem localSystem,
+	                          AddressBook addressBook,
+	                          Universe universe,
+	                          AtomLifecycleTracer tracer) {
+		this(serialization, ledger, atomsService, atomSchema, localSystem, addressBook, universe, DEFAULT_MAX_REQUEST_SIZE, tracer);
+	}
+
 	public RadixJsonRpcServer(Serialization serialization,
 	                          LedgerEntryStore ledger,
 	                          AtomsService atomsService,
@@ -97,6 +111,18 @@ public final class RadixJsonRpcServer {
 	                          AddressBook addressBook,
 	                          Universe universe,
 	                          long maxRequestSizeBytes) {
+		this(serialization, ledger, atomsService, atomSchema, localSystem, addressBook, universe, maxRequestSizeBytes, AtomLifecycleTracer.disabled());
+	}
+
+	public RadixJsonRpcServer(Serialization serialization,
+	                          LedgerEntryStore ledger,
+	                          AtomsService atomsService,
+	                          Schema atomSchema,
+	                          LocalSystem localSystem,
+	                          AddressBook addressBook,
+	                          Universe universe,
+	                          long maxRequestSizeBytes,
+	                          AtomLifecycleTracer tracer) {
 		this.serialization = Objects.requireNonNull(serialization);
 		this.ledger = Objects.requireNonNull(ledger);
 		this.atomsService = Objects.requireNonNull(atomsService);
@@ -105,6 +131,7 @@ public final class RadixJsonRpcServer {
 		this.addressBook = Objects.requireNonNull(addressBook);
 		this.universe = Objects.requireNonNull(universe);
 		this.maxRequestSizeBytes = maxRequestSizeBytes;
+		this.tracer = Objects.requireNonNull(tracer);
 	}
 
     /**
@@ -127,6 +154,7 @@ public final class RadixJsonRpcServer {
 	 * @return The response to the request, could be a JSON-RPC error
 	 */
 	String handleChecked(String jsonRpcRequest) {
+		final long receivedNanos = tracer.now();
 		// one char is 2 bytes
 	    if (jsonRpcRequest.length() * 2 > maxRequestSizeBytes) {
 		    return JsonRpcUtil.errorResponse(
@@ -136,16 +164,17 @@ public final class RadixJsonRpcServer {
 		    ).toString();
 	    }
 
-	    return handle(new JSONObject(jsonRpcRequest)).toString();
+	    return handle(new JSONObject(jsonRpcRequest), receivedNanos).toString();
 	}
 
     /**
      * Handle a certain JSON RPC request and return the response
      *
      * @param jsonRpcRequest The JSON RPC API request
+     * @param receivedNanos The time the request was received at, as obtained from the tracer
      * @return The response
      */
-    private JSONObject handle(JSONObject jsonRpcRequest) {
+    private JSONObject handle(JSONObject jsonRpcRequest, long receivedNanos) {
         Object id = null;
         try {
         	if (!jsonRpcRequest.has("id")) {
@@ -227,7 +256,10 @@ public final class RadixJsonRpcServer {
 							return JsonRpcUtil.errorResponse(id, -32000, "Schema Error", e.toJSON());
 						}
 
+						final long schemaValidatedNanos = tracer.now();
 						final AID atomId = atomsService.submitAtom(jsonAtom, null);
+						tracer.record(atomId, AtomLifecycleStage.RECEIVED, receivedNanos);
+						tracer.record(atomId, AtomLifecycleStage.SCHEMA_VALIDATED, schemaValidatedNanos);
 						result = new JSONObject()
 							.put("status", AtomStatus.PENDING_CM_VERIFICATION)
 							.put("aid", atomId)
@@ -38,6 +38,8 @@ import com.radixdlt.serialization.DsonOutput;
 import com.radixdlt.serialization.Serialization;
 import com.radixdlt.store.LedgerEntry;
 import com.radixdlt.store.LedgerEntryStore;
+import com.radixdlt.tracing.AtomLifecycleStage;
+import com.radixdlt.tracing.AtomLifecycleTracer;
 import org.json.JSONException;
 import org.json.JSONObject;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -77,11 +79,14 @@ public class AtomsService {
 	private final RadixEngineAtomProcessor radixEngineAtomProcessor;
 	private final AtomToBinaryConverter atomToBinaryConverter;
 	private final LedgerEntryStore store;
+	private final AtomLifecycleTracer tracer;
 
-	public AtomsService(LedgerEntryStore store, RadixEngineAtomProcessor radixEngineAtomProcessor, AtomToBinaryConverter atomToBinaryConverter) {
+	public AtomsService(LedgerEntryStore store, RadixEngineAtomProcessor radixEngineAtomProcessor, AtomToBinaryConverter atomToBinaryConverter,
+	                    AtomLifecycleTracer tracer) {
 		this.radixEngineAtomProcessor = Objects.requireNonNull(radixEngineAtomProcessor);
 		this.store = Objects.requireNonNull(store);
 		this.atomToBinaryConverter = Objects.requireNonNull(atomToBinaryConverter);
+		this.tracer = Objects.requireNonNull(tracer);
 
 		Events.getInstance().register(AtomEvent.class, (event) -> {
 			executorService.submit(() -> {
@@ -117,6 +122,7 @@ public class AtomsService {
 					}
 
 					this.atomEventCount.merge(AtomEventType.STORE, 1L, Long::sum);
+					this.tracer.complete(atom.getAID());
 				} else {
 					eventName = "UNKNOWN";
 				}
@@ -130,6 +136,7 @@ public class AtomsService {
 		Events.getInstance().register(AtomExceptionEvent.class, event -> {
 			executorService.submit(() -> {
 				final AtomExceptionEvent exceptionEvent = (AtomExceptionEvent) event;
+				this.tracer.fail(exceptionEvent.getAtomId());
 				synchronized (lock) {
 					eventRingBuffer.add(
 						System.currentTimeMillis() + " EXCEPTION " + exceptionEvent.getAtomId()
@@ -168,6 +175,7 @@ public class AtomsService {
 		return radixEngineAtomProcessor.process(atom, Optional.of(new RadixEngineAtomProcessor.ProcessorAtomEventListener() {
 			@Override
 			public void onDeserializationCompleted(AID atomId) {
+				tracer.begin(atomId, AtomLifecycleStage.DESERIALIZED);
 				if (subscriber != null) {
 					deleteOnEventSingleAtomObservers.compute(atomId, (hid, oldSubscribers) -> {
 						List<SingleAtomListener> subscribers = oldSubscribers == null ? new ArrayList<>() : oldSubscribers;
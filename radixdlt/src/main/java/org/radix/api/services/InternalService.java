@@ -17,42 +17,36 @@
 
 package org.radix.api.services;
 
-import com.radixdlt.common.Atom;
+import com.radixdlt.atomos.RadixAddress;
+import com.radixdlt.crypto.CryptoException;
+import com.radixdlt.crypto.ECKeyPair;
 import com.radixdlt.middleware2.processing.RadixEngineAtomProcessor;
-import com.radixdlt.serialization.DsonOutput;
 import com.radixdlt.serialization.Serialization;
 import com.radixdlt.universe.Universe;
-import com.radixdlt.utils.Bytes;
-
-import java.util.Optional;
-import java.util.Random;
+import org.json.JSONArray;
 import org.json.JSONObject;
-import com.radixdlt.atomos.RadixAddress;
-import com.radixdlt.atomos.RRIParticle;
-
-import com.google.common.collect.ImmutableMap;
-import com.radixdlt.atommodel.unique.UniqueParticle;
-import com.radixdlt.atomos.RRI;
-import com.radixdlt.constraintmachine.Spin;
-import com.radixdlt.crypto.ECKeyPair;
-import com.radixdlt.crypto.CryptoException;
-import org.radix.logging.Logger;
-import org.radix.logging.Logging;
+import org.radix.api.services.spamathon.LoadGenerator;
+import org.radix.api.services.spamathon.SpamAtomFactory;
+import org.radix.api.services.spamathon.WorkloadMix;
 import org.radix.properties.RuntimeProperties;
-
 import org.radix.time.Time;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * API which is used for internal testing and should not be included in release to users
  */
 public final class InternalService {
-	private static final Logger log = Logging.getLogger();
 	private final RadixEngineAtomProcessor radixEngineAtomProcessor;
 	private final Serialization serialization;
 	private final RuntimeProperties properties;
 	private final Universe universe;
 
-	private static boolean spamming = false;
+	private final Object spamathonLock = new Object();
+	// guarded by spamathonLock, the running spamathons and those finished since the last one was started
+	private final List<LoadGenerator> spamathons = new ArrayList<>();
 
 	public InternalService(RadixEngineAtomProcessor radixEngineAtomProcessor, Serialization serialization, RuntimeProperties properties, Universe universe) {
 		this.radixEngineAtomProcessor = radixEngineAtomProcessor;
@@ -61,120 +55,35 @@ public final class InternalService {
 		this.universe = universe;
 	}
 
-	private class Spammer implements Runnable {
-		private final int nonceBits;
-
-		private final RadixEngineAtomProcessor radixEngineAtomProcessor;
-		private final ECKeyPair owner;
-		private final RadixAddress account;
-		private final int     iterations;
-		private final int     batching;
-		private final int     rate;
-
-		// This is safe, as it is just used to generate random nonces for testing
-		private final Random random = new Random();
-
-		public Spammer(RadixEngineAtomProcessor radixEngineAtomProcessor, ECKeyPair owner, int iterations, int batching, int rate, int nonceBits) {
-			this.radixEngineAtomProcessor = radixEngineAtomProcessor;
-			this.owner = owner;
-			this.iterations = iterations;
-			this.rate = rate;
-			this.batching = Math.max(1, batching);
-			this.account = RadixAddress.from(universe, owner.getPublicKey());
-			this.nonceBits = nonceBits;
-		}
-
-		private byte[] generateNonce(int randomBits) {
-			if (randomBits > 0) {
-				int byteCount = (randomBits + Byte.SIZE - 1) / Byte.SIZE;
-				byte[] bytes = new byte[byteCount];
-				synchronized (random) {
-					random.nextBytes(bytes);
-				}
-				int extraBits = (byteCount * Byte.SIZE) - randomBits;
-				if (extraBits != 0) {
-					byte mask = (byte) ((1 << (Byte.SIZE - extraBits)) - 1);
-					bytes[0] &= mask;
-				}
-				return bytes;
-			}
-			return Bytes.EMPTY_BYTES;
-		}
-
-		private long getRandomLong() {
-			synchronized (random) {
-				return random.nextLong();
-			}
-		}
-
-		@Override
-		public void run() {
-			try {
-				spamming = true;
-
-				int remainingIterations = this.iterations;
-
-				while (true) {
-					try {
-						long sliceStart = System.currentTimeMillis();
-
-						for (int i = 0; i < this.rate; i++) {
-							Atom atom = new Atom(Time.currentTimestamp(), ImmutableMap.of("magic", "0xdeadbeef"));
-
-							for (int b = 0; b < this.batching; b++) {
-								byte[] nonce = generateNonce(nonceBits);
-								String rriName = nonce != null ? Bytes.toHexString(nonce) : "hi";
-								RRI rri = RRI.of(this.account, rriName);
-								RRIParticle rriParticle = new RRIParticle(rri);
-								UniqueParticle unique = new UniqueParticle(rriName, this.account, getRandomLong());
-								atom.addParticleGroupWith(rriParticle, Spin.DOWN, unique, Spin.UP);
-							}
-
-							atom.sign(this.owner);
-
-							JSONObject jsonAtom = serialization.toJsonObject(atom, DsonOutput.Output.WIRE);
-							radixEngineAtomProcessor.process(jsonAtom, Optional.empty());
-
-							remainingIterations--;
-							if (remainingIterations <= 0) {
-								return;
-							}
-
-							if (i % this.rate == this.rate - 1) {
-								if (1000 - (System.currentTimeMillis() - sliceStart) > 0) {
-									Thread.sleep(1000 - (System.currentTimeMillis() - sliceStart));
-								}
-
-								sliceStart = System.currentTimeMillis();
-							}
-						}
-					} catch (Exception ex) {
-						log.error(ex);
-						try {
-							Thread.sleep(1000);
-						} catch (InterruptedException nil) {
-							// Exit if we are interrupted
-							Thread.currentThread().interrupt();
-							break;
-						}
-					}
-				}
-			} finally {
-				spamming = false;
-			}
-		}
-	}
-
 	public JSONObject spamathon(JSONObject params) {
-		return this.spamathon(params.getString("iterations"), params.optString("batching"), params.getString("rate"));
+		return this.spamathon(
+			params.getString("iterations"),
+			params.optString("batching", null),
+			params.getString("rate"),
+			params.optString("threads", null),
+			params.optString("mix", null)
+		);
 	}
 
 	public JSONObject spamathon(String iterations, String batching, String rate) {
+		return this.spamathon(iterations, batching, rate, null, null);
+	}
+
+	/**
+	 * Starts a new spamathon.
+	 * Unless {@code atoms.spam.multiple} is set, it is rejected while another spamathon is running,
+	 * otherwise it runs concurrently with those already running.
+	 *
+	 * @param iterations The number of atoms to submit
+	 * @param batching The number of particle groups of batched atoms, 1 if null
+	 * @param rate The number of atoms to submit per second
+	 * @param threads The number of threads to generate and submit atoms with, from properties if null
+	 * @param mix The workload mix as comma separated kind=weight pairs, only batched atoms if null
+	 * @return The result of starting the spamathon
+	 */
+	public JSONObject spamathon(String iterations, String batching, String rate, String threads, String mix) {
 		JSONObject result = new JSONObject();
 
-		if (spamming && this.properties.get("atoms.spam.multiple", false)) {
-			throw new RuntimeException();
-		}
 		if (iterations == null) {
 			throw new RuntimeException("Iterations not supplied");
 		}
@@ -191,19 +100,80 @@ public final class InternalService {
 			Integer maxRate = this.properties.get("atoms.spam.max_rate", 1000);
 			throw new RuntimeException("Rate is too high - Maximum rate is " + maxRate);
 		}
-
+		int threadCount = threads == null
+			? this.properties.get("atoms.spam.threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2))
+			: Integer.decode(threads);
+		if (threadCount < 1) {
+			throw new RuntimeException("Threads is invalid");
+		}
+		final WorkloadMix workloadMix;
 		try {
-			int nonceBits = this.properties.get("test.nullatom.junk_size", 40);
-			Thread spammerThread = new Thread(new Spammer(radixEngineAtomProcessor, new ECKeyPair(), Integer.decode(iterations), batching == null ? 1 : Integer.decode(batching), Integer.decode(rate), nonceBits));
-			spammerThread.setDaemon(true);
-			spammerThread.setName("Spammer " + System.currentTimeMillis());
-			spammerThread.start();
+			workloadMix = WorkloadMix.parse(mix);
+		} catch (IllegalArgumentException e) {
+			throw new RuntimeException("Mix is invalid: " + e.getMessage(), e);
+		}
 
-			result.put("data", "OK");
-		} catch (CryptoException e) {
-			result.put("error", e.getMessage());
+		synchronized (this.spamathonLock) {
+			boolean running = this.spamathons.stream().anyMatch(spamathon -> !spamathon.isDone());
+			if (running && !this.properties.get("atoms.spam.multiple", false)) {
+				throw new RuntimeException("Spamathon already running");
+			}
+			// finished spamathons are no longer reported on once a new one is started
+			this.spamathons.removeIf(LoadGenerator::isDone);
+
+			try {
+				ECKeyPair owner = new ECKeyPair();
+				int nonceBits = this.properties.get("test.nullatom.junk_size", 40);
+				SpamAtomFactory atomFactory = new SpamAtomFactory(
+					serialization,
+					owner,
+					RadixAddress.from(universe, owner.getPublicKey()),
+					workloadMix,
+					batching == null ? 1 : Integer.decode(batching),
+					nonceBits,
+					ThreadLocalRandom.current().nextLong(),
+					index -> Time.currentTimestamp()
+				);
+				LoadGenerator spamathon = new LoadGenerator(
+					radixEngineAtomProcessor,
+					atomFactory,
+					workloadMix,
+					Integer.decode(iterations),
+					Integer.decode(rate),
+					threadCount,
+					this.properties.get("atoms.spam.pool_size", 10000),
+					this.properties.get("atoms.spam.drain_timeout_millis", 60000)
+				);
+				spamathon.start();
+				this.spamathons.add(spamathon);
+
+				result.put("data", "OK");
+			} catch (CryptoException e) {
+				result.put("error", e.getMessage());
+			}
 		}
 
 		return result;
 	}
+
+	/**
+	 * Gets the report of the current or last spamathon, including its latency from submission to storage.
+	 * If several spamathons ran concurrently, the reports of all of them are included as well, in the
+	 * order they were started.
+	 */
+	public JSONObject spamathonReport() {
+		synchronized (this.spamathonLock) {
+			if (this.spamathons.isEmpty()) {
+				throw new RuntimeException("No spamathon was started");
+			}
+			LoadGenerator last = this.spamathons.get(this.spamathons.size() - 1);
+			JSONObject result = new JSONObject().put("data", last.report());
+			if (this.spamathons.size() > 1) {
+				JSONArray reports = new JSONArray();
+				this.spamathons.forEach(spamathon -> reports.put(spamathon.report()));
+				result.put("concurrent", reports);
+			}
+			return result;
+		}
+	}
 }
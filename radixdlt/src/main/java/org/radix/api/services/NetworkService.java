@@ -31,6 +31,7 @@ import org.json.JSONObject;
 import com.radixdlt.common.EUID;
 import org.radix.network2.addressbook.AddressBook;
 import org.radix.network2.addressbook.Peer;
+import org.radix.network2.messaging.MessageCentral;
 import com.radixdlt.serialization.DsonOutput.Output;
 import com.radixdlt.serialization.Serialization;
 import org.radix.universe.system.LocalSystem;
@@ -40,11 +41,13 @@ public class NetworkService {
 	private final Serialization serialization;
 	private final LocalSystem localSystem;
 	private final AddressBook addressBook;
+	private final MessageCentral messageCentral;
 
-	public NetworkService(Serialization serialization, LocalSystem localSystem, AddressBook addressBook) {
+	public NetworkService(Serialization serialization, LocalSystem localSystem, AddressBook addressBook, MessageCentral messageCentral) {
 		this.serialization = serialization;
 		this.localSystem = localSystem;
 		this.addressBook = addressBook;
+		this.messageCentral = messageCentral;
 	}
 
 	public JSONObject getSelf() {
@@ -118,4 +121,17 @@ public class NetworkService {
 		return result;
 	}
 
+	public JSONObject getOutbound() {
+		JSONObject result = new JSONObject();
+		this.messageCentral.outboundStatistics().forEach((peer, statistics) -> result.put(peer, new JSONObject()
+			.put("queued", statistics.getQueued())
+			.put("sent", statistics.getSent())
+			.put("failed", statistics.getFailed())
+			.put("dropped", statistics.getDropped())
+			.put("latency", new JSONObject()
+				.put("p50", statistics.getLatencyMedianMillis())
+				.put("p99", statistics.getLatencyP99Millis())
+				.put("max", statistics.getLatencyMaxMillis()))));
+		return result;
+	}
 }
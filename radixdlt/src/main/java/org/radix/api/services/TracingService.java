@@ -0,0 +1,89 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.api.services;
+
+import com.radixdlt.tracing.AtomLifecycleStage;
+import com.radixdlt.tracing.AtomLifecycleTrace;
+import com.radixdlt.tracing.AtomLifecycleTracer;
+import com.radixdlt.tracing.LatencyRing;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the atom lifecycle latencies collected by an {@link AtomLifecycleTracer}, in microseconds.
+ */
+public class TracingService {
+	private final AtomLifecycleTracer tracer;
+
+	public TracingService(AtomLifecycleTracer tracer) {
+		this.tracer = Objects.requireNonNull(tracer);
+	}
+
+	public JSONObject getLatencies() {
+		JSONObject stages = new JSONObject();
+		tracer.getStageLatencies().forEach((stage, samples) -> stages.put(stageName(stage), percentiles(samples)));
+
+		JSONObject result = new JSONObject();
+		result.put("active", tracer.getActiveCount());
+		result.put("finished", tracer.getFinishedCount());
+		result.put("total", percentiles(tracer.getTotalLatencies()));
+		result.put("stages", stages);
+		return result;
+	}
+
+	public JSONArray getTraces() {
+		JSONArray result = new JSONArray();
+		for (AtomLifecycleTrace trace : tracer.getTraces()) {
+			JSONObject offsets = new JSONObject();
+			for (Map.Entry<AtomLifecycleStage, Long> offset : trace.getOffsetNanos().entrySet()) {
+				offsets.put(stageName(offset.getKey()), toMicros(offset.getValue()));
+			}
+
+			JSONObject jsonTrace = new JSONObject();
+			jsonTrace.put("aid", trace.getAid().toString());
+			jsonTrace.put("finishedAt", trace.getFinishedAt());
+			jsonTrace.put("failed", trace.isFailed());
+			jsonTrace.put("total", toMicros(trace.getTotalNanos()));
+			jsonTrace.put("stages", offsets);
+			result.put(jsonTrace);
+		}
+		return result;
+	}
+
+	private static JSONObject percentiles(long[] sorted) {
+		JSONObject result = new JSONObject();
+		result.put("samples", sorted.length);
+		result.put("p50", toMicros(LatencyRing.percentile(sorted, 50)));
+		result.put("p90", toMicros(LatencyRing.percentile(sorted, 90)));
+		result.put("p99", toMicros(LatencyRing.percentile(sorted, 99)));
+		result.put("max", toMicros(LatencyRing.percentile(sorted, 100)));
+		return result;
+	}
+
+	private static String stageName(AtomLifecycleStage stage) {
+		return stage.name().toLowerCase();
+	}
+
+	private static long toMicros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -0,0 +1,315 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.api.services.spamathon;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.radixdlt.common.AID;
+import com.radixdlt.middleware2.processing.RadixEngineAtomProcessor;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.json.JSONObject;
+import org.radix.api.services.spamathon.SpamAtomFactory.PreparedAtom;
+import org.radix.atoms.events.AtomExceptionEvent;
+import org.radix.atoms.events.AtomStoredEvent;
+import org.radix.events.EventListener;
+import org.radix.events.Events;
+import org.radix.logging.Logger;
+import org.radix.logging.Logging;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An open-loop spamathon run submitting atoms at a fixed rate from several threads.
+ * <p>
+ * Atoms are created and signed ahead of time by generator threads into a bounded pool, which is filled
+ * before the run starts. Each atom is assigned an intended submission time from the target rate and
+ * its latency is measured from that intended time to its {@link AtomStoredEvent}. A node which cannot
+ * keep up therefore shows up as growing latency rather than as a lower submission rate, which avoids
+ * coordinated omission. Latencies are recorded in microseconds into an HDR histogram.
+ */
+public final class LoadGenerator {
+	private static final Logger log = Logging.getLogger("spamathon");
+
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	/**
+	 * The states of a run.
+	 */
+	public enum State {
+		PREPARING, RUNNING, DRAINING, FINISHED, STOPPED
+	}
+
+	private final RadixEngineAtomProcessor radixEngineAtomProcessor;
+	private final SpamAtomFactory atomFactory;
+	private final WorkloadMix mix;
+	private final int iterations;
+	private final int rate;
+	private final int threads;
+	private final long drainTimeoutMillis;
+
+	private final int poolCapacity;
+	private final BlockingQueue<PreparedAtom> pool;
+	private final ConcurrentMap<AID, Long> pending = new ConcurrentHashMap<>();
+	private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+	private final Histogram latencies = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+	private final AtomicLong prepared = new AtomicLong();
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong stored = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong late = new AtomicLong();
+
+	private final EventListener<AtomStoredEvent> storedListener = this::onStored;
+	private final EventListener<AtomExceptionEvent> exceptionListener = this::onException;
+
+	private final ExecutorService executor;
+	private volatile State state = State.PREPARING;
+	private volatile long startNanos;
+	private volatile long endNanos;
+
+	/**
+	 * Creates a run.
+	 *
+	 * @param radixEngineAtomProcessor The processor to submit atoms to
+	 * @param atomFactory The factory to create atoms with
+	 * @param mix The workload mix of the atom factory, for reporting
+	 * @param iterations The number of atoms to submit
+	 * @param rate The target number of atoms submitted per second
+	 * @param threads The number of generator and of sender threads
+	 * @param poolSize The maximum number of atoms created ahead of submission
+	 * @param drainTimeoutMillis The time to wait for outstanding atoms once all atoms were submitted
+	 */
+	public LoadGenerator(RadixEngineAtomProcessor radixEngineAtomProcessor, SpamAtomFactory atomFactory, WorkloadMix mix,
+	                     int iterations, int rate, int threads, int poolSize, long drainTimeoutMillis) {
+		this.radixEngineAtomProcessor = Objects.requireNonNull(radixEngineAtomProcessor);
+		this.atomFactory = Objects.requireNonNull(atomFactory);
+		this.mix = Objects.requireNonNull(mix);
+		this.iterations = iterations;
+		this.rate = rate;
+		this.threads = Math.max(1, threads);
+		this.drainTimeoutMillis = drainTimeoutMillis;
+		this.poolCapacity = Math.max(1, Math.min(poolSize, iterations));
+		this.pool = new ArrayBlockingQueue<>(this.poolCapacity);
+		// generators, senders and the coordinating thread
+		this.executor = Executors.newFixedThreadPool(this.threads * 2 + 1,
+			new ThreadFactoryBuilder().setNameFormat("Spamathon-%d").setDaemon(true).build());
+	}
+
+	/**
+	 * Starts the run in the background.
+	 */
+	public void start() {
+		Events.getInstance().register(AtomStoredEvent.class, storedListener);
+		Events.getInstance().register(AtomExceptionEvent.class, exceptionListener);
+		executor.execute(this::run);
+	}
+
+	/**
+	 * Stops the run, abandoning any atoms not submitted yet.
+	 */
+	public void stop() {
+		if (!isDone()) {
+			state = State.STOPPED;
+		}
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Whether the run is finished or stopped.
+	 */
+	public boolean isDone() {
+		return state == State.FINISHED || state == State.STOPPED;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	private void run() {
+		try {
+			for (int i = 0; i < threads; i++) {
+				int generator = i;
+				executor.execute(() -> generate(generator));
+			}
+
+			// fill the pool before the clock starts
+			while (prepared.get() < poolCapacity && state == State.PREPARING) {
+				TimeUnit.MILLISECONDS.sleep(10);
+			}
+			if (state != State.PREPARING) {
+				return;
+			}
+
+			this.startNanos = System.nanoTime();
+			this.state = State.RUNNING;
+			log.info("Spamathon started with " + iterations + " atoms at " + rate + "/s on " + threads + " threads, mix " + mix);
+
+			CountDownLatch senders = new CountDownLatch(threads);
+			for (int i = 0; i < threads; i++) {
+				int sender = i;
+				executor.execute(() -> {
+					try {
+						send(sender);
+					} finally {
+						senders.countDown();
+					}
+				});
+			}
+			senders.await();
+			if (state != State.RUNNING) {
+				return;
+			}
+
+			this.state = State.DRAINING;
+			long drainDeadline = System.currentTimeMillis() + drainTimeoutMillis;
+			while (!pending.isEmpty() && System.currentTimeMillis() < drainDeadline && state == State.DRAINING) {
+				TimeUnit.MILLISECONDS.sleep(100);
+			}
+			if (state == State.DRAINING) {
+				this.state = State.FINISHED;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.state = State.STOPPED;
+		} catch (RuntimeException e) {
+			log.error("Spamathon failed", e);
+			this.state = State.STOPPED;
+		} finally {
+			this.endNanos = System.nanoTime();
+			Events.getInstance().deregister(AtomStoredEvent.class, storedListener);
+			Events.getInstance().deregister(AtomExceptionEvent.class, exceptionListener);
+			log.info("Spamathon " + state.name().toLowerCase() + ": " + report());
+			executor.shutdownNow();
+		}
+	}
+
+	private void generate(int generator) {
+		try {
+			for (long index = generator; index < iterations && !isDone(); index += threads) {
+				pool.put(atomFactory.create(index));
+				prepared.incrementAndGet();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			log.error("Spamathon atom generation failed", e);
+			this.state = State.STOPPED;
+		}
+	}
+
+	private void send(int sender) {
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		try {
+			for (long seq = sender; seq < iterations && state == State.RUNNING; seq += threads) {
+				long intended = startNanos + seq * intervalNanos;
+				long delay = intended - System.nanoTime();
+				while (delay > 0) {
+					LockSupport.parkNanos(delay);
+					if (Thread.interrupted()) {
+						throw new InterruptedException();
+					}
+					delay = intended - System.nanoTime();
+				}
+				if (delay < -intervalNanos) {
+					late.incrementAndGet();
+				}
+
+				PreparedAtom atom = pool.take();
+				pending.put(atom.getAid(), intended);
+				try {
+					radixEngineAtomProcessor.process(atom.getJson(), Optional.empty());
+					sent.incrementAndGet();
+				} catch (RuntimeException e) {
+					pending.remove(atom.getAid());
+					failed.incrementAndGet();
+					log.error("Spamathon submission failed", e);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void onStored(AtomStoredEvent event) {
+		Long intended = pending.remove(event.getAtom().getAID());
+		if (intended != null) {
+			long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+			recorder.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0L, latencyMicros)));
+			stored.incrementAndGet();
+		}
+	}
+
+	private void onException(AtomExceptionEvent event) {
+		if (pending.remove(event.getAtomId()) != null) {
+			failed.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Gets a report of the run so far.
+	 */
+	public JSONObject report() {
+		final Histogram snapshot;
+		synchronized (latencies) {
+			latencies.add(recorder.getIntervalHistogram());
+			snapshot = latencies.copy();
+		}
+
+		long start = startNanos;
+		long end = isDone() && endNanos > 0 ? endNanos : System.nanoTime();
+		long elapsedMillis = start > 0 ? TimeUnit.NANOSECONDS.toMillis(end - start) : 0L;
+
+		JSONObject latency = new JSONObject();
+		latency.put("unit", "ms");
+		latency.put("count", snapshot.getTotalCount());
+		latency.put("mean", snapshot.getMean() / 1000.0);
+		latency.put("p50", snapshot.getValueAtPercentile(50.0) / 1000.0);
+		latency.put("p90", snapshot.getValueAtPercentile(90.0) / 1000.0);
+		latency.put("p99", snapshot.getValueAtPercentile(99.0) / 1000.0);
+		latency.put("p999", snapshot.getValueAtPercentile(99.9) / 1000.0);
+		latency.put("max", snapshot.getMaxValue() / 1000.0);
+
+		JSONObject report = new JSONObject();
+		report.put("state", state.name());
+		report.put("iterations", iterations);
+		report.put("rate", rate);
+		report.put("threads", threads);
+		report.put("mix", mix.toString());
+		report.put("prepared", prepared.get());
+		report.put("sent", sent.get());
+		report.put("late", late.get());
+		report.put("stored", stored.get());
+		report.put("failed", failed.get());
+		report.put("inFlight", pending.size());
+		report.put("elapsedMillis", elapsedMillis);
+		report.put("achievedRate", elapsedMillis > 0 ? sent.get() * 1000.0 / elapsedMillis : 0.0);
+		report.put("latency", latency);
+		return report;
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.api.services.spamathon;
+
+import com.google.common.collect.ImmutableMap;
+import com.radixdlt.atommodel.unique.UniqueParticle;
+import com.radixdlt.atomos.RRI;
+import com.radixdlt.atomos.RRIParticle;
+import com.radixdlt.atomos.RadixAddress;
+import com.radixdlt.common.AID;
+import com.radixdlt.common.Atom;
+import com.radixdlt.constraintmachine.Spin;
+import com.radixdlt.crypto.CryptoException;
+import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.serialization.DsonOutput;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.utils.Bytes;
+import org.json.JSONObject;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Creates signed and serialized spamathon atoms.
+ * <p>
+ * The content of an atom only depends on its index and timestamp, so atoms can be created by several threads
+ * in any order while conflicting atoms can still reproduce the RRI of an earlier atom. With a deterministic
+ * timestamp for each index, the same seed and owner always produce the same atoms.
+ */
+public final class SpamAtomFactory {
+	private final Serialization serialization;
+	private final ECKeyPair owner;
+	private final RadixAddress account;
+	private final WorkloadMix mix;
+	private final int batching;
+	private final int nonceBits;
+	private final long seed;
+	private final LongUnaryOperator timestamps;
+
+	/**
+	 * Creates a factory.
+	 *
+	 * @param serialization The serialization to serialize atoms with
+	 * @param owner The key to sign atoms with
+	 * @param account The account owning the particles of the atoms
+	 * @param mix The workload mix deciding the kind of each atom
+	 * @param batching The number of particle groups of batched atoms
+	 * @param nonceBits The number of random bits in RRI names
+	 * @param seed The seed of the randomness of each atom
+	 * @param timestamps The timestamp of the atom with a given index
+	 */
+	public SpamAtomFactory(Serialization serialization, ECKeyPair owner, RadixAddress account, WorkloadMix mix, int batching, int nonceBits,
+	                       long seed, LongUnaryOperator timestamps) {
+		this.serialization = Objects.requireNonNull(serialization);
+		this.owner = Objects.requireNonNull(owner);
+		this.account = Objects.requireNonNull(account);
+		this.mix = Objects.requireNonNull(mix);
+		this.batching = Math.max(1, batching);
+		this.nonceBits = nonceBits;
+		this.seed = seed;
+		this.timestamps = Objects.requireNonNull(timestamps);
+	}
+
+	/**
+	 * Creates, signs and serializes the atom with the given index.
+	 */
+	public PreparedAtom create(long index) throws CryptoException {
+		WorkloadMix.Kind kind = mix.kindOf(index);
+		// random is local to this atom, there is no shared state between creating threads
+		Random random = new Random(seed + index);
+		Atom atom = new Atom(timestamps.applyAsLong(index), ImmutableMap.of("magic", "0xdeadbeef"));
+
+		switch (kind) {
+			case CONFLICTING:
+				long conflictingWith = previousNonConflicting(index);
+				if (conflictingWith >= 0) {
+					String rriName = rriName(new Random(seed + conflictingWith));
+					addUniqueGroup(atom, rriName, random.nextLong());
+					break;
+				}
+				// nothing to conflict with yet, submit a regular atom instead
+				addUniqueGroup(atom, rriName(random), random.nextLong());
+				break;
+			case BATCHED:
+				for (int b = 0; b < this.batching; b++) {
+					addUniqueGroup(atom, rriName(random), random.nextLong());
+				}
+				break;
+			case UNIQUE:
+			default:
+				addUniqueGroup(atom, rriName(random), random.nextLong());
+				break;
+		}
+
+		atom.sign(this.owner);
+		JSONObject jsonAtom = serialization.toJsonObject(atom, DsonOutput.Output.WIRE);
+		return new PreparedAtom(atom, kind, jsonAtom);
+	}
+
+	private long previousNonConflicting(long index) {
+		for (long i = index - 1; i >= 0 && i >= index - 1024; i--) {
+			if (mix.kindOf(i) != WorkloadMix.Kind.CONFLICTING) {
+				return i;
+			}
+		}
+		return -1L;
+	}
+
+	private String rriName(Random random) {
+		byte[] nonce = generateNonce(random);
+		return nonce.length > 0 ? Bytes.toHexString(nonce) : "hi";
+	}
+
+	private byte[] generateNonce(Random random) {
+		if (nonceBits > 0) {
+			int byteCount = (nonceBits + Byte.SIZE - 1) / Byte.SIZE;
+			byte[] bytes = new byte[byteCount];
+			random.nextBytes(bytes);
+			int extraBits = (byteCount * Byte.SIZE) - nonceBits;
+			if (extraBits != 0) {
+				byte mask = (byte) ((1 << (Byte.SIZE - extraBits)) - 1);
+				bytes[0] &= mask;
+			}
+			return bytes;
+		}
+		return Bytes.EMPTY_BYTES;
+	}
+
+	private void addUniqueGroup(Atom atom, String rriName, long nonce) {
+		RRI rri = RRI.of(this.account, rriName);
+		RRIParticle rriParticle = new RRIParticle(rri);
+		UniqueParticle unique = new UniqueParticle(rriName, this.account, nonce);
+		atom.addParticleGroupWith(rriParticle, Spin.DOWN, unique, Spin.UP);
+	}
+
+	/**
+	 * An atom ready to be submitted.
+	 */
+	public static final class PreparedAtom {
+		private final Atom atom;
+		private final WorkloadMix.Kind kind;
+		private final JSONObject json;
+
+		PreparedAtom(Atom atom, WorkloadMix.Kind kind, JSONObject json) {
+			this.atom = atom;
+			this.kind = kind;
+			this.json = json;
+		}
+
+		public AID getAid() {
+			return atom.getAID();
+		}
+
+		public Atom getAtom() {
+			return atom;
+		}
+
+		public WorkloadMix.Kind getKind() {
+			return kind;
+		}
+
+		public JSONObject getJson() {
+			return json;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.api.services.spamathon;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A weighted mix of the kinds of atoms a spamathon submits, e.g. {@code unique=8,batched=1,conflicting=1}.
+ * <p>
+ * The kind of each atom is a pure function of its index, so a mix is spread evenly over any run and
+ * every run with the same mix submits the same sequence of kinds.
+ */
+public final class WorkloadMix {
+	/**
+	 * The kinds of atoms a spamathon can submit.
+	 */
+	public enum Kind {
+		/** An atom with a single unique particle group */
+		UNIQUE,
+		/** An atom with several unique particle groups */
+		BATCHED,
+		/** An atom reusing the RRI of an earlier atom, which is expected to be rejected as a conflict */
+		CONFLICTING
+	}
+
+	private static final WorkloadMix DEFAULT = new WorkloadMix(Collections.singletonMap(Kind.BATCHED, 1));
+
+	private final Map<Kind, Integer> weights;
+	private final Kind[] schedule;
+
+	private WorkloadMix(Map<Kind, Integer> weights) {
+		this.weights = Collections.unmodifiableMap(new EnumMap<>(weights));
+		int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+		if (total <= 0) {
+			throw new IllegalArgumentException("Workload mix is empty");
+		}
+
+		// interleave kinds in proportion to their weights rather than in runs
+		this.schedule = new Kind[total];
+		Map<Kind, Integer> credit = new EnumMap<>(Kind.class);
+		for (int slot = 0; slot < total; slot++) {
+			Kind next = null;
+			for (Map.Entry<Kind, Integer> weight : this.weights.entrySet()) {
+				int current = credit.merge(weight.getKey(), weight.getValue(), Integer::sum);
+				if (next == null || current > credit.get(next)) {
+					next = weight.getKey();
+				}
+			}
+			credit.merge(next, -total, Integer::sum);
+			this.schedule[slot] = next;
+		}
+	}
+
+	/**
+	 * Gets the default mix, which only submits atoms with the requested batching as before mixes existed.
+	 */
+	public static WorkloadMix defaultMix() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Parses a mix of comma separated {@code kind=weight} pairs.
+	 *
+	 * @param mix The mix to parse, or null or empty for the default mix
+	 * @return The parsed mix
+	 * @throws IllegalArgumentException if the mix cannot be parsed
+	 */
+	public static WorkloadMix parse(String mix) {
+		if (mix == null || mix.trim().isEmpty()) {
+			return DEFAULT;
+		}
+
+		Map<Kind, Integer> weights = new EnumMap<>(Kind.class);
+		for (String entry : mix.split(",")) {
+			String[] pair = entry.trim().split("=");
+			if (pair.length != 2) {
+				throw new IllegalArgumentException("Invalid workload mix entry '" + entry + "', expected kind=weight");
+			}
+			final Kind kind;
+			try {
+				kind = Kind.valueOf(pair[0].trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Unknown workload kind '" + pair[0].trim() + "'", e);
+			}
+			final int weight;
+			try {
+				weight = Integer.parseInt(pair[1].trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid weight for workload kind '" + pair[0].trim() + "'", e);
+			}
+			if (weight < 0) {
+				throw new IllegalArgumentException("Negative weight for workload kind '" + pair[0].trim() + "'");
+			}
+			if (weight > 0) {
+				weights.merge(kind, weight, Integer::sum);
+			}
+		}
+		return new WorkloadMix(weights);
+	}
+
+	/**
+	 * Gets the kind of the atom with the given index.
+	 */
+	public Kind kindOf(long index) {
+		return schedule[(int) (index % schedule.length)];
+	}
+
+	public Map<Kind, Integer> getWeights() {
+		return weights;
+	}
+
+	@Override
+	public int hashCode() {
+		return weights.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof WorkloadMix && Objects.equals(weights, ((WorkloadMix) obj).weights);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		weights.forEach((kind, weight) -> {
+			if (builder.length() > 0) {
+				builder.append(',');
+			}
+			builder.append(kind.name().toLowerCase()).append('=').append(weight);
+		});
+		return builder.toString();
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.corpus;
+
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.Atom;
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.serialization.SerializationException;
+import com.radixdlt.universe.Universe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * A corpus of signed atoms together with the universe they are valid in, stored in a binary file.
+ * <p>
+ * The file consists of a header with a magic number, format version and the DSON serialized universe,
+ * followed by length prefixed DSON serialized atoms and terminated by a length of -1.
+ */
+public final class AtomCorpus {
+	private static final int MAGIC = 0x52414331; // "RAC1"
+	private static final int VERSION = 1;
+	private static final int END_OF_ATOMS = -1;
+
+	private final Universe universe;
+	private final ImmutableList<Atom> atoms;
+
+	private AtomCorpus(Universe universe, ImmutableList<Atom> atoms) {
+		this.universe = universe;
+		this.atoms = atoms;
+	}
+
+	public Universe getUniverse() {
+		return universe;
+	}
+
+	public ImmutableList<Atom> getAtoms() {
+		return atoms;
+	}
+
+	/**
+	 * Reads a corpus from a file.
+	 *
+	 * @param file The file to read from
+	 * @param serialization The serialization to deserialize the universe and atoms with
+	 * @param limit The maximum number of atoms to read
+	 * @return The corpus
+	 * @throws IOException if the file cannot be read or is not a valid corpus
+	 */
+	public static AtomCorpus read(File file, Serialization serialization, int limit) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not an atom corpus: " + file);
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported atom corpus version " + version + " in " + file);
+			}
+
+			Universe universe = serialization.fromDson(readChunk(in, in.readInt()), Universe.class);
+			ImmutableList.Builder<Atom> atoms = ImmutableList.builder();
+			int count = 0;
+			for (int length = in.readInt(); length != END_OF_ATOMS && count < limit; length = in.readInt()) {
+				atoms.add(serialization.fromDson(readChunk(in, length), Atom.class));
+				count++;
+			}
+			return new AtomCorpus(universe, atoms.build());
+		} catch (SerializationException e) {
+			throw new IOException("Invalid atom corpus " + file, e);
+		}
+	}
+
+	private static byte[] readChunk(DataInputStream in, int length) throws IOException {
+		if (length < 0) {
+			throw new IOException("Invalid chunk length " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Writes a corpus to a file, one atom at a time.
+	 */
+	public static final class Writer implements Closeable {
+		private final Serialization serialization;
+		private final DataOutputStream out;
+		private long count = 0;
+
+		/**
+		 * Creates a writer, writing the header for the given universe.
+		 *
+		 * @param file The file to write to, which is overwritten
+		 * @param serialization The serialization to serialize the universe and atoms with
+		 * @param universe The universe the atoms are valid in
+		 * @throws IOException if the file cannot be written
+		 */
+		public Writer(File file, Serialization serialization, Universe universe) throws IOException {
+			this.serialization = Objects.requireNonNull(serialization);
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				writeChunk(serialization.toDson(universe, Output.WIRE));
+			} catch (SerializationException | IOException e) {
+				out.close();
+				throw e instanceof IOException ? (IOException) e : new IOException("Failed to serialize universe", e);
+			}
+		}
+
+		/**
+		 * Appends an atom to the corpus.
+		 */
+		public void write(Atom atom) throws IOException {
+			try {
+				writeChunk(serialization.toDson(atom, Output.WIRE));
+				count++;
+			} catch (SerializationException e) {
+				throw new IOException("Failed to serialize atom " + atom.getAID(), e);
+			}
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		private void writeChunk(byte[] bytes) throws IOException {
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				out.writeInt(END_OF_ATOMS);
+			} finally {
+				out.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+import org.radix.network.messaging.Message;
+import org.radix.network2.addressbook.Peer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Listeners of inbound messages which are called on the same threads, see {@link DispatchPolicy}.
+ */
+final class DispatchLane {
+	private final String name;
+	// null if listeners are called on the dispatching thread
+	private final ExecutorService threadPool;
+	private final SequencedExecutor<Object> executor;
+	private final BiFunction<Peer, Message, Object> sequenceKey;
+	private final ConcurrentHashMap<Class<? extends Message>, MessageListenerList> listeners = new ConcurrentHashMap<>();
+
+	private DispatchLane(String name, int threads, int queueCapacity, BiFunction<Peer, Message, Object> sequenceKey) {
+		this.name = Objects.requireNonNull(name);
+		this.sequenceKey = sequenceKey;
+		if (threads > 0) {
+			String nameFormat = "Inbound message dispatching " + name.replace("%", "%%") + "-%d";
+			this.threadPool = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
+			// a single peer may use the whole capacity of the lane, which bounds all peers together
+			this.executor = new SequencedExecutor<>("Inbound message dispatching " + name, this.threadPool, queueCapacity, queueCapacity);
+		} else {
+			this.threadPool = null;
+			this.executor = null;
+		}
+	}
+
+	/**
+	 * Creates a lane calling its listeners on the dispatching thread.
+	 */
+	static DispatchLane inline(String name) {
+		return new DispatchLane(name, 0, 0, null);
+	}
+
+	/**
+	 * Creates a lane calling its listeners on its own threads, or on the dispatching thread if
+	 * {@code threads} is zero. Messages with the same sequence key are dispatched in order.
+	 */
+	static DispatchLane pooled(String name, int threads, int queueCapacity, BiFunction<Peer, Message, Object> sequenceKey) {
+		return new DispatchLane(name, threads, queueCapacity, Objects.requireNonNull(sequenceKey));
+	}
+
+	String name() {
+		return name;
+	}
+
+	<T extends Message> void addListener(Class<T> messageType, MessageListener<T> listener) {
+		Objects.requireNonNull(messageType);
+		listeners.computeIfAbsent(messageType, k -> new MessageListenerList()).addMessageListener(listener);
+	}
+
+	<T extends Message> void removeListener(Class<T> messageType, MessageListener<T> listener) {
+		MessageListenerList messageListeners = listeners.get(messageType);
+		if (messageListeners != null) {
+			messageListeners.removeMessageListener(listener);
+		}
+	}
+
+	<T extends Message> void removeListener(MessageListener<T> listener) {
+		listeners.values().forEach(mll -> mll.removeMessageListener(listener));
+	}
+
+	int listenersSize() {
+		return listeners.values().stream().mapToInt(MessageListenerList::size).sum();
+	}
+
+	/**
+	 * Passes a message to the listeners of this lane for its type, if there are any.
+	 *
+	 * @return {@code false} if the message was dropped because the lane is full
+	 */
+	boolean dispatch(Peer peer, Message message) {
+		MessageListenerList messageListeners = listeners.get(message.getClass());
+		if (messageListeners == null || messageListeners.size() == 0) {
+			return true;
+		}
+		if (executor == null) {
+			messageListeners.messageReceived(peer, message);
+			return true;
+		}
+		return executor.execute(sequenceKey.apply(peer, message), () -> messageListeners.messageReceived(peer, message));
+	}
+
+	/**
+	 * Gets the number of messages queued or being dispatched on this lane.
+	 */
+	int queued() {
+		return executor == null ? 0 : executor.queued();
+	}
+
+	void close() {
+		if (threadPool != null) {
+			threadPool.shutdownNow();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s]", getClass().getSimpleName(), name);
+	}
+}
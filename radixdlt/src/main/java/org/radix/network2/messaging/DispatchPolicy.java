@@ -0,0 +1,131 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import java.util.Objects;
+
+/**
+ * Determines on which threads a {@link MessageListener} is called.
+ *
+ * @see MessageCentral#addListener(Class, MessageListener, DispatchPolicy)
+ */
+public final class DispatchPolicy {
+	enum Kind {
+		INLINE,
+		SHARED,
+		DEDICATED
+	}
+
+	private static final DispatchPolicy INLINE = new DispatchPolicy(Kind.INLINE, "inline", 0, 0);
+	private static final DispatchPolicy SHARED = new DispatchPolicy(Kind.SHARED, "shared", 0, 0);
+
+	private final Kind kind;
+	private final String laneName;
+	private final int threads;
+	private final int queueCapacity;
+
+	private DispatchPolicy(Kind kind, String laneName, int threads, int queueCapacity) {
+		this.kind = kind;
+		this.laneName = laneName;
+		this.threads = threads;
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Listeners are called on the inbound processing thread, before messages are handed to
+	 * any other lane. Only suitable for listeners which return immediately.
+	 */
+	public static DispatchPolicy inline() {
+		return INLINE;
+	}
+
+	/**
+	 * Listeners are called on the pool of dispatching threads shared by all listeners with
+	 * this policy. Messages of a type are dispatched in order, messages of different types
+	 * in parallel. This is the policy of listeners added without a policy.
+	 */
+	public static DispatchPolicy shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Listeners are called on a lane with its own threads and queue, so that they neither
+	 * hold up nor are held up by other listeners. Messages from a peer are dispatched in
+	 * order, messages from different peers in parallel if the lane has more than one thread.
+	 * Listeners added with the same lane name share the lane, which is created with the
+	 * threads and capacity of the first of them.
+	 *
+	 * @param laneName The name of the lane, used for its threads and metrics
+	 * @param threads The number of threads of the lane
+	 * @param queueCapacity The number of messages queued across all peers before further messages are dropped
+	 */
+	public static DispatchPolicy dedicated(String laneName, int threads, int queueCapacity) {
+		Objects.requireNonNull(laneName);
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Dedicated lane requires at least one thread: " + threads);
+		}
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("Dedicated lane requires a positive queue capacity: " + queueCapacity);
+		}
+		return new DispatchPolicy(Kind.DEDICATED, laneName, threads, queueCapacity);
+	}
+
+	Kind kind() {
+		return kind;
+	}
+
+	String laneName() {
+		return laneName;
+	}
+
+	int threads() {
+		return threads;
+	}
+
+	int queueCapacity() {
+		return queueCapacity;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(kind, laneName, threads, queueCapacity);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof DispatchPolicy)) {
+			return false;
+		}
+		DispatchPolicy other = (DispatchPolicy) obj;
+		return this.kind == other.kind
+			&& Objects.equals(this.laneName, other.laneName)
+			&& this.threads == other.threads
+			&& this.queueCapacity == other.queueCapacity;
+	}
+
+	@Override
+	public String toString() {
+		if (kind == Kind.DEDICATED) {
+			return String.format("%s[%s:%s, threads=%s, capacity=%s]", getClass().getSimpleName(), kind, laneName, threads, queueCapacity);
+		}
+		return String.format("%s[%s]", getClass().getSimpleName(), kind);
+	}
+}
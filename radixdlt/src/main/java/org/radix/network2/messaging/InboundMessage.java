@@ -17,8 +17,10 @@
 
 package org.radix.network2.messaging;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.radix.network2.transport.TransportInfo;
 
@@ -26,10 +28,20 @@ import com.radixdlt.utils.Bytes;
 
 /**
  * A raw message received by a transport, before decoding.
+ * <p>
+ * A message may be backed by a buffer owned by the transport, see {@link #of(TransportInfo, ByteBuffer)}.
+ * Such a message can be kept beyond the consumer call with {@link #retain()}.
  */
 public final class InboundMessage {
+	private static final Runnable NO_RELEASE = () -> { };
+	// arrays are owned by the message, transport buffers are copied unless the transport retains them
+	private static final Function<InboundMessage, InboundMessage> OWNED = Function.identity();
+	private static final Function<InboundMessage, InboundMessage> COPY = m -> InboundMessage.of(m.source, m.message());
+
 	private final TransportInfo source;
-	private final byte[] message;
+	private final ByteBuffer message;
+	private final Function<InboundMessage, InboundMessage> retainer;
+	private final Runnable releaser;
 
 	/**
 	 * Creates an inbound message with the specified source and message.
@@ -39,13 +51,61 @@ public final class InboundMessage {
 	 * @return a constructed {@code InboundMessage}
 	 */
 	public static InboundMessage of(TransportInfo source, byte[] message) {
-		return new InboundMessage(source, message);
+		return new InboundMessage(source, message == null ? null : ByteBuffer.wrap(message), OWNED, NO_RELEASE);
+	}
+
+	/**
+	 * Creates an inbound message with the specified source and the remaining bytes
+	 * of the specified buffer as message, without copying them.
+	 * <p>
+	 * The buffer remains owned by the transport and is only valid until the
+	 * {@link InboundMessageConsumer} the message is passed to returns.
+	 *
+	 * @param source The source of the message.
+	 * @param message The buffer containing the message received.
+	 * @return a constructed {@code InboundMessage}
+	 */
+	public static InboundMessage of(TransportInfo source, ByteBuffer message) {
+		return new InboundMessage(source, message, COPY, NO_RELEASE);
+	}
+
+	/**
+	 * Creates an inbound message with the specified source and the remaining bytes
+	 * of the specified buffer as message, without copying them, which the transport
+	 * can retain beyond the consumer call.
+	 * <p>
+	 * The buffer is only valid until the {@link InboundMessageConsumer} the message is
+	 * passed to returns, {@code retainer} is called instead of copying it by {@link #retain()}.
+	 *
+	 * @param source The source of the message.
+	 * @param message The buffer containing the message received.
+	 * @param retainer Retains the buffer, returning a message created with {@link #retained(TransportInfo, ByteBuffer, Runnable)}
+	 * @return a constructed {@code InboundMessage}
+	 */
+	public static InboundMessage of(TransportInfo source, ByteBuffer message, Supplier<InboundMessage> retainer) {
+		Objects.requireNonNull(retainer);
+		return new InboundMessage(source, message, m -> retainer.get(), NO_RELEASE);
 	}
 
-	private InboundMessage(TransportInfo source, byte[] message) {
+	/**
+	 * Creates an inbound message with the specified source and the remaining bytes
+	 * of the specified buffer as message, which stays valid until {@link #release()} is called.
+	 *
+	 * @param source The source of the message.
+	 * @param message The retained buffer containing the message received.
+	 * @param releaser Releases the buffer
+	 * @return a constructed {@code InboundMessage}
+	 */
+	public static InboundMessage retained(TransportInfo source, ByteBuffer message, Runnable releaser) {
+		return new InboundMessage(source, message, OWNED, Objects.requireNonNull(releaser));
+	}
+
+	private InboundMessage(TransportInfo source, ByteBuffer message, Function<InboundMessage, InboundMessage> retainer, Runnable releaser) {
 		// Null checking not performed for high-frequency interface
 		this.source = source;
 		this.message = message;
+		this.retainer = retainer;
+		this.releaser = releaser;
 	}
 
 	/**
@@ -59,16 +119,53 @@ public final class InboundMessage {
 
 	/**
 	 * Returns the message.
+	 * Note that unless the message was created from an array, this copies the message.
 	 *
 	 * @return the message.
 	 */
 	public byte[] message() {
-		return message;
+		if (message == null) {
+			return null;
+		}
+		if (message.hasArray() && message.arrayOffset() == 0 && message.position() == 0 && message.remaining() == message.array().length) {
+			return message.array();
+		}
+		byte[] copy = new byte[message.remaining()];
+		message.duplicate().get(copy);
+		return copy;
+	}
+
+	/**
+	 * Returns the message as a buffer, without copying it.
+	 * The position and limit of the returned buffer may be changed freely.
+	 *
+	 * @return the message.
+	 */
+	public ByteBuffer messageBuffer() {
+		return message == null ? null : message.duplicate();
+	}
+
+	/**
+	 * Returns a message that stays valid after the consumer this message was passed to returns,
+	 * until {@link #release()} is called on it.
+	 * The transport buffer is retained if the transport supports it, otherwise the message is copied.
+	 *
+	 * @return the retained message.
+	 */
+	public InboundMessage retain() {
+		return retainer.apply(this);
+	}
+
+	/**
+	 * Releases a message returned by {@link #retain()}, after which its buffer is no longer valid.
+	 */
+	public void release() {
+		releaser.run();
 	}
 
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(message) * 31 + Objects.hashCode(source);
+		return Objects.hashCode(message) * 31 + Objects.hashCode(source);
 	}
 
 	@Override
@@ -78,13 +175,13 @@ public final class InboundMessage {
 		}
 		if (obj instanceof InboundMessage) {
 			InboundMessage other = (InboundMessage) obj;
-			return Objects.equals(this.source, other.source) && Arrays.equals(this.message, other.message);
+			return Objects.equals(this.source, other.source) && Objects.equals(this.message, other.message);
 		}
 		return false;
 	}
 
 	@Override
 	public String toString() {
-		return String.format("%s[%s:%s]", getClass().getSimpleName(), source, Bytes.toHexString(message));
+		return String.format("%s[%s:%s]", getClass().getSimpleName(), source, Bytes.toHexString(message()));
 	}
 }
@@ -18,6 +18,7 @@
 package org.radix.network2.messaging;
 
 import java.io.IOException;
+import java.util.Map;
 
 import org.radix.network.messaging.Message;
 import org.radix.network2.addressbook.Peer;
@@ -50,11 +51,11 @@ public interface MessageCentral {
 	/**
 	 * Registers a callback to be called when messages of a particular type are received.
 	 * <p>
-	 * Note that messages are dispatched to listeners synchronously within the message
-	 * dispatch loop.  Clients should ensure that they do not perform blocking operations
-	 * such as I/O or long-running computations in this thread.  If necessary clients can
-	 * use the callback to place the received items in a queue or stream for clients to
-	 * retrieve and process in a separate thread.
+	 * Listeners are called with the {@link DispatchPolicy#shared()} policy, on threads shared
+	 * with the listeners of other message types.  Clients should ensure that they do not perform
+	 * blocking operations such as I/O or long-running computations in these threads, and should
+	 * use {@link #addListener(Class, MessageListener, DispatchPolicy)} with a dedicated lane if
+	 * necessary.
 	 *
 	 * @param messageType The type of message to be notified of
 	 * @param listener The listener to notify
@@ -62,6 +63,17 @@ public interface MessageCentral {
 	 */
 	<T extends Message> void addListener(Class<T> messageType, MessageListener<T> listener);
 
+	/**
+	 * Registers a callback to be called when messages of a particular type are received,
+	 * on the threads given by the specified dispatch policy.
+	 *
+	 * @param messageType The type of message to be notified of
+	 * @param listener The listener to notify
+	 * @param policy How the listener is to be called
+	 * @throws IllegalArgumentException if an attempt to add a null listener, or an already registered listener
+	 */
+	<T extends Message> void addListener(Class<T> messageType, MessageListener<T> listener, DispatchPolicy policy);
+
 	/**
 	 * Removes a callback from those to be called when messages of a particular type are received.
 	 *
@@ -79,6 +91,14 @@ public interface MessageCentral {
 	 */
 	<T extends Message> void removeListener(MessageListener<T> listener);
 
+	/**
+	 * Gets statistics of outbound messages for each peer messages have been sent to,
+	 * such as the number of messages dropped and the latency of sends.
+	 *
+	 * @return Statistics by peer NID, or by peer description for peers without a NID
+	 */
+	Map<String, OutboundPeerStatistics> outboundStatistics();
+
     /**
      * Closes this {@code MessageCentral} and releases any system resources associated
      * with it. If it is already closed then invoking this method has no effect.
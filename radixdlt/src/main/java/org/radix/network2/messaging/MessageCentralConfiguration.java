@@ -45,6 +45,27 @@ public interface MessageCentralConfiguration {
 	 */
 	int messagingInboundQueueThreads(int defaultValue);
 
+	/**
+	 * Retrieves the number of threads decoding inbound messages. Messages from the same
+	 * peer are decoded in the order they were received. If zero, messages are decoded on
+	 * the transport threads.
+	 *
+	 * @param defaultValue a default value if no special configuration value is set
+	 * @return The number of inbound decoding threads
+	 */
+	int messagingInboundDecodeThreads(int defaultValue);
+
+	/**
+	 * Retrieves the number of threads passing inbound messages to listeners with the shared
+	 * dispatch policy. Messages of the same type are dispatched in the order they were processed,
+	 * messages of different types in parallel. If zero, messages are dispatched on the inbound
+	 * processing threads.
+	 *
+	 * @param defaultValue a default value if no special configuration value is set
+	 * @return The number of inbound dispatching threads
+	 */
+	int messagingInboundDispatchThreads(int defaultValue);
+
 	/**
 	 * Retrieves the maximum queue depth for outbound messages before
 	 * further outgoing messages will be dropped.
@@ -66,6 +87,33 @@ public interface MessageCentralConfiguration {
 	 */
 	int messagingOutboundQueueThreads(int defaultValue);
 
+	/**
+	 * Retrieves the maximum number of outbound messages in flight to a single peer.
+	 * Further messages to that peer are queued until earlier messages have been sent.
+	 *
+	 * @param defaultValue a default value if no special configuration value is set
+	 * @return The maximum number of messages in flight per peer
+	 */
+	int messagingOutboundPeerMaxInFlight(int defaultValue);
+
+	/**
+	 * Retrieves the maximum number of outbound messages queued for a single peer
+	 * before further outgoing messages to that peer will be dropped.
+	 *
+	 * @param defaultValue a default value if no special configuration value is set
+	 * @return The maximum queue depth per peer
+	 */
+	int messagingOutboundPeerQueueMax(int defaultValue);
+
+	/**
+	 * Retrieves the number of outbound messages of a priority a peer may send per scheduling
+	 * round before messages to other peers with the same priority are sent.
+	 *
+	 * @param defaultValue a default value if no special configuration value is set
+	 * @return The number of messages per peer and round
+	 */
+	int messagingOutboundPeerQuantum(int defaultValue);
+
 	/**
 	 * Retrieves the maximum time-to-live for inbound and outbound messages in seconds.
 	 * If messages are not processed and dispatched within this time, they will be
@@ -76,6 +124,15 @@ public interface MessageCentralConfiguration {
 	 */
 	int messagingTimeToLive(int defaultValue);
 
+	/**
+	 * Retrieves the zstd compression level for messages to peers supporting dictionary compression.
+	 * A level of zero or less disables dictionary compression, so that only Snappy is used.
+	 *
+	 * @param defaultValue a default value if no special configuration value is set
+	 * @return The compression level
+	 */
+	int messagingCompressionLevel(int defaultValue);
+
 	/**
 	 * Create a configuration from specified {@link RuntimeProperties}.
 	 *
@@ -94,6 +151,16 @@ public interface MessageCentralConfiguration {
 				return properties.get("messaging.inbound.threads", defaultValue);
 			}
 
+			@Override
+			public int messagingInboundDecodeThreads(int defaultValue) {
+				return properties.get("messaging.inbound.decode_threads", defaultValue);
+			}
+
+			@Override
+			public int messagingInboundDispatchThreads(int defaultValue) {
+				return properties.get("messaging.inbound.dispatch_threads", defaultValue);
+			}
+
 			@Override
 			public int messagingOutboundQueueMax(int defaultValue) {
 				return properties.get("messaging.outbound.queue_max", defaultValue);
@@ -104,10 +171,30 @@ public interface MessageCentralConfiguration {
 				return properties.get("messaging.outbound.threads", defaultValue);
 			}
 
+			@Override
+			public int messagingOutboundPeerMaxInFlight(int defaultValue) {
+				return properties.get("messaging.outbound.peer.max_in_flight", defaultValue);
+			}
+
+			@Override
+			public int messagingOutboundPeerQueueMax(int defaultValue) {
+				return properties.get("messaging.outbound.peer.queue_max", defaultValue);
+			}
+
+			@Override
+			public int messagingOutboundPeerQuantum(int defaultValue) {
+				return properties.get("messaging.outbound.peer.quantum", defaultValue);
+			}
+
 			@Override
 			public int messagingTimeToLive(int defaultValue) {
 				return properties.get("messaging.time_to_live", defaultValue);
 			}
+
+			@Override
+			public int messagingCompressionLevel(int defaultValue) {
+				return properties.get("messaging.compression.level", defaultValue);
+			}
 		};
 	}
 }
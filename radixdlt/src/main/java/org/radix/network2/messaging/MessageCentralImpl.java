@@ -19,10 +19,15 @@ package org.radix.network2.messaging;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 import org.radix.events.Events;
 import org.radix.logging.Logger;
 import org.radix.logging.Logging;
@@ -35,19 +40,17 @@ import org.radix.network2.transport.Transport;
 import org.radix.universe.system.LocalSystem;
 import org.radix.universe.system.events.QueueFullEvent;
 import org.radix.utils.SystemMetaData;
-import org.xerial.snappy.Snappy;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.radixdlt.serialization.Serialization;
 
 final class MessageCentralImpl implements MessageCentral {
 	private static final Logger log = Logging.getLogger("message");
 
-	private static final MessageListenerList EMPTY_MESSAGE_LISTENER_LIST = new MessageListenerList();
-
 	// Dependencies
 	private final Serialization serialization;
 	private final TransportManager connectionManager;
@@ -59,8 +62,10 @@ final class MessageCentralImpl implements MessageCentral {
 	// Message dispatching
 	private final MessageDispatcher messageDispatcher;
 
-	// Listeners
-	private final ConcurrentHashMap<Class<? extends Message>, MessageListenerList> listeners = new ConcurrentHashMap<>();
+	// Listeners, by the lane they are dispatched on
+	private final DispatchLane inlineLane;
+	private final DispatchLane sharedLane;
+	private final ConcurrentHashMap<String, DispatchLane> dedicatedLanes = new ConcurrentHashMap<>();
 
 	// Our time base for System.nanoTime() differences.  Per documentation can only compare deltas
 	private final long timeBase = System.nanoTime();
@@ -76,8 +81,12 @@ final class MessageCentralImpl implements MessageCentral {
 	private final BlockingQueue<MessageEvent> inboundQueue;
 	private final SimpleThreadPool<MessageEvent> inboundThreadPool;
 
+	// Inbound decoding, sequenced per peer, null if decoding on transport threads
+	private final ExecutorService decodeThreadPool;
+	private final SequencedExecutor<Object> decodeExecutor;
+
 	// Outbound message handling
-	private final BlockingQueue<MessageEvent> outboundQueue;
+	private final OutboundMessageScheduler outboundQueue;
 	private final SimpleThreadPool<MessageEvent> outboundThreadPool;
 
 
@@ -94,7 +103,6 @@ final class MessageCentralImpl implements MessageCentral {
 		LocalSystem localSystem
 	) {
 		this.inboundQueue = eventQueueFactory.createEventQueue(config.messagingInboundQueueMax(8192));
-		this.outboundQueue = eventQueueFactory.createEventQueue(config.messagingOutboundQueueMax(16384));
 
 		this.serialization = Objects.requireNonNull(serialization);
 		this.connectionManager = Objects.requireNonNull(transportManager);
@@ -103,9 +111,36 @@ final class MessageCentralImpl implements MessageCentral {
 
 		Objects.requireNonNull(timeSource);
 		this.messageDispatcher = new MessageDispatcher(config, serialization, timeSource, localSystem, interfaces, this.addressBook);
+		this.outboundQueue = new OutboundMessageScheduler(
+			config.messagingOutboundQueueMax(16384),
+			config.messagingOutboundPeerQueueMax(1024),
+			config.messagingOutboundPeerQuantum(4),
+			MessageDispatcher::peerKey,
+			this.messageDispatcher::canSend,
+			System::nanoTime
+		);
+		this.messageDispatcher.setSendCapacityListener(this.outboundQueue::capacityAvailable);
+		if (localSystem != null) {
+			// advertised to peers with the system information exchanged when connecting
+			localSystem.setCompression(this.messageDispatcher.compression().codec());
+		}
 
 		this.transports = Lists.newArrayList(transportManager.transports());
 
+		int laneQueueMax = config.messagingInboundQueueMax(8192);
+		int decodeThreads = config.messagingInboundDecodeThreads(Runtime.getRuntime().availableProcessors());
+		if (decodeThreads > 0) {
+			this.decodeThreadPool = newThreadPool("Inbound message decoding-%d", decodeThreads);
+			this.decodeExecutor = new SequencedExecutor<>("Inbound message decoding", this.decodeThreadPool, laneQueueMax, laneQueueMax);
+		} else {
+			this.decodeThreadPool = null;
+			this.decodeExecutor = null;
+		}
+		int dispatchThreads = config.messagingInboundDispatchThreads(Runtime.getRuntime().availableProcessors());
+		this.inlineLane = DispatchLane.inline("inline");
+		// message types are dispatched independently, so slow listeners only hold up their own type
+		this.sharedLane = DispatchLane.pooled("shared", dispatchThreads, laneQueueMax, (peer, message) -> message.getClass());
+
 		// Start inbound processing thread
 		int inboundThreads = config.messagingInboundQueueThreads(1);
 		this.inboundThreadPool = new SimpleThreadPool<>("Inbound message processing", inboundThreads, inboundQueue::take, this::inboundMessageProcessor);
@@ -127,6 +162,12 @@ final class MessageCentralImpl implements MessageCentral {
 
 		inboundThreadPool.stop();
 		outboundThreadPool.stop();
+		if (decodeThreadPool != null) {
+			decodeThreadPool.shutdownNow();
+		}
+		inlineLane.close();
+		sharedLane.close();
+		dedicatedLanes.values().forEach(DispatchLane::close);
 	}
 
 	@Override
@@ -152,48 +193,147 @@ final class MessageCentralImpl implements MessageCentral {
 
 	@Override
 	public <T extends Message> void addListener(Class<T> messageType, MessageListener<T> listener) {
+		addListener(messageType, listener, DispatchPolicy.shared());
+	}
+
+	@Override
+	public <T extends Message> void addListener(Class<T> messageType, MessageListener<T> listener, DispatchPolicy policy) {
 		Objects.requireNonNull(messageType);
-		this.listeners.computeIfAbsent(messageType, k -> new MessageListenerList()).addMessageListener(listener);
+		lane(policy).addListener(messageType, listener);
 	}
 
 	@Override
 	public <T extends Message> void removeListener(Class<T> messageType, MessageListener<T> listener) {
 		Objects.requireNonNull(messageType);
-		this.listeners.getOrDefault(messageType, EMPTY_MESSAGE_LISTENER_LIST).removeMessageListener(listener);
+		if (listener == null) {
+			throw new IllegalArgumentException("Cannot remove a null listener");
+		}
+		lanes().forEach(lane -> lane.removeListener(messageType, listener));
 	}
 
 	@Override
 	public <T extends Message> void removeListener(MessageListener<T> listener) {
-		this.listeners.values().forEach(mll -> mll.removeMessageListener(listener));
+		lanes().forEach(lane -> lane.removeListener(listener));
+	}
+
+	@Override
+	public Map<String, OutboundPeerStatistics> outboundStatistics() {
+		return outboundQueue.statistics();
 	}
 
 	@VisibleForTesting
 	int listenersSize() {
-		return listeners.values().stream().mapToInt(MessageListenerList::size).sum();
+		return lanes().mapToInt(DispatchLane::listenersSize).sum();
+	}
+
+	private DispatchLane lane(DispatchPolicy policy) {
+		switch (policy.kind()) {
+		case INLINE:
+			return inlineLane;
+		case SHARED:
+			return sharedLane;
+		case DEDICATED:
+			// messages from a peer stay in order, peers are dispatched in parallel
+			return dedicatedLanes.computeIfAbsent(policy.laneName(),
+				name -> DispatchLane.pooled(name, policy.threads(), policy.queueCapacity(), (peer, message) -> MessageDispatcher.peerKey(peer)));
+		default:
+			throw new IllegalArgumentException("Unknown dispatch policy: " + policy);
+		}
+	}
+
+	private Stream<DispatchLane> lanes() {
+		return Stream.concat(Stream.of(inlineLane, sharedLane), dedicatedLanes.values().stream());
+	}
+
+	private static ExecutorService newThreadPool(String nameFormat, int threads) {
+		return Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
 	}
 
 	private void inboundMessage(InboundMessage inboundMessage) {
 		Peer peer = addressBook.peer(inboundMessage.source());
-		if (peer != null) {
-			Message message = deserialize(inboundMessage.message());
+		if (peer == null) {
+			return;
+		}
+		if (decodeExecutor == null) {
+			// The buffer is only valid during this call, so this must happen before returning
+			Message message = deserialize(inboundMessage.messageBuffer());
 			inject(peer, message);
+			return;
 		}
+
+		// The buffer is only valid during this call, so it is retained until decoded
+		InboundMessage retained = inboundMessage.retain();
+		// decoded messages of a peer are injected in the order they were received
+		if (!decodeExecutor.execute(MessageDispatcher.peerKey(peer), () -> decode(peer, retained))) {
+			retained.release();
+			if (inboundLogRateLimiter.tryAcquire()) {
+				log.error(String.format("Inbound message from %s dropped", peer));
+			}
+			events.broadcast(new QueueFullEvent());
+		}
+		SystemMetaData.ifPresent(a -> a.put("messages.inbound.decoding", decodeExecutor.queued()));
+	}
+
+	private void decode(Peer peer, InboundMessage retained) {
+		final Message message;
+		try {
+			message = deserialize(retained.messageBuffer());
+		} catch (RuntimeException e) {
+			if (inboundLogRateLimiter.tryAcquire()) {
+				log.error(String.format("Inbound message from %s could not be decoded", peer), e);
+			}
+			return;
+		} finally {
+			retained.release();
+		}
+		inject(peer, message);
 	}
 
 	private void inboundMessageProcessor(MessageEvent inbound) {
 		SystemMetaData.ifPresent( a -> a.put("messages.inbound.pending", inboundQueue.size()));
-		MessageListenerList listeners = this.listeners.getOrDefault(inbound.message().getClass(), EMPTY_MESSAGE_LISTENER_LIST);
-		messageDispatcher.receive(listeners, inbound);
+		Peer peer = messageDispatcher.accept(inbound);
+		if (peer == null) {
+			return;
+		}
+		dispatch(inlineLane, peer, inbound.message());
+		dispatch(sharedLane, peer, inbound.message());
+		dedicatedLanes.values().forEach(lane -> dispatch(lane, peer, inbound.message()));
+		SystemMetaData.ifPresent( a -> a.increment("messages.inbound.processed"));
+	}
+
+	private void dispatch(DispatchLane lane, Peer peer, Message message) {
+		if (!lane.dispatch(peer, message)) {
+			if (inboundLogRateLimiter.tryAcquire()) {
+				log.error(String.format("Inbound %s message from %s dropped on %s lane", message.getCommand(), peer, lane.name()));
+			}
+			events.broadcast(new QueueFullEvent());
+		}
+		SystemMetaData.ifPresent( a -> a.put("messages.inbound.lane." + lane.name(), lane.queued()));
 	}
 
 	private void outboundMessageProcessor(MessageEvent outbound) {
-		SystemMetaData.ifPresent( a -> a.put("messages.outbound.pending", outboundQueue.size()));
-		messageDispatcher.send(connectionManager, outbound);
+		SystemMetaData.ifPresent( a -> {
+			a.put("messages.outbound.pending", outboundQueue.size());
+			a.put("messages.outbound.inflight", messageDispatcher.outboundInFlight());
+		});
+		// completion is tracked by the dispatcher, this thread does not wait for it
+		messageDispatcher.send(connectionManager, outbound)
+			.thenAccept(result -> outboundQueue.completed(outbound, result.isComplete(), System.nanoTime() - timeBase - outbound.nanoTimeDiff()));
 	}
 
-	private Message deserialize(byte[] in) {
+	@VisibleForTesting
+	Message deserialize(byte[] in) {
+		return deserialize(ByteBuffer.wrap(in));
+	}
+
+	/**
+	 * Decompresses and deserializes a message from the remaining bytes of the given buffer,
+	 * without changing its position.
+	 */
+	@VisibleForTesting
+	Message deserialize(ByteBuffer in) {
 		try {
-			byte[] uncompressed = Snappy.uncompress(in);
+			byte[] uncompressed = messageDispatcher.compression().uncompress(in);
 			return serialization.fromDson(uncompressed, Message.class);
 		} catch (IOException e) {
 			throw new UncheckedIOException("While deserializing message", e);
@@ -0,0 +1,249 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.radix.network.messages.GetPeersMessage;
+import org.radix.network.messages.PeerPingMessage;
+import org.radix.network.messages.PeerPongMessage;
+import org.radix.network.messages.PeersMessage;
+import org.radix.network.messaging.Message;
+import org.radix.universe.system.RadixSystem;
+import org.radix.universe.system.SystemMessage;
+import org.xerial.snappy.Snappy;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.radixdlt.common.EUID;
+import com.radixdlt.delivery.messages.DeliveryRequestMessage;
+import com.radixdlt.delivery.messages.DeliveryResponseMessage;
+import com.radixdlt.discovery.LogicalClockCursor;
+import com.radixdlt.discovery.messages.GossipInventoryMessage;
+import com.radixdlt.discovery.messages.IterativeDiscoveryRequestMessage;
+import com.radixdlt.discovery.messages.IterativeDiscoveryResponseMessage;
+import com.radixdlt.discovery.messages.ReconciliationRequestMessage;
+import com.radixdlt.discovery.messages.ReconciliationResponseMessage;
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.streaming.messages.StreamAckMessage;
+import com.radixdlt.streaming.messages.StreamChunkMessage;
+import com.radixdlt.streaming.messages.StreamOpenMessage;
+
+/**
+ * Compression of serialized messages on the wire.
+ * <p>
+ * Messages are compressed with zstd using a dictionary of serialized prototype messages, which
+ * holds the field names and serializer ids repeated in every message. The dictionary is derived
+ * from the message classes, so its codec id, which is advertised to peers as part of the system
+ * information, changes whenever the serialized form of the prototypes does. Messages to peers
+ * which do not advertise the same codec id, including legacy peers, are compressed with Snappy.
+ * <p>
+ * Inbound messages are decompressed according to their format, which can be told apart by the
+ * zstd frame magic. A Snappy stream starting with the same bytes would have to start with a
+ * copy element, which is impossible as there is nothing to copy from.
+ */
+final class MessageCompression {
+	private static final String CODEC_PREFIX = "zstd-dict:";
+	private static final byte[] ZSTD_MAGIC = { 0x28, (byte) 0xB5, 0x2F, (byte) 0xFD };
+
+	// Largest scratch buffer kept per thread for decompressing direct buffers
+	private static final int MAX_CACHED_UNCOMPRESS_BUFFER = 4 * 1024 * 1024;
+	private static final ThreadLocal<ByteBuffer> uncompressBuffers = new ThreadLocal<>();
+
+	private final String codec;
+	private final ZstdDictCompress dictCompress;
+	private final ZstdDictDecompress dictDecompress;
+
+	private MessageCompression(String codec, ZstdDictCompress dictCompress, ZstdDictDecompress dictDecompress) {
+		this.codec = codec;
+		this.dictCompress = dictCompress;
+		this.dictDecompress = dictDecompress;
+	}
+
+	/**
+	 * Creates a compression which only uses Snappy.
+	 */
+	static MessageCompression snappy() {
+		return new MessageCompression(null, null, null);
+	}
+
+	/**
+	 * Creates a compression using the given zstd dictionary with peers supporting it.
+	 *
+	 * @param dictionary The dictionary, either trained or raw content
+	 * @param level The zstd compression level
+	 */
+	static MessageCompression withDictionary(byte[] dictionary, int level) {
+		String codec = CODEC_PREFIX + Hashing.sha256().hashBytes(dictionary).toString().substring(0, 16);
+		return new MessageCompression(codec, new ZstdDictCompress(dictionary, level), new ZstdDictDecompress(dictionary));
+	}
+
+	/**
+	 * Creates the compression configured by the given compression level, where a level of zero
+	 * or less disables dictionary compression.
+	 */
+	static MessageCompression create(Serialization serialization, int level) {
+		if (level <= 0) {
+			return snappy();
+		}
+		return withDictionary(buildDictionary(serialization), level);
+	}
+
+	/**
+	 * Builds a raw content dictionary from the serialized prototypes of all messages frequently
+	 * sent between nodes. Prototypes must not contain anything specific to a node or a run.
+	 */
+	@VisibleForTesting
+	static byte[] buildDictionary(Serialization serialization) {
+		RadixSystem system = new RadixSystem();
+		LogicalClockCursor cursor = new LogicalClockCursor(0L);
+		ImmutableList<Message> prototypes = ImmutableList.of(
+			new SystemMessage(system, 0),
+			new PeerPingMessage(0L, system, 0),
+			new PeerPongMessage(0L, system, 0),
+			new GetPeersMessage(0),
+			new PeersMessage(0),
+			new GossipInventoryMessage(ImmutableList.of(), 0),
+			new IterativeDiscoveryRequestMessage(cursor, 0),
+			new IterativeDiscoveryResponseMessage(ImmutableList.of(), cursor, 0),
+			new ReconciliationRequestMessage(0, ImmutableList.of(), 0),
+			new ReconciliationResponseMessage(0, ImmutableList.of(), ImmutableList.of(), 0),
+			new DeliveryRequestMessage(ImmutableList.of(), 0),
+			new DeliveryResponseMessage(ImmutableList.of(), 0),
+			new StreamOpenMessage(EUID.ZERO, "", 0L, 0),
+			new StreamChunkMessage(EUID.ZERO, 0L, new byte[0], false, 0),
+			new StreamAckMessage(EUID.ZERO, 0L, 0, 0)
+		);
+		try {
+			ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+			for (Message prototype : prototypes) {
+				dictionary.write(serialization.toDson(prototype, Output.WIRE));
+			}
+			return dictionary.toByteArray();
+		} catch (IOException e) {
+			throw new IllegalStateException("While building message compression dictionary", e);
+		}
+	}
+
+	/**
+	 * Gets the codec id to advertise to peers, or {@code null} if only Snappy is used.
+	 */
+	String codec() {
+		return codec;
+	}
+
+	/**
+	 * Compresses a serialized message for a peer advertising the given codec.
+	 *
+	 * @param uncompressed The serialized message
+	 * @param peerCodec The codec id advertised by the peer, or {@code null} if none
+	 * @return The compressed message
+	 */
+	byte[] compress(byte[] uncompressed, String peerCodec) throws IOException {
+		if (codec != null && codec.equals(peerCodec)) {
+			return Zstd.compress(uncompressed, dictCompress);
+		}
+		return Snappy.compress(uncompressed);
+	}
+
+	/**
+	 * Decompresses a message from the remaining bytes of the given buffer, without changing its
+	 * position. Snappy messages are decompressed in place, the only array allocated is the
+	 * uncompressed message. Zstd messages which do not fill an entire array are copied first,
+	 * which is cheap as they are small.
+	 * <p>
+	 * The uncompressed size is taken from the message itself, so it is checked against
+	 * {@link Message#MAX_MESSAGE_SIZE} before anything is allocated for it.
+	 */
+	byte[] uncompress(ByteBuffer in) throws IOException {
+		if (isZstd(in)) {
+			if (dictDecompress == null) {
+				throw new IOException("Received dictionary compressed message, but dictionary compression is disabled");
+			}
+			final byte[] compressed;
+			if (in.hasArray() && in.arrayOffset() == 0 && in.position() == 0 && in.remaining() == in.array().length) {
+				compressed = in.array();
+			} else {
+				compressed = new byte[in.remaining()];
+				in.duplicate().get(compressed);
+			}
+			int size = checkSize(Zstd.decompressedSize(compressed));
+			return Zstd.decompress(compressed, dictDecompress, size);
+		}
+
+		if (in.hasArray()) {
+			int offset = in.arrayOffset() + in.position();
+			byte[] uncompressed = new byte[checkSize(Snappy.uncompressedLength(in.array(), offset, in.remaining()))];
+			Snappy.uncompress(in.array(), offset, in.remaining(), uncompressed, 0);
+			return uncompressed;
+		} else if (in.isDirect()) {
+			ByteBuffer scratch = uncompressBuffer(checkSize(Snappy.uncompressedLength(in)));
+			Snappy.uncompress(in, scratch);
+			byte[] uncompressed = new byte[scratch.remaining()];
+			scratch.get(uncompressed);
+			return uncompressed;
+		} else {
+			byte[] compressed = new byte[in.remaining()];
+			in.duplicate().get(compressed);
+			checkSize(Snappy.uncompressedLength(compressed));
+			return Snappy.uncompress(compressed);
+		}
+	}
+
+	private static int checkSize(long size) throws IOException {
+		if (size <= 0 || size > Message.MAX_MESSAGE_SIZE) {
+			throw new IOException("Invalid uncompressed message size " + size);
+		}
+		return (int) size;
+	}
+
+	private static boolean isZstd(ByteBuffer in) {
+		if (in.remaining() < ZSTD_MAGIC.length) {
+			return false;
+		}
+		int position = in.position();
+		for (int i = 0; i < ZSTD_MAGIC.length; i++) {
+			if (in.get(position + i) != ZSTD_MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static ByteBuffer uncompressBuffer(int size) {
+		ByteBuffer buffer = uncompressBuffers.get();
+		if (buffer == null || buffer.capacity() < size) {
+			if (size > MAX_CACHED_UNCOMPRESS_BUFFER) {
+				return ByteBuffer.allocateDirect(size);
+			}
+			// grow geometrically so that slowly growing messages do not reallocate every time
+			int capacity = buffer == null ? size : Math.min(Math.max(size, buffer.capacity() * 2), MAX_CACHED_UNCOMPRESS_BUFFER);
+			buffer = ByteBuffer.allocateDirect(capacity);
+			uncompressBuffers.set(buffer);
+		}
+		buffer.clear();
+		return buffer;
+	}
+}
@@ -22,8 +22,10 @@ import java.io.UncheckedIOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.radix.Radix;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.radixdlt.common.EUID;
 import com.radixdlt.serialization.Serialization;
 import com.radixdlt.serialization.DsonOutput.Output;
@@ -47,7 +49,6 @@ import org.radix.universe.system.LocalSystem;
 import org.radix.universe.system.RadixSystem;
 import org.radix.universe.system.SystemMessage;
 import org.radix.utils.SystemMetaData;
-import org.xerial.snappy.Snappy;
 
 /*
  * This could be moved into MessageCentralImpl at some stage, but has been
@@ -63,6 +64,8 @@ class MessageDispatcher {
 	private final LocalSystem localSystem;
 	private final Interfaces interfaces;
 	private final AddressBook addressBook;
+	private final PeerSendLimiter sendLimiter;
+	private final MessageCompression compression;
 
 	MessageDispatcher(MessageCentralConfiguration config, Serialization serialization, TimeSupplier timeSource, LocalSystem localSystem, Interfaces interfaces, AddressBook addressBook) {
 		this.messageTtlMs = config.messagingTimeToLive(30) * 1000L;
@@ -71,21 +74,35 @@ class MessageDispatcher {
 		this.localSystem = localSystem;
 		this.interfaces = interfaces;
 		this.addressBook = addressBook;
+		this.sendLimiter = new PeerSendLimiter(
+			config.messagingOutboundPeerMaxInFlight(16),
+			config.messagingOutboundPeerQueueMax(1024)
+		);
+		this.compression = MessageCompression.create(serialization, config.messagingCompressionLevel(3));
 	}
 
-	SendResult send(TransportManager transportManager, final MessageEvent outboundMessage) {
+	MessageCompression compression() {
+		return this.compression;
+	}
+
+	/**
+	 * Sends a message without blocking, connecting to the peer if required.
+	 * At most a bounded number of messages are in flight to each peer, further messages
+	 * are queued for that peer and dropped if its queue is full.
+	 *
+	 * @return A future completed with the result of the send
+	 */
+	CompletableFuture<SendResult> send(TransportManager transportManager, final MessageEvent outboundMessage) {
 		final Message message = outboundMessage.message();
 		final Peer peer = outboundMessage.peer();
 
-		if (timeSource.currentTime() - message.getTimestamp() > messageTtlMs) {
-			String msg = String.format("%s: TTL to %s has expired", message.getClass().getName(), peer);
-			log.warn(msg);
-			SystemMetaData.ifPresent( a -> a.increment("messages.outbound.aborted"));
-			return SendResult.failure(new IOException(msg));
+		if (hasExpired(message)) {
+			return CompletableFuture.completedFuture(expired(message, peer));
 		}
 
 		message.setDirection(Direction.OUTBOUND);
 
+		final byte[] bytes;
 		try {
 			if (message instanceof SignedMessage) {
 				SignedMessage signedMessage = (SignedMessage) message;
@@ -94,19 +111,56 @@ class MessageDispatcher {
 				}
 			}
 
-			byte[] bytes = serialize(message);
-			return findTransportAndOpenConnection(transportManager, peer, bytes)
-				.thenCompose(conn -> conn.send(bytes))
-				.thenApply(this::updateStatistics)
-				.get();
+			bytes = serialize(message, peer);
 		} catch (Exception ex) {
-			String msg = String.format("%s: Sending to  %s failed", message.getClass().getName(), peer);
-			log.error(msg, ex);
-			return SendResult.failure(new IOException(msg, ex));
+			return CompletableFuture.completedFuture(failed(message, peer, ex));
 		}
+
+		return sendLimiter.submit(peerKey(peer), () -> {
+			// may have waited behind other messages to the same peer
+			if (hasExpired(message)) {
+				return CompletableFuture.completedFuture(expired(message, peer));
+			}
+			return findTransportAndOpenConnection(transportManager, peer, bytes)
+				.thenCompose(conn -> conn.send(bytes));
+		}).handle((result, ex) -> ex == null ? updateStatistics(result) : failed(message, peer, ex));
+	}
+
+	/**
+	 * Gets the number of messages in flight to all peers.
+	 */
+	int outboundInFlight() {
+		return sendLimiter.inFlight();
+	}
+
+	/**
+	 * Checks whether a message to the given peer would currently be sent rather than queued.
+	 */
+	boolean canSend(Peer peer) {
+		return sendLimiter.hasCapacity(peerKey(peer));
+	}
+
+	/**
+	 * Sets a listener called whenever a peer may be able to accept messages again.
+	 */
+	void setSendCapacityListener(Runnable listener) {
+		sendLimiter.setCapacityListener(listener);
+	}
+
+	/**
+	 * Gets the key identifying a peer for outbound queueing and limits.
+	 */
+	static Object peerKey(Peer peer) {
+		return peer.hasNID() ? peer.getNID() : peer;
 	}
 
-	void receive(MessageListenerList listeners, final MessageEvent inboundMessage) {
+	/**
+	 * Checks an inbound message before it is passed to listeners, updating the peer's system
+	 * information from system messages.
+	 *
+	 * @return The peer to pass to listeners, or {@code null} if the message is to be discarded
+	 */
+	Peer accept(final MessageEvent inboundMessage) {
 		Peer peer = inboundMessage.peer();
 		final Message message = inboundMessage.message();
 
@@ -116,7 +170,7 @@ class MessageDispatcher {
 
 		if (currentTime - message.getTimestamp() > messageTtlMs) {
 			SystemMetaData.ifPresent(a -> a.increment("messages.inbound.discarded"));
-			return;
+			return null;
 		}
 
 		try {
@@ -128,12 +182,12 @@ class MessageDispatcher {
 
 				if (system.getNID() == null || EUID.ZERO.equals(system.getNID())) {
 					peer.ban(String.format("%s:%s gave null NID", peer, message.getClass().getName()));
-					return;
+					return null;
 				}
 
 				if (systemMessage.getSystem().getAgentVersion() <= Radix.REFUSE_AGENT_VERSION) {
 					peer.ban(String.format("Old peer %s %s:%s", peer, system.getAgent(), system.getProtocolVersion()));
-					return;
+					return null;
 				}
 
 				if (system.getNID().equals(this.localSystem.getNID())) {
@@ -145,20 +199,37 @@ class MessageDispatcher {
 							addInterfaceAddress(interfaces, host); // TODO what about DNS lookups?
 						}
 					}
-					return;
+					return null;
 				}
 
 				if (NetworkLegacyPatching.checkPeerBanned(peer, system.getNID(), timeSource, this.addressBook)) {
-					return;
+					return null;
 				}
 			}
 		} catch (Exception ex) {
 			log.error(inboundMessage.message().getClass().getName() + ": Pre-processing from " + inboundMessage.peer() + " failed", ex);
-			return;
+			return null;
 		}
 
-		listeners.messageReceived(peer, message);
-		SystemMetaData.ifPresent( a -> a.increment("messages.inbound.processed"));
+		return peer;
+	}
+
+	private boolean hasExpired(Message message) {
+		return timeSource.currentTime() - message.getTimestamp() > messageTtlMs;
+	}
+
+	private SendResult expired(Message message, Peer peer) {
+		String msg = String.format("%s: TTL to %s has expired", message.getClass().getName(), peer);
+		log.warn(msg);
+		SystemMetaData.ifPresent( a -> a.increment("messages.outbound.aborted"));
+		return SendResult.failure(new IOException(msg));
+	}
+
+	private SendResult failed(Message message, Peer peer, Throwable ex) {
+		Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+		String msg = String.format("%s: Sending to  %s failed", message.getClass().getName(), peer);
+		log.error(msg, cause);
+		return SendResult.failure(new IOException(msg, cause));
 	}
 
 	private SendResult updateStatistics(SendResult result) {
@@ -184,10 +255,20 @@ class MessageDispatcher {
 		return transport.control().open(peer.connectionData(transport.name()));
 	}
 
-	private byte[] serialize(Message out) {
+	@VisibleForTesting
+	byte[] serialize(Message out) {
+		return serialize(out, null);
+	}
+
+	/**
+	 * Serializes and compresses a message with the best compression supported by the given peer.
+	 */
+	@VisibleForTesting
+	byte[] serialize(Message out, Peer peer) {
 		try {
 			byte[] uncompressed = serialization.toDson(out, Output.WIRE);
-			return Snappy.compress(uncompressed);
+			String peerCodec = peer != null && peer.hasSystem() ? peer.getSystem().getCompression() : null;
+			return compression.compress(uncompressed, peerCodec);
 		} catch (IOException e) {
 			throw new UncheckedIOException("While serializing message", e);
 		}
@@ -0,0 +1,389 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import org.radix.network2.addressbook.Peer;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.radixdlt.tracing.LatencyRing;
+
+/**
+ * Queues outbound messages per peer and decides which message is sent next.
+ * <p>
+ * Messages are taken by {@link OutboundPriority}, and within a priority by deficit round robin
+ * across peers, each peer getting up to {@code quantum} messages per round. Peers which cannot
+ * currently accept more messages are skipped, so their messages stay queued here in priority order.
+ * When the queue of a peer is full, a message of a higher priority replaces the newest queued
+ * message of a lower priority of that peer, otherwise it is dropped. When all queues together are
+ * full, it replaces the newest queued message of a lower priority of any peer instead.
+ * <p>
+ * Statistics of peers without queued messages are discarded once the peer has been idle for
+ * {@link #STATISTICS_IDLE_NANOS}.
+ */
+final class OutboundMessageScheduler {
+	private static final OutboundPriority[] PRIORITIES = OutboundPriority.values();
+	private static final int LATENCY_SAMPLES = 256;
+	@VisibleForTesting
+	static final long STATISTICS_IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+	private final int maxQueued;
+	private final int maxQueuedPerPeer;
+	private final int quantum;
+	private final Function<Peer, Object> peerKeys;
+	private final Predicate<Peer> canSend;
+	private final LongSupplier nanoTime;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition sendable = lock.newCondition();
+	// guarded by lock
+	private final Map<Object, PeerQueue> queues = new HashMap<>();
+	// guarded by lock, peers with queued messages of each priority in round robin order
+	private final Map<OutboundPriority, ArrayDeque<PeerQueue>> rounds = new EnumMap<>(OutboundPriority.class);
+	// guarded by lock
+	private int size;
+	// guarded by lock, order in which messages were queued
+	private long sequence;
+
+	private final ConcurrentMap<Object, PeerStatistics> statistics = new ConcurrentHashMap<>();
+	private final AtomicLong nextPrune;
+
+	/**
+	 * Creates a scheduler.
+	 *
+	 * @param maxQueued The maximum number of messages queued for all peers
+	 * @param maxQueuedPerPeer The maximum number of messages queued for a single peer
+	 * @param quantum The number of messages a peer may send per round
+	 * @param peerKeys Maps peers to the key identifying their queue
+	 * @param canSend Whether a peer can currently accept more messages
+	 * @param nanoTime The time source used to expire statistics of idle peers
+	 */
+	OutboundMessageScheduler(
+		int maxQueued,
+		int maxQueuedPerPeer,
+		int quantum,
+		Function<Peer, Object> peerKeys,
+		Predicate<Peer> canSend,
+		LongSupplier nanoTime
+	) {
+		this.maxQueued = Math.max(1, maxQueued);
+		this.maxQueuedPerPeer = Math.max(1, maxQueuedPerPeer);
+		this.quantum = Math.max(1, quantum);
+		this.peerKeys = Objects.requireNonNull(peerKeys);
+		this.canSend = Objects.requireNonNull(canSend);
+		this.nanoTime = Objects.requireNonNull(nanoTime);
+		this.nextPrune = new AtomicLong(nanoTime.getAsLong() + STATISTICS_IDLE_NANOS);
+		for (OutboundPriority priority : PRIORITIES) {
+			this.rounds.put(priority, new ArrayDeque<>());
+		}
+	}
+
+	/**
+	 * Queues a message for sending.
+	 *
+	 * @return {@code true} if the message was queued, {@code false} if it was dropped
+	 */
+	boolean offer(MessageEvent event) {
+		Object key = peerKeys.apply(event.peer());
+		OutboundPriority priority = OutboundPriority.of(event.message());
+		lock.lock();
+		try {
+			PeerQueue queue = queues.computeIfAbsent(key, PeerQueue::new);
+			if (queue.size >= maxQueuedPerPeer || size >= maxQueued) {
+				// a full peer queue makes room from its own messages, a full scheduler from those of any peer
+				PeerQueue evicted = queue.size >= maxQueuedPerPeer ? queue.evictBelow(priority) : evictNewestBelow(priority);
+				if (evicted == null) {
+					if (queue.size == 0) {
+						queues.remove(key);
+					}
+					statistics(key).dropped.incrementAndGet();
+					return false;
+				}
+				size--;
+				statistics(evicted.key).dropped.incrementAndGet();
+				if (evicted.size == 0 && evicted != queue) {
+					queues.remove(evicted.key);
+				}
+			}
+			queue.add(priority, event, sequence++);
+			size++;
+			sendable.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes the next message to send, waiting until there is a message for a peer which can accept it.
+	 */
+	MessageEvent take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			for (;;) {
+				MessageEvent next = next();
+				if (next != null) {
+					return next;
+				}
+				sendable.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Notifies the scheduler that a peer may be able to accept messages again.
+	 */
+	void capacityAvailable() {
+		lock.lock();
+		try {
+			sendable.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Records the outcome of sending a message taken from this scheduler.
+	 *
+	 * @param event The message sent
+	 * @param success Whether the message was sent successfully
+	 * @param latencyNanos The time from queueing the message until the send completed
+	 */
+	void completed(MessageEvent event, boolean success, long latencyNanos) {
+		PeerStatistics peerStatistics = statistics(peerKeys.apply(event.peer()));
+		if (success) {
+			peerStatistics.sent.incrementAndGet();
+		} else {
+			peerStatistics.failed.incrementAndGet();
+		}
+		peerStatistics.latencies.record(latencyNanos);
+		pruneStatistics();
+	}
+
+	/**
+	 * Gets the number of messages queued for all peers.
+	 */
+	int size() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets a snapshot of the statistics of each peer messages have been queued for.
+	 */
+	Map<String, OutboundPeerStatistics> statistics() {
+		pruneStatistics();
+		Map<Object, Integer> queued = new HashMap<>();
+		lock.lock();
+		try {
+			queues.forEach((key, queue) -> queued.put(key, queue.size));
+		} finally {
+			lock.unlock();
+		}
+
+		ImmutableMap.Builder<String, OutboundPeerStatistics> snapshot = ImmutableMap.builder();
+		statistics.forEach((key, peerStatistics) -> {
+			long[] latencies = peerStatistics.latencies.sortedSnapshot();
+			snapshot.put(key.toString(), new OutboundPeerStatistics(
+				queued.getOrDefault(key, 0),
+				peerStatistics.sent.get(),
+				peerStatistics.failed.get(),
+				peerStatistics.dropped.get(),
+				toMillis(LatencyRing.percentile(latencies, 50.0)),
+				toMillis(LatencyRing.percentile(latencies, 99.0)),
+				toMillis(LatencyRing.percentile(latencies, 100.0))
+			));
+		});
+		return snapshot.build();
+	}
+
+	// Requires lock to be held
+	private MessageEvent next() {
+		for (OutboundPriority priority : PRIORITIES) {
+			ArrayDeque<PeerQueue> round = rounds.get(priority);
+			for (int i = round.size(); i > 0; i--) {
+				PeerQueue queue = round.pollFirst();
+				if (!canSend.test(queue.peer)) {
+					round.addLast(queue);
+					continue;
+				}
+				MessageEvent event = queue.remove(priority);
+				size--;
+				if (queue.isEmpty(priority)) {
+					queue.deficit.remove(priority);
+				} else if (queue.deficit.get(priority) > 0) {
+					// remaining quantum of this round
+					round.addFirst(queue);
+				} else {
+					round.addLast(queue);
+				}
+				if (queue.size == 0) {
+					queues.remove(queue.key);
+				}
+				return event;
+			}
+		}
+		return null;
+	}
+
+	// Requires lock to be held
+	private PeerQueue evictNewestBelow(OutboundPriority priority) {
+		for (int i = PRIORITIES.length - 1; i > priority.ordinal(); i--) {
+			OutboundPriority lower = PRIORITIES[i];
+			PeerQueue newest = null;
+			for (PeerQueue queue : rounds.get(lower)) {
+				if (newest == null || queue.newest(lower) > newest.newest(lower)) {
+					newest = queue;
+				}
+			}
+			if (newest != null) {
+				newest.evict(lower);
+				return newest;
+			}
+		}
+		return null;
+	}
+
+	private PeerStatistics statistics(Object key) {
+		PeerStatistics peerStatistics = statistics.computeIfAbsent(key, k -> new PeerStatistics());
+		peerStatistics.lastActive = nanoTime.getAsLong();
+		return peerStatistics;
+	}
+
+	private void pruneStatistics() {
+		long now = nanoTime.getAsLong();
+		long due = nextPrune.get();
+		if (now - due < 0 || !nextPrune.compareAndSet(due, now + STATISTICS_IDLE_NANOS)) {
+			return;
+		}
+		lock.lock();
+		try {
+			statistics.entrySet().removeIf(entry -> !queues.containsKey(entry.getKey())
+				&& now - entry.getValue().lastActive > STATISTICS_IDLE_NANOS);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	// Only accessed while holding lock
+	private final class PeerQueue {
+		private final Object key;
+		private final Map<OutboundPriority, ArrayDeque<Queued>> messages = new EnumMap<>(OutboundPriority.class);
+		private final Map<OutboundPriority, Integer> deficit = new EnumMap<>(OutboundPriority.class);
+		private Peer peer;
+		private int size;
+
+		private PeerQueue(Object key) {
+			this.key = key;
+		}
+
+		private void add(OutboundPriority priority, MessageEvent event, long sequence) {
+			ArrayDeque<Queued> queued = messages.computeIfAbsent(priority, p -> new ArrayDeque<>());
+			if (queued.isEmpty()) {
+				rounds.get(priority).addLast(this);
+			}
+			queued.addLast(new Queued(event, sequence));
+			// latest known peer details, used to check whether the peer can accept messages
+			this.peer = event.peer();
+			size++;
+		}
+
+		private MessageEvent remove(OutboundPriority priority) {
+			int remaining = deficit.getOrDefault(priority, 0);
+			if (remaining <= 0) {
+				remaining += quantum;
+			}
+			deficit.put(priority, remaining - 1);
+			size--;
+			return messages.get(priority).pollFirst().event;
+		}
+
+		private boolean isEmpty(OutboundPriority priority) {
+			ArrayDeque<Queued> queued = messages.get(priority);
+			return queued == null || queued.isEmpty();
+		}
+
+		// Sequence of the newest message of the given priority, which must not be empty
+		private long newest(OutboundPriority priority) {
+			return messages.get(priority).peekLast().sequence;
+		}
+
+		private PeerQueue evictBelow(OutboundPriority priority) {
+			for (int i = PRIORITIES.length - 1; i > priority.ordinal(); i--) {
+				OutboundPriority lower = PRIORITIES[i];
+				if (!isEmpty(lower)) {
+					evict(lower);
+					return this;
+				}
+			}
+			return null;
+		}
+
+		private void evict(OutboundPriority priority) {
+			messages.get(priority).pollLast();
+			size--;
+			if (isEmpty(priority)) {
+				rounds.get(priority).remove(this);
+				deficit.remove(priority);
+			}
+		}
+	}
+
+	private static final class Queued {
+		private final MessageEvent event;
+		private final long sequence;
+
+		private Queued(MessageEvent event, long sequence) {
+			this.event = event;
+			this.sequence = sequence;
+		}
+	}
+
+	private static final class PeerStatistics {
+		private final AtomicLong sent = new AtomicLong();
+		private final AtomicLong failed = new AtomicLong();
+		private final AtomicLong dropped = new AtomicLong();
+		private final LatencyRing latencies = new LatencyRing(LATENCY_SAMPLES);
+		private volatile long lastActive;
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+/**
+ * A snapshot of the outbound messages to a peer.
+ * Latencies are from queueing a message until its send completed.
+ */
+public final class OutboundPeerStatistics {
+	private final int queued;
+	private final long sent;
+	private final long failed;
+	private final long dropped;
+	private final long latencyMedianMillis;
+	private final long latencyP99Millis;
+	private final long latencyMaxMillis;
+
+	OutboundPeerStatistics(int queued, long sent, long failed, long dropped, long latencyMedianMillis, long latencyP99Millis, long latencyMaxMillis) {
+		this.queued = queued;
+		this.sent = sent;
+		this.failed = failed;
+		this.dropped = dropped;
+		this.latencyMedianMillis = latencyMedianMillis;
+		this.latencyP99Millis = latencyP99Millis;
+		this.latencyMaxMillis = latencyMaxMillis;
+	}
+
+	/**
+	 * Gets the number of messages currently queued for the peer.
+	 */
+	public int getQueued() {
+		return queued;
+	}
+
+	/**
+	 * Gets the number of messages sent successfully to the peer.
+	 */
+	public long getSent() {
+		return sent;
+	}
+
+	/**
+	 * Gets the number of messages which could not be sent to the peer.
+	 */
+	public long getFailed() {
+		return failed;
+	}
+
+	/**
+	 * Gets the number of messages dropped because the outbound queues were full.
+	 */
+	public long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * Gets the median latency of recent sends in milliseconds.
+	 */
+	public long getLatencyMedianMillis() {
+		return latencyMedianMillis;
+	}
+
+	/**
+	 * Gets the 99th percentile latency of recent sends in milliseconds.
+	 */
+	public long getLatencyP99Millis() {
+		return latencyP99Millis;
+	}
+
+	/**
+	 * Gets the maximum latency of recent sends in milliseconds.
+	 */
+	public long getLatencyMaxMillis() {
+		return latencyMaxMillis;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[queued=%s, sent=%s, failed=%s, dropped=%s, latency=%s/%s/%sms]",
+			getClass().getSimpleName(), queued, sent, failed, dropped, latencyMedianMillis, latencyP99Millis, latencyMaxMillis);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import java.util.Map;
+
+import org.radix.network.messages.PeerPingMessage;
+import org.radix.network.messages.PeerPongMessage;
+import org.radix.network.messaging.Message;
+import org.radix.universe.system.SystemMessage;
+
+import com.google.common.collect.ImmutableMap;
+import com.radixdlt.delivery.messages.DeliveryResponseMessage;
+import com.radixdlt.discovery.messages.IterativeDiscoveryResponseMessage;
+import com.radixdlt.streaming.messages.StreamChunkMessage;
+
+/**
+ * Scheduling classes of outbound messages, highest first.
+ * Messages of a class are only sent while no message of a higher class can be sent.
+ */
+enum OutboundPriority {
+	/**
+	 * Heartbeats and liveness checks, which are small and must not be delayed by other traffic.
+	 */
+	CONTROL,
+	/**
+	 * Discovery and all messages which are not otherwise classified.
+	 */
+	NORMAL,
+	/**
+	 * Bulk delivery of ledger entries, including discovery responses carrying entries, and stream data.
+	 */
+	BULK;
+
+	private static final Map<Class<? extends Message>, OutboundPriority> MESSAGE_PRIORITIES = ImmutableMap.of(
+		SystemMessage.class, CONTROL,
+		PeerPingMessage.class, CONTROL,
+		PeerPongMessage.class, CONTROL,
+		DeliveryResponseMessage.class, BULK,
+		StreamChunkMessage.class, BULK
+	);
+
+	static OutboundPriority of(Message message) {
+		if (message instanceof IterativeDiscoveryResponseMessage) {
+			// bulk responses carry up to several hundred KiB of entries, plain responses only aids
+			return ((IterativeDiscoveryResponseMessage) message).getEntries().isEmpty() ? NORMAL : BULK;
+		}
+		return MESSAGE_PRIORITIES.getOrDefault(message.getClass(), NORMAL);
+	}
+}
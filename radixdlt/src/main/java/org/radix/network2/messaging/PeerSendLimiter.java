@@ -0,0 +1,214 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.radix.network2.transport.SendResult;
+import org.radix.utils.SystemMetaData;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Bounds the number of sends in flight to each peer.
+ * <p>
+ * Sends beyond the bound are queued per peer and started as earlier sends to the same peer
+ * complete, and are failed once the queue of the peer is full. A peer which is slow to accept
+ * its messages, or unreachable, therefore only delays its own messages.
+ */
+final class PeerSendLimiter {
+	private final int maxInFlight;
+	private final int maxQueued;
+	private final ConcurrentMap<Object, PeerState> peers = new ConcurrentHashMap<>();
+	private final AtomicInteger totalInFlight = new AtomicInteger();
+	private volatile Runnable capacityListener = () -> { };
+
+	/**
+	 * Creates a limiter with the given bounds.
+	 *
+	 * @param maxInFlight The maximum number of sends in flight to a peer, at least 1
+	 * @param maxQueued The maximum number of sends queued for a peer
+	 */
+	PeerSendLimiter(int maxInFlight, int maxQueued) {
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.maxQueued = Math.max(0, maxQueued);
+	}
+
+	/**
+	 * Starts the given send to a peer if within its bound, or queues it otherwise.
+	 *
+	 * @param peerKey The key identifying the peer
+	 * @param send Starts the send, only called once the send may be in flight
+	 * @return A future completed with the result of the send, or exceptionally if starting it failed
+	 */
+	CompletableFuture<SendResult> submit(Object peerKey, Supplier<CompletableFuture<SendResult>> send) {
+		Objects.requireNonNull(peerKey);
+		PendingSend pending = new PendingSend(Objects.requireNonNull(send));
+		Admission[] admission = new Admission[1];
+		peers.compute(peerKey, (key, state) -> {
+			PeerState peerState = state == null ? new PeerState() : state;
+			admission[0] = peerState.admit(pending);
+			return peerState;
+		});
+
+		switch (admission[0]) {
+			case STARTED:
+				totalInFlight.incrementAndGet();
+				run(peerKey, pending);
+				break;
+			case QUEUED:
+				SystemMetaData.ifPresent(a -> a.increment("messages.outbound.deferred"));
+				break;
+			case REJECTED:
+				SystemMetaData.ifPresent(a -> a.increment("messages.outbound.dropped"));
+				pending.result.complete(SendResult.failure(new IOException(
+					String.format("%s sends to %s already queued", maxQueued, peerKey))));
+				break;
+			default:
+				throw new IllegalStateException("Unknown admission " + admission[0]);
+		}
+		return pending.result;
+	}
+
+	/**
+	 * Checks whether a send to a peer would currently be started rather than queued.
+	 */
+	boolean hasCapacity(Object peerKey) {
+		PeerState state = peers.get(peerKey);
+		return state == null || state.inFlight < maxInFlight;
+	}
+
+	/**
+	 * Sets a listener which is called whenever a send completes without another send to the same
+	 * peer taking its place, after which that peer has capacity again.
+	 */
+	void setCapacityListener(Runnable capacityListener) {
+		this.capacityListener = Objects.requireNonNull(capacityListener);
+	}
+
+	/**
+	 * Gets the total number of sends in flight to all peers.
+	 */
+	int inFlight() {
+		return totalInFlight.get();
+	}
+
+	@VisibleForTesting
+	int trackedPeers() {
+		return peers.size();
+	}
+
+	private void run(Object peerKey, PendingSend first) {
+		// sends which complete immediately start the next queued send in this loop rather than recursively
+		for (PendingSend pending = first; pending != null; pending = release(peerKey)) {
+			CompletableFuture<SendResult> sending;
+			try {
+				sending = pending.send.get();
+			} catch (RuntimeException e) {
+				sending = new CompletableFuture<>();
+				sending.completeExceptionally(e);
+			}
+			if (!sending.isDone()) {
+				final PendingSend inFlight = pending;
+				sending.whenComplete((result, cause) -> {
+					inFlight.complete(result, cause);
+					PendingSend next = release(peerKey);
+					if (next != null) {
+						run(peerKey, next);
+					}
+				});
+				return;
+			}
+			pending.complete(sending);
+		}
+	}
+
+	private PendingSend release(Object peerKey) {
+		PendingSend[] next = new PendingSend[1];
+		peers.computeIfPresent(peerKey, (key, state) -> {
+			next[0] = state.queued.poll();
+			if (next[0] == null && --state.inFlight == 0) {
+				// nothing left for this peer
+				return null;
+			}
+			return state;
+		});
+		if (next[0] == null) {
+			totalInFlight.decrementAndGet();
+			capacityListener.run();
+		}
+		return next[0];
+	}
+
+	private enum Admission {
+		STARTED, QUEUED, REJECTED
+	}
+
+	// Only modified within compute functions of the peers map
+	private final class PeerState {
+		private final ArrayDeque<PendingSend> queued = new ArrayDeque<>();
+		private volatile int inFlight;
+
+		private Admission admit(PendingSend pending) {
+			if (inFlight < maxInFlight) {
+				inFlight++;
+				return Admission.STARTED;
+			}
+			if (queued.size() < maxQueued) {
+				queued.add(pending);
+				return Admission.QUEUED;
+			}
+			return Admission.REJECTED;
+		}
+	}
+
+	private static final class PendingSend {
+		private final Supplier<CompletableFuture<SendResult>> send;
+		private final CompletableFuture<SendResult> result = new CompletableFuture<>();
+
+		private PendingSend(Supplier<CompletableFuture<SendResult>> send) {
+			this.send = send;
+		}
+
+		private void complete(CompletableFuture<SendResult> completed) {
+			try {
+				result.complete(completed.join());
+			} catch (RuntimeException e) {
+				complete(null, e);
+			}
+		}
+
+		private void complete(SendResult sendResult, Throwable cause) {
+			if (cause == null) {
+				result.complete(sendResult);
+			} else if (cause instanceof CompletionException && cause.getCause() != null) {
+				result.completeExceptionally(cause.getCause());
+			} else {
+				result.completeExceptionally(cause);
+			}
+		}
+	}
+}
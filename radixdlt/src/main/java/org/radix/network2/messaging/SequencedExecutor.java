@@ -0,0 +1,174 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.radix.logging.Logger;
+import org.radix.logging.Logging;
+
+/**
+ * Runs tasks on an underlying executor, sequentially in submission order for tasks with the same
+ * key and in parallel for tasks with different keys.
+ * <p>
+ * Each key has a lane of queued tasks, which exists only while it has tasks. A lane runs a bounded
+ * number of tasks at a time before giving way to other lanes, so that busy keys do not starve
+ * others. Tasks are rejected once a lane holds {@code maxQueuedPerKey} tasks, or all lanes together
+ * hold {@code maxQueued} tasks.
+ */
+final class SequencedExecutor<K> {
+	private static final Logger log = Logging.getLogger("messaging");
+
+	// tasks run by a lane before it is resubmitted behind other lanes
+	private static final int TASKS_PER_TURN = 16;
+
+	private final String name;
+	private final Executor executor;
+	private final int maxQueuedPerKey;
+	private final int maxQueued;
+	private final ConcurrentMap<K, Lane> lanes = new ConcurrentHashMap<>();
+	private final AtomicInteger queued = new AtomicInteger();
+
+	SequencedExecutor(String name, Executor executor, int maxQueuedPerKey, int maxQueued) {
+		this.name = Objects.requireNonNull(name);
+		this.executor = Objects.requireNonNull(executor);
+		this.maxQueuedPerKey = maxQueuedPerKey;
+		this.maxQueued = maxQueued;
+	}
+
+	/**
+	 * Queues a task to run after all tasks previously queued with the same key.
+	 *
+	 * @param key The key to sequence the task with
+	 * @param task The task to run
+	 * @return {@code true} if the task was queued, {@code false} if the lane of the key or the executor is full
+	 */
+	boolean execute(K key, Runnable task) {
+		Objects.requireNonNull(task);
+		// reserved up front, so that concurrent submissions for different keys cannot exceed the bound
+		if (queued.incrementAndGet() > maxQueued) {
+			queued.decrementAndGet();
+			return false;
+		}
+		for (;;) {
+			Lane lane = lanes.computeIfAbsent(key, Lane::new);
+			boolean schedule;
+			synchronized (lane) {
+				if (lane.retired) {
+					// lane drained and removed concurrently, use a new one
+					continue;
+				}
+				if (lane.tasks.size() >= maxQueuedPerKey) {
+					queued.decrementAndGet();
+					return false;
+				}
+				lane.tasks.add(task);
+				schedule = !lane.scheduled;
+				lane.scheduled = true;
+			}
+			if (schedule) {
+				submit(lane);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Gets the number of tasks queued or running across all keys.
+	 */
+	int queued() {
+		return queued.get();
+	}
+
+	/**
+	 * Gets the number of keys with queued or running tasks.
+	 */
+	int lanes() {
+		return lanes.size();
+	}
+
+	private void submit(Lane lane) {
+		try {
+			executor.execute(lane);
+		} catch (RejectedExecutionException e) {
+			// executor is shutting down, tasks of the lane are dropped
+			synchronized (lane) {
+				queued.addAndGet(-lane.tasks.size());
+				lane.tasks.clear();
+				lane.retired = true;
+				lanes.remove(lane.key, lane);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s]", getClass().getSimpleName(), name);
+	}
+
+	private final class Lane implements Runnable {
+		private final K key;
+		// guarded by this
+		private final Queue<Runnable> tasks = new ArrayDeque<>();
+		private boolean scheduled;
+		private boolean retired;
+
+		private Lane(K key) {
+			this.key = key;
+		}
+
+		@Override
+		public void run() {
+			for (int i = 0; i < TASKS_PER_TURN; i++) {
+				Runnable task;
+				synchronized (this) {
+					task = tasks.peek();
+				}
+				if (task == null) {
+					break;
+				}
+				try {
+					task.run();
+				} catch (Exception e) {
+					log.error(SequencedExecutor.this + " task for " + key + " failed", e);
+				}
+				synchronized (this) {
+					// only removed once run, so that a full lane includes the running task
+					tasks.poll();
+				}
+				queued.decrementAndGet();
+			}
+			synchronized (this) {
+				if (tasks.isEmpty()) {
+					scheduled = false;
+					retired = true;
+					lanes.remove(key, this);
+					return;
+				}
+			}
+			submit(this);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.transport.netty;
+
+import org.radix.properties.RuntimeProperties;
+
+/**
+ * Static configuration of the Netty event loops and channel implementations used by transports.
+ */
+public interface NettyConfiguration {
+
+	/**
+	 * Get whether to use the native epoll transport where it is available.
+	 * If it is not available, the NIO transport is used instead.
+	 *
+	 * @param defaultValue a default value if no special configuration value is set
+	 * @return {@code true} if the native transport should be used when available
+	 */
+	boolean useNativeTransport(boolean defaultValue);
+
+	/**
+	 * Get whether transports share a single event loop group for channel I/O,
+	 * rather than each creating its own.
+	 *
+	 * @param defaultValue a default value if no special configuration value is set
+	 * @return {@code true} if transports share an event loop group
+	 */
+	boolean shareEventLoops(boolean defaultValue);
+
+	/**
+	 * Get the number of threads of the shared event loop group.
+	 * Only used if {@link #shareEventLoops(boolean)} is {@code true}.
+	 *
+	 * @param defaultValue a default value if no special configuration value is set
+	 * @return the number of threads of the shared event loop group
+	 */
+	int sharedEventLoopThreads(int defaultValue);
+
+	/**
+	 * Create a configuration from specified {@link RuntimeProperties}.
+	 *
+	 * @param properties the properties to read the configuration from
+	 * @return The configuration
+	 */
+	static NettyConfiguration fromRuntimeProperties(RuntimeProperties properties) {
+		return new NettyConfiguration() {
+			@Override
+			public boolean useNativeTransport(boolean defaultValue) {
+				return properties.get("network.netty.native", defaultValue);
+			}
+
+			@Override
+			public boolean shareEventLoops(boolean defaultValue) {
+				return properties.get("network.netty.shared", defaultValue);
+			}
+
+			@Override
+			public int sharedEventLoopThreads(int defaultValue) {
+				return properties.get("network.netty.threads", defaultValue);
+			}
+		};
+	}
+
+	/**
+	 * Create a configuration which uses the default value for every setting.
+	 *
+	 * @return The configuration
+	 */
+	static NettyConfiguration defaults() {
+		return new NettyConfiguration() {
+			@Override
+			public boolean useNativeTransport(boolean defaultValue) {
+				return defaultValue;
+			}
+
+			@Override
+			public boolean shareEventLoops(boolean defaultValue) {
+				return defaultValue;
+			}
+
+			@Override
+			public int sharedEventLoopThreads(int defaultValue) {
+				return defaultValue;
+			}
+		};
+	}
+}
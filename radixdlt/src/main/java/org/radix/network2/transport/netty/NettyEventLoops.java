@@ -0,0 +1,157 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.transport.netty;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.radix.logging.Logger;
+import org.radix.logging.Logging;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import io.netty.bootstrap.AbstractBootstrap;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * Event loop groups and channel implementations for Netty based transports.
+ * <p>
+ * Uses Netty's native epoll transport if configured and available, otherwise NIO.
+ * If configured, all transports share one event loop group for channel I/O.
+ */
+@Singleton
+public final class NettyEventLoops {
+	private static final Logger log = Logging.getLogger("transport");
+
+	private final boolean epoll;
+	private final boolean shared;
+	private final int sharedThreads;
+	private final AtomicInteger sharedThreadCounter = new AtomicInteger(0);
+
+	// guarded by this
+	private EventLoopGroup sharedGroup;
+
+	@Inject
+	public NettyEventLoops(NettyConfiguration config) {
+		boolean useNative = config.useNativeTransport(true);
+		this.epoll = useNative && Epoll.isAvailable();
+		if (useNative && !this.epoll) {
+			log.info("Native epoll transport not available, using NIO: " + Epoll.unavailabilityCause());
+		}
+		this.shared = config.shareEventLoops(false);
+		this.sharedThreads = config.sharedEventLoopThreads(Runtime.getRuntime().availableProcessors());
+		if (this.sharedThreads < 0) {
+			throw new IllegalStateException("Illegal number of shared event loop threads: " + this.sharedThreads);
+		}
+	}
+
+	/**
+	 * Returns {@code true} if the native epoll transport is used.
+	 */
+	public boolean isNative() {
+		return this.epoll;
+	}
+
+	/**
+	 * Returns an event loop group for channel I/O of a transport.
+	 * This is either the shared group, or a new group with the specified number of threads.
+	 *
+	 * @param threads the number of threads of a new group
+	 * @param threadFactory the factory for the threads of a new group
+	 * @return the event loop group to use
+	 */
+	public EventLoopGroup workerGroup(int threads, ThreadFactory threadFactory) {
+		if (!this.shared) {
+			return newGroup(threads, threadFactory);
+		}
+		synchronized (this) {
+			if (this.sharedGroup == null) {
+				this.sharedGroup = newGroup(this.sharedThreads, this::createSharedThread);
+				log.info(String.format("Shared %s event loop, threads: %s", this.epoll ? "epoll" : "NIO", this.sharedThreads));
+			}
+			return this.sharedGroup;
+		}
+	}
+
+	/**
+	 * Returns a new event loop group, which is never shared.
+	 *
+	 * @param threads the number of threads of the group
+	 * @param threadFactory the factory for the threads of the group
+	 * @return the new event loop group
+	 */
+	public EventLoopGroup newGroup(int threads, ThreadFactory threadFactory) {
+		return this.epoll ? new EpollEventLoopGroup(threads, threadFactory) : new NioEventLoopGroup(threads, threadFactory);
+	}
+
+	public Class<? extends SocketChannel> socketChannelClass() {
+		return this.epoll ? EpollSocketChannel.class : NioSocketChannel.class;
+	}
+
+	public Class<? extends ServerSocketChannel> serverSocketChannelClass() {
+		return this.epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+	}
+
+	public Class<? extends DatagramChannel> datagramChannelClass() {
+		return this.epoll ? EpollDatagramChannel.class : NioDatagramChannel.class;
+	}
+
+	/**
+	 * Returns {@code true} if several channels can be bound to the same address,
+	 * with the kernel spreading inbound packets across them.
+	 */
+	public boolean supportsReusePort() {
+		return this.epoll;
+	}
+
+	/**
+	 * Enables {@code SO_REUSEPORT} for channels created by the specified bootstrap.
+	 *
+	 * @param bootstrap the bootstrap to configure
+	 * @throws IllegalStateException if {@link #supportsReusePort()} is {@code false}
+	 */
+	public void enableReusePort(AbstractBootstrap<?, ?> bootstrap) {
+		if (!supportsReusePort()) {
+			throw new IllegalStateException("SO_REUSEPORT requires the native transport");
+		}
+		bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+	}
+
+	private Thread createSharedThread(Runnable r) {
+		return new Thread(r, "Netty event loop - " + this.sharedThreadCounter.incrementAndGet());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s|%s]", getClass().getSimpleName(), this.epoll ? "epoll" : "nio", this.shared ? this.sharedThreads : "unshared");
+	}
+}
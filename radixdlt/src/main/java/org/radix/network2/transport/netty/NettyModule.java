@@ -0,0 +1,52 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.transport.netty;
+
+import java.util.Objects;
+
+import com.google.inject.AbstractModule;
+
+/**
+ * Guice configuration for the Netty support shared by transports.
+ * <p>
+ * Transport modules install this module themselves. As all instances are equal,
+ * Guice installs it only once, so transports share the same {@link NettyEventLoops}.
+ */
+public final class NettyModule extends AbstractModule {
+	private final NettyConfiguration config;
+
+	public NettyModule(NettyConfiguration config) {
+		this.config = Objects.requireNonNull(config);
+	}
+
+	@Override
+	protected void configure() {
+		bind(NettyConfiguration.class).toInstance(this.config);
+		bind(NettyEventLoops.class);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof NettyModule;
+	}
+
+	@Override
+	public int hashCode() {
+		return NettyModule.class.hashCode();
+	}
+}
@@ -31,22 +31,21 @@ import org.radix.network2.transport.TransportControl;
 import org.radix.network2.transport.TransportMetadata;
 import org.radix.network2.transport.netty.LogSink;
 import org.radix.network2.transport.netty.LoggingHandler;
+import org.radix.network2.transport.netty.NettyEventLoops;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.FixedRecvByteBufAllocator;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 
@@ -59,6 +58,7 @@ final class NettyTCPTransportImpl implements NettyTCPTransport {
 	// Default values if none specified in either localMetadata or config
 	private static final String DEFAULT_HOST = "0.0.0.0";
 	private static final int    DEFAULT_PORT = 30000;
+	private static final int    DEFAULT_FLUSH_THRESHOLD = 64 * 1024;
 
 	private static final int RCV_BUF_SIZE = TCPConstants.MAX_PACKET_LENGTH * 2;
 	private static final int SND_BUF_SIZE = TCPConstants.MAX_PACKET_LENGTH * 2;
@@ -68,11 +68,13 @@ final class NettyTCPTransportImpl implements NettyTCPTransport {
 
 	private final int priority;
 	private final int inboundProcessingThreads;
+	private final int flushThreshold;
 	private final AtomicInteger threadCounter = new AtomicInteger(0);
 	private final InetSocketAddress bindAddress;
 	private final Object channelLock = new Object();
 
 	private final TCPTransportControl control;
+	private final NettyEventLoops eventLoops;
 
 	private Channel channel;
 	private Bootstrap outboundBootstrap;
@@ -83,7 +85,8 @@ final class NettyTCPTransportImpl implements NettyTCPTransport {
 		TCPConfiguration config,
 		@Named("local") TransportMetadata localMetadata,
 		TCPTransportOutboundConnectionFactory outboundFactory,
-		TCPTransportControlFactory controlFactory
+		TCPTransportControlFactory controlFactory,
+		NettyEventLoops eventLoops
 	) {
 		String providedHost = localMetadata.get(TCPConstants.METADATA_TCP_HOST);
 		if (providedHost == null) {
@@ -106,6 +109,8 @@ final class NettyTCPTransportImpl implements NettyTCPTransport {
 		if (this.inboundProcessingThreads < 0) {
 			throw new IllegalStateException("Illegal number of TCP inbound threads: " + this.inboundProcessingThreads);
 		}
+		this.flushThreshold = config.flushThreshold(DEFAULT_FLUSH_THRESHOLD);
+		this.eventLoops = eventLoops;
 		this.bindAddress = new InetSocketAddress(providedHost, port);
 	}
 
@@ -136,15 +141,16 @@ final class NettyTCPTransportImpl implements NettyTCPTransport {
 
 	@Override
 	public void start(InboundMessageConsumer messageSink) {
-		log.info(String.format("TCP transport %s, threads: %s", localAddress(), this.inboundProcessingThreads));
+		log.info(String.format("TCP transport %s, threads: %s, event loops: %s", localAddress(), this.inboundProcessingThreads, this.eventLoops));
 
-		EventLoopGroup serverGroup = new NioEventLoopGroup(1);
-		EventLoopGroup workerGroup = new NioEventLoopGroup(this.inboundProcessingThreads, this::createThread);
+		EventLoopGroup serverGroup = this.eventLoops.newGroup(1, this::createThread);
+		EventLoopGroup workerGroup = this.eventLoops.workerGroup(this.inboundProcessingThreads, this::createThread);
 
 		this.outboundBootstrap = new Bootstrap();
 		this.outboundBootstrap.group(workerGroup)
-			.channel(NioSocketChannel.class)
+			.channel(this.eventLoops.socketChannelClass())
 			.option(ChannelOption.SO_KEEPALIVE, true)
+			.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
 			.handler(new ChannelInitializer<SocketChannel>() {
 				@Override
 				public void initChannel(SocketChannel ch) throws Exception {
@@ -154,9 +160,10 @@ final class NettyTCPTransportImpl implements NettyTCPTransport {
 
 		ServerBootstrap b = new ServerBootstrap();
 		b.group(serverGroup, workerGroup)
-			.channel(NioServerSocketChannel.class)
+			.channel(this.eventLoops.serverSocketChannelClass())
 			.option(ChannelOption.SO_BACKLOG, BACKLOG_SIZE)
 			.childOption(ChannelOption.SO_KEEPALIVE, true)
+			.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
 			.childHandler(new ChannelInitializer<SocketChannel>() {
 				@Override
 				public void initChannel(SocketChannel ch) throws Exception {
@@ -196,7 +203,8 @@ final class NettyTCPTransportImpl implements NettyTCPTransport {
 			.addLast("unpack", new LengthFieldBasedFrameDecoder(packetLength, 0, headerLength, 0, headerLength))
 			.addLast("onboard", new TCPNettyMessageHandler(messageSink));
 		ch.pipeline()
-			.addLast("pack", new LengthFieldPrepender(headerLength));
+			.addLast("pack", new LengthFieldPrepender(headerLength))
+			.addLast("coalesce", new TCPFlushCoalescingHandler(this.flushThreshold));
 	}
 
 	@Override
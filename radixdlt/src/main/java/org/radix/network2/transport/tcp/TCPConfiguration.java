@@ -75,6 +75,26 @@ public interface TCPConfiguration {
 	 */
 	int priority(int defaultValue);
 
+	/**
+	 * Get the number of unflushed bytes on a channel at which writes are flushed
+	 * to the socket immediately, rather than together with the other writes of the
+	 * same event loop tick.
+	 *
+	 * @param defaultValue a default value if no special configuration value is set
+	 * @return the number of unflushed bytes at which a channel is flushed
+	 */
+	int flushThreshold(int defaultValue);
+
+	/**
+	 * Get the maximum number of channels used to send to a single host.
+	 * Additional channels are only opened while all existing channels to the
+	 * host are busy, and allow large transfers to proceed in parallel.
+	 *
+	 * @param defaultValue a default value if no special configuration value is set
+	 * @return the maximum number of channels per host
+	 */
+	int channelsPerPeer(int defaultValue);
+
 	/**
 	 * Create a configuration from specified {@link RuntimeProperties}.
 	 *
@@ -107,6 +127,16 @@ public interface TCPConfiguration {
 			public int priority(int defaultValue) {
 				return properties.get("network.tcp.priority", defaultValue);
 			}
+
+			@Override
+			public int flushThreshold(int defaultValue) {
+				return properties.get("network.tcp.flush_threshold", defaultValue);
+			}
+
+			@Override
+			public int channelsPerPeer(int defaultValue) {
+				return properties.get("network.tcp.channels_per_peer", defaultValue);
+			}
 		};
 	}
 
@@ -0,0 +1,115 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.transport.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Coalesces writes on a channel so that many small messages are flushed to the socket together.
+ * <p>
+ * Writes are not flushed immediately. Instead a single flush is scheduled on the event loop, which
+ * runs after all writes already queued on the loop, so everything written during one event loop
+ * tick goes out with one gathering write. If the unflushed bytes reach {@code flushThreshold} the
+ * channel is flushed straight away. Explicit flushes are passed through unchanged.
+ * <p>
+ * Note that this handler holds per-channel state and cannot be shared between channels.
+ */
+final class TCPFlushCoalescingHandler extends ChannelDuplexHandler {
+	private final int flushThreshold;
+
+	// Only accessed from the channel's event loop
+	private ChannelHandlerContext ctx;
+	private boolean pending;
+	private long pendingBytes;
+	private boolean flushScheduled;
+
+	TCPFlushCoalescingHandler(int flushThreshold) {
+		this.flushThreshold = Math.max(1, flushThreshold);
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		this.ctx = ctx;
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+		flushPending(ctx);
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+		this.pending = true;
+		this.pendingBytes += sizeOf(msg);
+		ctx.write(msg, promise);
+		if (this.pendingBytes >= this.flushThreshold) {
+			flushNow(ctx);
+		} else if (!this.flushScheduled) {
+			this.flushScheduled = true;
+			ctx.executor().execute(this::scheduledFlush);
+		}
+	}
+
+	@Override
+	public void flush(ChannelHandlerContext ctx) throws Exception {
+		flushNow(ctx);
+	}
+
+	@Override
+	public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+		flushPending(ctx);
+		ctx.close(promise);
+	}
+
+	@Override
+	public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+		flushPending(ctx);
+		ctx.disconnect(promise);
+	}
+
+	private void scheduledFlush() {
+		this.flushScheduled = false;
+		flushPending(this.ctx);
+	}
+
+	private void flushPending(ChannelHandlerContext ctx) {
+		if (this.pending) {
+			flushNow(ctx);
+		}
+	}
+
+	private void flushNow(ChannelHandlerContext ctx) {
+		this.pending = false;
+		this.pendingBytes = 0;
+		ctx.flush();
+	}
+
+	private static int sizeOf(Object msg) {
+		if (msg instanceof ByteBuf) {
+			return ((ByteBuf) msg).readableBytes();
+		}
+		if (msg instanceof ByteBufHolder) {
+			return ((ByteBufHolder) msg).content().readableBytes();
+		}
+		return 0;
+	}
+}
@@ -57,9 +57,6 @@ final class TCPNettyMessageHandler extends SimpleChannelInboundHandler<ByteBuf>
 		if (socketSender instanceof InetSocketAddress) {
 			InetSocketAddress sender = (InetSocketAddress) socketSender;
 
-			final int length = buf.readableBytes();
-			final byte[] data = new byte[length];
-			buf.readBytes(data);
 			TransportInfo source = TransportInfo.of(
 				TCPConstants.TCP_NAME,
 				StaticTransportMetadata.of(
@@ -67,7 +64,12 @@ final class TCPNettyMessageHandler extends SimpleChannelInboundHandler<ByteBuf>
 					TCPConstants.METADATA_TCP_PORT, String.valueOf(sender.getPort())
 				)
 			);
-			messageSink.accept(InboundMessage.of(source, data));
+			// No copy, the consumer is done with the buffer before it is released on return
+			// consumers keeping the message beyond this call retain a slice instead of copying it
+			messageSink.accept(InboundMessage.of(source, buf.nioBuffer(), () -> {
+				ByteBuf retained = buf.retainedSlice();
+				return InboundMessage.retained(source, retained.nioBuffer(), retained::release);
+			}));
 		} else if (logRateLimiter.tryAcquire()) {
 			String type = socketSender == null ? null : socketSender.getClass().getName();
 			String from = socketSender == null ? null : socketSender.toString();
@@ -14,16 +14,15 @@
  * either express or implied.  See the License for the specific
  * language governing permissions and limitations under the License.
  */
-
 package org.radix.network2.transport.tcp;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -32,8 +31,8 @@ import org.radix.logging.Logging;
 import org.radix.network2.transport.TransportMetadata;
 import org.radix.network2.transport.TransportOutboundConnection;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.RateLimiter;
 
 import io.netty.channel.Channel;
@@ -52,21 +51,121 @@ import io.netty.channel.ChannelHandler.Sharable;
  * an inbound connection (ie those in {@code channelMap}) are for the right
  * "application" on the remote host, so we would therefore need to open an
  * outbound connection regardless.
+ * <p>
+ * Up to {@link TCPConfiguration#channelsPerPeer(int)} channels are kept per host.
+ * Sends are spread over the writable channels of a host, and a further channel is
+ * only opened when none of the existing channels is writable, for example because
+ * a large transfer is in progress.
  */
 final class TCPTransportControlImpl implements TCPTransportControl {
 	private static final Logger log = Logging.getLogger("transport.tcp");
 
+	/**
+	 * The channels to a single host.
+	 */
+	private static final class HostChannels {
+		private static final SocketChannel[] NO_CHANNELS = new SocketChannel[0];
+
+		// Replaced as a whole while holding this, so readers need no lock
+		private volatile SocketChannel[] channels = NO_CHANNELS;
+		private final AtomicInteger next = new AtomicInteger();
+		// guarded by this
+		private CompletableFuture<Channel> connecting;
+
+		/**
+		 * Selects a channel to send on, or returns {@code null} if a new channel should be opened.
+		 */
+		private Channel select(int channelsPerPeer) {
+			SocketChannel[] snapshot = this.channels;
+			int size = snapshot.length;
+			if (size == 0) {
+				return null;
+			}
+			int start = Math.floorMod(this.next.getAndIncrement(), size);
+			Channel active = null;
+			for (int i = 0; i < size; ++i) {
+				SocketChannel ch = snapshot[(start + i) % size];
+				if (ch.isActive()) {
+					if (ch.isWritable()) {
+						return ch;
+					}
+					if (active == null) {
+						active = ch;
+					}
+				}
+			}
+			return size < channelsPerPeer ? null : active;
+		}
+
+		private synchronized CompletableFuture<Channel> connect(NettyTCPTransport transport, String host, int port) {
+			// Only one connection attempt per host at a time, concurrent senders share it
+			if (this.connecting == null) {
+				final CompletableFuture<Channel> cfch = new CompletableFuture<>();
+				this.connecting = cfch;
+				ChannelFuture cf = transport.createChannel(host, port);
+				cf.addListener(f -> {
+					synchronized (this) {
+						this.connecting = null;
+					}
+					Throwable cause = f.cause();
+					if (cause == null) {
+						cfch.complete(cf.channel());
+					} else {
+						cfch.completeExceptionally(cause);
+					}
+				});
+				// Listener may have run already if the connect completed synchronously
+				return cfch;
+			}
+			return this.connecting;
+		}
+
+		private synchronized void add(SocketChannel ch) {
+			for (SocketChannel existing : this.channels) {
+				if (existing == ch) {
+					return;
+				}
+			}
+			SocketChannel[] updated = Arrays.copyOf(this.channels, this.channels.length + 1);
+			updated[updated.length - 1] = ch;
+			this.channels = updated;
+		}
+
+		private synchronized boolean remove(SocketChannel ch) {
+			SocketChannel[] current = this.channels;
+			for (int i = 0; i < current.length; ++i) {
+				if (current[i] == ch) {
+					SocketChannel[] updated = new SocketChannel[current.length - 1];
+					System.arraycopy(current, 0, updated, 0, i);
+					System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+					this.channels = updated;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private synchronized boolean isUnused() {
+			return this.channels.length == 0 && this.connecting == null;
+		}
+
+		private int size() {
+			return this.channels.length;
+		}
+	}
+
 	@Sharable
 	private static class TCPConnectionHandlerChannelInbound extends ChannelInboundHandlerAdapter {
 		private final RateLimiter droppedChannelRateLimiter = RateLimiter.create(1.0);
 		private final AtomicLong droppedChannelCount = new AtomicLong();
-		private final Object lock = new Object();
 		private final AtomicInteger channelCount = new AtomicInteger();
-		private final Map<String, LinkedList<SocketChannel>> channelMap = Maps.newHashMap();
+		private final ConcurrentMap<String, HostChannels> channelMap = new ConcurrentHashMap<>();
 		private final int maxChannelCount;
+		private final int channelsPerPeer;
 
-		TCPConnectionHandlerChannelInbound(int maxChannelCount) {
+		TCPConnectionHandlerChannelInbound(int maxChannelCount, int channelsPerPeer) {
 			this.maxChannelCount = maxChannelCount;
+			this.channelsPerPeer = Math.max(1, channelsPerPeer);
 		}
 
 		@Override
@@ -96,9 +195,7 @@ final class TCPTransportControlImpl implements TCPTransportControl {
 			Channel ch = ctx.channel();
 			if (ch instanceof SocketChannel) {
 				this.channelCount.decrementAndGet();
-				synchronized (lock) {
-					cleanChannels("Remove");
-				}
+				removeChannel((SocketChannel) ch);
 			}
 		}
 
@@ -108,73 +205,68 @@ final class TCPTransportControlImpl implements TCPTransportControl {
 			TCPTransportOutboundConnectionFactory outboundFactory
 		) {
 			String host = metadata.get(TCPConstants.METADATA_TCP_HOST);
-			synchronized (lock) {
-				cleanChannels("Clean");
-				LinkedList<SocketChannel> items = this.channelMap.get(host);
-
-				final SocketChannel channel;
-				if (items != null && !items.isEmpty()) {
-					channel = items.stream().filter(SocketChannel::isActive).findFirst().orElse(null);
-				} else {
-					channel = null;
-				}
-				if (channel == null) {
-					int port = Integer.parseInt(metadata.get(TCPConstants.METADATA_TCP_PORT));
-					ChannelFuture cf = transport.createChannel(host, port);
-					final CompletableFuture<TransportOutboundConnection> cfsr = new CompletableFuture<>();
-					cf.addListener(f -> {
-						Throwable cause = f.cause();
-						if (cause == null) {
-							cfsr.complete(outboundFactory.create(cf.channel(), metadata));
-						} else {
-							cfsr.completeExceptionally(cause);
+			HostChannels hostChannels = this.channelMap.computeIfAbsent(host, k -> new HostChannels());
+			Channel channel = hostChannels.select(this.channelsPerPeer);
+			if (channel == null) {
+				int port = Integer.parseInt(metadata.get(TCPConstants.METADATA_TCP_PORT));
+				return hostChannels.connect(transport, host, port)
+					.whenComplete((ch, cause) -> {
+						if (cause != null) {
+							removeIfUnused(host, hostChannels);
 						}
-					});
-					return cfsr;
-				}
-				return CompletableFuture.completedFuture(outboundFactory.create(channel, metadata));
+					})
+					.thenApply(ch -> outboundFactory.create(ch, metadata));
 			}
+			return CompletableFuture.completedFuture(outboundFactory.create(channel, metadata));
 		}
 
 		void closeAll() {
 			final List<ChannelFuture> futures = Lists.newArrayList();
-			synchronized (lock) {
-				for (LinkedList<SocketChannel> channels : this.channelMap.values()) {
-					channels.stream()
-						.map(Channel::close)
-						.forEachOrdered(futures::add);
-					channels.clear();
+			for (HostChannels hostChannels : this.channelMap.values()) {
+				for (SocketChannel ch : hostChannels.channels) {
+					futures.add(ch.close());
 				}
 			}
+			this.channelMap.clear();
 			futures.forEach(ChannelFuture::syncUninterruptibly);
 		}
 
+		@VisibleForTesting
+		int channelCount(String host) {
+			HostChannels hostChannels = this.channelMap.get(host);
+			return hostChannels == null ? 0 : hostChannels.size();
+		}
+
 		private void addChannel(SocketChannel ch) {
-			String host = ch.remoteAddress().getAddress().getHostAddress();
-			synchronized (lock) {
-				this.channelMap.computeIfAbsent(host, k -> Lists.newLinkedList()).addFirst(ch);
-				channelInfo("Add", ch);
-			}
+			String host = hostOf(ch);
+			// Atomic with removal of unused hosts
+			this.channelMap.compute(host, (k, hostChannels) -> {
+				HostChannels updated = hostChannels == null ? new HostChannels() : hostChannels;
+				updated.add(ch);
+				return updated;
+			});
+			channelInfo("Add", ch);
 		}
 
-		// Requires "lock" to be held
-		private void cleanChannels(String where) {
-			for (Iterator<Map.Entry<String, LinkedList<SocketChannel>>> i = this.channelMap.entrySet().iterator(); i.hasNext(); /* */) {
-				Map.Entry<String, LinkedList<SocketChannel>> entry = i.next();
-				for (Iterator<SocketChannel> j = entry.getValue().iterator(); j.hasNext(); /* */) {
-					SocketChannel ch = j.next();
-					if (!ch.isOpen()) {
-						channelInfo(where, ch);
-						j.remove();
-					}
-				}
-				if (entry.getValue().isEmpty()) {
-					// Remove dangling empty lists from map
-					i.remove();
-				}
+		private void removeChannel(SocketChannel ch) {
+			// The remote address is cached by the channel, so is still available once closed
+			String host = hostOf(ch);
+			HostChannels hostChannels = this.channelMap.get(host);
+			if (hostChannels != null && hostChannels.remove(ch)) {
+				channelInfo("Remove", ch);
+				removeIfUnused(host, hostChannels);
 			}
 		}
 
+		private void removeIfUnused(String host, HostChannels hostChannels) {
+			// Hosts with a connection attempt in progress are kept
+			this.channelMap.computeIfPresent(host, (k, v) -> v == hostChannels && v.isUnused() ? null : v);
+		}
+
+		private String hostOf(SocketChannel ch) {
+			return ch.remoteAddress().getAddress().getHostAddress();
+		}
+
 		private void channelInfo(String what, SocketChannel c) {
 			if (log.hasLevel(Logging.DEBUG)) {
 				log.debug(String.format("%s: %s channel from %s to %s",
@@ -194,7 +286,7 @@ final class TCPTransportControlImpl implements TCPTransportControl {
 	TCPTransportControlImpl(TCPConfiguration config, TCPTransportOutboundConnectionFactory outboundFactory, NettyTCPTransport transport) {
 		this.outboundFactory = outboundFactory;
 		this.transport = transport;
-		this.handler = new TCPConnectionHandlerChannelInbound(config.maxChannelCount(1024));
+		this.handler = new TCPConnectionHandlerChannelInbound(config.maxChannelCount(1024), config.channelsPerPeer(1));
 	}
 
 	@Override
@@ -211,4 +303,9 @@ final class TCPTransportControlImpl implements TCPTransportControl {
 	public ChannelInboundHandler handler() {
 		return this.handler;
 	}
+
+	@VisibleForTesting
+	int channelCount(String host) {
+		return this.handler.channelCount(host);
+	}
 }
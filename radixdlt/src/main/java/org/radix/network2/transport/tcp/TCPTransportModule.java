@@ -22,6 +22,8 @@ import java.util.Objects;
 import org.radix.network2.transport.StaticTransportMetadata;
 import org.radix.network2.transport.Transport;
 import org.radix.network2.transport.TransportMetadata;
+import org.radix.network2.transport.netty.NettyConfiguration;
+import org.radix.network2.transport.netty.NettyModule;
 import org.radix.properties.RuntimeProperties;
 
 import com.google.inject.AbstractModule;
@@ -33,13 +35,19 @@ import com.google.inject.name.Names;
  */
 public class TCPTransportModule extends AbstractModule {
 	private final TCPConfiguration config;
+	private final NettyConfiguration nettyConfig;
 
 	public TCPTransportModule(RuntimeProperties properties) {
-		this(TCPConfiguration.fromRuntimeProperties(properties));
+		this(TCPConfiguration.fromRuntimeProperties(properties), NettyConfiguration.fromRuntimeProperties(properties));
 	}
 
 	public TCPTransportModule(TCPConfiguration config) {
+		this(config, NettyConfiguration.defaults());
+	}
+
+	public TCPTransportModule(TCPConfiguration config, NettyConfiguration nettyConfig) {
 		this.config = Objects.requireNonNull(config);
+		this.nettyConfig = Objects.requireNonNull(nettyConfig);
 	}
 
 	@Override
@@ -52,6 +60,7 @@ public class TCPTransportModule extends AbstractModule {
 		bind(NettyTCPTransport.class).to(NettyTCPTransportImpl.class);
 
 		// NettyTCPTransportImpl dependencies
+		install(new NettyModule(this.nettyConfig));
 		bind(TCPConfiguration.class).toInstance(this.config);
 		bind(TransportMetadata.class).annotatedWith(Names.named("local")).toInstance(StaticTransportMetadata.empty()); // Use defaults
 		bind(TCPTransportOutboundConnectionFactory.class).toProvider(this::tcpTransportOutboundConnectionFactoryProvider);
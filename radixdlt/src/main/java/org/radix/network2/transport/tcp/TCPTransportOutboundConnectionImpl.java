@@ -61,9 +61,10 @@ final class TCPTransportOutboundConnectionImpl implements TransportOutboundConne
 		if (dataLength > TCPConstants.MAX_PACKET_LENGTH) {
 			cfsr.complete(SendResult.failure(new IOException("TCP packet to " + remoteAddr + " of size " + dataLength + " is too large")));
 		} else {
-			ByteBuf buffer = this.channel.alloc().directBuffer(dataLength).writeBytes(data);
+			// Pooled buffer, released once written. Flushing is left to TCPFlushCoalescingHandler.
+			ByteBuf buffer = this.channel.alloc().ioBuffer(dataLength).writeBytes(data);
 
-			this.channel.writeAndFlush(buffer).addListener(f -> {
+			this.channel.write(buffer).addListener(f -> {
 				Throwable cause = f.cause();
 				if (cause == null) {
 					cfsr.complete(SendResult.complete());
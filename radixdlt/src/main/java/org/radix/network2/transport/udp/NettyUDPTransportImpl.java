@@ -21,6 +21,8 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.radix.logging.Logger;
@@ -33,6 +35,7 @@ import org.radix.network2.transport.TransportMetadata;
 import org.radix.network2.transport.TransportOutboundConnection;
 import org.radix.network2.transport.netty.LogSink;
 import org.radix.network2.transport.netty.LoggingHandler;
+import org.radix.network2.transport.netty.NettyEventLoops;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
@@ -40,10 +43,8 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.FixedRecvByteBufAllocator;
-import io.netty.channel.MultithreadEventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.socket.DatagramChannel;
-import io.netty.channel.socket.nio.NioDatagramChannel;
 
 final class NettyUDPTransportImpl implements Transport {
 	private static final Logger log = Logging.getLogger("transport.udp");
@@ -68,9 +69,11 @@ final class NettyUDPTransportImpl implements Transport {
 	private final AtomicInteger threadCounter = new AtomicInteger(0);
 	private final InetSocketAddress bindAddress;
 	private final PublicInetAddress natHandler;
+	private final NettyEventLoops eventLoops;
 	private final Object channelLock = new Object();
 
 	private DatagramChannel channel;
+	private final List<DatagramChannel> reusePortChannels = new ArrayList<>();
 	private TransportOutboundConnection outbound;
 	private TransportControl control;
 
@@ -81,7 +84,8 @@ final class NettyUDPTransportImpl implements Transport {
 		@Named("local") TransportMetadata localMetadata,
 		UDPTransportControlFactory controlFactory,
 		UDPTransportOutboundConnectionFactory connectionFactory,
-		PublicInetAddress natHandler
+		PublicInetAddress natHandler,
+		NettyEventLoops eventLoops
 	) {
 		String providedHost = localMetadata.get(UDPConstants.METADATA_UDP_HOST);
 		if (providedHost == null) {
@@ -107,6 +111,7 @@ final class NettyUDPTransportImpl implements Transport {
 		this.priority = config.priority(1000);
 		this.bindAddress = new InetSocketAddress(providedHost, port);
 		this.natHandler = natHandler;
+		this.eventLoops = eventLoops;
 	}
 
 	@Override
@@ -136,54 +141,67 @@ final class NettyUDPTransportImpl implements Transport {
 
 	@Override
 	public void start(InboundMessageConsumer messageSink) {
-		log.info(String.format("UDP transport %s, threads: %s", localAddress(), inboundProcessingThreads));
-		MultithreadEventLoopGroup group = new NioEventLoopGroup(inboundProcessingThreads, this::createThread);
-
-	    Bootstrap b = new Bootstrap();
-	    b.group(group)
-	        .channel(NioDatagramChannel.class)
-	        .handler(new ChannelInitializer<NioDatagramChannel>() {
-	            @Override
-	            public void initChannel(NioDatagramChannel ch) throws Exception {
-	            	ch.config()
-	            		.setReceiveBufferSize(RCV_BUF_SIZE)
-	            		.setSendBufferSize(SND_BUF_SIZE)
-	            		.setOption(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(MAX_DATAGRAM_SIZE));
-	        		if (log.hasLevel(Logging.DEBUG)) {
-	        			LogSink ls = LogSink.forDebug(log);
-	        			ch.pipeline()
-	        				.addLast(new LoggingHandler(ls, DEBUG_DATA));
-	        		}
-	                ch.pipeline()
-	                	.addLast("onboard", new UDPNettyMessageHandler(natHandler, messageSink));
-	            }
-	        });
-	    try {
-	    	synchronized (channelLock) {
-	    		close();
-	    		this.channel = (DatagramChannel) b.bind(bindAddress).sync().channel();
-	    		this.control = controlFactory.create(this.channel, connectionFactory);
-	    	}
-	    } catch (InterruptedException e) {
-	    	// Abort!
-	    	Thread.currentThread().interrupt();
-	    } catch (IOException e) {
-	    	throw new UncheckedIOException("Error while opening channel", e);
+		log.info(String.format("UDP transport %s, threads: %s, event loops: %s", localAddress(), inboundProcessingThreads, eventLoops));
+		EventLoopGroup group = eventLoops.workerGroup(inboundProcessingThreads, this::createThread);
+
+		Bootstrap b = new Bootstrap();
+		b.group(group)
+			.channel(eventLoops.datagramChannelClass())
+			.handler(new ChannelInitializer<DatagramChannel>() {
+				@Override
+				public void initChannel(DatagramChannel ch) throws Exception {
+					ch.config()
+						.setReceiveBufferSize(RCV_BUF_SIZE)
+						.setSendBufferSize(SND_BUF_SIZE)
+						.setOption(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(MAX_DATAGRAM_SIZE));
+					if (log.hasLevel(Logging.DEBUG)) {
+						LogSink ls = LogSink.forDebug(log);
+						ch.pipeline()
+							.addLast(new LoggingHandler(ls, DEBUG_DATA));
+					}
+					ch.pipeline()
+						.addLast("onboard", new UDPNettyMessageHandler(natHandler, messageSink));
+				}
+			});
+		// With SO_REUSEPORT, the kernel spreads inbound datagrams over one channel per thread
+		final int channelCount = eventLoops.supportsReusePort() ? Math.max(1, inboundProcessingThreads) : 1;
+		if (channelCount > 1) {
+			eventLoops.enableReusePort(b);
+		}
+		try {
+			synchronized (channelLock) {
+				close();
+				this.channel = (DatagramChannel) b.bind(bindAddress).sync().channel();
+				for (int i = 1; i < channelCount; ++i) {
+					// Bind to the actual address, in case an ephemeral port was requested
+					this.reusePortChannels.add((DatagramChannel) b.bind(this.channel.localAddress()).sync().channel());
+				}
+				this.control = controlFactory.create(this.channel, connectionFactory);
+			}
+		} catch (InterruptedException e) {
+			// Abort!
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error while opening channel", e);
 		}
 	}
 
 	@Override
 	public void close() throws IOException {
-    	synchronized (this.channelLock) {
-    		closeSafely(control);
-    		closeSafely(outbound);
-    		if (channel != null) {
-    			closeSafely(channel::close);
-    		}
-    		this.control = null;
-    		this.outbound = null;
-    		this.channel = null;
-    	}
+		synchronized (this.channelLock) {
+			closeSafely(control);
+			closeSafely(outbound);
+			if (channel != null) {
+				closeSafely(channel::close);
+			}
+			for (DatagramChannel reusePortChannel : reusePortChannels) {
+				closeSafely(reusePortChannel::close);
+			}
+			this.reusePortChannels.clear();
+			this.control = null;
+			this.outbound = null;
+			this.channel = null;
+		}
 	}
 
 	@Override
@@ -58,10 +58,7 @@ final class UDPNettyMessageHandler extends SimpleChannelInboundHandler<DatagramP
 			natHandler.handleInboundPacket(ctx, peerAddress, buf);
 
 			// NAT validated, just make the message available
-			// Clone data and put in queue
-			final int length = buf.readableBytes();
-			final byte[] data = new byte[length];
-			buf.readBytes(data);
+			// No copy, the consumer is done with the buffer before it is released on return
 			TransportInfo source = TransportInfo.of(
 				UDPConstants.UDP_NAME,
 				StaticTransportMetadata.of(
@@ -69,7 +66,11 @@ final class UDPNettyMessageHandler extends SimpleChannelInboundHandler<DatagramP
 					UDPConstants.METADATA_UDP_PORT, String.valueOf(sender.getPort())
 				)
 			);
-			messageSink.accept(InboundMessage.of(source, data));
+			// consumers keeping the message beyond this call retain a slice instead of copying it
+			messageSink.accept(InboundMessage.of(source, buf.nioBuffer(), () -> {
+				ByteBuf retained = buf.retainedSlice();
+				return InboundMessage.retained(source, retained.nioBuffer(), retained::release);
+			}));
 		}
 	}
 
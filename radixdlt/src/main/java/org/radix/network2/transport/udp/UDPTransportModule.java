@@ -22,6 +22,8 @@ import java.util.Objects;
 import org.radix.network2.transport.StaticTransportMetadata;
 import org.radix.network2.transport.Transport;
 import org.radix.network2.transport.TransportMetadata;
+import org.radix.network2.transport.netty.NettyConfiguration;
+import org.radix.network2.transport.netty.NettyModule;
 import org.radix.properties.RuntimeProperties;
 
 import com.google.inject.AbstractModule;
@@ -33,13 +35,19 @@ import com.google.inject.name.Names;
  */
 public class UDPTransportModule extends AbstractModule {
 	private final UDPConfiguration config;
+	private final NettyConfiguration nettyConfig;
 
 	public UDPTransportModule(RuntimeProperties properties) {
-		this(UDPConfiguration.fromRuntimeProperties(properties));
+		this(UDPConfiguration.fromRuntimeProperties(properties), NettyConfiguration.fromRuntimeProperties(properties));
 	}
 
 	public UDPTransportModule(UDPConfiguration config) {
+		this(config, NettyConfiguration.defaults());
+	}
+
+	public UDPTransportModule(UDPConfiguration config, NettyConfiguration nettyConfig) {
 		this.config = Objects.requireNonNull(config);
+		this.nettyConfig = Objects.requireNonNull(nettyConfig);
 	}
 
 	@Override
@@ -49,6 +57,7 @@ public class UDPTransportModule extends AbstractModule {
 	     transportMultibinder.addBinding().to(NettyUDPTransportImpl.class);
 
 		// NettyUDPTransportImpl dependencies
+		install(new NettyModule(nettyConfig));
 		bind(UDPConfiguration.class).toInstance(config);
 		bind(TransportMetadata.class).annotatedWith(Names.named("local")).toInstance(StaticTransportMetadata.empty()); // Use defaults for now
 		bind(UDPTransportControlFactory.class).toProvider(this::udpTransportControlFactoryProvider);
@@ -17,6 +17,7 @@
 
 package org.radix.universe.system;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -66,6 +67,8 @@ public class RadixSystem extends BasicContainer
 
 	private ECPublicKey		key;
 
+	private String			compression;
+
 	public RadixSystem()
 	{
 		super();
@@ -94,6 +97,7 @@ public class RadixSystem extends BasicContainer
 		this.transports = system.transports;
 		this.key = system.getKey();
 		this.shards = system.shards;
+		this.compression = system.compression;
 	}
 
 	public RadixSystem(ECPublicKey key, String agent, int agentVersion, int protocolVersion, ImmutableList<TransportInfo> transports)
@@ -161,15 +165,38 @@ public class RadixSystem extends BasicContainer
 		return this.key == null ? EUID.ZERO : this.key.getUID();
 	}
 
+	/**
+	 * Gets the id of the dictionary compression codec supported by this system,
+	 * or {@code null} if messages to this system can only be compressed with Snappy.
+	 */
+	public String getCompression()
+	{
+		return this.compression;
+	}
+
+	public void setCompression(String compression)
+	{
+		this.compression = compression;
+	}
+
 	// Property "agent" - 1 getter, 1 setter
 	// FIXME: Should be included in a serializable class
 	@JsonProperty("agent")
 	@DsonOutput(Output.ALL)
 	Map<String, Object> getJsonAgent() {
-		return mapOf(
+		if (this.compression == null) {
+			return mapOf(
+					"name", this.agent,
+					"version", this.agentVersion,
+					"protocol", this.protocolVersion);
+		}
+		// only included when set, so that systems without it serialize as before
+		Map<String, Object> agent = new HashMap<>(mapOf(
 				"name", this.agent,
 				"version", this.agentVersion,
-				"protocol", this.protocolVersion);
+				"protocol", this.protocolVersion));
+		agent.put("compression", this.compression);
+		return agent;
 	}
 
 	@JsonProperty("agent")
@@ -177,6 +204,8 @@ public class RadixSystem extends BasicContainer
 		this.agent = (String) props.get("name");
 		this.agentVersion = ((Number) props.get("version")).intValue();
 		this.protocolVersion = ((Number) props.get("protocol")).intValue();
+		// not present for legacy systems
+		this.compression = (String) props.get("compression");
 	}
 
 	// Property "key" - 1 getter, 1 setter
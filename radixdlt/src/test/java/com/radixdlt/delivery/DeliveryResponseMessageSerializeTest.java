@@ -0,0 +1,54 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.delivery;
+
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.AID;
+import com.radixdlt.crypto.Hash;
+import com.radixdlt.delivery.messages.DeliveryResponseMessage;
+import com.radixdlt.store.LedgerEntry;
+import com.radixdlt.serialization.DsonOutput.Output;
+import org.junit.Test;
+import org.radix.serialization.SerializeMessageObject;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Check serialization of batched DeliveryResponseMessage
+ */
+public class DeliveryResponseMessageSerializeTest extends SerializeMessageObject<DeliveryResponseMessage> {
+	public DeliveryResponseMessageSerializeTest() {
+		super(DeliveryResponseMessage.class, DeliveryResponseMessageSerializeTest::get);
+	}
+
+	private static DeliveryResponseMessage get() {
+		return new DeliveryResponseMessage(ImmutableList.of(
+			new LedgerEntry("{\"test\":\"first\"}".getBytes(), AID.from(Hash.ZERO_HASH.toByteArray())),
+			new LedgerEntry("{\"test\":\"second\"}".getBytes(), AID.from(Hash.hash256("second".getBytes())))
+		), 1);
+	}
+
+	@Test
+	public void single_entry_responses_are_read_as_lists() throws Exception {
+		LedgerEntry ledgerEntry = new LedgerEntry("{\"test\":\"single\"}".getBytes(), AID.from(Hash.ZERO_HASH.toByteArray()));
+		byte[] dson = getSerialization().toDson(new DeliveryResponseMessage(ledgerEntry, 1), Output.WIRE);
+
+		DeliveryResponseMessage decoded = getSerialization().fromDson(dson, DeliveryResponseMessage.class);
+		assertEquals(ImmutableList.of(ledgerEntry), decoded.getLedgerEntries());
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.delivery;
+
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.EUID;
+import org.junit.Test;
+import org.radix.network2.addressbook.Peer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PeerScoresTest {
+	private final AtomicLong clock = new AtomicLong();
+
+	private static Peer peer(int id) {
+		Peer peer = mock(Peer.class);
+		when(peer.getNID()).thenReturn(new EUID(id));
+		return peer;
+	}
+
+	@Test
+	public void faster_peers_are_ranked_first() {
+		PeerScores scores = new PeerScores(1000, clock::get);
+		Peer slow = peer(1);
+		Peer fast = peer(2);
+		Peer unknown = peer(3);
+		for (int i = 0; i < 10; i++) {
+			scores.recordSuccess(slow.getNID(), 2000);
+			scores.recordSuccess(fast.getNID(), 100);
+		}
+
+		assertThat(scores.rank(ImmutableList.of(slow, unknown, fast))).containsExactly(fast, unknown, slow);
+	}
+
+	@Test
+	public void failures_worsen_score() {
+		PeerScores scores = new PeerScores(1000, clock::get);
+		EUID nid = new EUID(1);
+		scores.recordSuccess(nid, 100);
+		double before = scores.score(nid);
+		scores.recordFailure(nid);
+		assertThat(scores.score(nid)).isGreaterThan(before);
+	}
+
+	@Test
+	public void latency_percentile_requires_enough_samples() {
+		PeerScores scores = new PeerScores(1000, clock::get);
+		EUID nid = new EUID(1);
+		assertThat(scores.latencyP95(nid, 500)).isEqualTo(500L);
+		for (int i = 1; i <= 20; i++) {
+			scores.recordSuccess(nid, i * 10L);
+		}
+		assertThat(scores.latencyP95(nid, 500)).isEqualTo(190L);
+	}
+
+	@Test
+	public void scores_of_idle_peers_expire() {
+		PeerScores scores = new PeerScores(1000, clock::get);
+		EUID idle = new EUID(1);
+		EUID active = new EUID(2);
+		scores.recordFailure(idle);
+
+		clock.addAndGet(PeerScores.SCORE_EXPIRY_MILLIS + 1);
+		scores.recordFailure(active);
+
+		assertThat(scores.score(idle)).isEqualTo(1000.0);
+		assertThat(scores.score(active)).isGreaterThan(1000.0);
+	}
+}
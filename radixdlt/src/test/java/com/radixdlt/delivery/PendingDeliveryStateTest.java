@@ -0,0 +1,65 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.delivery;
+
+import com.google.common.collect.ImmutableSet;
+import com.radixdlt.common.AID;
+import com.radixdlt.common.EUID;
+import org.junit.Test;
+import org.radix.network2.addressbook.Peer;
+
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PendingDeliveryStateTest {
+	private static final Comparator<Peer> ANY_ORDER = (a, b) -> 0;
+
+	private static Peer peer(int id) {
+		Peer peer = mock(Peer.class);
+		when(peer.getNID()).thenReturn(new EUID(id));
+		return peer;
+	}
+
+	private static AID aid(int id) {
+		byte[] bytes = new byte[AID.BYTES];
+		bytes[0] = (byte) id;
+		return AID.from(bytes);
+	}
+
+	@Test
+	public void peers_announcing_a_pending_aid_are_merged_into_its_fallbacks() {
+		PendingDeliveryState state = new PendingDeliveryState();
+		AID aid = aid(1);
+		Peer discovering = peer(1);
+		Peer announcing = peer(2);
+
+		assertThat(state.add(aid, discovering, ImmutableSet.of(discovering), new CompletableFuture<>())).isTrue();
+		assertThat(state.add(aid, announcing, ImmutableSet.of(announcing), new CompletableFuture<>())).isFalse();
+		// repeated announcements do not add duplicates
+		state.add(aid, announcing, ImmutableSet.of(peer(2)), new CompletableFuture<>());
+
+		assertThat(state.popFallback(aid, ANY_ORDER, discovering.getNID())).isSameAs(announcing);
+		assertThat(state.popFallback(aid, ANY_ORDER, discovering.getNID())).isNull();
+		assertThat(state.popFallback(aid, ANY_ORDER, null)).isSameAs(discovering);
+		assertThat(state.popFallback(aid, ANY_ORDER, null)).isNull();
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.discovery;
+
+import com.radixdlt.consensus.tempo.Scheduler;
+import com.radixdlt.discovery.messages.GossipInventoryMessage;
+import com.radixdlt.store.LedgerEntryStoreView;
+import com.radixdlt.universe.Universe;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.radix.events.Events;
+import org.radix.network2.messaging.MessageCentral;
+import org.radix.network2.messaging.MessageListener;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class GossipDiscovererTest {
+	@Test
+	@SuppressWarnings("unchecked")
+	public void message_listener_is_removed_on_close() {
+		MessageCentral messageCentral = mock(MessageCentral.class);
+		GossipDiscoverer discoverer = new GossipDiscoverer(mock(LedgerEntryStoreView.class), mock(Scheduler.class), () -> 0L,
+			messageCentral, mock(Events.class), mock(GossipDiscovererConfiguration.class), mock(Universe.class));
+
+		ArgumentCaptor<MessageListener<GossipInventoryMessage>> inventoryListener = ArgumentCaptor.forClass(MessageListener.class);
+		verify(messageCentral).addListener(eq(GossipInventoryMessage.class), inventoryListener.capture());
+
+		discoverer.close();
+
+		verify(messageCentral).removeListener(GossipInventoryMessage.class, inventoryListener.getValue());
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.radixdlt.discovery;
+
+import com.radixdlt.common.AID;
+import com.radixdlt.common.EUID;
+import com.radixdlt.crypto.Hash;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GossipSeenSetTest {
+	private static final EUID SOURCE = new EUID(1);
+
+	private static AID aid(String seed) {
+		return AID.from(Hash.hash256(seed.getBytes()));
+	}
+
+	@Test
+	public void aids_are_only_added_once_within_timeout() {
+		GossipSeenSet seen = new GossipSeenSet(1000, 10);
+		assertThat(seen.add(aid("a"), SOURCE, 0)).isTrue();
+		assertThat(seen.add(aid("a"), null, 500)).isFalse();
+		assertThat(seen.getSource(aid("a"))).isEqualTo(SOURCE);
+
+		assertThat(seen.add(aid("a"), null, 1500)).isTrue();
+		assertThat(seen.getSource(aid("a"))).isNull();
+	}
+
+	@Test
+	public void oldest_aids_are_evicted_beyond_max_size() {
+		GossipSeenSet seen = new GossipSeenSet(1000, 2);
+		seen.add(aid("a"), SOURCE, 0);
+		seen.add(aid("b"), SOURCE, 0);
+		seen.add(aid("c"), SOURCE, 0);
+
+		assertThat(seen.size()).isEqualTo(2);
+		assertThat(seen.add(aid("a"), SOURCE, 0)).isTrue();
+		assertThat(seen.add(aid("c"), SOURCE, 0)).isFalse();
+	}
+}
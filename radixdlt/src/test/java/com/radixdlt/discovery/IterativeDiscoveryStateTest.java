@@ -0,0 +1,127 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.discovery;
+
+import com.radixdlt.common.EUID;
+import com.radixdlt.discovery.IterativeDiscoveryState.PageCompletion;
+import com.radixdlt.discovery.IterativeDiscoveryState.PageRequest;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IterativeDiscoveryStateTest {
+	private static final EUID NID = new EUID(1);
+
+	private IterativeDiscoveryState state;
+
+	@Before
+	public void setUp() {
+		state = new IterativeDiscoveryState(10, 80, 100);
+		state.add(NID);
+		state.startRound(NID, 0, 0);
+	}
+
+	@Test
+	public void requests_are_limited_by_window() {
+		assertThat(state.nextRequest(NID, 2, 0).get().getPosition()).isEqualTo(0L);
+		assertThat(state.nextRequest(NID, 2, 0).get().getPosition()).isEqualTo(10L);
+		assertThat(state.nextRequest(NID, 2, 0)).isEmpty();
+		assertThat(state.isPending(NID, 0)).isTrue();
+		assertThat(state.isPending(NID, 10)).isTrue();
+	}
+
+	@Test
+	public void page_size_grows_on_fast_full_pages_and_is_capped() {
+		for (int i = 0; i < 5; i++) {
+			PageRequest page = state.nextRequest(NID, 1, 0).get();
+			assertThat(state.completeRequest(NID, page.getPosition(), page.getLimit(), 0, 50)).isEqualTo(PageCompletion.IN_PROGRESS);
+		}
+		assertThat(state.getStats(NID).getPageSize()).isEqualTo(80);
+		assertThat(state.getCursorPosition(NID)).isEqualTo(10L + 20 + 40 + 80 + 80);
+	}
+
+	@Test
+	public void cursor_only_advances_over_contiguous_pages() {
+		PageRequest first = state.nextRequest(NID, 2, 0).get();
+		PageRequest second = state.nextRequest(NID, 2, 0).get();
+
+		state.completeRequest(NID, second.getPosition(), second.getLimit(), 0, 500);
+		assertThat(state.getCursorPosition(NID)).isEqualTo(0L);
+
+		state.completeRequest(NID, first.getPosition(), first.getLimit(), 0, 500);
+		assertThat(state.getCursorPosition(NID)).isEqualTo(20L);
+	}
+
+	@Test
+	public void round_completes_once_partial_page_and_all_pending_are_done() {
+		PageRequest first = state.nextRequest(NID, 2, 0).get();
+		PageRequest second = state.nextRequest(NID, 2, 0).get();
+
+		assertThat(state.completeRequest(NID, second.getPosition(), 3, 0, 500)).isEqualTo(PageCompletion.IN_PROGRESS);
+		assertThat(state.nextRequest(NID, 2, 0)).isEmpty();
+		assertThat(state.completeRequest(NID, first.getPosition(), first.getLimit(), 0, 500)).isEqualTo(PageCompletion.ROUND_COMPLETE);
+		assertThat(state.getCursorPosition(NID)).isEqualTo(13L);
+		assertThat(state.completeRequest(NID, first.getPosition(), first.getLimit(), 0, 500)).isEqualTo(PageCompletion.STALE);
+	}
+
+	@Test
+	public void remainder_of_page_truncated_by_peer_limit_is_requested() {
+		PageRequest page = state.nextRequest(NID, 1, 0).get();
+		state.completeRequest(NID, page.getPosition(), page.getLimit(), 0, 50);
+		PageRequest large = state.nextRequest(NID, 1, 0).get();
+		assertThat(large.getLimit()).isEqualTo(20);
+
+		// peer only serves 15 at a time
+		state.completeRequest(NID, large.getPosition(), 15, 15, 50);
+		PageRequest remainder = state.nextRequest(NID, 1, 0).get();
+		assertThat(remainder.getPosition()).isEqualTo(25L);
+		assertThat(remainder.getLimit()).isEqualTo(5);
+
+		state.completeRequest(NID, remainder.getPosition(), 5, 15, 50);
+		assertThat(state.getCursorPosition(NID)).isEqualTo(30L);
+		assertThat(state.nextRequest(NID, 1, 0).get().getLimit()).isEqualTo(15);
+	}
+
+	@Test
+	public void bulk_is_limited_to_max_peers_and_resets_page_size() {
+		EUID other = new EUID(2);
+		state.add(other);
+		PageRequest page = state.nextRequest(NID, 1, 0).get();
+		state.completeRequest(NID, page.getPosition(), page.getLimit(), 0, 50);
+
+		assertThat(state.setBulk(NID, true, 1)).isTrue();
+		assertThat(state.setBulk(other, true, 1)).isFalse();
+		assertThat(state.getStats(NID).getPageSize()).isEqualTo(10);
+		assertThat(state.nextRequest(NID, 1, 0).get().isBulk()).isTrue();
+
+		assertThat(state.setBulk(NID, false, 1)).isTrue();
+		assertThat(state.setBulk(other, true, 1)).isTrue();
+	}
+
+	@Test
+	public void removing_bulk_peer_releases_its_slot() {
+		EUID other = new EUID(2);
+		state.add(other);
+
+		assertThat(state.setBulk(NID, true, 1)).isTrue();
+		state.remove(NID);
+		assertThat(state.setBulk(NID, true, 1)).isFalse();
+		assertThat(state.setBulk(other, true, 1)).isTrue();
+	}
+}
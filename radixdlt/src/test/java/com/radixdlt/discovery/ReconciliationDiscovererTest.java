@@ -0,0 +1,60 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.discovery;
+
+import com.radixdlt.consensus.tempo.Scheduler;
+import com.radixdlt.discovery.messages.ReconciliationRequestMessage;
+import com.radixdlt.discovery.messages.ReconciliationResponseMessage;
+import com.radixdlt.store.LedgerEntryStoreView;
+import com.radixdlt.universe.Universe;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.radix.events.Events;
+import org.radix.network2.messaging.DispatchPolicy;
+import org.radix.network2.messaging.MessageCentral;
+import org.radix.network2.messaging.MessageListener;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReconciliationDiscovererTest {
+	@Test
+	@SuppressWarnings("unchecked")
+	public void message_listeners_are_removed_on_close() {
+		MessageCentral messageCentral = mock(MessageCentral.class);
+		ReconciliationDiscovererConfiguration configuration = mock(ReconciliationDiscovererConfiguration.class);
+		when(configuration.requestProcessorThreads(anyInt())).thenReturn(1);
+		ReconciliationDiscoverer discoverer = new ReconciliationDiscoverer(mock(LedgerEntryStoreView.class), mock(Scheduler.class),
+			messageCentral, mock(Events.class), configuration, mock(Universe.class));
+
+		ArgumentCaptor<MessageListener<ReconciliationRequestMessage>> requestListener = ArgumentCaptor.forClass(MessageListener.class);
+		ArgumentCaptor<MessageListener<ReconciliationResponseMessage>> responseListener = ArgumentCaptor.forClass(MessageListener.class);
+		// requests read from the store, so are not dispatched on the shared lane
+		verify(messageCentral).addListener(eq(ReconciliationRequestMessage.class), requestListener.capture(), any(DispatchPolicy.class));
+		verify(messageCentral).addListener(eq(ReconciliationResponseMessage.class), responseListener.capture());
+
+		discoverer.close();
+
+		verify(messageCentral).removeListener(ReconciliationRequestMessage.class, requestListener.getValue());
+		verify(messageCentral).removeListener(ReconciliationResponseMessage.class, responseListener.getValue());
+	}
+}
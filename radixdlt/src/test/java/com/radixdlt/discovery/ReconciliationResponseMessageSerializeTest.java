@@ -0,0 +1,42 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.radixdlt.discovery;
+
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.AID;
+import com.radixdlt.crypto.Hash;
+import com.radixdlt.discovery.messages.ReconciliationResponseMessage;
+import com.radixdlt.store.BucketDigest;
+import org.radix.serialization.SerializeMessageObject;
+
+/**
+ * Check serialization of ReconciliationResponseMessage
+ */
+public class ReconciliationResponseMessageSerializeTest extends SerializeMessageObject<ReconciliationResponseMessage> {
+	public ReconciliationResponseMessageSerializeTest() {
+		super(ReconciliationResponseMessage.class, ReconciliationResponseMessageSerializeTest::get);
+	}
+
+	private static ReconciliationResponseMessage get() {
+		return new ReconciliationResponseMessage(
+			2,
+			ImmutableList.of(new BucketDigest(1, 2L, 0x1234_5678_9ABC_DEF0L), new BucketDigest(513, 1L, -1L)),
+			ImmutableList.of(AID.from(Hash.hash256("first".getBytes()))),
+			1
+		);
+	}
+}
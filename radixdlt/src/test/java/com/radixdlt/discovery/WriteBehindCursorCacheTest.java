@@ -0,0 +1,115 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.discovery;
+
+import com.google.common.collect.ImmutableMap;
+import com.radixdlt.common.EUID;
+import com.radixdlt.consensus.tempo.Scheduler;
+import com.radixdlt.consensus.tempo.TempoException;
+import com.radixdlt.store.CursorStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WriteBehindCursorCacheTest {
+	private static final EUID NID = new EUID(1);
+
+	private CursorStore cursorStore;
+	private Scheduler scheduler;
+	private List<Runnable> scheduled;
+
+	@Before
+	public void setUp() {
+		cursorStore = mock(CursorStore.class);
+		when(cursorStore.get(any())).thenReturn(OptionalLong.empty());
+		scheduled = new ArrayList<>();
+		scheduler = mock(Scheduler.class);
+		doAnswer(invocation -> {
+			scheduled.add(invocation.getArgument(0));
+			return null;
+		}).when(scheduler).schedule(any(), anyLong(), any(TimeUnit.class));
+	}
+
+	@Test
+	public void cursors_are_cached_and_written_in_batches() {
+		WriteBehindCursorCache cache = new WriteBehindCursorCache(cursorStore, scheduler, 1000, 10, 1000);
+		cache.advance(NID, 5);
+		cache.advance(NID, 10);
+		cache.advance(NID, 7);
+
+		assertThat(cache.get(NID)).isEqualTo(OptionalLong.of(10));
+		verify(cursorStore, never()).putAll(anyMap());
+
+		cache.flush();
+		verify(cursorStore, times(1)).putAll(ImmutableMap.of(NID, 10L));
+		cache.flush();
+		verify(cursorStore, times(1)).putAll(anyMap());
+	}
+
+	@Test
+	public void cursor_lag_triggers_early_flush() {
+		WriteBehindCursorCache cache = new WriteBehindCursorCache(cursorStore, scheduler, 1000, 10, 100);
+		// only the periodic flush is scheduled initially
+		assertThat(scheduled).hasSize(1);
+
+		cache.advance(NID, 50);
+		assertThat(scheduled).hasSize(1);
+		cache.advance(NID, 150);
+		assertThat(scheduled).hasSize(2);
+
+		scheduled.get(1).run();
+		verify(cursorStore).putAll(ImmutableMap.of(NID, 150L));
+	}
+
+	@Test
+	public void failed_flush_is_retried() {
+		WriteBehindCursorCache cache = new WriteBehindCursorCache(cursorStore, scheduler, 1000, 10, 1000);
+		doThrow(new TempoException("failed")).doNothing().when(cursorStore).putAll(anyMap());
+		cache.advance(NID, 5);
+
+		cache.flush();
+		cache.flush();
+		verify(cursorStore, times(2)).putAll(ImmutableMap.of(NID, 5L));
+	}
+
+	@Test
+	public void stored_cursor_is_loaded_once() {
+		when(cursorStore.get(NID)).thenReturn(OptionalLong.of(42));
+		WriteBehindCursorCache cache = new WriteBehindCursorCache(cursorStore, scheduler, 1000, 10, 1000);
+
+		assertThat(cache.get(NID)).isEqualTo(OptionalLong.of(42));
+		assertThat(cache.get(NID)).isEqualTo(OptionalLong.of(42));
+		verify(cursorStore, times(1)).get(NID);
+	}
+}
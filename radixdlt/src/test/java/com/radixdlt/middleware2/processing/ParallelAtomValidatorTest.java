@@ -0,0 +1,285 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.middleware2.processing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.radixdlt.common.AID;
+import com.radixdlt.common.Atom;
+import com.radixdlt.common.EUID;
+import com.radixdlt.constraintmachine.Particle;
+import com.radixdlt.constraintmachine.Spin;
+import com.radixdlt.engine.AtomEventListener;
+import com.radixdlt.engine.RadixEngine;
+import com.radixdlt.middleware2.store.SpeculativeEngineStore;
+import com.radixdlt.store.EngineStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ParallelAtomValidatorTest {
+	private static final long TIMEOUT_MILLIS = 200;
+
+	// each test atom spends one particle and creates another
+	private final Map<Atom, Particle> inputs = new HashMap<>();
+	private final Map<Atom, Particle> outputs = new HashMap<>();
+	private final Set<Atom> slowAtoms = ConcurrentHashMap.newKeySet();
+	private final CountDownLatch slowAtomsReleased = new CountDownLatch(1);
+
+	private final Map<EUID, Spin> ledger = new ConcurrentHashMap<>();
+	private final List<Atom> committed = new CopyOnWriteArrayList<>();
+	private final AtomicInteger lanesCreated = new AtomicInteger();
+
+	private ExecutorService engineThreads;
+	private AtomEventListener eventListener;
+	private ParallelAtomValidator validator;
+
+	@Before
+	public void setUp() {
+		this.engineThreads = Executors.newCachedThreadPool();
+		this.eventListener = mock(AtomEventListener.class);
+	}
+
+	@After
+	public void tearDown() {
+		slowAtomsReleased.countDown();
+		if (validator != null) {
+			validator.stop();
+		}
+		engineThreads.shutdownNow();
+	}
+
+	@Test
+	public void conflicting_atoms_in_one_batch_are_committed_once() throws InterruptedException {
+		createValidator(2);
+		Particle genesis = particle(0);
+		ledger.put(genesis.getHID(), Spin.UP);
+		Atom first = atom(1, genesis, particle(1));
+		Atom doubleSpend = atom(2, genesis, particle(2));
+
+		validator.validate(ImmutableList.of(first, doubleSpend));
+
+		assertThat(committed).containsExactly(first);
+		verify(eventListener).onStateStore(first);
+		verify(eventListener).onStateConflict(eq(doubleSpend), any(), any());
+		verify(eventListener, never()).onStateStore(doubleSpend);
+	}
+
+	@Test
+	public void atoms_depending_on_earlier_atoms_of_a_batch_are_committed() throws InterruptedException {
+		createValidator(2);
+		Particle genesis = particle(0);
+		ledger.put(genesis.getHID(), Spin.UP);
+		Particle intermediate = particle(1);
+		Atom first = atom(1, genesis, intermediate);
+		Atom second = atom(2, intermediate, particle(2));
+
+		validator.validate(ImmutableList.of(first, second));
+
+		assertThat(committed).containsExactly(first, second);
+		verify(eventListener).onStateStore(first);
+		verify(eventListener).onStateStore(second);
+	}
+
+	@Test
+	public void conflicts_are_detected_after_serial_fallback() throws InterruptedException {
+		createValidator(2);
+		Particle genesis = particle(0);
+		ledger.put(genesis.getHID(), Spin.UP);
+		Atom slow = atom(1, genesis, particle(1));
+		Atom doubleSpend = atom(2, genesis, particle(2));
+		slowAtoms.add(slow);
+
+		validator.validate(ImmutableList.of(slow));
+		// the serially validated atom is committed before the next batch is speculated on
+		assertThat(committed).containsExactly(slow);
+
+		validator.validate(ImmutableList.of(doubleSpend));
+
+		assertThat(committed).containsExactly(slow);
+		verify(eventListener).onStateStore(slow);
+		verify(eventListener).onStateConflict(eq(doubleSpend), any(), any());
+	}
+
+	@Test
+	public void timed_out_lanes_are_replaced() throws InterruptedException {
+		createValidator(1);
+		Particle genesis = particle(0);
+		ledger.put(genesis.getHID(), Spin.UP);
+		Particle other = particle(10);
+		ledger.put(other.getHID(), Spin.UP);
+		Atom slow = atom(1, genesis, particle(1));
+		Atom next = atom(2, other, particle(11));
+		slowAtoms.add(slow);
+
+		validator.validate(ImmutableList.of(slow));
+		assertThat(lanesCreated.get()).isEqualTo(2);
+
+		// the abandoned lane finishing late does not affect the replacement lane
+		slowAtomsReleased.countDown();
+		validator.validate(ImmutableList.of(next));
+
+		assertThat(committed).containsExactly(slow, next);
+		verify(eventListener).onStateStore(slow);
+		verify(eventListener).onStateStore(next);
+	}
+
+	@Test
+	public void validation_is_serial_once_too_many_lanes_were_abandoned() throws InterruptedException {
+		createValidator(1, 1);
+		Atom[] atoms = new Atom[3];
+		for (int i = 0; i < atoms.length; i++) {
+			Particle input = particle(i * 10);
+			ledger.put(input.getHID(), Spin.UP);
+			atoms[i] = atom(i + 1, input, particle(i * 10 + 1));
+		}
+		slowAtoms.add(atoms[0]);
+		slowAtoms.add(atoms[1]);
+
+		validator.validate(ImmutableList.of(atoms[0]));
+		validator.validate(ImmutableList.of(atoms[1]));
+		validator.validate(ImmutableList.of(atoms[2]));
+
+		// only the first abandoned lane was replaced
+		assertThat(lanesCreated.get()).isEqualTo(2);
+		assertThat(committed).containsExactly(atoms);
+		verify(eventListener).onStateStore(atoms[2]);
+	}
+
+	private void createValidator(int threads) {
+		createValidator(threads, 8);
+	}
+
+	private void createValidator(int threads, int maxAbandonedLanes) {
+		EngineStore ledgerStore = ledgerStore();
+		CompositeAtomEventListener engineListeners = new CompositeAtomEventListener();
+		engineListeners.addListener(eventListener);
+		RadixEngine serialEngine = engine(ledgerStore, engineListeners, false);
+
+		this.validator = new ParallelAtomValidator(
+			threads,
+			16,
+			TIMEOUT_MILLIS,
+			maxAbandonedLanes,
+			() -> new SpeculativeEngineStore(ledgerStore, this::spunParticles),
+			store -> {
+				lanesCreated.incrementAndGet();
+				return engine(store, new CompositeAtomEventListener(), true);
+			},
+			ledgerStore,
+			engineListeners,
+			serialEngine
+		);
+	}
+
+	/**
+	 * Creates an engine validating atoms asynchronously on its own thread, as the real engine does.
+	 */
+	private RadixEngine engine(EngineStore store, AtomEventListener registeredListener, boolean lane) {
+		RadixEngine engine = mock(RadixEngine.class);
+		doAnswer(invocation -> {
+			Atom atom = invocation.getArgument(0);
+			AtomEventListener listener = invocation.getArgument(1);
+			engineThreads.execute(() -> {
+				if (lane && slowAtoms.contains(atom)) {
+					awaitRelease();
+				}
+				validate(store, atom, outcome -> {
+					outcome.accept(listener);
+					outcome.accept(registeredListener);
+				});
+			});
+			return null;
+		}).when(engine).store(any(), any());
+		return engine;
+	}
+
+	private void validate(EngineStore store, Atom atom, Consumer<Consumer<AtomEventListener>> notify) {
+		if (store.getSpin(inputs.get(atom)) != Spin.UP) {
+			notify.accept(listener -> listener.onStateConflict(atom, null, null));
+			return;
+		}
+		store.storeAtom(atom);
+		notify.accept(listener -> listener.onStateStore(atom));
+	}
+
+	private void awaitRelease() {
+		try {
+			slowAtomsReleased.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private EngineStore ledgerStore() {
+		EngineStore store = mock(EngineStore.class);
+		when(store.getSpin(any())).thenAnswer(invocation -> {
+			Particle particle = invocation.getArgument(0);
+			return ledger.getOrDefault(particle.getHID(), Spin.NEUTRAL);
+		});
+		doAnswer(invocation -> {
+			Atom atom = invocation.getArgument(0);
+			ledger.put(inputs.get(atom).getHID(), Spin.DOWN);
+			ledger.put(outputs.get(atom).getHID(), Spin.UP);
+			committed.add(atom);
+			return null;
+		}).when(store).storeAtom(any());
+		return store;
+	}
+
+	private Set<EUID> spunParticles(Atom atom) {
+		return ImmutableSet.of(inputs.get(atom).getHID(), outputs.get(atom).getHID());
+	}
+
+	private Atom atom(int id, Particle input, Particle output) {
+		byte[] bytes = new byte[AID.BYTES];
+		bytes[0] = (byte) id;
+		Atom atom = mock(Atom.class);
+		when(atom.getAID()).thenReturn(AID.from(bytes));
+		inputs.put(atom, input);
+		outputs.put(atom, output);
+		return atom;
+	}
+
+	private static Particle particle(int id) {
+		Particle particle = mock(Particle.class);
+		when(particle.getHID()).thenReturn(new EUID(id));
+		return particle;
+	}
+}
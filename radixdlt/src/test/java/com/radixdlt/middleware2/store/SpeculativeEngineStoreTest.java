@@ -0,0 +1,117 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.middleware2.store;
+
+import com.google.common.collect.ImmutableSet;
+import com.radixdlt.common.AID;
+import com.radixdlt.common.Atom;
+import com.radixdlt.common.EUID;
+import com.radixdlt.constraintmachine.Particle;
+import com.radixdlt.constraintmachine.Spin;
+import com.radixdlt.store.EngineStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SpeculativeEngineStoreTest {
+	private EngineStore delegate;
+	private SpeculativeEngineStore store;
+	private final List<Atom> stored = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		this.delegate = mock(EngineStore.class);
+		when(delegate.getSpin(any())).thenReturn(Spin.UP);
+		this.store = new SpeculativeEngineStore(delegate, atom -> ImmutableSet.of(new EUID(100)));
+	}
+
+	@Test
+	public void reads_are_passed_through_and_recorded() {
+		Atom atom = atom(1);
+		Particle particle = particle(1);
+		store.begin(atom.getAID(), stored::add);
+
+		assertThat(store.getSpin(particle)).isEqualTo(Spin.UP);
+		assertThat(store.getReadSet()).containsExactly(particle.getHID());
+		assertThat(store.getWriteSet()).isEmpty();
+		assertThat(store.isStored()).isFalse();
+	}
+
+	@Test
+	public void stores_are_recorded_instead_of_written() {
+		Atom atom = atom(1);
+		store.begin(atom.getAID(), stored::add);
+
+		store.storeAtom(atom);
+
+		verify(delegate, never()).storeAtom(any());
+		assertThat(stored).containsExactly(atom);
+		assertThat(store.isStored()).isTrue();
+		assertThat(store.getWriteSet()).containsExactly(new EUID(100));
+	}
+
+	@Test
+	public void begin_clears_the_previous_atom() {
+		Atom first = atom(1);
+		store.begin(first.getAID(), stored::add);
+		store.getSpin(particle(1));
+		store.storeAtom(first);
+
+		store.begin(atom(2).getAID(), stored::add);
+
+		assertThat(store.getReadSet()).isEmpty();
+		assertThat(store.getWriteSet()).isEmpty();
+		assertThat(store.isStored()).isFalse();
+	}
+
+	@Test
+	public void late_stores_of_abandoned_atoms_are_ignored() {
+		Atom abandoned = atom(1);
+		store.begin(abandoned.getAID(), stored::add);
+		store.begin(atom(2).getAID(), stored::add);
+
+		store.storeAtom(abandoned);
+
+		assertThat(stored).isEmpty();
+		assertThat(store.isStored()).isFalse();
+		assertThat(store.getWriteSet()).isEmpty();
+	}
+
+	private static Atom atom(int id) {
+		byte[] bytes = new byte[AID.BYTES];
+		bytes[0] = (byte) id;
+		Atom atom = mock(Atom.class);
+		when(atom.getAID()).thenReturn(AID.from(bytes));
+		return atom;
+	}
+
+	private static Particle particle(int id) {
+		Particle particle = mock(Particle.class);
+		when(particle.getHID()).thenReturn(new EUID(id));
+		return particle;
+	}
+}
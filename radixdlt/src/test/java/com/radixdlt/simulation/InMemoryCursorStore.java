@@ -0,0 +1,58 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.simulation;
+
+import com.radixdlt.common.EUID;
+import com.radixdlt.store.CursorStore;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * An in-memory {@link CursorStore}.
+ */
+final class InMemoryCursorStore implements CursorStore {
+	private final Map<EUID, Long> cursors = new HashMap<>();
+
+	@Override
+	public synchronized void put(EUID nid, long cursor) {
+		cursors.put(nid, cursor);
+	}
+
+	@Override
+	public synchronized void putAll(Map<EUID, Long> cursors) {
+		this.cursors.putAll(cursors);
+	}
+
+	@Override
+	public synchronized OptionalLong get(EUID nid) {
+		Long cursor = cursors.get(nid);
+		return cursor == null ? OptionalLong.empty() : OptionalLong.of(cursor);
+	}
+
+	@Override
+	public synchronized void reset() {
+		cursors.clear();
+	}
+
+	@Override
+	public void close() {
+		// nothing to close
+	}
+}
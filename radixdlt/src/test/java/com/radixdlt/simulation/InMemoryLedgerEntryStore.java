@@ -0,0 +1,180 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.simulation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.radixdlt.common.AID;
+import com.radixdlt.store.AidBucketTree;
+import com.radixdlt.store.BucketDigest;
+import com.radixdlt.store.CommitListener;
+import com.radixdlt.store.LedgerEntry;
+import com.radixdlt.store.LedgerEntryStatus;
+import com.radixdlt.store.LedgerEntryStore;
+import com.radixdlt.store.LedgerEntryStoreResult;
+import com.radixdlt.store.LedgerSearchMode;
+import com.radixdlt.store.SearchCursor;
+import com.radixdlt.store.StoreIndex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A minimal in-memory {@link LedgerEntryStore} assigning contiguous logical clocks starting at 1 on commit.
+ * Index queries are not supported.
+ */
+final class InMemoryLedgerEntryStore implements LedgerEntryStore {
+	private final Map<AID, LedgerEntry> entries = new HashMap<>();
+	private final Set<AID> pending = new LinkedHashSet<>();
+	private final List<AID> committed = new ArrayList<>();
+	private final AidBucketTree committedBuckets = new AidBucketTree();
+	private final List<CommitListener> commitListeners = new CopyOnWriteArrayList<>();
+
+	@Override
+	public synchronized boolean contains(AID aid) {
+		return entries.containsKey(aid);
+	}
+
+	@Override
+	public synchronized LedgerEntryStatus getStatus(AID aid) {
+		if (pending.contains(aid)) {
+			return LedgerEntryStatus.PENDING;
+		}
+		return entries.containsKey(aid) ? LedgerEntryStatus.COMMITTED : LedgerEntryStatus.UNAVAILABLE;
+	}
+
+	@Override
+	public synchronized Set<AID> getPending() {
+		return ImmutableSet.copyOf(pending);
+	}
+
+	@Override
+	public synchronized Optional<LedgerEntry> get(AID aid) {
+		return Optional.ofNullable(entries.get(aid));
+	}
+
+	@Override
+	public Set<StoreIndex> getUniqueIndices(AID aid) {
+		return ImmutableSet.of();
+	}
+
+	@Override
+	public SearchCursor search(StoreIndex.LedgerIndexType type, StoreIndex index, LedgerSearchMode mode) {
+		throw new UnsupportedOperationException("Search is not supported in simulation");
+	}
+
+	@Override
+	public boolean contains(StoreIndex.LedgerIndexType type, StoreIndex index, LedgerSearchMode mode) {
+		throw new UnsupportedOperationException("Index lookup is not supported in simulation");
+	}
+
+	@Override
+	public synchronized ImmutableList<AID> getNextCommitted(long logicalClock, int limit) {
+		int from = (int) Math.min(logicalClock, committed.size());
+		int to = (int) Math.min(logicalClock + limit, committed.size());
+		return ImmutableList.copyOf(committed.subList(from, to));
+	}
+
+	@Override
+	public BucketDigest getCommittedDigest(int level, int bucket) {
+		return committedBuckets.getDigest(level, bucket);
+	}
+
+	@Override
+	public ImmutableList<BucketDigest> getCommittedChildDigests(int level, int bucket) {
+		return committedBuckets.getChildren(level, bucket);
+	}
+
+	@Override
+	public synchronized ImmutableList<AID> getCommittedInBucket(int bucket, int limit) {
+		return committed.stream()
+			.filter(aid -> AidBucketTree.bucketOf(aid, AidBucketTree.LEAF_LEVEL) == bucket)
+			.limit(limit)
+			.collect(ImmutableList.toImmutableList());
+	}
+
+	@Override
+	public void addCommitListener(CommitListener listener) {
+		commitListeners.add(listener);
+	}
+
+	@Override
+	public void removeCommitListener(CommitListener listener) {
+		commitListeners.remove(listener);
+	}
+
+	@Override
+	public void commit(AID aid) {
+		boolean committedNow;
+		synchronized (this) {
+			committedNow = pending.remove(aid);
+			if (committedNow) {
+				committed.add(aid);
+				committedBuckets.add(aid);
+			}
+		}
+		// notify outside of the lock as listeners may query the store
+		if (committedNow) {
+			commitListeners.forEach(listener -> listener.accept(aid));
+		}
+	}
+
+	@Override
+	public synchronized LedgerEntryStoreResult store(LedgerEntry ledgerEntry, Set<StoreIndex> uniqueIndices, Set<StoreIndex> duplicateIndices) {
+		if (entries.putIfAbsent(ledgerEntry.getAID(), ledgerEntry) == null) {
+			pending.add(ledgerEntry.getAID());
+		}
+		return LedgerEntryStoreResult.success();
+	}
+
+	@Override
+	public synchronized LedgerEntryStoreResult replace(Set<AID> aids, LedgerEntry ledgerEntry, Set<StoreIndex> uniqueIndices, Set<StoreIndex> duplicateIndices) {
+		for (AID aid : aids) {
+			if (pending.remove(aid)) {
+				entries.remove(aid);
+			}
+		}
+		return store(ledgerEntry, uniqueIndices, duplicateIndices);
+	}
+
+	/**
+	 * Gets all committed {@link AID}s in logical clock order.
+	 */
+	synchronized ImmutableList<AID> getCommitted() {
+		return ImmutableList.copyOf(committed);
+	}
+
+	@Override
+	public synchronized void reset() {
+		entries.clear();
+		pending.clear();
+		committed.clear();
+		committedBuckets.clear();
+	}
+
+	@Override
+	public void close() {
+		// nothing to close
+	}
+}
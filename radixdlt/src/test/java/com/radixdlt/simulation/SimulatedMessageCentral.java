@@ -0,0 +1,106 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.simulation;
+
+import com.google.common.collect.ImmutableMap;
+import org.radix.logging.Logger;
+import org.radix.logging.Logging;
+import org.radix.network.messaging.Message;
+import org.radix.network2.addressbook.Peer;
+import org.radix.network2.messaging.DispatchPolicy;
+import org.radix.network2.messaging.MessageCentral;
+import org.radix.network2.messaging.MessageListener;
+import org.radix.network2.messaging.OutboundPeerStatistics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A {@link MessageCentral} which sends through a {@link SimulatedNetwork} and
+ * dispatches received messages synchronously on the simulation thread.
+ */
+final class SimulatedMessageCentral implements MessageCentral {
+	private static final Logger log = Logging.getLogger("simulation");
+
+	private final Peer self;
+	private final SimulatedNetwork network;
+	private final Map<Class<? extends Message>, List<MessageListener<? extends Message>>> listeners = new LinkedHashMap<>();
+
+	SimulatedMessageCentral(Peer self, SimulatedNetwork network) {
+		this.self = Objects.requireNonNull(self);
+		this.network = Objects.requireNonNull(network);
+	}
+
+	@Override
+	public void send(Peer peer, Message message) {
+		network.send(self, peer, message);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void inject(Peer peer, Message message) {
+		List<MessageListener<? extends Message>> messageListeners = listeners.get(message.getClass());
+		if (messageListeners == null) {
+			return;
+		}
+		for (MessageListener<? extends Message> listener : new ArrayList<>(messageListeners)) {
+			try {
+				((MessageListener<Message>) listener).handleMessage(peer, message);
+			} catch (Exception e) {
+				log.error("While handling " + message.getClass().getSimpleName() + " from " + peer, e);
+			}
+		}
+	}
+
+	@Override
+	public <T extends Message> void addListener(Class<T> messageType, MessageListener<T> listener) {
+		listeners.computeIfAbsent(messageType, k -> new ArrayList<>()).add(listener);
+	}
+
+	@Override
+	public <T extends Message> void addListener(Class<T> messageType, MessageListener<T> listener, DispatchPolicy policy) {
+		// everything is dispatched on the simulation thread
+		addListener(messageType, listener);
+	}
+
+	@Override
+	public <T extends Message> void removeListener(Class<T> messageType, MessageListener<T> listener) {
+		List<MessageListener<? extends Message>> messageListeners = listeners.get(messageType);
+		if (messageListeners != null) {
+			messageListeners.remove(listener);
+		}
+	}
+
+	@Override
+	public <T extends Message> void removeListener(MessageListener<T> listener) {
+		listeners.values().forEach(messageListeners -> messageListeners.remove(listener));
+	}
+
+	@Override
+	public Map<String, OutboundPeerStatistics> outboundStatistics() {
+		return ImmutableMap.of();
+	}
+
+	@Override
+	public void close() {
+		listeners.clear();
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.simulation;
+
+import com.radixdlt.common.EUID;
+import org.radix.network.messaging.Message;
+import org.radix.network2.addressbook.Peer;
+import org.radix.network2.transport.TransportException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A simulated network delivering messages between {@link SimulatedMessageCentral}s
+ * with seeded random latency and message loss.
+ */
+final class SimulatedNetwork {
+	private final SimulatedScheduler scheduler;
+	private final Random random;
+	private final int minLatencyMillis;
+	private final int maxLatencyMillis;
+	private final double lossProbability;
+
+	private final Map<EUID, SimulatedMessageCentral> messageCentrals = new HashMap<>();
+
+	private long sentMessages;
+	private long droppedMessages;
+
+	SimulatedNetwork(SimulatedScheduler scheduler, Random random, int minLatencyMillis, int maxLatencyMillis, double lossProbability) {
+		if (minLatencyMillis < 0 || maxLatencyMillis < minLatencyMillis) {
+			throw new IllegalArgumentException("Invalid latency range: " + minLatencyMillis + ".." + maxLatencyMillis);
+		}
+		this.scheduler = Objects.requireNonNull(scheduler);
+		this.random = Objects.requireNonNull(random);
+		this.minLatencyMillis = minLatencyMillis;
+		this.maxLatencyMillis = maxLatencyMillis;
+		this.lossProbability = lossProbability;
+	}
+
+	void register(Peer peer, SimulatedMessageCentral messageCentral) {
+		messageCentrals.put(peer.getNID(), messageCentral);
+	}
+
+	void send(Peer sender, Peer receiver, Message message) {
+		SimulatedMessageCentral target = messageCentrals.get(receiver.getNID());
+		if (target == null) {
+			throw new TransportException("Unknown peer " + receiver);
+		}
+
+		sentMessages += 1;
+		if (random.nextDouble() < lossProbability) {
+			droppedMessages += 1;
+			return;
+		}
+		int latency = minLatencyMillis + random.nextInt(maxLatencyMillis - minLatencyMillis + 1);
+		scheduler.schedule(() -> target.inject(sender, message), latency, TimeUnit.MILLISECONDS);
+	}
+
+	long getSentMessages() {
+		return sentMessages;
+	}
+
+	long getDroppedMessages() {
+		return droppedMessages;
+	}
+}
@@ -0,0 +1,315 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.simulation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.radixdlt.common.EUID;
+import com.radixdlt.consensus.ConsensusObservation;
+import com.radixdlt.consensus.tempo.Tempo;
+import com.radixdlt.delivery.LazyRequestDeliverer;
+import com.radixdlt.delivery.LazyRequestDelivererConfiguration;
+import com.radixdlt.discovery.GossipDiscoverer;
+import com.radixdlt.discovery.GossipDiscovererConfiguration;
+import com.radixdlt.discovery.IterativeDiscoverer;
+import com.radixdlt.discovery.IterativeDiscovererConfiguration;
+import com.radixdlt.discovery.ReconciliationDiscoverer;
+import com.radixdlt.discovery.ReconciliationDiscovererConfiguration;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.store.LedgerEntry;
+import com.radixdlt.streaming.MessageStreams;
+import com.radixdlt.universe.Universe;
+import org.radix.events.EventListener;
+import org.radix.events.Events;
+import org.radix.network2.addressbook.PeersAddedEvent;
+import org.radix.network2.addressbook.Peer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A single node in a simulation, running the real discovery, delivery and Tempo components
+ * on top of simulated messaging, scheduling and storage.
+ */
+final class SimulatedNode {
+	private final Peer peer;
+	private final InMemoryLedgerEntryStore store;
+	private final SimulatedMessageCentral messageCentral;
+	private final IterativeDiscoverer discoverer;
+	private final ReconciliationDiscoverer reconciler;
+	private final GossipDiscoverer gossip;
+	private final LazyRequestDeliverer deliverer;
+	private final Tempo tempo;
+	private final List<EventListener<PeersAddedEvent>> peersAddedListeners = new CopyOnWriteArrayList<>();
+
+	@SuppressWarnings("unchecked")
+	SimulatedNode(int index, SimulatedScheduler scheduler, SimulatedNetwork network) {
+		EUID nid = new EUID(index);
+		this.peer = mock(Peer.class);
+		when(peer.getNID()).thenReturn(nid);
+		when(peer.hasSystem()).thenReturn(true);
+		when(peer.toString()).thenReturn("SimulatedPeer[" + index + "]");
+
+		Universe universe = mock(Universe.class);
+		when(universe.getMagic()).thenReturn(0);
+
+		// capture the address book listeners so peers can be connected explicitly
+		Events events = mock(Events.class);
+		doAnswer(invocation -> {
+			peersAddedListeners.add(invocation.getArgument(1));
+			return null;
+		}).when(events).register(eq(PeersAddedEvent.class), any());
+
+		this.store = new InMemoryLedgerEntryStore();
+		this.messageCentral = new SimulatedMessageCentral(peer, network);
+		network.register(peer, messageCentral);
+
+		// simulated entries are small enough to never be streamed
+		this.deliverer = new LazyRequestDeliverer(scheduler, scheduler::getCurrentTimeMillis, messageCentral,
+			mock(MessageStreams.class), mock(Serialization.class), store,
+			new SimulatedDelivererConfiguration(), universe);
+		this.discoverer = new IterativeDiscoverer(nid, store, new InMemoryCursorStore(), scheduler,
+			scheduler::getCurrentTimeMillis, messageCentral, events, new SimulatedDiscovererConfiguration(), universe);
+		this.reconciler = new ReconciliationDiscoverer(store, scheduler, messageCentral, events,
+			new SimulatedReconcilerConfiguration(), universe);
+		this.gossip = new GossipDiscoverer(store, scheduler, scheduler::getCurrentTimeMillis, messageCentral, events,
+			new SimulatedGossipConfiguration(), universe);
+
+		// new entries only ever arrive through discovery
+		LinkedBlockingQueue<LedgerEntry> applicationEntries = new LinkedBlockingQueue<>();
+		this.tempo = new Tempo(applicationEntries::take, ImmutableSet.of(discoverer, reconciler, gossip), deliverer);
+	}
+
+	Peer getPeer() {
+		return peer;
+	}
+
+	InMemoryLedgerEntryStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Makes the given peers known to this node as if they had been added to the address book.
+	 */
+	void connect(List<Peer> peers) {
+		PeersAddedEvent event = mock(PeersAddedEvent.class);
+		when(event.peers()).thenReturn(ImmutableList.copyOf(peers));
+		try {
+			for (EventListener<PeersAddedEvent> peersAddedListener : peersAddedListeners) {
+				peersAddedListener.process(event);
+			}
+		} catch (Throwable t) {
+			throw new IllegalStateException("Failed to connect peers", t);
+		}
+	}
+
+	/**
+	 * Stores and commits the given entry directly, bypassing consensus.
+	 */
+	void seed(LedgerEntry entry) {
+		store.store(entry, ImmutableSet.of(), ImmutableSet.of());
+		store.commit(entry.getAID());
+	}
+
+	/**
+	 * Commits all observations currently made available by consensus.
+	 *
+	 * @return the number of committed entries
+	 */
+	int commitObservations() {
+		int committed = 0;
+		Optional<ConsensusObservation> observation;
+		while ((observation = tempo.poll()).isPresent()) {
+			LedgerEntry entry = observation.get().getEntry();
+			if (!store.contains(entry.getAID())) {
+				seed(entry);
+				committed += 1;
+			}
+		}
+		return committed;
+	}
+
+	void close() {
+		tempo.close();
+		discoverer.close();
+		reconciler.close();
+		gossip.close();
+		messageCentral.close();
+	}
+
+	private static final class SimulatedDiscovererConfiguration implements IterativeDiscovererConfiguration {
+		@Override
+		public int requestTimeoutSeconds(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int maxBackoff(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int responseLimit(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int maxResponseLimit(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int requestWindow(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int fastResponseMillis(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int maxBulkPeers(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int maxBulkResponseBytes(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int cursorFlushIntervalMillis(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int cursorFlushThreshold(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int maxCursorLag(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int requestQueueCapacity(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int requestProcessorThreads(int defaultValue) {
+			return 0;
+		}
+	}
+
+	private static final class SimulatedReconcilerConfiguration implements ReconciliationDiscovererConfiguration {
+		@Override
+		public int roundIntervalMillis(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int maxBucketsPerRequest(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int maxAidsPerBucket(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int requestQueueCapacity(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int requestProcessorThreads(int defaultValue) {
+			return 0;
+		}
+	}
+
+	private static final class SimulatedGossipConfiguration implements GossipDiscovererConfiguration {
+		@Override
+		public int fanout(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int announceIntervalMillis(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int maxAidsPerMessage(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int seenTimeoutMillis(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int maxSeenAids(int defaultValue) {
+			return defaultValue;
+		}
+	}
+
+	private static final class SimulatedDelivererConfiguration implements LazyRequestDelivererConfiguration {
+		@Override
+		public int requestQueueCapacity(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int requestProcessorThreads(int defaultValue) {
+			return 0;
+		}
+
+		@Override
+		public int requestTimeoutSeconds(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int responseBatchBytes(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int spreadThreshold(int defaultValue) {
+			return defaultValue;
+		}
+
+		@Override
+		public int hedgeDelayMillis(int defaultValue) {
+			return defaultValue;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.simulation;
+
+import com.radixdlt.consensus.tempo.Scheduler;
+
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Scheduler} running on virtual time, executing tasks one at a time in a deterministic order.
+ */
+final class SimulatedScheduler implements Scheduler {
+	private final PriorityQueue<SimulatedTask> tasks = new PriorityQueue<>(
+		Comparator.comparingLong(SimulatedTask::getTime).thenComparingLong(SimulatedTask::getSequence)
+	);
+	private long currentTimeMillis = 0L;
+	private long sequence = 0L;
+
+	@Override
+	public Cancellable schedule(Runnable command, long delay, TimeUnit unit) {
+		Objects.requireNonNull(command);
+		SimulatedTask task = new SimulatedTask(currentTimeMillis + unit.toMillis(delay), sequence++, command);
+		tasks.add(task);
+		return task;
+	}
+
+	/**
+	 * Advances virtual time to the next pending task and executes it.
+	 *
+	 * @return whether a task was executed
+	 */
+	boolean runNext() {
+		SimulatedTask task;
+		do {
+			task = tasks.poll();
+			if (task == null) {
+				return false;
+			}
+		} while (task.isCancelled());
+
+		currentTimeMillis = task.getTime();
+		task.run();
+		return true;
+	}
+
+	long getCurrentTimeMillis() {
+		return currentTimeMillis;
+	}
+
+	int getPendingTasks() {
+		return tasks.size();
+	}
+
+	private static final class SimulatedTask implements Cancellable {
+		private final long time;
+		private final long sequence;
+		private final Runnable command;
+		private boolean cancelled;
+		private boolean terminated;
+
+		private SimulatedTask(long time, long sequence, Runnable command) {
+			this.time = time;
+			this.sequence = sequence;
+			this.command = command;
+		}
+
+		private long getTime() {
+			return time;
+		}
+
+		private long getSequence() {
+			return sequence;
+		}
+
+		private boolean isCancelled() {
+			return cancelled;
+		}
+
+		private void run() {
+			try {
+				command.run();
+			} finally {
+				terminated = true;
+			}
+		}
+
+		@Override
+		public boolean cancel() {
+			if (terminated || cancelled) {
+				return false;
+			}
+			cancelled = true;
+			return true;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return terminated || cancelled;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.simulation;
+
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.AID;
+import org.junit.Test;
+import org.radix.logging.Logger;
+import org.radix.logging.Logging;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SimulatedSyncTest {
+	private static final Logger log = Logging.getLogger("simulation");
+
+	private static final long SEED = 0x5EED_CAFEL;
+	private static final int NUM_NODES = 10;
+	private static final int NUM_ENTRIES = 200;
+	private static final long MAX_VIRTUAL_TIME_MILLIS = 10L * 60 * 1000;
+
+	@Test
+	public void all_nodes_converge_with_latency_and_loss() {
+		try (Simulation simulation = createSimulation(SEED)) {
+			assertThat(simulation.runUntilConverged(NUM_ENTRIES, MAX_VIRTUAL_TIME_MILLIS)).isTrue();
+
+			ImmutableList<AID> seeded = simulation.getCommitted(0);
+			for (int i = 1; i < simulation.getNumNodes(); i++) {
+				assertThat(new HashSet<>(simulation.getCommitted(i))).isEqualTo(new HashSet<>(seeded));
+			}
+			assertThat(simulation.getCommittedEntries()).isEqualTo((long) NUM_ENTRIES * (NUM_NODES - 1));
+
+			if (log.hasLevel(Logging.DEBUG)) {
+				log.debug(String.format("Converged %d nodes on %d entries in %d virtual ms (%d messages sent, %d dropped)",
+					NUM_NODES, NUM_ENTRIES, simulation.getCurrentTimeMillis(),
+					simulation.getSentMessages(), simulation.getDroppedMessages()));
+			}
+		}
+	}
+
+	@Test
+	public void same_seed_produces_identical_runs() {
+		assertThat(runAndRecord(SEED)).isEqualTo(runAndRecord(SEED));
+	}
+
+	private static List<Object> runAndRecord(long seed) {
+		try (Simulation simulation = createSimulation(seed)) {
+			simulation.runUntilConverged(NUM_ENTRIES, MAX_VIRTUAL_TIME_MILLIS);
+			List<Object> record = new ArrayList<>();
+			record.add(simulation.getCurrentTimeMillis());
+			record.add(simulation.getSentMessages());
+			record.add(simulation.getDroppedMessages());
+			for (int i = 0; i < simulation.getNumNodes(); i++) {
+				record.add(simulation.getCommitted(i));
+			}
+			return record;
+		}
+	}
+
+	private static Simulation createSimulation(long seed) {
+		Simulation simulation = new Simulation(seed, NUM_NODES, 10, 200, 0.01);
+		simulation.seed(0, NUM_ENTRIES);
+		simulation.connectAll();
+		return simulation;
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.simulation;
+
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.AID;
+import com.radixdlt.store.LedgerEntry;
+import org.radix.network2.addressbook.Peer;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * A deterministic in-process simulation of a network of nodes synchronising their ledgers.
+ * All randomness is derived from a single seed and all work happens on the calling thread,
+ * so runs with the same seed are identical.
+ */
+final class Simulation implements Closeable {
+	private final Random random;
+	private final SimulatedScheduler scheduler;
+	private final SimulatedNetwork network;
+	private final List<SimulatedNode> nodes;
+
+	private long committedEntries;
+
+	Simulation(long seed, int numNodes, int minLatencyMillis, int maxLatencyMillis, double lossProbability) {
+		this.random = new Random(seed);
+		this.scheduler = new SimulatedScheduler();
+		this.network = new SimulatedNetwork(scheduler, random, minLatencyMillis, maxLatencyMillis, lossProbability);
+		this.nodes = new ArrayList<>(numNodes);
+		for (int i = 0; i < numNodes; i++) {
+			this.nodes.add(new SimulatedNode(i + 1, scheduler, network));
+		}
+	}
+
+	/**
+	 * Seeds a node with a number of random committed entries.
+	 */
+	void seed(int nodeIndex, int numEntries) {
+		SimulatedNode node = nodes.get(nodeIndex);
+		for (int i = 0; i < numEntries; i++) {
+			byte[] aidBytes = new byte[AID.BYTES];
+			random.nextBytes(aidBytes);
+			byte[] content = new byte[64];
+			random.nextBytes(content);
+			node.seed(new LedgerEntry(content, AID.from(aidBytes)));
+		}
+	}
+
+	/**
+	 * Connects every node to every other node.
+	 */
+	void connectAll() {
+		List<Peer> peers = nodes.stream().map(SimulatedNode::getPeer).collect(Collectors.toList());
+		for (SimulatedNode node : nodes) {
+			node.connect(peers.stream()
+				.filter(peer -> !peer.equals(node.getPeer()))
+				.collect(Collectors.toList()));
+		}
+	}
+
+	/**
+	 * Runs the simulation until all nodes have committed the given number of entries
+	 * or the virtual time limit has passed.
+	 *
+	 * @return whether all nodes converged within the time limit
+	 */
+	boolean runUntilConverged(int expectedEntries, long maxVirtualTimeMillis) {
+		while (!isConverged(expectedEntries)) {
+			if (scheduler.getCurrentTimeMillis() > maxVirtualTimeMillis || !scheduler.runNext()) {
+				return false;
+			}
+			for (SimulatedNode node : nodes) {
+				committedEntries += node.commitObservations();
+			}
+		}
+		return true;
+	}
+
+	private boolean isConverged(int expectedEntries) {
+		return nodes.stream().allMatch(node -> node.getStore().getCommitted().size() >= expectedEntries);
+	}
+
+	ImmutableList<AID> getCommitted(int nodeIndex) {
+		return nodes.get(nodeIndex).getStore().getCommitted();
+	}
+
+	int getNumNodes() {
+		return nodes.size();
+	}
+
+	long getCurrentTimeMillis() {
+		return scheduler.getCurrentTimeMillis();
+	}
+
+	long getCommittedEntries() {
+		return committedEntries;
+	}
+
+	long getSentMessages() {
+		return network.getSentMessages();
+	}
+
+	long getDroppedMessages() {
+		return network.getDroppedMessages();
+	}
+
+	@Override
+	public void close() {
+		nodes.forEach(SimulatedNode::close);
+	}
+}
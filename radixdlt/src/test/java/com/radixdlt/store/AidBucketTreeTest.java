@@ -0,0 +1,75 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.radixdlt.store;
+
+import com.radixdlt.common.AID;
+import com.radixdlt.crypto.Hash;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AidBucketTreeTest {
+	private static AID aid(String seed) {
+		return AID.from(Hash.hash256(seed.getBytes()));
+	}
+
+	@Test
+	public void digests_are_independent_of_insertion_order() {
+		AidBucketTree first = new AidBucketTree();
+		AidBucketTree second = new AidBucketTree();
+		for (int i = 0; i < 100; i++) {
+			first.add(aid("aid" + i));
+			second.add(aid("aid" + (99 - i)));
+		}
+
+		assertThat(first.getDigest(0, 0)).isEqualTo(second.getDigest(0, 0));
+		assertThat(first.getDigest(0, 0).getCount()).isEqualTo(100L);
+	}
+
+	@Test
+	public void difference_is_only_visible_in_buckets_containing_it() {
+		AidBucketTree first = new AidBucketTree();
+		AidBucketTree second = new AidBucketTree();
+		for (int i = 0; i < 100; i++) {
+			first.add(aid("aid" + i));
+			second.add(aid("aid" + i));
+		}
+		AID missing = aid("missing");
+		first.add(missing);
+
+		for (int level = 0; level <= AidBucketTree.LEAF_LEVEL; level++) {
+			int bucket = AidBucketTree.bucketOf(missing, level);
+			assertThat(first.getDigest(level, bucket).matches(second.getDigest(level, bucket))).isFalse();
+		}
+		int otherBucket = (AidBucketTree.bucketOf(missing, 1) + 1) % AidBucketTree.numBuckets(1);
+		assertThat(first.getDigest(1, otherBucket).matches(second.getDigest(1, otherBucket))).isTrue();
+
+		first.remove(missing);
+		assertThat(first.getDigest(0, 0)).isEqualTo(second.getDigest(0, 0));
+	}
+
+	@Test
+	public void children_are_non_empty_buckets_of_next_level() {
+		AidBucketTree tree = new AidBucketTree();
+		AID aid = aid("single");
+		tree.add(aid);
+
+		assertThat(tree.getChildren(0, 0)).containsExactly(tree.getDigest(1, AidBucketTree.bucketOf(aid, 1)));
+		assertThat(AidBucketTree.prefixOf(AidBucketTree.LEAF_LEVEL, AidBucketTree.bucketOf(aid, AidBucketTree.LEAF_LEVEL)))
+			.containsExactly(aid.getBytes()[0], aid.getBytes()[1]);
+	}
+}
@@ -0,0 +1,312 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.streaming;
+
+import com.radixdlt.common.EUID;
+import com.radixdlt.consensus.tempo.Scheduler;
+import com.radixdlt.streaming.messages.StreamAckMessage;
+import com.radixdlt.streaming.messages.StreamChunkMessage;
+import com.radixdlt.universe.Universe;
+import org.junit.Before;
+import org.junit.Test;
+import org.radix.network.messaging.Message;
+import org.radix.network2.addressbook.Peer;
+import org.radix.network2.messaging.MessageCentral;
+import org.radix.network2.messaging.MessageListener;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MessageStreamsTest {
+	private static final String TOPIC = "test";
+	private static final int MAX_RETRIES = 2;
+
+	private final Peer senderPeer = peer(1);
+	private final Peer receiverPeer = peer(2);
+	private final Queue<Runnable> network = new ArrayDeque<>();
+	private final List<Runnable> scheduled = new ArrayList<>();
+	private final List<StreamChunkMessage> chunksSent = new ArrayList<>();
+
+	private Predicate<Message> dropFromSender;
+	private Predicate<Message> dropFromReceiver;
+	private MessageStreams sender;
+	private MessageStreams receiver;
+	private byte[] data;
+
+	private static Peer peer(int id) {
+		Peer peer = mock(Peer.class);
+		when(peer.getNID()).thenReturn(new EUID(id));
+		return peer;
+	}
+
+	@Before
+	public void setUp() {
+		dropFromSender = message -> false;
+		dropFromReceiver = message -> false;
+
+		// only timeouts of the sender are run, the receiver's idle timeout is much longer
+		Scheduler senderScheduler = mock(Scheduler.class);
+		doAnswer(invocation -> {
+			scheduled.add(invocation.getArgument(0));
+			return null;
+		}).when(senderScheduler).schedule(any(), anyLong(), any(TimeUnit.class));
+
+		Map<Class<?>, MessageListener<Message>> senderListeners = new HashMap<>();
+		Map<Class<?>, MessageListener<Message>> receiverListeners = new HashMap<>();
+		MessageCentral senderCentral = messageCentral(senderListeners, receiverListeners, senderPeer, true);
+		MessageCentral receiverCentral = messageCentral(receiverListeners, senderListeners, receiverPeer, false);
+
+		MessageStreamsConfiguration configuration = new MessageStreamsConfiguration() {
+			@Override
+			public int chunkBytes(int defaultValue) {
+				return 10;
+			}
+
+			@Override
+			public int windowChunks(int defaultValue) {
+				return 3;
+			}
+
+			@Override
+			public int ackTimeoutMillis(int defaultValue) {
+				return 100;
+			}
+
+			@Override
+			public int maxRetries(int defaultValue) {
+				return MAX_RETRIES;
+			}
+
+			@Override
+			public int idleTimeoutMillis(int defaultValue) {
+				return 1000;
+			}
+		};
+		Universe universe = mock(Universe.class);
+		sender = new MessageStreams(senderScheduler, senderCentral, configuration, universe);
+		receiver = new MessageStreams(mock(Scheduler.class), receiverCentral, configuration, universe);
+
+		data = new byte[95];
+		new Random(1L).nextBytes(data);
+	}
+
+	@SuppressWarnings("unchecked")
+	private MessageCentral messageCentral(
+		Map<Class<?>, MessageListener<Message>> localListeners,
+		Map<Class<?>, MessageListener<Message>> remoteListeners,
+		Peer local,
+		boolean isSender
+	) {
+		MessageCentral messageCentral = mock(MessageCentral.class);
+		doAnswer(invocation -> {
+			localListeners.put(invocation.getArgument(0), invocation.getArgument(1));
+			return null;
+		}).when(messageCentral).addListener(any(), any());
+		doAnswer(invocation -> {
+			Message message = invocation.getArgument(1);
+			if (message instanceof StreamChunkMessage) {
+				chunksSent.add((StreamChunkMessage) message);
+			}
+			if (!(isSender ? dropFromSender : dropFromReceiver).test(message)) {
+				network.add(() -> remoteListeners.get(message.getClass()).handleMessage(local, message));
+			}
+			return null;
+		}).when(messageCentral).send(any(), any());
+		return messageCentral;
+	}
+
+	private void deliverAll() {
+		while (!network.isEmpty()) {
+			network.poll().run();
+		}
+	}
+
+	private void runScheduled() {
+		List<Runnable> tasks = new ArrayList<>(scheduled);
+		scheduled.clear();
+		tasks.forEach(Runnable::run);
+	}
+
+	private static final class TestSink implements StreamSink {
+		private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+		private boolean completed;
+		private Throwable aborted;
+
+		@Override
+		public long position() {
+			return written.size();
+		}
+
+		@Override
+		public void write(byte[] data) {
+			written.write(data, 0, data.length);
+		}
+
+		@Override
+		public void complete() {
+			completed = true;
+		}
+
+		@Override
+		public void abort(Throwable cause) {
+			aborted = cause;
+		}
+	}
+
+	private void dropOnce(Predicate<StreamChunkMessage> chunks) {
+		boolean[] dropped = new boolean[1];
+		dropFromSender = message -> {
+			if (!dropped[0] && message instanceof StreamChunkMessage && chunks.test((StreamChunkMessage) message)) {
+				dropped[0] = true;
+				return true;
+			}
+			return false;
+		};
+	}
+
+	private TestSink addSink() {
+		TestSink sink = new TestSink();
+		receiver.addHandler(TOPIC, (peer, streamId, length) -> sink);
+		return sink;
+	}
+
+	@Test
+	public void payload_is_streamed_in_chunks() throws Exception {
+		TestSink sink = addSink();
+		CompletableFuture<Void> result = sender.send(receiverPeer, TOPIC, StreamSource.of(data));
+		deliverAll();
+
+		assertThat(result.isDone()).isTrue();
+		result.get();
+		assertThat(sink.completed).isTrue();
+		assertThat(sink.aborted).isNull();
+		assertThat(sink.written.toByteArray()).isEqualTo(data);
+		// ten data chunks, the last of them partial, and the end marker
+		assertThat(chunksSent).hasSize(11);
+		assertThat(chunksSent).allMatch(chunk -> chunk.getData().length <= 10);
+		assertThat(sender.outboundStreams).isEmpty();
+		assertThat(receiver.inboundStreams).isEmpty();
+	}
+
+	@Test
+	public void unacknowledged_chunks_are_limited_to_window() {
+		addSink();
+		// only the acknowledgement opening the stream gets through
+		dropFromReceiver = message -> ((StreamAckMessage) message).getOffset() > 0;
+		CompletableFuture<Void> result = sender.send(receiverPeer, TOPIC, StreamSource.of(data));
+		deliverAll();
+
+		assertThat(result.isDone()).isFalse();
+		assertThat(chunksSent).hasSize(3);
+	}
+
+	@Test
+	public void lost_chunk_is_sent_again_on_duplicate_acknowledgement() throws Exception {
+		TestSink sink = addSink();
+		dropOnce(chunk -> chunk.getOffset() == 10);
+		CompletableFuture<Void> result = sender.send(receiverPeer, TOPIC, StreamSource.of(data));
+		deliverAll();
+
+		// the chunk after the lost one is acknowledged with the lost offset, no timeout is needed
+		assertThat(result.isDone()).isTrue();
+		result.get();
+		assertThat(sink.written.toByteArray()).isEqualTo(data);
+		assertThat(scheduled).hasSize(1);
+	}
+
+	@Test
+	public void lost_last_chunk_is_sent_again_after_timeout() throws Exception {
+		TestSink sink = addSink();
+		dropOnce(StreamChunkMessage::isLast);
+		CompletableFuture<Void> result = sender.send(receiverPeer, TOPIC, StreamSource.of(data));
+		deliverAll();
+		assertThat(result.isDone()).isFalse();
+
+		// the first timeout still sees the progress made before the chunk was lost
+		runScheduled();
+		deliverAll();
+		assertThat(result.isDone()).isFalse();
+		runScheduled();
+		deliverAll();
+		assertThat(result.isDone()).isTrue();
+		result.get();
+		assertThat(sink.written.toByteArray()).isEqualTo(data);
+	}
+
+	@Test
+	public void stream_is_resumed_from_sink_position() throws Exception {
+		TestSink sink = addSink();
+		sink.write(Arrays.copyOf(data, 40));
+		CompletableFuture<Void> result = sender.send(receiverPeer, TOPIC, StreamSource.of(data));
+		deliverAll();
+
+		result.get();
+		assertThat(chunksSent).allMatch(chunk -> chunk.getOffset() >= 40);
+		assertThat(sink.written.toByteArray()).isEqualTo(data);
+	}
+
+	@Test
+	public void stream_without_handler_is_rejected() {
+		CompletableFuture<Void> result = sender.send(receiverPeer, TOPIC, StreamSource.of(data));
+		deliverAll();
+
+		assertThat(result.isCompletedExceptionally()).isTrue();
+		assertThat(chunksSent).isEmpty();
+	}
+
+	@Test
+	public void sender_gives_up_without_progress() {
+		TestSink sink = addSink();
+		dropFromSender = message -> message instanceof StreamChunkMessage;
+		CompletableFuture<Void> result = sender.send(receiverPeer, TOPIC, StreamSource.of(data));
+		deliverAll();
+		// the first timeout still sees the stream being opened
+		runScheduled();
+
+		for (int i = 0; i <= MAX_RETRIES; i++) {
+			assertThat(result.isDone()).isFalse();
+			runScheduled();
+			deliverAll();
+		}
+		assertThatThrownBy(result::get)
+			.isInstanceOf(ExecutionException.class)
+			.hasCauseInstanceOf(TimeoutException.class);
+		assertThat(sender.outboundStreams).isEmpty();
+		assertThat(sink.completed).isFalse();
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.tracing;
+
+import com.radixdlt.common.AID;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomLifecycleTracerTest {
+	private AtomicLong clock;
+
+	@Before
+	public void setUp() {
+		clock = new AtomicLong(1000L);
+	}
+
+	private static AID aid(int id) {
+		byte[] bytes = new byte[AID.BYTES];
+		bytes[0] = (byte) id;
+		return AID.from(bytes);
+	}
+
+	@Test
+	public void stage_latencies_are_measured_from_previous_stage() {
+		AtomLifecycleTracer tracer = new AtomLifecycleTracer(true, 10, 16, 4, 1, 60000, 60000, clock::get);
+		AID aid = aid(1);
+
+		tracer.begin(aid, AtomLifecycleStage.DESERIALIZED);
+		// stages captured before the aid was known are recorded afterwards
+		tracer.record(aid, AtomLifecycleStage.RECEIVED, 400L);
+		clock.addAndGet(2000L);
+		tracer.record(aid, AtomLifecycleStage.CONSENSUS_COMMITTED);
+		clock.addAndGet(500L);
+		tracer.complete(aid);
+
+		assertThat(tracer.getStageLatencies().get(AtomLifecycleStage.DESERIALIZED)).containsExactly(600L);
+		assertThat(tracer.getStageLatencies().get(AtomLifecycleStage.CONSENSUS_COMMITTED)).containsExactly(2000L);
+		assertThat(tracer.getStageLatencies().get(AtomLifecycleStage.DELIVERED)).containsExactly(500L);
+		assertThat(tracer.getStageLatencies().get(AtomLifecycleStage.RECEIVED)).isEmpty();
+		assertThat(tracer.getTotalLatencies()).containsExactly(3100L);
+		assertThat(tracer.getActiveCount()).isZero();
+		assertThat(tracer.getTraces()).hasSize(1);
+	}
+
+	@Test
+	public void atoms_without_trace_are_ignored() {
+		AtomLifecycleTracer tracer = new AtomLifecycleTracer(true, 10, 16, 4, 1, 60000, 60000, clock::get);
+		AID aid = aid(1);
+
+		tracer.record(aid, AtomLifecycleStage.STORED);
+		tracer.complete(aid);
+
+		assertThat(tracer.getFinishedCount()).isZero();
+		assertThat(tracer.getTotalLatencies()).isEmpty();
+	}
+
+	@Test
+	public void number_of_active_traces_is_bounded() {
+		AtomLifecycleTracer tracer = new AtomLifecycleTracer(true, 2, 16, 4, 1, 60000, 60000, clock::get);
+		tracer.begin(aid(1), AtomLifecycleStage.DESERIALIZED);
+		tracer.begin(aid(2), AtomLifecycleStage.DESERIALIZED);
+		tracer.begin(aid(3), AtomLifecycleStage.DESERIALIZED);
+
+		assertThat(tracer.getActiveCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void failed_traces_are_kept_without_latencies() {
+		AtomLifecycleTracer tracer = new AtomLifecycleTracer(true, 10, 16, 4, 1, 60000, 60000, clock::get);
+		AID aid = aid(1);
+		tracer.begin(aid, AtomLifecycleStage.DESERIALIZED);
+		tracer.fail(aid);
+
+		assertThat(tracer.getTotalLatencies()).isEmpty();
+		assertThat(tracer.getTraces()).hasSize(1);
+		assertThat(tracer.getTraces().get(0).isFailed()).isTrue();
+	}
+
+	@Test
+	public void only_sampled_or_slow_traces_are_kept() {
+		AtomLifecycleTracer tracer = new AtomLifecycleTracer(true, 10, 16, 4, 0, 1, 60000, clock::get);
+		tracer.begin(aid(1), AtomLifecycleStage.DESERIALIZED);
+		tracer.complete(aid(1));
+		assertThat(tracer.getTraces()).isEmpty();
+
+		tracer.begin(aid(2), AtomLifecycleStage.DESERIALIZED);
+		clock.addAndGet(2_000_000L);
+		tracer.complete(aid(2));
+		assertThat(tracer.getTraces()).hasSize(1);
+		assertThat(tracer.getTraces().get(0).getAid()).isEqualTo(aid(2));
+	}
+
+	@Test
+	public void disabled_tracer_traces_nothing() {
+		AtomLifecycleTracer tracer = AtomLifecycleTracer.disabled();
+		tracer.begin(aid(1), AtomLifecycleStage.DESERIALIZED);
+
+		assertThat(tracer.getActiveCount()).isZero();
+	}
+}
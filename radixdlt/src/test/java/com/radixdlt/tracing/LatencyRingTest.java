@@ -0,0 +1,55 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.radixdlt.tracing;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LatencyRingTest {
+	@Test
+	public void ring_keeps_most_recent_samples() {
+		LatencyRing ring = new LatencyRing(3);
+		for (long i = 1; i <= 5; i++) {
+			ring.record(i);
+		}
+
+		assertThat(ring.count()).isEqualTo(5);
+		assertThat(ring.sortedSnapshot()).containsExactly(3L, 4L, 5L);
+	}
+
+	@Test
+	public void percentiles_use_nearest_rank() {
+		long[] sorted = new long[100];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = i + 1L;
+		}
+
+		assertThat(LatencyRing.percentile(sorted, 50)).isEqualTo(50L);
+		assertThat(LatencyRing.percentile(sorted, 99)).isEqualTo(99L);
+		assertThat(LatencyRing.percentile(sorted, 100)).isEqualTo(100L);
+		assertThat(LatencyRing.percentile(sorted, 0)).isEqualTo(1L);
+		assertThat(LatencyRing.percentile(new long[0], 50)).isEqualTo(0L);
+	}
+
+	@Test
+	public void non_positive_capacity_is_rejected() {
+		assertThatThrownBy(() -> new LatencyRing(0)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
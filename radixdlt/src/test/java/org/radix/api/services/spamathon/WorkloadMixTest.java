@@ -0,0 +1,69 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.api.services.spamathon;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class WorkloadMixTest {
+	@Test
+	public void kinds_are_spread_according_to_weights() {
+		WorkloadMix mix = WorkloadMix.parse("unique=2, batched=1,conflicting=1");
+		Map<WorkloadMix.Kind, Integer> counts = new EnumMap<>(WorkloadMix.Kind.class);
+		for (long i = 0; i < 400; i++) {
+			counts.merge(mix.kindOf(i), 1, Integer::sum);
+		}
+
+		assertThat(counts.get(WorkloadMix.Kind.UNIQUE)).isEqualTo(200);
+		assertThat(counts.get(WorkloadMix.Kind.BATCHED)).isEqualTo(100);
+		assertThat(counts.get(WorkloadMix.Kind.CONFLICTING)).isEqualTo(100);
+	}
+
+	@Test
+	public void kinds_are_interleaved() {
+		WorkloadMix mix = WorkloadMix.parse("unique=1,conflicting=1");
+		assertThat(mix.kindOf(0)).isNotEqualTo(mix.kindOf(1));
+		assertThat(mix.kindOf(0)).isEqualTo(mix.kindOf(2));
+	}
+
+	@Test
+	public void empty_mix_is_default() {
+		assertThat(WorkloadMix.parse(null)).isEqualTo(WorkloadMix.defaultMix());
+		assertThat(WorkloadMix.parse(" ")).isEqualTo(WorkloadMix.defaultMix());
+		assertThat(WorkloadMix.defaultMix().kindOf(7)).isEqualTo(WorkloadMix.Kind.BATCHED);
+	}
+
+	@Test
+	public void mix_is_printed_as_parsed() {
+		assertThat(WorkloadMix.parse("batched=3,unique=1").toString()).isEqualTo("unique=1,batched=3");
+	}
+
+	@Test
+	public void invalid_mixes_are_rejected() {
+		assertThatThrownBy(() -> WorkloadMix.parse("unique")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> WorkloadMix.parse("bogus=1")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> WorkloadMix.parse("unique=x")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> WorkloadMix.parse("unique=-1")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> WorkloadMix.parse("unique=0")).isInstanceOf(IllegalArgumentException.class);
+	}
+}
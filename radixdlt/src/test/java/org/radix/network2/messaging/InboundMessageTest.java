@@ -17,6 +17,9 @@
 
 package org.radix.network2.messaging;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.radix.network2.transport.StaticTransportMetadata;
@@ -40,7 +43,7 @@ public class InboundMessageTest {
 
 	@Test
 	public void equalsContract() {
-	    EqualsVerifier.forClass(InboundMessage.class).verify();
+	    EqualsVerifier.forClass(InboundMessage.class).withIgnoredFields("retainer", "releaser").verify();
 	}
 
 	@Test
@@ -53,6 +56,46 @@ public class InboundMessageTest {
 		assertThat(inboundMessage.message(), equalTo(message));
 	}
 
+	@Test
+	public void testMessageBuffer() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(message.length + 2);
+		buffer.put((byte) 99).put(message).put((byte) 99);
+		buffer.flip().position(1).limit(message.length + 1);
+		InboundMessage buffered = InboundMessage.of(this.transportInfo, buffer);
+
+		assertThat(buffered.messageBuffer().remaining(), equalTo(message.length));
+		assertThat(buffered.message(), equalTo(message));
+		assertThat(buffered, equalTo(inboundMessage));
+		// reading the message does not consume the buffer
+		assertThat(buffer.position(), equalTo(1));
+	}
+
+	@Test
+	public void testRetainCopiesTransportBuffer() {
+		ByteBuffer buffer = ByteBuffer.wrap(message.clone());
+		InboundMessage retained = InboundMessage.of(this.transportInfo, buffer).retain();
+		// transport reuses its buffer
+		buffer.put(0, (byte) 99);
+
+		assertThat(retained.message(), equalTo(message));
+		// arrays are owned by the message
+		assertThat(inboundMessage.retain(), sameInstance(inboundMessage));
+	}
+
+	@Test
+	public void testRetainUsesTransportRetainer() {
+		AtomicInteger released = new AtomicInteger();
+		ByteBuffer buffer = ByteBuffer.wrap(message);
+		InboundMessage buffered = InboundMessage.of(this.transportInfo, buffer,
+			() -> InboundMessage.retained(this.transportInfo, buffer, released::incrementAndGet));
+		InboundMessage retained = buffered.retain();
+
+		assertThat(retained.messageBuffer(), equalTo(buffer));
+		assertThat(released.get(), equalTo(0));
+		retained.release();
+		assertThat(released.get(), equalTo(1));
+	}
+
 	@Test
 	public void testToString() {
 		assertThat(inboundMessage.toString(), containsString("TEST")); // Transport name
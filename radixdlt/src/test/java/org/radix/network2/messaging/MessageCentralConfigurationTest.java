@@ -37,6 +37,12 @@ public class MessageCentralConfigurationTest {
         when(properties.get(eq("messaging.outbound.queue_max"), anyInt())).thenReturn(102);
         when(properties.get(eq("messaging.outbound.threads"), anyInt())).thenReturn(103);
         when(properties.get(eq("messaging.time_to_live"), anyInt())).thenReturn(104);
+        when(properties.get(eq("messaging.outbound.peer.max_in_flight"), anyInt())).thenReturn(105);
+        when(properties.get(eq("messaging.outbound.peer.queue_max"), anyInt())).thenReturn(106);
+        when(properties.get(eq("messaging.outbound.peer.quantum"), anyInt())).thenReturn(107);
+        when(properties.get(eq("messaging.compression.level"), anyInt())).thenReturn(108);
+        when(properties.get(eq("messaging.inbound.decode_threads"), anyInt())).thenReturn(109);
+        when(properties.get(eq("messaging.inbound.dispatch_threads"), anyInt())).thenReturn(110);
 
         MessageCentralConfiguration config = MessageCentralConfiguration.fromRuntimeProperties(properties);
 
@@ -45,5 +51,11 @@ public class MessageCentralConfigurationTest {
         assertEquals(102, config.messagingOutboundQueueMax(-1));
         assertEquals(103, config.messagingOutboundQueueThreads(-1));
         assertEquals(104, config.messagingTimeToLive(-1));
+        assertEquals(105, config.messagingOutboundPeerMaxInFlight(-1));
+        assertEquals(106, config.messagingOutboundPeerQueueMax(-1));
+        assertEquals(107, config.messagingOutboundPeerQuantum(-1));
+        assertEquals(108, config.messagingCompressionLevel(-1));
+        assertEquals(109, config.messagingInboundDecodeThreads(-1));
+        assertEquals(110, config.messagingInboundDispatchThreads(-1));
     }
 }
\ No newline at end of file
@@ -38,6 +38,7 @@ import org.radix.universe.system.events.QueueFullEvent;
 import org.xerial.snappy.Snappy;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
@@ -48,6 +49,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -69,7 +71,6 @@ public class MessageCentralImplTest {
 	private TransportManager transportManager;
 	private MessageCentralImpl mci;
 	private PriorityBlockingQueue<MessageEvent> inboundQueue;
-	private PriorityBlockingQueue<MessageEvent> outboundQueue;
 	private Events events;
 
 	@Before
@@ -93,10 +94,8 @@ public class MessageCentralImplTest {
 
 		this.events = mock(Events.class);
 		inboundQueue = spy(new PriorityBlockingQueue<>(conf.messagingInboundQueueMax(0)));
-		outboundQueue = spy(new PriorityBlockingQueue<>(conf.messagingOutboundQueueMax(0)));
 		EventQueueFactory<MessageEvent> queueFactory = eventQueueFactoryMock();
 		doReturn(inboundQueue).when(queueFactory).createEventQueue(conf.messagingInboundQueueMax(0));
-		doReturn(outboundQueue).when(queueFactory).createEventQueue(conf.messagingOutboundQueueMax(0));
 		Interfaces interfaces = mock(Interfaces.class);
 		when(interfaces.isSelf(any())).thenReturn(false);
 		LocalSystem localSystem = mock(LocalSystem.class);
@@ -170,7 +169,17 @@ public class MessageCentralImplTest {
 
 	@Test
 	public void testSendQueueIsFull() throws Exception {
-		testQueueIsFull(outboundQueue, (peer, message) -> mci.send(peer, message));
+		// Stop processing so that nothing is taken off the outbound queue
+		mci.close();
+		Message msg = new TestMessage(1);
+		Peer peer = mock(Peer.class);
+
+		int queueMax = new MessagingDummyConfigurations.DummyMessageCentralConfiguration().messagingOutboundQueueMax(0);
+		int numberOfRequests = 6;
+		for (int i = 0; i < queueMax + numberOfRequests; i++) {
+			mci.send(peer, msg);
+		}
+		verify(events, times(numberOfRequests)).broadcast(any(QueueFullEvent.class));
 	}
 
 	private <T> void testQueueIsFull(Queue<T> queue, BiConsumer<Peer, Message> biConsumer) {
@@ -207,6 +216,22 @@ public class MessageCentralImplTest {
 		assertNotNull(receivedMessage.get());
 	}
 
+	@Test
+	public void testDeserializeFromDirectBuffer() throws IOException {
+		TestMessage msg = new TestMessage(100, 0);
+		byte[] data = Snappy.compress(serialization.toDson(msg, Output.WIRE));
+		ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 1);
+		buffer.put((byte) 0).put(data).flip().position(1);
+
+		Message message = mci.deserialize(buffer);
+		assertTrue(message instanceof TestMessage);
+		assertEquals(msg.getTestNonce(), ((TestMessage) message).getTestNonce());
+		assertArrayEquals(msg.getJunk(), ((TestMessage) message).getJunk());
+		assertEquals(1, buffer.position());
+		// the thread local scratch buffer is reused
+		assertArrayEquals(msg.getJunk(), ((TestMessage) mci.deserialize(buffer)).getJunk());
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testAddNullListener() {
 		mci.addListener(TestMessage.class, null);
@@ -266,6 +291,57 @@ public class MessageCentralImplTest {
 		assertEquals(0, mci.listenersSize());
 	}
 
+	@Test
+	public void testAddRemoveListenerWithPolicies() {
+		MessageListener<TestMessage> listener1 = (source, message) -> {};
+		MessageListener<TestMessage> listener2 = (source, message) -> {};
+		MessageListener<TestMessage> listener3 = (source, message) -> {};
+
+		mci.addListener(TestMessage.class, listener1, DispatchPolicy.inline());
+		mci.addListener(TestMessage.class, listener2, DispatchPolicy.shared());
+		mci.addListener(TestMessage.class, listener3, DispatchPolicy.dedicated("test", 1, 10));
+		assertEquals(3, mci.listenersSize());
+
+		mci.removeListener(TestMessage.class, listener3);
+		assertEquals(2, mci.listenersSize());
+
+		mci.removeListener(listener1);
+		mci.removeListener(listener2);
+		assertEquals(0, mci.listenersSize());
+	}
+
+	@Test
+	public void testDedicatedLaneDoesNotBlockOtherListeners() throws InterruptedException {
+		CountDownLatch blocked = new CountDownLatch(1);
+		Semaphore dedicatedReceived = new Semaphore(0);
+		Semaphore inlineReceived = new Semaphore(0);
+
+		mci.addListener(TestMessage.class, (peer, message) -> {
+			try {
+				blocked.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			dedicatedReceived.release();
+		}, DispatchPolicy.dedicated("test", 1, 10));
+		mci.addListener(TestMessage.class, (peer, message) -> inlineReceived.release(), DispatchPolicy.inline());
+
+		Peer peer = mock(Peer.class);
+		mci.inject(peer, new TestMessage(1));
+		mci.inject(peer, new TestMessage(1));
+
+		assertTrue(inlineReceived.tryAcquire(2, 10, TimeUnit.SECONDS));
+		assertEquals(0, dedicatedReceived.availablePermits());
+
+		blocked.countDown();
+		assertTrue(dedicatedReceived.tryAcquire(2, 10, TimeUnit.SECONDS));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDedicatedPolicyWithoutThreads() {
+		DispatchPolicy.dedicated("test", 0, 10);
+	}
+
 	@SuppressWarnings("unchecked")
 	private <T> EventQueueFactory<T> eventQueueFactoryMock() {
 		return mock(EventQueueFactory.class);
@@ -0,0 +1,111 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.Serialization;
+import org.junit.Before;
+import org.junit.Test;
+import org.radix.network.messages.PeerPingMessage;
+import org.radix.network.messaging.Message;
+import org.radix.universe.system.RadixSystem;
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MessageCompressionTest {
+	private Serialization serialization;
+	private MessageCompression compression;
+	private byte[] uncompressed;
+
+	@Before
+	public void setUp() throws IOException {
+		this.serialization = Serialization.getDefault();
+		this.compression = MessageCompression.create(serialization, 3);
+		this.uncompressed = serialization.toDson(new PeerPingMessage(1234L, new RadixSystem(), 1), Output.WIRE);
+	}
+
+	@Test
+	public void codec_is_derived_from_dictionary() {
+		assertThat(compression.codec()).startsWith("zstd-dict:");
+		assertThat(MessageCompression.create(serialization, 3).codec()).isEqualTo(compression.codec());
+		assertThat(MessageCompression.create(serialization, 0).codec()).isNull();
+	}
+
+	@Test
+	public void peers_with_same_codec_get_dictionary_compression() throws IOException {
+		byte[] compressed = compression.compress(uncompressed, compression.codec());
+		byte[] snappy = Snappy.compress(uncompressed);
+
+		assertThat(compressed).startsWith((byte) 0x28, (byte) 0xB5, (byte) 0x2F, (byte) 0xFD);
+		assertThat(compressed.length).isLessThan(snappy.length);
+		assertThat(compression.uncompress(ByteBuffer.wrap(compressed))).isEqualTo(uncompressed);
+	}
+
+	@Test
+	public void other_peers_get_snappy_compression() throws IOException {
+		byte[] legacy = compression.compress(uncompressed, null);
+		byte[] other = compression.compress(uncompressed, "zstd-dict:0000000000000000");
+
+		assertThat(Snappy.uncompress(legacy)).isEqualTo(uncompressed);
+		assertThat(Snappy.uncompress(other)).isEqualTo(uncompressed);
+		assertThat(compression.uncompress(ByteBuffer.wrap(legacy))).isEqualTo(uncompressed);
+	}
+
+	@Test
+	public void dictionary_compressed_messages_are_read_from_buffer_slices() throws IOException {
+		byte[] compressed = compression.compress(uncompressed, compression.codec());
+		ByteBuffer direct = ByteBuffer.allocateDirect(compressed.length + 1);
+		direct.put((byte) 0).put(compressed).flip().position(1);
+		byte[] framed = new byte[compressed.length + 1];
+		System.arraycopy(compressed, 0, framed, 1, compressed.length);
+		ByteBuffer heap = ByteBuffer.wrap(framed, 1, compressed.length);
+
+		assertThat(compression.uncompress(direct)).isEqualTo(uncompressed);
+		assertThat(direct.position()).isEqualTo(1);
+		assertThat(compression.uncompress(heap)).isEqualTo(uncompressed);
+		assertThat(heap.position()).isEqualTo(1);
+	}
+
+	@Test
+	public void dictionary_compressed_messages_are_rejected_if_disabled() throws IOException {
+		byte[] compressed = compression.compress(uncompressed, compression.codec());
+		MessageCompression snappy = MessageCompression.snappy();
+
+		assertThat(snappy.compress(uncompressed, compression.codec())).isEqualTo(Snappy.compress(uncompressed));
+		assertThatThrownBy(() -> snappy.uncompress(ByteBuffer.wrap(compressed))).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	public void oversized_messages_are_rejected() throws IOException {
+		byte[] oversized = new byte[Message.MAX_MESSAGE_SIZE + 1];
+		byte[] zstd = compression.compress(oversized, compression.codec());
+		byte[] snappy = compression.compress(oversized, null);
+		ByteBuffer direct = ByteBuffer.allocateDirect(snappy.length);
+		direct.put(snappy).flip();
+
+		assertThatThrownBy(() -> compression.uncompress(ByteBuffer.wrap(zstd))).isInstanceOf(IOException.class);
+		assertThatThrownBy(() -> compression.uncompress(ByteBuffer.wrap(snappy))).isInstanceOf(IOException.class);
+		assertThatThrownBy(() -> compression.uncompress(direct)).isInstanceOf(IOException.class);
+		assertThatThrownBy(() -> compression.uncompress(ByteBuffer.wrap(snappy).asReadOnlyBuffer())).isInstanceOf(IOException.class);
+	}
+}
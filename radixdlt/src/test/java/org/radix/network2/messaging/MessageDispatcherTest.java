@@ -109,7 +109,7 @@ public class MessageDispatcherTest extends RadixTest {
         SystemMessage message = spy(new SystemMessage(getLocalSystem(), 0));
         MessageEvent messageEvent = new MessageEvent(peer1, transportInfo, message, 10_000);
 
-        SendResult sendResult = messageDispatcher.send(transportManager, messageEvent);
+        SendResult sendResult = messageDispatcher.send(transportManager, messageEvent).join();
 
         assertTrue(sendResult.isComplete());
         verify(message, times(1)).sign(getLocalSystem().getKeyPair());
@@ -121,7 +121,7 @@ public class MessageDispatcherTest extends RadixTest {
         when(message.getTimestamp()).thenReturn(10_000L);
         MessageEvent messageEvent = new MessageEvent(peer1, transportInfo, message, 10_000);
 
-        SendResult sendResult = messageDispatcher.send(transportManager, messageEvent);
+        SendResult sendResult = messageDispatcher.send(transportManager, messageEvent).join();
 
         assertThat(sendResult.getThrowable().getMessage(), Matchers.equalTo("org.radix.network.messages.TestMessage: TTL to " + peer1 + " has expired"));
         verify(systemMetaData, times(1)).increment("messages.outbound.aborted");
@@ -133,7 +133,7 @@ public class MessageDispatcherTest extends RadixTest {
         doThrow(new CryptoException("Expected exception")).when(message).sign(getLocalSystem().getKeyPair());
         MessageEvent messageEvent = new MessageEvent(peer1, transportInfo, message, 10_000);
 
-        SendResult sendResult = messageDispatcher.send(transportManager, messageEvent);
+        SendResult sendResult = messageDispatcher.send(transportManager, messageEvent).join();
 
         assertFalse(sendResult.isComplete());
         assertThat(sendResult.getThrowable().getMessage(), Matchers.equalTo("org.radix.universe.system.SystemMessage: Sending to  " + peer1 + " failed"));
@@ -151,13 +151,14 @@ public class MessageDispatcherTest extends RadixTest {
 
         Semaphore receivedFlag = new Semaphore(0);
         List<Message> messages = new ArrayList<>();
-        MessageListenerList messageListenerList = new MessageListenerList();
-        messageListenerList.addMessageListener((source, message) -> {
+        DispatchLane lane = DispatchLane.inline("test");
+        lane.addListener(SystemMessage.class, (source, message) -> {
             messages.add(message);
             receivedFlag.release();
         });
 
-        messageDispatcher.receive(messageListenerList, messageEvent);
+        Peer peer = messageDispatcher.accept(messageEvent);
+        lane.dispatch(peer, messageEvent.message());
 
         assertTrue(receivedFlag.tryAcquire(10, TimeUnit.SECONDS));
         assertThat(messages.get(0), Matchers.equalTo(testMessage));
@@ -169,7 +170,7 @@ public class MessageDispatcherTest extends RadixTest {
         when(testMessage.getTimestamp()).thenReturn(10_000L);
         MessageEvent messageEvent = new MessageEvent(peer1, transportInfo, testMessage, 10_000);
 
-        messageDispatcher.receive(null, messageEvent);
+        assertThat(messageDispatcher.accept(messageEvent), Matchers.nullValue());
 
         //execution is terminated before message.getSystem() method
         verify(testMessage, times(0)).getSystem();
@@ -190,8 +191,8 @@ public class MessageDispatcherTest extends RadixTest {
         doReturn(null).when(radixSystem2).getNID();
         MessageEvent messageEvent2 = new MessageEvent(peer2, transportInfo, testMessage2, 10_000);
 
-        messageDispatcher.receive(null, messageEvent1);
-        messageDispatcher.receive(null, messageEvent2);
+        messageDispatcher.accept(messageEvent1);
+        messageDispatcher.accept(messageEvent2);
 
         String banMessage = "%s:org.radix.universe.system.SystemMessage gave null NID";
         String msg1 = String.format(banMessage, peer1);
@@ -209,7 +210,7 @@ public class MessageDispatcherTest extends RadixTest {
         doReturn(Radix.REFUSE_AGENT_VERSION).when(radixSystem).getAgentVersion();
         MessageEvent messageEvent = new MessageEvent(peer1, transportInfo, testMessage, 10_000);
 
-        messageDispatcher.receive(null, messageEvent);
+        messageDispatcher.accept(messageEvent);
 
         String banMessage = "Old peer " + peer1 + " /Radix:/2710000:100";
         verify(peer1, times(1)).ban(banMessage);
@@ -223,7 +224,7 @@ public class MessageDispatcherTest extends RadixTest {
         doReturn(getLocalSystem().getNID()).when(radixSystem).getNID();
         MessageEvent messageEvent = new MessageEvent(peer1, transportInfo, testMessage, 10_000);
 
-        messageDispatcher.receive(null, messageEvent);
+        messageDispatcher.accept(messageEvent);
 
         verify(peer1, times(1)).ban("Message from self");
         verify(interfaces, times(1)).addInterfaceAddress(InetAddress.getByName("localhost"));
@@ -60,6 +60,36 @@ public class MessagingDummyConfigurations {
 		public int messagingOutboundQueueThreads(int defaultValue) {
 			return 1;
 		}
+
+		@Override
+		public int messagingOutboundPeerMaxInFlight(int defaultValue) {
+			return 2;
+		}
+
+		@Override
+		public int messagingOutboundPeerQueueMax(int defaultValue) {
+			return 12;
+		}
+
+		@Override
+		public int messagingOutboundPeerQuantum(int defaultValue) {
+			return 2;
+		}
+
+		@Override
+		public int messagingInboundDecodeThreads(int defaultValue) {
+			return 2;
+		}
+
+		@Override
+		public int messagingInboundDispatchThreads(int defaultValue) {
+			return 2;
+		}
+
+		@Override
+		public int messagingCompressionLevel(int defaultValue) {
+			return defaultValue;
+		}
 	}
 
 	public static class DummyTransport implements Transport {
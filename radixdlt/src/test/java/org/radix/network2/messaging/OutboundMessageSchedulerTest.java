@@ -0,0 +1,218 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import com.google.common.collect.ImmutableList;
+import com.radixdlt.common.AID;
+import com.radixdlt.crypto.Hash;
+import com.radixdlt.delivery.messages.DeliveryResponseMessage;
+import com.radixdlt.discovery.LogicalClockCursor;
+import com.radixdlt.discovery.messages.IterativeDiscoveryResponseMessage;
+import com.radixdlt.store.LedgerEntry;
+import org.junit.Test;
+import org.radix.network.messages.PeerPingMessage;
+import org.radix.network.messages.TestMessage;
+import org.radix.network.messaging.Message;
+import org.radix.network2.addressbook.Peer;
+import org.radix.universe.system.RadixSystem;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class OutboundMessageSchedulerTest {
+	private final Peer peer1 = mock(Peer.class);
+	private final Peer peer2 = mock(Peer.class);
+	private final Peer peer3 = mock(Peer.class);
+	private final Set<Peer> saturated = new HashSet<>();
+	private final AtomicLong nanoTime = new AtomicLong();
+
+	private OutboundMessageScheduler scheduler(int maxQueued, int maxQueuedPerPeer, int quantum) {
+		return new OutboundMessageScheduler(maxQueued, maxQueuedPerPeer, quantum, peer -> peer, peer -> !saturated.contains(peer), nanoTime::get);
+	}
+
+	private static MessageEvent control(Peer peer) {
+		return new MessageEvent(peer, null, new PeerPingMessage(1L, mock(RadixSystem.class), 0), 0L);
+	}
+
+	private static MessageEvent normal(Peer peer) {
+		return new MessageEvent(peer, null, new TestMessage(0), 0L);
+	}
+
+	private static MessageEvent bulk(Peer peer) {
+		return new MessageEvent(peer, null, new DeliveryResponseMessage(ImmutableList.of(), 0), 0L);
+	}
+
+	private static List<MessageEvent> takeAll(OutboundMessageScheduler scheduler) throws InterruptedException {
+		List<MessageEvent> taken = new ArrayList<>();
+		while (scheduler.size() > 0) {
+			taken.add(scheduler.take());
+		}
+		return taken;
+	}
+
+	@Test
+	public void higher_priorities_are_taken_first() throws InterruptedException {
+		OutboundMessageScheduler scheduler = scheduler(100, 10, 4);
+		MessageEvent bulk = bulk(peer1);
+		MessageEvent normal = normal(peer2);
+		MessageEvent control = control(peer1);
+		scheduler.offer(bulk);
+		scheduler.offer(normal);
+		scheduler.offer(control);
+
+		assertThat(takeAll(scheduler)).containsExactly(control, normal, bulk);
+	}
+
+	@Test
+	public void discovery_responses_carrying_entries_are_bulk() {
+		AID aid = AID.from(Hash.ZERO_HASH.toByteArray());
+		LogicalClockCursor cursor = new LogicalClockCursor(0L);
+		LedgerEntry entry = new LedgerEntry(new byte[1024], aid);
+		IterativeDiscoveryResponseMessage aids = new IterativeDiscoveryResponseMessage(ImmutableList.of(aid), cursor, 0);
+		IterativeDiscoveryResponseMessage entries = new IterativeDiscoveryResponseMessage(
+			ImmutableList.of(aid), ImmutableList.of(entry), cursor, 1, 0);
+
+		assertThat(OutboundPriority.of(aids)).isEqualTo(OutboundPriority.NORMAL);
+		assertThat(OutboundPriority.of(entries)).isEqualTo(OutboundPriority.BULK);
+	}
+
+	@Test
+	public void peers_take_turns_of_quantum_messages() throws InterruptedException {
+		OutboundMessageScheduler scheduler = scheduler(100, 10, 2);
+		for (int i = 0; i < 4; i++) {
+			scheduler.offer(normal(peer1));
+		}
+		scheduler.offer(normal(peer2));
+		scheduler.offer(normal(peer2));
+
+		List<Peer> order = new ArrayList<>();
+		takeAll(scheduler).forEach(event -> order.add(event.peer()));
+		assertThat(order).containsExactly(peer1, peer1, peer2, peer2, peer1, peer1);
+	}
+
+	@Test
+	public void saturated_peers_are_skipped_until_capacity_is_available() throws InterruptedException {
+		OutboundMessageScheduler scheduler = scheduler(100, 10, 4);
+		MessageEvent blocked = control(peer1);
+		MessageEvent other = bulk(peer2);
+		scheduler.offer(blocked);
+		scheduler.offer(other);
+		saturated.add(peer1);
+
+		assertThat(scheduler.take()).isSameAs(other);
+		assertThat(scheduler.size()).isEqualTo(1);
+
+		Thread waiting = new Thread(() -> {
+			try {
+				assertThat(scheduler.take()).isSameAs(blocked);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		waiting.start();
+		saturated.remove(peer1);
+		scheduler.capacityAvailable();
+		waiting.join(TimeUnit.SECONDS.toMillis(10));
+		assertThat(waiting.isAlive()).isFalse();
+		assertThat(scheduler.size()).isZero();
+	}
+
+	@Test
+	public void full_peer_queue_evicts_lower_priority_messages() throws InterruptedException {
+		OutboundMessageScheduler scheduler = scheduler(100, 2, 4);
+		MessageEvent normal = normal(peer1);
+		assertThat(scheduler.offer(normal)).isTrue();
+		assertThat(scheduler.offer(bulk(peer1))).isTrue();
+
+		MessageEvent control = control(peer1);
+		assertThat(scheduler.offer(control)).isTrue();
+		assertThat(scheduler.offer(normal(peer1))).isFalse();
+		// other peers are not affected
+		assertThat(scheduler.offer(bulk(peer2))).isTrue();
+
+		List<Message> taken = new ArrayList<>();
+		takeAll(scheduler).forEach(event -> taken.add(event.message()));
+		assertThat(taken).startsWith(control.message(), normal.message());
+		assertThat(taken).hasSize(3);
+	}
+
+	@Test
+	public void full_scheduler_evicts_newest_lower_priority_message_of_any_peer() throws InterruptedException {
+		OutboundMessageScheduler scheduler = scheduler(3, 10, 4);
+		MessageEvent oldest = bulk(peer1);
+		MessageEvent normal = normal(peer1);
+		MessageEvent newest = bulk(peer2);
+		scheduler.offer(oldest);
+		scheduler.offer(normal);
+		scheduler.offer(newest);
+
+		MessageEvent control = control(peer3);
+		assertThat(scheduler.offer(control)).isTrue();
+		// nothing of a lower priority left to replace
+		assertThat(scheduler.offer(bulk(peer3))).isFalse();
+
+		assertThat(takeAll(scheduler)).containsExactly(control, normal, oldest);
+		assertThat(scheduler.statistics().get(peer2.toString()).getDropped()).isEqualTo(1);
+		assertThat(scheduler.statistics().get(peer3.toString()).getDropped()).isEqualTo(1);
+	}
+
+	@Test
+	public void statistics_are_kept_per_peer() throws InterruptedException {
+		OutboundMessageScheduler scheduler = scheduler(100, 1, 4);
+		scheduler.offer(normal(peer1));
+		scheduler.offer(normal(peer1));
+		scheduler.offer(normal(peer2));
+
+		scheduler.completed(scheduler.take(), true, TimeUnit.MILLISECONDS.toNanos(5));
+		scheduler.completed(scheduler.take(), false, TimeUnit.MILLISECONDS.toNanos(7));
+
+		OutboundPeerStatistics statistics1 = scheduler.statistics().get(peer1.toString());
+		assertThat(statistics1.getSent()).isEqualTo(1);
+		assertThat(statistics1.getFailed()).isZero();
+		assertThat(statistics1.getDropped()).isEqualTo(1);
+		assertThat(statistics1.getQueued()).isZero();
+
+		OutboundPeerStatistics statistics2 = scheduler.statistics().get(peer2.toString());
+		assertThat(statistics2.getSent()).isZero();
+		assertThat(statistics2.getFailed()).isEqualTo(1);
+		assertThat(statistics2.getDropped()).isZero();
+		assertThat(statistics2.getLatencyMaxMillis()).isEqualTo(7);
+	}
+
+	@Test
+	public void statistics_of_idle_peers_are_discarded() throws InterruptedException {
+		OutboundMessageScheduler scheduler = scheduler(100, 10, 4);
+		scheduler.offer(normal(peer1));
+		scheduler.completed(scheduler.take(), true, 0L);
+		saturated.add(peer2);
+		scheduler.offer(normal(peer2));
+		scheduler.completed(normal(peer2), true, 0L);
+
+		nanoTime.addAndGet(OutboundMessageScheduler.STATISTICS_IDLE_NANOS + 1);
+
+		// peers with queued messages are kept
+		assertThat(scheduler.statistics()).containsOnlyKeys(peer2.toString());
+	}
+}
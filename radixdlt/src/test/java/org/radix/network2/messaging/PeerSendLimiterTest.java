@@ -0,0 +1,119 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import org.junit.Test;
+import org.radix.network2.transport.SendResult;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PeerSendLimiterTest {
+	private static final Object PEER1 = "peer1";
+	private static final Object PEER2 = "peer2";
+
+	private final List<CompletableFuture<SendResult>> started = new ArrayList<>();
+
+	private CompletableFuture<SendResult> startSend() {
+		CompletableFuture<SendResult> sending = new CompletableFuture<>();
+		started.add(sending);
+		return sending;
+	}
+
+	@Test
+	public void sends_beyond_limit_are_queued_until_earlier_sends_complete() {
+		PeerSendLimiter limiter = new PeerSendLimiter(2, 10);
+		CompletableFuture<SendResult> first = limiter.submit(PEER1, this::startSend);
+		limiter.submit(PEER1, this::startSend);
+		CompletableFuture<SendResult> third = limiter.submit(PEER1, this::startSend);
+
+		assertThat(started).hasSize(2);
+		assertThat(limiter.inFlight()).isEqualTo(2);
+
+		started.get(0).complete(SendResult.complete());
+		assertThat(first).isCompletedWithValueMatching(SendResult::isComplete);
+		assertThat(started).hasSize(3);
+		assertThat(limiter.inFlight()).isEqualTo(2);
+
+		started.get(1).complete(SendResult.complete());
+		started.get(2).complete(SendResult.complete());
+		assertThat(third).isCompletedWithValueMatching(SendResult::isComplete);
+		assertThat(limiter.inFlight()).isZero();
+		assertThat(limiter.trackedPeers()).isZero();
+	}
+
+	@Test
+	public void stalled_peer_does_not_delay_other_peers() {
+		PeerSendLimiter limiter = new PeerSendLimiter(1, 10);
+		limiter.submit(PEER1, this::startSend);
+		limiter.submit(PEER1, this::startSend);
+		CompletableFuture<SendResult> other = limiter.submit(PEER2, () -> CompletableFuture.completedFuture(SendResult.complete()));
+
+		assertThat(other).isCompletedWithValueMatching(SendResult::isComplete);
+		assertThat(started).hasSize(1);
+		assertThat(limiter.trackedPeers()).isEqualTo(1);
+	}
+
+	@Test
+	public void sends_beyond_queue_limit_are_dropped() {
+		PeerSendLimiter limiter = new PeerSendLimiter(1, 1);
+		limiter.submit(PEER1, this::startSend);
+		CompletableFuture<SendResult> queued = limiter.submit(PEER1, this::startSend);
+		CompletableFuture<SendResult> dropped = limiter.submit(PEER1, this::startSend);
+
+		assertThat(queued).isNotDone();
+		assertThat(dropped).isCompletedWithValueMatching(result -> !result.isComplete());
+		assertThat(started).hasSize(1);
+	}
+
+	@Test
+	public void immediately_completing_sends_drain_the_queue() {
+		PeerSendLimiter limiter = new PeerSendLimiter(1, 1000);
+		CompletableFuture<SendResult> first = limiter.submit(PEER1, this::startSend);
+		List<CompletableFuture<SendResult>> queued = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			queued.add(limiter.submit(PEER1, () -> CompletableFuture.completedFuture(SendResult.complete())));
+		}
+
+		started.get(0).complete(SendResult.complete());
+		assertThat(first).isCompleted();
+		assertThat(queued).allMatch(CompletableFuture::isDone);
+		assertThat(limiter.inFlight()).isZero();
+	}
+
+	@Test
+	public void failure_to_start_send_completes_exceptionally_and_frees_slot() {
+		PeerSendLimiter limiter = new PeerSendLimiter(1, 10);
+		CompletableFuture<SendResult> failed = limiter.submit(PEER1, () -> {
+			throw new IllegalStateException("no transport");
+		});
+		CompletableFuture<SendResult> exceptional = limiter.submit(PEER1, () -> {
+			CompletableFuture<SendResult> sending = new CompletableFuture<>();
+			sending.completeExceptionally(new IOException("connect failed"));
+			return sending;
+		});
+
+		assertThat(failed).isCompletedExceptionally();
+		assertThat(exceptional).isCompletedExceptionally();
+		assertThat(limiter.inFlight()).isZero();
+	}
+}
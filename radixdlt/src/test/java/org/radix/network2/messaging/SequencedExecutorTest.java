@@ -0,0 +1,135 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.messaging;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SequencedExecutorTest {
+	private final Queue<Runnable> submitted = new ArrayDeque<>();
+	private final List<String> ran = new ArrayList<>();
+	private SequencedExecutor<String> executor;
+
+	@Before
+	public void setUp() {
+		this.executor = new SequencedExecutor<>("test", submitted::add, 3, 5);
+	}
+
+	private void runSubmitted() {
+		while (!submitted.isEmpty()) {
+			submitted.poll().run();
+		}
+	}
+
+	private Runnable record(String name) {
+		return () -> ran.add(name);
+	}
+
+	@Test
+	public void tasks_of_a_key_run_in_order_on_one_lane() {
+		executor.execute("a", record("a1"));
+		executor.execute("a", record("a2"));
+		executor.execute("b", record("b1"));
+		// one submission per lane, not per task
+		assertThat(submitted).hasSize(2);
+		assertThat(executor.queued()).isEqualTo(3);
+		assertThat(executor.lanes()).isEqualTo(2);
+
+		runSubmitted();
+		assertThat(ran).containsExactly("a1", "a2", "b1");
+		assertThat(executor.queued()).isZero();
+		assertThat(executor.lanes()).isZero();
+	}
+
+	@Test
+	public void full_lanes_reject_tasks() {
+		assertThat(executor.execute("a", record("a1"))).isTrue();
+		assertThat(executor.execute("a", record("a2"))).isTrue();
+		assertThat(executor.execute("a", record("a3"))).isTrue();
+		assertThat(executor.execute("a", record("a4"))).isFalse();
+		// other keys are not affected
+		assertThat(executor.execute("b", record("b1"))).isTrue();
+
+		runSubmitted();
+		assertThat(ran).containsExactly("a1", "a2", "a3", "b1");
+	}
+
+	@Test
+	public void tasks_are_rejected_once_all_lanes_together_are_full() {
+		assertThat(executor.execute("a", record("a1"))).isTrue();
+		assertThat(executor.execute("a", record("a2"))).isTrue();
+		assertThat(executor.execute("b", record("b1"))).isTrue();
+		assertThat(executor.execute("c", record("c1"))).isTrue();
+		assertThat(executor.execute("d", record("d1"))).isTrue();
+		// neither new keys nor lanes below their own bound get past the total bound
+		assertThat(executor.execute("e", record("e1"))).isFalse();
+		assertThat(executor.execute("a", record("a3"))).isFalse();
+		assertThat(executor.queued()).isEqualTo(5);
+
+		runSubmitted();
+		assertThat(ran).containsExactly("a1", "a2", "b1", "c1", "d1");
+		assertThat(executor.execute("e", record("e2"))).isTrue();
+	}
+
+	@Test
+	public void failing_tasks_do_not_stop_their_lane() {
+		executor.execute("a", () -> {
+			throw new IllegalStateException("test");
+		});
+		executor.execute("a", record("a2"));
+
+		runSubmitted();
+		assertThat(ran).containsExactly("a2");
+		assertThat(executor.lanes()).isZero();
+	}
+
+	@Test
+	public void slow_keys_do_not_block_other_keys() throws InterruptedException {
+		ExecutorService threads = Executors.newFixedThreadPool(2);
+		try {
+			SequencedExecutor<String> parallel = new SequencedExecutor<>("test", threads, 10, 10);
+			CountDownLatch release = new CountDownLatch(1);
+			CountDownLatch fastDone = new CountDownLatch(1);
+			parallel.execute("slow", () -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			parallel.execute("fast", fastDone::countDown);
+
+			assertThat(fastDone.await(10, TimeUnit.SECONDS)).isTrue();
+			release.countDown();
+		} finally {
+			threads.shutdown();
+			threads.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.transport.netty;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NettyEventLoopsTest {
+
+	private static NettyConfiguration config(boolean useNative, boolean shared) {
+		return new NettyConfiguration() {
+			@Override
+			public boolean useNativeTransport(boolean defaultValue) {
+				return useNative;
+			}
+
+			@Override
+			public boolean shareEventLoops(boolean defaultValue) {
+				return shared;
+			}
+
+			@Override
+			public int sharedEventLoopThreads(int defaultValue) {
+				return 1;
+			}
+		};
+	}
+
+	@Test
+	public void nio_is_used_when_native_transport_is_disabled() {
+		NettyEventLoops eventLoops = new NettyEventLoops(config(false, false));
+		assertThat(eventLoops.isNative()).isFalse();
+		assertThat(eventLoops.supportsReusePort()).isFalse();
+		assertThat(eventLoops.socketChannelClass()).isEqualTo(NioSocketChannel.class);
+		assertThat(eventLoops.serverSocketChannelClass()).isEqualTo(NioServerSocketChannel.class);
+		assertThat(eventLoops.datagramChannelClass()).isEqualTo(NioDatagramChannel.class);
+
+		EventLoopGroup group = eventLoops.newGroup(1, Executors.defaultThreadFactory());
+		try {
+			assertThat(group).isInstanceOf(NioEventLoopGroup.class);
+		} finally {
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void reuse_port_requires_native_transport() {
+		new NettyEventLoops(config(false, false)).enableReusePort(new Bootstrap());
+	}
+
+	@Test
+	public void worker_group_is_shared_if_configured() {
+		NettyEventLoops eventLoops = new NettyEventLoops(config(false, true));
+		EventLoopGroup first = eventLoops.workerGroup(1, Executors.defaultThreadFactory());
+		try {
+			assertThat(eventLoops.workerGroup(1, Executors.defaultThreadFactory())).isSameAs(first);
+		} finally {
+			first.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void worker_groups_are_separate_by_default() {
+		NettyEventLoops eventLoops = new NettyEventLoops(config(false, false));
+		EventLoopGroup first = eventLoops.workerGroup(1, Executors.defaultThreadFactory());
+		EventLoopGroup second = eventLoops.workerGroup(1, Executors.defaultThreadFactory());
+		try {
+			assertThat(second).isNotSameAs(first);
+		} finally {
+			first.shutdownGracefully();
+			second.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void module_installed_twice_provides_one_instance() {
+		Injector injector = Guice.createInjector(
+			new AbstractModule() {
+				@Override
+				protected void configure() {
+					install(new NettyModule(NettyConfiguration.defaults()));
+				}
+			},
+			new AbstractModule() {
+				@Override
+				protected void configure() {
+					install(new NettyModule(NettyConfiguration.defaults()));
+				}
+			}
+		);
+		assertThat(injector.getInstance(NettyEventLoops.class)).isSameAs(injector.getInstance(NettyEventLoops.class));
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * (C) Copyright 2020 Radix DLT Ltd
+ *
+ * Radix DLT Ltd licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.radix.network2.transport.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TCPFlushCoalescingHandlerTest {
+	private EmbeddedChannel channel;
+	private int flushes;
+
+	@Before
+	public void setUp() {
+		this.flushes = 0;
+		this.channel = new EmbeddedChannel(
+			new ChannelOutboundHandlerAdapter() {
+				@Override
+				public void flush(ChannelHandlerContext ctx) throws Exception {
+					flushes += 1;
+					ctx.flush();
+				}
+			},
+			new TCPFlushCoalescingHandler(100)
+		);
+		// EmbeddedChannel may flush on registration
+		this.flushes = 0;
+	}
+
+	private static ByteBuf bytes(int size) {
+		return Unpooled.wrappedBuffer(new byte[size]);
+	}
+
+	@Test
+	public void writes_of_one_tick_are_flushed_together() {
+		ChannelFuture first = channel.write(bytes(10));
+		ChannelFuture second = channel.write(bytes(10));
+		ChannelFuture third = channel.write(bytes(10));
+		assertThat(channel.outboundMessages()).isEmpty();
+		assertThat(first.isDone()).isFalse();
+
+		channel.runPendingTasks();
+		assertThat(flushes).isEqualTo(1);
+		assertThat(channel.outboundMessages()).hasSize(3);
+		assertThat(first.isSuccess()).isTrue();
+		assertThat(second.isSuccess()).isTrue();
+		assertThat(third.isSuccess()).isTrue();
+	}
+
+	@Test
+	public void writes_are_flushed_immediately_over_threshold() {
+		channel.write(bytes(60));
+		assertThat(flushes).isZero();
+		channel.write(bytes(60));
+		assertThat(flushes).isEqualTo(1);
+		assertThat(channel.outboundMessages()).hasSize(2);
+
+		// nothing left for the scheduled flush to do
+		channel.runPendingTasks();
+		assertThat(flushes).isEqualTo(1);
+	}
+
+	@Test
+	public void empty_writes_are_flushed() {
+		channel.write(bytes(0));
+		channel.runPendingTasks();
+		assertThat(channel.outboundMessages()).hasSize(1);
+	}
+
+	@Test
+	public void explicit_flush_is_passed_through() {
+		channel.write(bytes(10));
+		channel.flush();
+		assertThat(flushes).isEqualTo(1);
+		assertThat(channel.outboundMessages()).hasSize(1);
+	}
+
+	@Test
+	public void pending_writes_are_flushed_on_close() {
+		channel.write(bytes(10));
+		channel.close();
+		assertThat(channel.outboundMessages()).hasSize(1);
+	}
+}
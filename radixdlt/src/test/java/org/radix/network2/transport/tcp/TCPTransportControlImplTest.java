@@ -24,6 +24,7 @@ import org.radix.network2.transport.TransportMetadata;
 import org.radix.network2.transport.TransportOutboundConnection;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -33,10 +34,18 @@ import static org.mockito.Mockito.*;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.socket.SocketChannel;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 
 public class TCPTransportControlImplTest {
+	private static final String HOST = "127.0.0.1";
+	private static final TransportMetadata METADATA = StaticTransportMetadata.of(
+		TCPConstants.METADATA_TCP_HOST, HOST,
+		TCPConstants.METADATA_TCP_PORT, "443"
+	);
+
 	private TCPConfiguration config;
 	private NettyTCPTransport transport;
 	private TCPTransportOutboundConnectionFactory outboundFactory;
@@ -69,6 +78,16 @@ public class TCPTransportControlImplTest {
 			public int priority(int defaultValue) {
 				return 0;
 			}
+
+			@Override
+			public int flushThreshold(int defaultValue) {
+				return defaultValue;
+			}
+
+			@Override
+			public int channelsPerPeer(int defaultValue) {
+				return 2;
+			}
 		};
 
 		transportOutboundConnection = mock(TransportOutboundConnection.class);
@@ -100,4 +119,63 @@ public class TCPTransportControlImplTest {
 			assertThat(result.get()).isEqualTo(transportOutboundConnection);
 		}
 	}
+
+	@Test
+	public void open_reuses_writable_channel() throws Exception {
+		try (TCPTransportControlImpl tcpTransportControl = new TCPTransportControlImpl(config, outboundFactory, transport)) {
+			SocketChannel ch = activate(tcpTransportControl, true);
+
+			tcpTransportControl.open(METADATA).get();
+			tcpTransportControl.open(METADATA).get();
+			verify(outboundFactory, times(2)).create(eq(ch), any());
+			verify(transport, never()).createChannel(any(), anyInt());
+		}
+	}
+
+	@Test
+	public void open_adds_channel_while_existing_channels_are_busy() throws Exception {
+		try (TCPTransportControlImpl tcpTransportControl = new TCPTransportControlImpl(config, outboundFactory, transport)) {
+			activate(tcpTransportControl, false);
+			tcpTransportControl.open(METADATA).get();
+			verify(transport, times(1)).createChannel(HOST, 443);
+
+			// Two busy channels is the configured maximum, so one of them is used
+			activate(tcpTransportControl, false);
+			tcpTransportControl.open(METADATA).get();
+			verify(transport, times(1)).createChannel(any(), anyInt());
+			assertThat(tcpTransportControl.channelCount(HOST)).isEqualTo(2);
+		}
+	}
+
+	@Test
+	public void closed_channels_are_removed() throws Exception {
+		try (TCPTransportControlImpl tcpTransportControl = new TCPTransportControlImpl(config, outboundFactory, transport)) {
+			SocketChannel ch = activate(tcpTransportControl, true);
+			assertThat(tcpTransportControl.channelCount(HOST)).isEqualTo(1);
+
+			when(ch.isActive()).thenReturn(false);
+			tcpTransportControl.handler().channelInactive(context(ch));
+			assertThat(tcpTransportControl.channelCount(HOST)).isZero();
+
+			tcpTransportControl.open(METADATA).get();
+			verify(transport, times(1)).createChannel(HOST, 443);
+		}
+	}
+
+	private SocketChannel activate(TCPTransportControlImpl tcpTransportControl, boolean writable) throws Exception {
+		SocketChannel ch = mock(SocketChannel.class);
+		when(ch.remoteAddress()).thenReturn(new InetSocketAddress(HOST, 443));
+		when(ch.localAddress()).thenReturn(new InetSocketAddress(HOST, 30000));
+		when(ch.isActive()).thenReturn(true);
+		when(ch.isWritable()).thenReturn(writable);
+		when(ch.close()).thenReturn(mock(ChannelFuture.class));
+		tcpTransportControl.handler().channelActive(context(ch));
+		return ch;
+	}
+
+	private static ChannelHandlerContext context(Channel ch) {
+		ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+		when(ctx.channel()).thenReturn(ch);
+		return ctx;
+	}
 }
\ No newline at end of file